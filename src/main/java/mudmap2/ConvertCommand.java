@@ -0,0 +1,130 @@
+/*  MUD Map (v2) - A tool to create and organize maps for text-based games
+ *  Copyright (C) 2026  Neop (email: mneop@web.de)
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License along
+ *  with this program; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*  File description
+ *
+ *  Command line converter between the JSON and the binary world file format
+ */
+
+package mudmap2;
+
+import java.io.PrintStream;
+import mudmap2.backend.WorldFileReader.WorldFileType;
+import mudmap2.backend.WorldFileReader.current.WorldFileConverter;
+import mudmap2.backend.WorldFileReader.current.WorldFileDefault;
+
+/**
+ * Converts world files from the command line:
+ * --convert source target [--json|--binary]
+ *
+ * Without format option a JSON file is converted to binary and a binary
+ * file to JSON
+ * @author neop
+ */
+public final class ConvertCommand {
+
+    final PrintStream out;
+    final PrintStream err;
+
+    String source = null;
+    String target = null;
+    WorldFileType type = null;
+
+    ConvertCommand(PrintStream out, PrintStream err){
+        this.out = out;
+        this.err = err;
+    }
+
+    /**
+     * Checks whether the arguments request the converter
+     * @param args command line arguments
+     * @return true if the first argument is --convert
+     */
+    public static boolean isConvertCommand(String[] args){
+        return args.length > 0 && args[0].equals("--convert");
+    }
+
+    /**
+     * Runs the converter
+     * @param args command line arguments
+     * @return exit code
+     */
+    public static int run(String[] args){
+        System.setProperty("java.awt.headless", "true");
+        return new ConvertCommand(System.out, System.err).execute(args);
+    }
+
+    /**
+     * Parses the arguments and converts the file
+     * @param args command line arguments
+     * @return exit code
+     */
+    int execute(String[] args){
+        try {
+            parseArguments(args);
+        } catch (IllegalArgumentException ex) {
+            err.println(ex.getMessage());
+            err.println("Usage: --convert source target [--json|--binary]");
+            return RenderCommand.EXIT_USAGE;
+        }
+
+        WorldFileDefault sourceFile = new WorldFileDefault(source);
+        if(!sourceFile.canRead()){
+            err.println("Not a world file: " + source);
+            return RenderCommand.EXIT_FAILED;
+        }
+        if(type == null){
+            type = sourceFile.getWorldFileType() == WorldFileType.BINARY ? WorldFileType.JSON : WorldFileType.BINARY;
+        }
+
+        try {
+            WorldFileConverter.convert(sourceFile, WorldFileConverter.create(target, type));
+        } catch (Exception ex) {
+            err.println("Could not convert world file " + source + ": " + ex.getLocalizedMessage());
+            return RenderCommand.EXIT_FAILED;
+        }
+        out.println("Converted " + source + " to " + target + " (" + type + ")");
+        return RenderCommand.EXIT_OK;
+    }
+
+    /**
+     * Reads the options
+     * @param args command line arguments
+     * @throws IllegalArgumentException on invalid arguments
+     */
+    void parseArguments(String[] args) throws IllegalArgumentException {
+        for(int i = 0; i < args.length; ++i){
+            switch(args[i]){
+                case "--convert":
+                    if(i + 2 >= args.length) throw new IllegalArgumentException("Missing source or target file");
+                    source = args[++i];
+                    target = args[++i];
+                    break;
+                case "--json":
+                    type = WorldFileType.JSON;
+                    break;
+                case "--binary":
+                    type = WorldFileType.BINARY;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown argument: " + args[i]);
+            }
+        }
+        if(source == null) throw new IllegalArgumentException("No world file given");
+    }
+
+}
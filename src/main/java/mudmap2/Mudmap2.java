@@ -42,6 +42,15 @@ public final class Mudmap2 {
      * @param args the command line arguments
      */
     public static void main(String[] args) {
+        // render maps from the command line without loading the UI
+        if(RenderCommand.isRenderCommand(args)){
+            System.exit(RenderCommand.run(args));
+        }
+        // convert world files between the JSON and the binary format
+        if(ConvertCommand.isConvertCommand(args)){
+            System.exit(ConvertCommand.run(args));
+        }
+
         try {
             UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
 
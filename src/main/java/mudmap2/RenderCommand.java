@@ -0,0 +1,472 @@
+/*  MUD Map (v2) - A tool to create and organize maps for text-based games
+ *  Copyright (C) 2026  Neop (email: mneop@web.de)
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License along
+ *  with this program; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*  File description
+ *
+ *  Command line renderer, exports maps of a world file to PNG images without
+ *  opening the main window. Maps that didn't change since the last run are
+ *  skipped
+ */
+
+package mudmap2;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ForkJoinPool;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import mudmap2.backend.Layer;
+import mudmap2.backend.LayerContentHash;
+import mudmap2.backend.World;
+import mudmap2.backend.WorldCoordinate;
+import mudmap2.backend.WorldFileReader.current.WorldFileDefault;
+import mudmap2.frontend.export.BatchExporter;
+import mudmap2.frontend.export.MapImageRenderer;
+import mudmap2.frontend.export.StreamingMapExporter;
+import mudmap2.frontend.export.SvgExporter;
+import mudmap2.frontend.export.TilePyramidExporter;
+import mudmap2.utils.Pair;
+
+/**
+ * Renders maps from the command line:
+ * --render world.json [--layer id|name]... [--tile-size px] [--out dir]
+ * [--threads n] [--tiles zoom levels] [--svg] [--force]
+ *
+ * With --tiles each map is exported as z/x/y tile pyramid into a directory
+ * named by the map id, --tile-size is the place size at the highest zoom.
+ * With --svg the maps are written as SVG vector images
+ *
+ * Only the backend and the map painter are used, no Swing components are
+ * created, so it runs with java.awt.headless=true
+ * @author neop
+ */
+public final class RenderCommand {
+
+    public static final int DEFAULT_TILE_SIZE = 40;
+    // file in the output directory with the content hashes of the images
+    public static final String MANIFEST_FILE = "mudmap-render.properties";
+
+    public static final int EXIT_OK = 0;
+    public static final int EXIT_FAILED = 1;
+    public static final int EXIT_USAGE = 2;
+
+    final PrintStream out;
+    final PrintStream err;
+
+    String worldFile = null;
+    final ArrayList<String> layers = new ArrayList<>();
+    int tileSize = DEFAULT_TILE_SIZE;
+    File outDir = new File(".");
+    int threads = BatchExporter.getDefaultParallelism();
+    boolean force = false;
+    // zoom levels of tile pyramids, 0 for single images
+    int tileZoomLevels = 0;
+    boolean svg = false;
+
+    // results of the last run
+    int rendered = 0, skipped = 0, failed = 0;
+
+    RenderCommand(PrintStream out, PrintStream err){
+        this.out = out;
+        this.err = err;
+    }
+
+    /**
+     * Checks whether the arguments request the command line renderer
+     * @param args command line arguments
+     * @return true if the first argument is --render
+     */
+    public static boolean isRenderCommand(String[] args){
+        return args.length > 0 && args[0].equals("--render");
+    }
+
+    /**
+     * Runs the command line renderer
+     * @param args command line arguments
+     * @return exit code
+     */
+    public static int run(String[] args){
+        // has to be set before any AWT class is initialized
+        System.setProperty("java.awt.headless", "true");
+        return new RenderCommand(System.out, System.err).execute(args);
+    }
+
+    /**
+     * Parses the arguments and renders the maps
+     * @param args command line arguments
+     * @return exit code
+     */
+    int execute(String[] args){
+        try {
+            parseArguments(args);
+        } catch (IllegalArgumentException ex) {
+            err.println(ex.getMessage());
+            printUsage();
+            return EXIT_USAGE;
+        }
+
+        World world;
+        try {
+            world = new WorldFileDefault(worldFile).readFile();
+        } catch (Exception ex) {
+            err.println("Could not read world file " + worldFile + ": " + ex.getLocalizedMessage());
+            return EXIT_FAILED;
+        }
+
+        List<Layer> selectedLayers;
+        try {
+            selectedLayers = selectLayers(world);
+        } catch (IllegalArgumentException ex) {
+            err.println(ex.getMessage());
+            return EXIT_USAGE;
+        }
+
+        if(!outDir.isDirectory() && !outDir.mkdirs()){
+            err.println("Could not create output directory " + outDir.getPath());
+            return EXIT_FAILED;
+        }
+
+        if(tileZoomLevels > 0){
+            return renderTiles(selectedLayers);
+        }
+        if(svg){
+            return renderSvg(selectedLayers);
+        }
+        return render(selectedLayers);
+    }
+
+    /**
+     * Reads the options
+     * @param args command line arguments
+     * @throws IllegalArgumentException on invalid arguments
+     */
+    void parseArguments(String[] args) throws IllegalArgumentException {
+        for(int i = 0; i < args.length; ++i){
+            switch(args[i]){
+                case "--render":
+                    worldFile = getValue(args, ++i);
+                    break;
+                case "--layer":
+                    layers.add(getValue(args, ++i));
+                    break;
+                case "--tile-size":
+                    tileSize = getIntValue(args, ++i);
+                    break;
+                case "--out":
+                    outDir = new File(getValue(args, ++i));
+                    break;
+                case "--threads":
+                    threads = getIntValue(args, ++i);
+                    break;
+                case "--tiles":
+                    tileZoomLevels = getIntValue(args, ++i);
+                    if(tileZoomLevels < 1) throw new IllegalArgumentException("Invalid zoom level count: " + tileZoomLevels);
+                    break;
+                case "--svg":
+                    svg = true;
+                    break;
+                case "--force":
+                    force = true;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown argument: " + args[i]);
+            }
+        }
+
+        if(worldFile == null) throw new IllegalArgumentException("No world file given");
+        if(tileSize < 1) throw new IllegalArgumentException("Invalid tile size: " + tileSize);
+        if(threads < 1) throw new IllegalArgumentException("Invalid thread count: " + threads);
+        if(svg && tileZoomLevels > 0) throw new IllegalArgumentException("--svg can't be used with --tiles");
+    }
+
+    private static String getValue(String[] args, int i){
+        if(i >= args.length) throw new IllegalArgumentException("Missing value for " + args[i - 1]);
+        return args[i];
+    }
+
+    private static int getIntValue(String[] args, int i){
+        String value = getValue(args, i);
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid number for " + args[i - 1] + ": " + value);
+        }
+    }
+
+    void printUsage(){
+        err.println("Usage: --render <world file> [--layer <id or name>]... [--tile-size <px>]");
+        err.println("       [--out <directory>] [--threads <n>] [--tiles <zoom levels>] [--svg] [--force]");
+        err.println("Renders all maps or the given maps to PNG images. Maps that didn't change");
+        err.println("since the last run are skipped unless --force is given. With --tiles the");
+        err.println("maps are exported as z/x/y tile pyramids, only changed tiles are rendered.");
+        err.println("With --svg the maps are exported as SVG images.");
+    }
+
+    /**
+     * Gets the layers selected by --layer, all layers if none are selected
+     * @param world world
+     * @return selected layers
+     * @throws IllegalArgumentException if a layer doesn't exist
+     */
+    List<Layer> selectLayers(World world) throws IllegalArgumentException {
+        ArrayList<Layer> ret = new ArrayList<>();
+        if(layers.isEmpty()){
+            ret.addAll(world.getLayers());
+        } else {
+            for(String name: layers){
+                Layer layer = null;
+                try {
+                    layer = world.getLayer(Integer.parseInt(name));
+                } catch (NumberFormatException ex) {
+                    // not an id
+                }
+                if(layer == null){
+                    for(Layer l: world.getLayers()){
+                        if(l.getName().equals(name)){
+                            layer = l;
+                            break;
+                        }
+                    }
+                }
+                if(layer == null) throw new IllegalArgumentException("Map not found: " + name);
+                if(!ret.contains(layer)) ret.add(layer);
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Renders the layers that changed since the last run
+     * @param selectedLayers layers to render
+     * @return exit code
+     */
+    int render(List<Layer> selectedLayers){
+        Properties manifest = readManifest();
+        final String settings = "tileSize=" + tileSize;
+
+        ArrayList<BatchExporter.Job> jobs = new ArrayList<>();
+        HashMap<BatchExporter.Job, String> hashes = new HashMap<>();
+        for(Layer layer: selectedLayers){
+            if(layer.isEmpty()){
+                out.println("Skipping empty map " + layer.getName());
+                continue;
+            }
+
+            File file = new File(outDir, getFileName(layer));
+            String hash = LayerContentHash.compute(layer, settings);
+            if(!force && file.exists() && hash.equals(manifest.getProperty(file.getName()))){
+                out.println("Unchanged: " + file.getName());
+                ++skipped;
+                continue;
+            }
+
+            BatchExporter.Job job = new BatchExporter.Job(layer.getName(), file, createExporter(layer));
+            jobs.add(job);
+            hashes.put(job, hash);
+        }
+
+        if(!jobs.isEmpty()){
+            BatchExporter batch = new BatchExporter(jobs);
+            batch.setParallelism(threads);
+            try {
+                batch.run();
+            } catch (InterruptedException ex) {
+                batch.cancel();
+                Thread.currentThread().interrupt();
+            }
+
+            for(BatchExporter.Job job: jobs){
+                if(job.getState() == BatchExporter.State.DONE){
+                    manifest.setProperty(job.getFile().getName(), hashes.get(job));
+                    out.println("Rendered: " + job.getFile().getName() + " ("
+                            + job.getExporter().getImageWidth() + "x"
+                            + job.getExporter().getImageHeight() + "px, "
+                            + job.getDuration() + " ms)");
+                    ++rendered;
+                } else {
+                    manifest.remove(job.getFile().getName());
+                    err.println("Failed: " + job.getFile().getName()
+                            + (job.getError() != null ? ": " + job.getError() : ""));
+                    ++failed;
+                }
+            }
+
+            writeManifest(manifest);
+        }
+
+        out.println(rendered + " rendered, " + skipped + " unchanged, " + failed + " failed");
+        return failed == 0 ? EXIT_OK : EXIT_FAILED;
+    }
+
+    /**
+     * Writes the layers that changed since the last run as SVG images, one
+     * after another since writing is limited by the disk
+     * @param selectedLayers layers to export
+     * @return exit code
+     */
+    int renderSvg(List<Layer> selectedLayers){
+        Properties manifest = readManifest();
+        final String settings = "tileSize=" + tileSize + ";svg";
+
+        for(Layer layer: selectedLayers){
+            if(layer.isEmpty()){
+                out.println("Skipping empty map " + layer.getName());
+                continue;
+            }
+
+            File file = new File(outDir, getFileName(layer, ".svg"));
+            String hash = LayerContentHash.compute(layer, settings);
+            if(!force && file.exists() && hash.equals(manifest.getProperty(file.getName()))){
+                out.println("Unchanged: " + file.getName());
+                ++skipped;
+                continue;
+            }
+
+            SvgExporter exporter = new SvgExporter(layer, tileSize);
+            final long startTime = System.currentTimeMillis();
+            try {
+                exporter.write(new BufferedOutputStream(new FileOutputStream(file)));
+                manifest.setProperty(file.getName(), hash);
+                out.println("Rendered: " + file.getName() + " ("
+                        + exporter.getWidth() + "x" + exporter.getHeight() + "px, "
+                        + (System.currentTimeMillis() - startTime) + " ms)");
+                ++rendered;
+            } catch (IOException | RuntimeException ex) {
+                // don't leave incomplete images
+                file.delete();
+                manifest.remove(file.getName());
+                err.println("Failed: " + file.getName() + ": " + ex.getLocalizedMessage());
+                ++failed;
+            }
+        }
+        writeManifest(manifest);
+
+        out.println(rendered + " rendered, " + skipped + " unchanged, " + failed + " failed");
+        return failed == 0 ? EXIT_OK : EXIT_FAILED;
+    }
+
+    /**
+     * Exports the layers as tile pyramids
+     * @param selectedLayers layers to export
+     * @return exit code
+     */
+    int renderTiles(List<Layer> selectedLayers){
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            for(Layer layer: selectedLayers){
+                if(layer.isEmpty()){
+                    out.println("Skipping empty map " + layer.getName());
+                    continue;
+                }
+
+                TilePyramidExporter exporter = new TilePyramidExporter(layer, new File(outDir, String.valueOf(layer.getId())));
+                exporter.setMaxTileSize(tileSize);
+                exporter.setZoomLevels(tileZoomLevels);
+                exporter.setForce(force);
+
+                final long startTime = System.currentTimeMillis();
+                try {
+                    exporter.export(pool);
+                    out.println("Tiles of " + layer.getName() + ": "
+                            + exporter.getTilesRendered() + " rendered, "
+                            + exporter.getTilesSkipped() + " unchanged, "
+                            + exporter.getTilesRemoved() + " removed ("
+                            + (System.currentTimeMillis() - startTime) + " ms)");
+                    rendered += exporter.getTilesRendered();
+                    skipped += exporter.getTilesSkipped();
+                } catch (IOException ex) {
+                    err.println("Failed: tiles of " + layer.getName() + ": " + ex.getLocalizedMessage());
+                    ++failed;
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        out.println(rendered + " tiles rendered, " + skipped + " unchanged, " + failed + " maps failed");
+        return failed == 0 ? EXIT_OK : EXIT_FAILED;
+    }
+
+    /**
+     * Creates the exporter for a whole map
+     * @param layer map
+     * @return exporter
+     */
+    StreamingMapExporter createExporter(Layer layer){
+        int width = (layer.getXMax() - layer.getXMin() + 1) * tileSize;
+        int height = (layer.getYMax() - layer.getYMin() + 1) * tileSize;
+
+        Pair<Double, Double> exactCenter = layer.getExactCenter();
+        // add / subtract 1/2 since tiles are positioned by center, not corner
+        WorldCoordinate center = new WorldCoordinate(layer.getId(), exactCenter.first + 0.5, exactCenter.second - 0.5);
+
+        return new StreamingMapExporter(new MapImageRenderer(layer, center, tileSize, width, height));
+    }
+
+    /**
+     * Gets the image file name of a layer
+     * @param layer
+     * @return file name with id and name
+     */
+    static String getFileName(Layer layer){
+        return getFileName(layer, ".png");
+    }
+
+    /**
+     * Gets the image file name of a layer
+     * @param layer
+     * @param suffix file name extension, with dot
+     * @return file name with id and name
+     */
+    static String getFileName(Layer layer, String suffix){
+        return layer.getId() + "_" + layer.getName().replaceAll("[^\\w.-]", "_") + suffix;
+    }
+
+    Properties readManifest(){
+        Properties manifest = new Properties();
+        File file = new File(outDir, MANIFEST_FILE);
+        if(file.exists()){
+            try (InputStream in = new FileInputStream(file)) {
+                manifest.load(in);
+            } catch (IOException ex) {
+                Logger.getLogger(RenderCommand.class.getName()).log(Level.WARNING, null, ex);
+            }
+        }
+        return manifest;
+    }
+
+    void writeManifest(Properties manifest){
+        File file = new File(outDir, MANIFEST_FILE);
+        try (OutputStream os = new FileOutputStream(file)) {
+            manifest.store(os, "MUD Map rendered images");
+        } catch (IOException ex) {
+            Logger.getLogger(RenderCommand.class.getName()).log(Level.SEVERE, null, ex);
+            err.println("Could not write " + file.getPath());
+        }
+    }
+
+}
@@ -32,6 +32,8 @@ import java.util.List;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import mudmap2.backend.prquadtree.Quadtree;
 import mudmap2.utils.Pair;
@@ -60,6 +62,17 @@ public class Layer implements WorldChangeListener {
     boolean placeNameCacheNeedsUpdate = true;
     boolean sizeCacheNeedsUpdated = true;
 
+    // spatial index of the paths, recreated on demand after changes
+    PathSegmentIndex pathSegmentIndex = null;
+
+    final LinkedList<LayerChangeListener> layerChangeListeners = new LinkedList<>();
+
+    // reads the places on first access, null if they have been read
+    volatile LayerLoader loader = null;
+    // number of places that haven't been read yet
+    int loaderPlaceCount = 0;
+    volatile Thread loadingThread = null;
+
     /**
      * Constructor, sets layer id
      * @param id layer id
@@ -118,6 +131,55 @@ public class Layer implements WorldChangeListener {
         return name != null;
     }
 
+    /**
+     * Sets a loader that reads the places when they are accessed for the
+     * first time
+     * @param loader loader or null
+     * @param placeCount number of places the loader will add
+     */
+    public void setLoader(final LayerLoader loader, final int placeCount) {
+        loaderPlaceCount = placeCount;
+        this.loader = loader;
+    }
+
+    /**
+     * Checks whether the places of the layer have been read
+     * @return false if the places will be read on first access
+     */
+    public boolean isLoaded() {
+        return loader == null;
+    }
+
+    /**
+     * Reads the places, if it hasn't been done yet. Other threads wait until
+     * the places are read
+     */
+    public void load() {
+        if(loader != null && loadingThread != Thread.currentThread()) {
+            loadSynchronized();
+        }
+    }
+
+    private synchronized void loadSynchronized() {
+        if(loader == null) return;
+        loadingThread = Thread.currentThread();
+        world.beginLoadingLayer();
+        try {
+            loader.load(this);
+        } catch (final Exception ex) {
+            Logger.getLogger(Layer.class.getName()).log(Level.SEVERE, "Could not read the places of layer " + getName(), ex);
+            // the layer is incomplete, saving would lose the missing places
+            world.loadError = ex;
+        } finally {
+            world.endLoadingLayer();
+            sizeCacheNeedsUpdated = true;
+            placeNameCacheNeedsUpdate = true;
+            pathSegmentIndex = null;
+            loadingThread = null;
+            loader = null;
+        }
+    }
+
     /**
      * Use this only to set an optimized quadtree after construction
      * @param center_x
@@ -215,6 +277,7 @@ public class Layer implements WorldChangeListener {
      * @throws mudmap2.backend.Layer.PlaceNotInsertedException
      */
     public void put(final LayerElement element) throws PlaceNotInsertedException {
+        load();
         try {
             // remove element from other layer if one is set
             if(element.getLayer() != null){
@@ -223,7 +286,13 @@ public class Layer implements WorldChangeListener {
 
             elements.insert(element, element.getX(), element.getY());
             sizeCacheNeedsUpdated = true;
+            invalidatePathSegmentIndex();
             world.callListeners(element);
+            if(!world.isLoadingLayer()){
+                for(LayerChangeListener listener: layerChangeListeners){
+                    listener.elementAdded(this, element);
+                }
+            }
         } catch (final Exception ex) {
             throw new PlaceNotInsertedException(element.getX(), element.getY());
         }
@@ -236,6 +305,7 @@ public class Layer implements WorldChangeListener {
      * @return element at that position or null
      */
     public Place get(final int x, final int y) {
+        load();
         LayerElement layerElement = elements.get(x, y);
         if(layerElement != null && layerElement instanceof Place) {
             return (Place) layerElement;
@@ -287,8 +357,47 @@ public class Layer implements WorldChangeListener {
      * @param element
      */
     public void remove(final LayerElement element) {
-        elements.remove(element);
+        load();
+        // eg. put() removes an element that isn't inserted yet
+        if(!contains(element)) return;
+        elements.remove(element.getX(), element.getY());
+        sizeCacheNeedsUpdated = true;
+        invalidatePathSegmentIndex();
         world.callListeners(this);
+        if(!world.isLoadingLayer()){
+            for(LayerChangeListener listener: layerChangeListeners){
+                listener.elementRemoved(this, element);
+            }
+        }
+    }
+
+    /**
+     * Checks whether an element is in this layer. Elements are always stored
+     * at their own position, so only that position is looked up instead of
+     * searching the whole quadtree
+     * @param element
+     * @return true if the element is in the layer
+     */
+    boolean contains(final LayerElement element) {
+        // places that haven't been read aren't in the layer yet
+        if(loader != null && loadingThread != Thread.currentThread()) return false;
+        return elements.get(element.getX(), element.getY()) == element;
+    }
+
+    /**
+     * Adds a listener that is notified about added and removed elements
+     * @param listener
+     */
+    public void addLayerChangeListener(LayerChangeListener listener){
+        if(!layerChangeListeners.contains(listener)) layerChangeListeners.add(listener);
+    }
+
+    /**
+     * Removes a layer change listener
+     * @param listener
+     */
+    public void removeLayerChangeListener(LayerChangeListener listener){
+        layerChangeListeners.remove(listener);
     }
 
     /**
@@ -298,6 +407,7 @@ public class Layer implements WorldChangeListener {
      * @return true, if an element exists
      */
     public boolean exist(final int x, final int y) {
+        load();
         return elements.exist(x, y);
     }
 
@@ -306,14 +416,26 @@ public class Layer implements WorldChangeListener {
      * @return true if empty
      */
     public boolean isEmpty() {
+        if(loader != null && loadingThread != Thread.currentThread()) return loaderPlaceCount == 0;
         return elements.isEmpty();
     }
 
+    /**
+     * Gets the number of places, places that haven't been read are counted
+     * without reading them
+     * @return number of places
+     */
+    public int getPlaceCount() {
+        if(loader != null && loadingThread != Thread.currentThread()) return loaderPlaceCount;
+        return elements.values().size();
+    }
+
     /**
      * Gets a collection of all places
      * @return set of all elements or empty set
      */
     public HashSet<Place> getPlaces(){
+        load();
         return new HashSet(elements.values());
     }
 
@@ -322,6 +444,7 @@ public class Layer implements WorldChangeListener {
      * @return
      */
     public HashSet<LayerElement> getLayerElements(){
+        load();
         return elements.values();
     }
 
@@ -372,7 +495,7 @@ public class Layer implements WorldChangeListener {
      * @param name place name to check
      * @return true if name is unique on this layer
      */
-    public boolean isPlaceNameUnique(final String name){
+    public synchronized boolean isPlaceNameUnique(final String name){
         if(placeNameCacheNeedsUpdate) {
             updatePlaceNameCache();
         }
@@ -405,6 +528,24 @@ public class Layer implements WorldChangeListener {
         }
     }
 
+    /**
+     * Gets the spatial index of all paths with both places on this layer
+     * @return path index
+     */
+    public synchronized PathSegmentIndex getPathSegmentIndex(){
+        if(pathSegmentIndex == null){
+            pathSegmentIndex = new PathSegmentIndex(this);
+        }
+        return pathSegmentIndex;
+    }
+
+    /**
+     * Discards the path index, it will be recreated on next access
+     */
+    synchronized void invalidatePathSegmentIndex(){
+        pathSegmentIndex = null;
+    }
+
     private void updateSizeCache(){
         if(sizeCacheNeedsUpdated){
             maxX = Integer.MIN_VALUE;
@@ -438,9 +579,13 @@ public class Layer implements WorldChangeListener {
 
     @Override
     public void worldChanged(final Object source) {
-        // if source is a place on this layer
-        if (source instanceof Place && elements.contains((Place) source) || source instanceof Layer && source == this) {
+        // if source is a place on this layer, path changes and moves
+        // invalidate the path segment index directly
+        if (source instanceof Place && contains((Place) source)) {
+            placeNameCacheNeedsUpdate = true;
+        } else if (source instanceof Layer && source == this) {
             placeNameCacheNeedsUpdate = true;
+            invalidatePathSegmentIndex();
         }
     }
 
@@ -0,0 +1,42 @@
+/*  MUD Map (v2) - A tool to create and organize maps for text-based games
+ *  Copyright (C) 2026  Neop (email: mneop@web.de)
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License along
+ *  with this program; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+package mudmap2.backend;
+
+/**
+ * Gets notified when elements are added to or removed from a layer. Unlike
+ * WorldChangeListener it is told which element changed. Moving an element
+ * removes and adds it again
+ * @author neop
+ */
+public interface LayerChangeListener {
+
+    /**
+     * Called after an element was added to the layer
+     * @param layer layer
+     * @param element added element, at its new position
+     */
+    public void elementAdded(Layer layer, LayerElement element);
+
+    /**
+     * Called after an element was removed from the layer
+     * @param layer layer
+     * @param element removed element
+     */
+    public void elementRemoved(Layer layer, LayerElement element);
+
+}
@@ -0,0 +1,253 @@
+/*  MUD Map (v2) - A tool to create and organize maps for text-based games
+ *  Copyright (C) 2026  Neop (email: mneop@web.de)
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License along
+ *  with this program; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*  File description
+ *
+ *  Calculates a hash of everything that affects how a layer is drawn, so
+ *  rendered images can be reused while a layer is unchanged
+ */
+
+package mudmap2.backend;
+
+import java.awt.Color;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Content hash of a layer. It includes the places of the layer with their
+ * paths, children, colors and texts and the world settings that are used
+ * for drawing, eg. path colors. It doesn't depend on the order the places
+ * were added in
+ * @author neop
+ */
+public class LayerContentHash {
+
+    static final String ALGORITHM = "SHA-256";
+
+    private LayerContentHash(){}
+
+    /**
+     * Calculates the content hash of a layer
+     * @param layer layer
+     * @return hash as hex string
+     */
+    public static String compute(Layer layer){
+        return compute(layer, "");
+    }
+
+    /**
+     * Calculates the content hash of a layer and additional settings, eg.
+     * the tile size of a rendered image
+     * @param layer layer
+     * @param settings settings that are included in the hash
+     * @return hash as hex string
+     */
+    public static String compute(Layer layer, String settings){
+        try {
+            MessageDigest digest = MessageDigest.getInstance(ALGORITHM);
+            DataOutputStream out = new DataOutputStream(new DigestOutputStream(new NullOutputStream(), digest));
+            out.writeUTF(settings);
+            writeWorld(out, layer.getWorld());
+            out.writeInt(layer.getId());
+            writeString(out, layer.getName());
+            writePlaces(out, layer.getPlaces());
+            out.flush();
+            return toHex(digest.digest());
+        } catch (NoSuchAlgorithmException | IOException ex) {
+            // SHA-256 is available on every Java platform, the stream doesn't write anything
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Calculates the content hash of a part of a layer, eg. the places and
+     * paths that are visible on an image tile
+     * @param world world of the places
+     * @param places places in the area
+     * @param paths paths that cross the area, their places don't have to be
+     * in the area
+     * @param settings settings that are included in the hash
+     * @return hash as hex string
+     */
+    public static String compute(World world, Collection<Place> places, Collection<Path> paths, String settings){
+        try {
+            MessageDigest digest = MessageDigest.getInstance(ALGORITHM);
+            DataOutputStream out = new DataOutputStream(new DigestOutputStream(new NullOutputStream(), digest));
+            out.writeUTF(settings);
+            writeWorld(out, world);
+            writePlaces(out, places);
+
+            ArrayList<String> pathStrings = new ArrayList<>();
+            for(Path path: paths){
+                Place[] pathPlaces = path.getPlaces();
+                pathStrings.add(getPathString(path, pathPlaces[0]) + "\t"
+                        + pathPlaces[0].getId() + "\t" + pathPlaces[0].getX() + "\t" + pathPlaces[0].getY());
+            }
+            writeSorted(out, pathStrings);
+
+            out.flush();
+            return toHex(digest.digest());
+        } catch (NoSuchAlgorithmException | IOException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    private static void writeWorld(DataOutputStream out, World world) throws IOException {
+        out.writeUTF(String.valueOf(world.getShowPlaceId()));
+        writeColor(out, world.getTileCenterColor());
+        writeColor(out, world.getPathColorStd());
+        writeColor(out, world.getPathColorNstd());
+
+        TreeMap<String, Color> pathColors = new TreeMap<>(world.getPathColors());
+        out.writeInt(pathColors.size());
+        for(Map.Entry<String, Color> entry: pathColors.entrySet()){
+            out.writeUTF(entry.getKey());
+            writeColor(out, entry.getValue());
+        }
+    }
+
+    private static void writePlaces(DataOutputStream out, Collection<Place> collection) throws IOException {
+        List<Place> places = new ArrayList<>(collection);
+        Collections.sort(places, new Comparator<Place>() {
+            @Override
+            public int compare(Place o1, Place o2) {
+                return Integer.compare(o1.getId(), o2.getId());
+            }
+        });
+
+        out.writeInt(places.size());
+        for(Place place: places){
+            writePlace(out, place);
+        }
+    }
+
+    private static void writePlace(DataOutputStream out, Place place) throws IOException {
+        out.writeInt(place.getId());
+        writeString(out, place.getName());
+        out.writeInt(place.getX());
+        out.writeInt(place.getY());
+        writeString(out, place.getComments());
+        out.writeInt(place.getRecLevelMin());
+        out.writeInt(place.getRecLevelMax());
+
+        PlaceGroup placeGroup = place.getPlaceGroup();
+        out.writeBoolean(placeGroup != null);
+        if(placeGroup != null){
+            writeString(out, placeGroup.getName());
+            writeColor(out, placeGroup.getColor());
+        }
+
+        InformationColor infoRing = place.getInfoRing();
+        out.writeBoolean(infoRing != null);
+        if(infoRing != null){
+            out.writeInt(infoRing.getId());
+            writeColor(out, infoRing.getColor());
+        }
+
+        TreeMap<String, Boolean> flags = place.getFlags();
+        out.writeInt(flags.size());
+        for(Map.Entry<String, Boolean> flag: flags.entrySet()){
+            out.writeUTF(flag.getKey());
+            out.writeBoolean(flag.getValue());
+        }
+
+        writePlaceReferences(out, place.getChildren());
+        writePlaceReferences(out, place.getParents());
+
+        ArrayList<String> paths = new ArrayList<>();
+        for(Path path: place.getPaths()){
+            paths.add(getPathString(path, place));
+        }
+        writeSorted(out, paths);
+    }
+
+    /**
+     * Describes a path from the view of one of its places
+     * @param path path
+     * @param place place of the path
+     * @return own exit, exit of the other place and the other place
+     */
+    private static String getPathString(Path path, Place place){
+        Place other = path.getOtherPlace(place);
+        return path.getExit(place) + "\t" + path.getExit(other) + "\t"
+                + other.getId() + "\t" + other.getX() + "\t" + other.getY();
+    }
+
+    private static void writePlaceReferences(DataOutputStream out, Iterable<Place> places) throws IOException {
+        ArrayList<String> references = new ArrayList<>();
+        for(Place place: places){
+            references.add(place.getLayer().getId() + "\t" + place.getId());
+        }
+        writeSorted(out, references);
+    }
+
+    private static void writeSorted(DataOutputStream out, List<String> strings) throws IOException {
+        Collections.sort(strings);
+        out.writeInt(strings.size());
+        for(String string: strings){
+            out.writeUTF(string);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String string) throws IOException {
+        // writeUTF is limited to 64 KiB
+        if(string == null){
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = string.getBytes("UTF-8");
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static void writeColor(DataOutputStream out, Color color) throws IOException {
+        out.writeInt(color != null ? color.getRGB() : 0);
+        out.writeBoolean(color != null);
+    }
+
+    private static String toHex(byte[] bytes){
+        StringBuilder ret = new StringBuilder(bytes.length * 2);
+        for(byte b: bytes){
+            ret.append(Character.forDigit((b >> 4) & 0xf, 16));
+            ret.append(Character.forDigit(b & 0xf, 16));
+        }
+        return ret.toString();
+    }
+
+    /**
+     * Discards all data, only the digest is of interest
+     */
+    private static class NullOutputStream extends OutputStream {
+        @Override
+        public void write(int b) {}
+
+        @Override
+        public void write(byte[] b, int off, int len) {}
+    }
+
+}
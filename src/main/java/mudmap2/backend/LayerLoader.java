@@ -0,0 +1,52 @@
+/*  MUD Map (v2) - A tool to create and organize maps for text-based games
+ *  Copyright (C) 2026  Neop (email: mneop@web.de)
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License along
+ *  with this program; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+package mudmap2.backend;
+
+import java.util.Map;
+
+/**
+ * Reads the places of a layer when they are accessed for the first time,
+ * eg. from an indexed world file. Only WorldFileBinary indexes its layers,
+ * JSON world files are read completely
+ * @author neop
+ */
+public interface LayerLoader {
+
+    /**
+     * Adds the places and paths of a layer. The world doesn't report the
+     * changes to it's listeners while a layer is loaded
+     * @param layer layer to fill
+     * @throws Exception if the places can't be read
+     */
+    public void load(Layer layer) throws Exception;
+
+    /**
+     * Creates a loader that reads the places into a copy of the world, eg.
+     * for WorldSnapshot, without reading them into the original layers
+     * @param world copy of the world, its layers have the same ids
+     * @param placeGroups copies of the place groups, groups that aren't in
+     * the map are copied and added to it
+     * @param places copies of the places that haven't been read but are
+     * connected to places that have been read, by id. The caller adds them
+     * before a layer of the copy is read, the loader completes them
+     * @return loader for the layers of the copy that haven't been read or
+     * null if the original layers have to be read
+     */
+    public LayerLoader copy(World world, Map<PlaceGroup, PlaceGroup> placeGroups, Map<Integer, Place> places);
+
+}
@@ -0,0 +1,148 @@
+/*  MUD Map (v2) - A tool to create and organize maps for text-based games
+ *  Copyright (C) 2026  Neop (email: mneop@web.de)
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License along
+ *  with this program; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*  File description
+ *
+ *  Creates a detached copy of a layer that can be drawn by other threads
+ *  while the original layer is edited
+ */
+
+package mudmap2.backend;
+
+import java.util.HashMap;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Copies a layer with everything that is needed to draw it into a new world:
+ * places with the same ids and coordinates, paths, the world colors and
+ * settings. Children and parents on other layers are copied as unconnected
+ * places that only keep their id, name and layer id. Information colors and
+ * place groups are shared with the original world. The snapshot doesn't
+ * change when the original layer is modified
+ * @author neop
+ */
+public class LayerSnapshot {
+
+    private LayerSnapshot(){}
+
+    /**
+     * Creates a snapshot of a layer. The layer must not be modified while the
+     * snapshot is created
+     * @param layer layer to copy
+     * @return copy of the layer in a new world
+     */
+    public static Layer create(Layer layer){
+        final World world = layer.getWorld();
+        final World worldCopy = new World(world.getName());
+        worldCopy.pathColorCardinal = world.pathColorCardinal;
+        worldCopy.pathColorNonCardinal = world.pathColorNonCardinal;
+        worldCopy.tileCenterColor = world.tileCenterColor;
+        worldCopy.pathColors.putAll(world.pathColors);
+        worldCopy.showPlaceID = world.showPlaceID;
+        // the legend lists the information colors and place groups of the
+        // world, the objects are shared like the references of the places
+        worldCopy.informationColors.clear();
+        worldCopy.informationColors.putAll(world.informationColors);
+        worldCopy.placeGroups.addAll(world.placeGroups);
+
+        final Layer layerCopy = new Layer(layer.getId(), worldCopy);
+        layerCopy.name = layer.name;
+        worldCopy.addLayer(layerCopy);
+
+        final HashMap<Place, Place> copies = new HashMap<>();
+        for(Place place: layer.getPlaces()){
+            Place copy = copyPlace(place, layerCopy);
+            try {
+                layerCopy.put(copy);
+            } catch (Layer.PlaceNotInsertedException ex) {
+                Logger.getLogger(LayerSnapshot.class.getName()).log(Level.SEVERE, null, ex);
+            }
+            copies.put(place, copy);
+        }
+
+        // stub layers for children and parents on other layers
+        final HashMap<Integer, Layer> otherLayers = new HashMap<>();
+        for(Place place: layer.getPlaces()){
+            final Place copy = copies.get(place);
+            for(Path path: place.getPaths()){
+                Place[] places = path.getPlaces();
+                // copy each path once, from its first place
+                if(places[0] == place && copies.containsKey(places[1])){
+                    String[] exits = path.getExitDirections();
+                    Path pathCopy = new Path(copy, exits[0], copies.get(places[1]), exits[1]);
+                    copy.paths.add(pathCopy);
+                    copies.get(places[1]).paths.add(pathCopy);
+                }
+            }
+            for(Place child: place.getChildren()){
+                Place childCopy = getReference(child, copies, otherLayers, worldCopy);
+                copy.children.add(childCopy);
+                childCopy.parents.add(copy);
+            }
+            for(Place parent: place.getParents()){
+                Place parentCopy = getReference(parent, copies, otherLayers, worldCopy);
+                copy.parents.add(parentCopy);
+                parentCopy.children.add(copy);
+            }
+        }
+        return layerCopy;
+    }
+
+    /**
+     * Copies the attributes of a place without its connections
+     * @param place place to copy
+     * @param layer layer of the copy
+     * @return copy with the same id
+     */
+    private static Place copyPlace(Place place, Layer layer){
+        final Place copy = new Place(place.getId(), place.getName(), place.getX(), place.getY(), layer);
+        copy.placeGroup = place.placeGroup;
+        copy.recLevelMin = place.recLevelMin;
+        copy.recLevelMax = place.recLevelMax;
+        copy.infoRing = place.infoRing;
+        copy.flags = new TreeMap<>(place.flags);
+        copy.comments = place.comments;
+        return copy;
+    }
+
+    /**
+     * Gets the copy of a child or parent
+     * @param place child or parent place
+     * @param copies copied places of the layer
+     * @param otherLayers stub layers, a layer will be added if necessary
+     * @param world world of the snapshot
+     * @return copy of the place
+     */
+    private static Place getReference(Place place, HashMap<Place, Place> copies,
+            HashMap<Integer, Layer> otherLayers, World world){
+        Place copy = copies.get(place);
+        if(copy == null){
+            final Layer layer = place.getLayer();
+            Layer layerCopy = otherLayers.get(layer.getId());
+            if(layerCopy == null){
+                otherLayers.put(layer.getId(), layerCopy = new Layer(layer.getId(), world));
+                layerCopy.name = layer.name;
+            }
+            copy = new Place(place.getId(), place.getName(), place.getX(), place.getY(), layerCopy);
+            copies.put(place, copy);
+        }
+        return copy;
+    }
+
+}
@@ -0,0 +1,210 @@
+/*  MUD Map (v2) - A tool to create and organize maps for text-based games
+ *  Copyright (C) 2026  Neop (email: mneop@web.de)
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License along
+ *  with this program; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*  File description
+ *
+ *  Spatial index of the paths on a layer, used to find the paths that have to
+ *  be drawn in a certain area of the map
+ */
+
+package mudmap2.backend;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * A grid of world coordinate cells that stores the bounding boxes of all paths
+ * with both places on the same layer. The index is immutable after creation,
+ * Layer creates a new one after changes.
+ * @author neop
+ */
+public class PathSegmentIndex {
+
+    // cell size in world coordinates: 2^CELL_BITS
+    static final int CELL_BITS = 3;
+    // segments that span more cells are stored in a separate list
+    static final int MAX_CELLS_PER_SEGMENT = 16;
+
+    final HashMap<Long, ArrayList<Segment>> cells = new HashMap<>();
+    final ArrayList<Segment> longSegments = new ArrayList<>();
+    int segmentCount = 0;
+
+    /**
+     * Creates an index of all paths on a layer
+     * @param layer
+     */
+    public PathSegmentIndex(Layer layer){
+        HashSet<Path> added = new HashSet<>();
+        for(Place place: layer.getPlaces()){
+            for(Path path: place.getPaths()){
+                Place[] places = path.getPlaces();
+                if(places[0].getLayer() == layer && places[1].getLayer() == layer && added.add(path)){
+                    add(new Segment(path));
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the number of indexed paths
+     * @return
+     */
+    public int size(){
+        return segmentCount;
+    }
+
+    /**
+     * Adds a segment to the cells that it overlaps
+     * @param segment
+     */
+    private void add(Segment segment){
+        ++segmentCount;
+
+        final int cxMin = cell(segment.xMin);
+        final int cxMax = cell(segment.xMax);
+        final int cyMin = cell(segment.yMin);
+        final int cyMax = cell(segment.yMax);
+
+        if((long) (cxMax - cxMin + 1) * (cyMax - cyMin + 1) > MAX_CELLS_PER_SEGMENT){
+            longSegments.add(segment);
+        } else {
+            for(int cx = cxMin; cx <= cxMax; ++cx){
+                for(int cy = cyMin; cy <= cyMax; ++cy){
+                    Long key = key(cx, cy);
+                    ArrayList<Segment> list = cells.get(key);
+                    if(list == null){
+                        cells.put(key, list = new ArrayList<>());
+                    }
+                    list.add(segment);
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets all segments whose bounding box intersects the area, each segment
+     * is added once
+     * @param xMin area bounds in world coordinates
+     * @param yMin area bounds in world coordinates
+     * @param xMax area bounds in world coordinates
+     * @param yMax area bounds in world coordinates
+     * @param result segments will be appended to this list
+     * @return result
+     */
+    public List<Segment> query(int xMin, int yMin, int xMax, int yMax, List<Segment> result){
+        for(Segment segment: longSegments){
+            if(segment.intersects(xMin, yMin, xMax, yMax)){
+                result.add(segment);
+            }
+        }
+
+        final int cxMin = cell(xMin);
+        final int cxMax = cell(xMax);
+        final int cyMin = cell(yMin);
+        final int cyMax = cell(yMax);
+
+        if((long) (cxMax - cxMin + 1) * (cyMax - cyMin + 1) > cells.size()){
+            // area is larger than the indexed map, iterate over the cells instead
+            for(ArrayList<Segment> list: cells.values()){
+                for(Segment segment: list){
+                    if(segment.intersects(xMin, yMin, xMax, yMax)
+                            && isReferenceCell(segment, xMin, yMin, list)){
+                        result.add(segment);
+                    }
+                }
+            }
+        } else {
+            for(int cx = cxMin; cx <= cxMax; ++cx){
+                for(int cy = cyMin; cy <= cyMax; ++cy){
+                    ArrayList<Segment> list = cells.get(key(cx, cy));
+                    if(list != null){
+                        for(Segment segment: list){
+                            // report the segment only in the cell of the upper left
+                            // corner of its intersection with the area
+                            if(segment.intersects(xMin, yMin, xMax, yMax)
+                                    && cell(Math.max(segment.xMin, xMin)) == cx
+                                    && cell(Math.max(segment.yMin, yMin)) == cy){
+                                result.add(segment);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Checks whether the list is the cell that reports the segment (see query)
+     */
+    private boolean isReferenceCell(Segment segment, int xMin, int yMin, ArrayList<Segment> list){
+        return cells.get(key(cell(Math.max(segment.xMin, xMin)), cell(Math.max(segment.yMin, yMin)))) == list;
+    }
+
+    /**
+     * Gets all segments
+     * @return unmodifiable list of segments
+     */
+    public List<Segment> getSegments(){
+        ArrayList<Segment> ret = new ArrayList<>(segmentCount);
+        query(Integer.MIN_VALUE / 2, Integer.MIN_VALUE / 2, Integer.MAX_VALUE / 2, Integer.MAX_VALUE / 2, ret);
+        return Collections.unmodifiableList(ret);
+    }
+
+    private static int cell(int coordinate){
+        // arithmetic shift rounds towards negative infinity
+        return coordinate >> CELL_BITS;
+    }
+
+    private static Long key(int cx, int cy){
+        return ((long) cx << 32) | (cy & 0xffffffffL);
+    }
+
+    /**
+     * A path and its bounding box in world coordinates
+     */
+    public static class Segment {
+        final Path path;
+        final int xMin, yMin, xMax, yMax;
+
+        Segment(Path path){
+            this.path = path;
+            Place[] places = path.getPlaces();
+            xMin = Math.min(places[0].getX(), places[1].getX());
+            xMax = Math.max(places[0].getX(), places[1].getX());
+            yMin = Math.min(places[0].getY(), places[1].getY());
+            yMax = Math.max(places[0].getY(), places[1].getY());
+        }
+
+        public Path getPath() {
+            return path;
+        }
+
+        /**
+         * Checks whether the bounding box intersects an area
+         * @return true if the bounding box intersects the area
+         */
+        boolean intersects(int xMin, int yMin, int xMax, int yMax){
+            return this.xMin <= xMax && this.xMax >= xMin
+                    && this.yMin <= yMax && this.yMax >= yMin;
+        }
+    }
+
+}
@@ -62,6 +62,17 @@ public class Place extends LayerElement implements Comparable<Place>, BreadthSea
         }
     }
 
+    /**
+     * Makes sure that new places get greater ids, eg. if places with this id
+     * haven't been read yet
+     * @param id used place id
+     */
+    public static void reserveID(final int id) {
+        if (id >= nextID) {
+            nextID = id + 1;
+        }
+    }
+
     /**
      * Constructs new a place a certain position
      * @param name name
@@ -240,6 +251,7 @@ public class Place extends LayerElement implements Comparable<Place>, BreadthSea
     public void removePath(final Path path) {
         paths.remove(path);
         path.getOtherPlace(this).paths.remove(path);
+        pathChanged(path);
         callWorldChangeListeners();
     }
 
@@ -251,6 +263,7 @@ public class Place extends LayerElement implements Comparable<Place>, BreadthSea
         paths.removeAll(paths);
         for(Path path: paths){
             path.getOtherPlace(this).paths.remove(path);
+            pathChanged(path);
         }
         callWorldChangeListeners();
     }
@@ -285,6 +298,7 @@ public class Place extends LayerElement implements Comparable<Place>, BreadthSea
         paths.add(path);
         other.paths.add(path);
 
+        pathChanged(path);
         callWorldChangeListeners();
     }
 
@@ -494,6 +508,19 @@ public class Place extends LayerElement implements Comparable<Place>, BreadthSea
         return breadthSearchData;
     }
 
+    /**
+     * Discards the path segment indexes of the layers of both places of a
+     * path, other place changes don't affect the indexes
+     * @param path added or removed path
+     */
+    private static void pathChanged(final Path path) {
+        for (final Place place : path.getPlaces()) {
+            if (place != null && place.getLayer() != null) {
+                place.getLayer().invalidatePathSegmentIndex();
+            }
+        }
+    }
+
     /**
      * Call world change listeners on place changes
      */
@@ -74,6 +74,16 @@ public class World implements BreadthSearchGraph {
 
     // Listeners
     final LinkedList<WorldChangeListener> changeListeners = new LinkedList<>();
+    // number of layers the current thread is loading, changes made while
+    // loading aren't reported to the listeners
+    final ThreadLocal<Integer> loadingLayers = new ThreadLocal<Integer>(){
+        @Override
+        protected Integer initialValue() {
+            return 0;
+        }
+    };
+    // error of a layer whose places couldn't be read
+    volatile Exception loadError = null;
 
     /**
      * Creates an empty world
@@ -584,8 +594,34 @@ public class World implements BreadthSearchGraph {
      * @param source changed object
      */
     public void callListeners(Object source){
+        if(isLoadingLayer()) return;
         for(WorldChangeListener listener: changeListeners){
             listener.worldChanged(source);
         }
     }
+
+    /**
+     * Checks whether the current thread is loading the places of a layer
+     * @return true while a layer is loaded
+     */
+    boolean isLoadingLayer(){
+        return loadingLayers.get() > 0;
+    }
+
+    void beginLoadingLayer(){
+        loadingLayers.set(loadingLayers.get() + 1);
+    }
+
+    void endLoadingLayer(){
+        loadingLayers.set(loadingLayers.get() - 1);
+    }
+
+    /**
+     * Gets the error of a layer whose places couldn't be read. The world is
+     * incomplete then and must not be saved over its file
+     * @return error or null, if all places were read
+     */
+    public Exception getLoadError(){
+        return loadError;
+    }
 }
@@ -28,8 +28,9 @@ import java.nio.file.Paths;
 import java.util.LinkedList;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import javax.swing.SwingUtilities;
 import mudmap2.Environment;
-import mudmap2.backend.WorldFileReader.current.WorldFileDefault;
+import mudmap2.backend.WorldFileReader.current.WorldCatalog;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
@@ -147,6 +148,15 @@ public class WorldFileList {
      * Read history
      */
     public static void read(){
+        read(null);
+    }
+
+    /**
+     * Read history, the world names are updated in background
+     * @param listener is called on the EDT for each entry whose world name
+     * changed, or null
+     */
+    public static void read(final Listener listener){
         final File historyFile = getHistoryFile();
         final File availableWorldsFile = getAvailableWorldsFile();
 
@@ -175,6 +185,35 @@ public class WorldFileList {
 
         // remove nonexistant entries
         cleanList();
+
+        // current world names, the catalog is updated in the background
+        WorldCatalog catalog = WorldCatalog.getDefault();
+        LinkedList<File> files = new LinkedList<>();
+        for(WorldFileEntry entry: worldFileHistory){
+            WorldCatalog.Entry info = catalog.get(entry.getFile());
+            if(info != null && info.getWorldName() != null) entry.setWorldName(info.getWorldName());
+            files.add(entry.getFile());
+        }
+        catalog.refresh(files, new WorldCatalog.Listener() {
+            @Override
+            public void entryUpdated(final WorldCatalog.Entry info) {
+                // the list is used on the EDT
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        // the catalog keeps absolute paths
+                        for(WorldFileEntry entry: worldFileHistory){
+                            if(entry.getFile().getAbsoluteFile().equals(info.getFile())
+                                    && info.getWorldName() != null
+                                    && !info.getWorldName().equals(entry.getWorldName())){
+                                entry.setWorldName(info.getWorldName());
+                                if(listener != null) listener.entryUpdated(entry);
+                            }
+                        }
+                    }
+                });
+            }
+        });
     }
 
     /**
@@ -303,14 +342,10 @@ public class WorldFileList {
                 if(line.startsWith("f ")){ // world file entry
                     String fileName = line.substring(2).trim();
 
-                    WorldFileDefault worldFile = new WorldFileDefault(fileName);
-                    if(worldFile.canRead()){ // is world file
-                        String name;
-                        try {
-                            // get world name
-                            name = worldFile.readWorldName();
-                        } catch (Exception ex) {
-                            Logger.getLogger(WorldManager.class.getName()).log(Level.SEVERE, null, ex);
+                    WorldCatalog.Entry info = WorldCatalog.getDefault().probe(new File(fileName));
+                    if(info != null){ // is world file
+                        String name = info.getWorldName();
+                        if(name == null || name.isEmpty()){
                             // use file name if world name not found
                             name = fileName.substring(fileName.lastIndexOf('/') + 1);
                         }
@@ -324,6 +359,13 @@ public class WorldFileList {
         }
     }
 
+    /**
+     * Is notified when the world name of an entry changed
+     */
+    public interface Listener {
+        void entryUpdated(WorldFileEntry entry);
+    }
+
     public static class WorldFileEntry {
 
         String worldName;
@@ -0,0 +1,190 @@
+/*  MUD Map (v2) - A tool to create and organize maps for text-based games
+ *  Copyright (C) 2026  Neop (email: mneop@web.de)
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License along
+ *  with this program; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*  File description
+ *
+ *  A gzip output stream that compresses on a separate thread
+ */
+
+package mudmap2.backend.WorldFileReader;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzip output stream that hands the written data in blocks to a compressor
+ * thread, so serialization and compression run at the same time. The queue
+ * between both is bounded, a writer that is faster than the compressor
+ * waits. Errors of the compressor thread are thrown by the next write, by
+ * finish() or close()
+ * @author neop
+ */
+public class PipelinedGZIPOutputStream extends OutputStream {
+
+    static final int BLOCK_SIZE = 1 << 16;
+    static final int QUEUE_SIZE = 16;
+
+    // marks the end of the data
+    private static final byte[] END = new byte[0];
+
+    final OutputStream out;
+    final BlockingQueue<byte[]> queue = new ArrayBlockingQueue<>(QUEUE_SIZE);
+    final Thread compressor;
+
+    byte[] block = new byte[BLOCK_SIZE];
+    int length = 0;
+
+    volatile IOException error = null;
+    boolean finished = false;
+    boolean closed = false;
+
+    /**
+     * Constructor
+     * @param out stream that receives the compressed data, it is closed by
+     * close()
+     */
+    public PipelinedGZIPOutputStream(OutputStream out){
+        this.out = out;
+        compressor = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                compress();
+            }
+        }, "gzip-compressor");
+        compressor.setDaemon(true);
+        compressor.start();
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        checkOpen();
+        block[length++] = (byte) b;
+        if(length == block.length) pass();
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        checkOpen();
+        while(len > 0){
+            int count = Math.min(len, block.length - length);
+            System.arraycopy(b, off, block, length, count);
+            length += count;
+            off += count;
+            len -= count;
+            if(length == block.length) pass();
+        }
+    }
+
+    /**
+     * Passes the buffered data to the compressor. The compressed data is only
+     * complete after finish()
+     * @throws IOException
+     */
+    @Override
+    public void flush() throws IOException {
+        // writers flush when they are closed, after finish()
+        if(length > 0){
+            checkOpen();
+            byte[] data = new byte[length];
+            System.arraycopy(block, 0, data, 0, length);
+            length = 0;
+            put(data);
+        }
+    }
+
+    /**
+     * Compresses the remaining data and writes the gzip trailer, waits for
+     * the compressor thread. The underlying stream isn't closed
+     * @throws IOException
+     */
+    public void finish() throws IOException {
+        if(finished) return;
+        flush();
+        finished = true;
+        put(END);
+        try {
+            compressor.join();
+        } catch (InterruptedException ex) {
+            throw new InterruptedIOException();
+        }
+        if(error != null) throw error;
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if(closed) return;
+        closed = true;
+        try {
+            if(!finished && error == null) finish();
+        } finally {
+            if(compressor.isAlive()){
+                // stop the compressor after a failure of finish()
+                queue.clear();
+                queue.offer(END);
+            }
+            out.close();
+        }
+    }
+
+    private void pass() throws IOException {
+        byte[] data = block;
+        block = new byte[BLOCK_SIZE];
+        length = 0;
+        put(data);
+    }
+
+    private void put(byte[] data) throws IOException {
+        if(error != null) throw error;
+        try {
+            queue.put(data);
+        } catch (InterruptedException ex) {
+            throw new InterruptedIOException();
+        }
+    }
+
+    private void checkOpen() throws IOException {
+        if(closed || finished) throw new IOException("Stream finished");
+        if(error != null) throw error;
+    }
+
+    /**
+     * Runs on the compressor thread
+     */
+    private void compress(){
+        try {
+            try {
+                GZIPOutputStream gzip = new GZIPOutputStream(out, BLOCK_SIZE);
+                byte[] data;
+                while((data = queue.take()) != END) gzip.write(data);
+                // don't close the underlying stream
+                gzip.finish();
+            } catch (IOException ex) {
+                error = ex;
+                // keep taking blocks, so the writer doesn't wait forever
+                while(queue.take() != END);
+            }
+        } catch (InterruptedException ex) {
+            if(error == null) error = new InterruptedIOException();
+        }
+    }
+
+}
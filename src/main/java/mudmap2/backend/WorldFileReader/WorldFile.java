@@ -21,8 +21,18 @@
  */
 package mudmap2.backend.WorldFileReader;
 
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.GZIPInputStream;
+import mudmap2.backend.Layer;
 import mudmap2.backend.World;
 
 /**
@@ -31,6 +41,11 @@ import mudmap2.backend.World;
  */
 public abstract class WorldFile {
 
+    // world files with this extension are written gzip compressed
+    public static final String COMPRESSED_EXTENSION = ".gz";
+    // world preference, true if the world file is written gzip compressed
+    public static final String PREFERENCE_COMPRESS = "compressFile";
+
     protected String filename;
 
     public WorldFile(String filename){
@@ -54,4 +69,118 @@ public abstract class WorldFile {
     // can file be read and interpreted by this reader?
     public abstract Boolean canRead();
     public abstract WorldFileType getWorldFileType();
+
+    /**
+     * Replaces a file with a completely written temporary file. The file is
+     * moved atomically, if the file system supports it, so the world file is
+     * either the old or the new one
+     * @param source temporary file
+     * @param target file to replace
+     * @throws IOException
+     */
+    public static void replaceFile(File source, File target) throws IOException {
+        try {
+            Files.move(source.toPath(), target.toPath(),
+                    StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException ex){
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Checks whether all places of a world have been read, an incomplete
+     * world must not replace its file
+     * @param world world to write
+     * @throws IOException if a layer couldn't be read
+     */
+    public static void checkComplete(World world) throws IOException {
+        // read the remaining layers
+        for(Layer layer: world.getLayers()) layer.load();
+        checkLoadError(world);
+    }
+
+    /**
+     * Checks whether the layers that have been read are complete, without
+     * reading the other layers
+     * @param world world to check
+     * @throws IOException if a layer couldn't be read
+     */
+    public static void checkLoadError(World world) throws IOException {
+        if(world.getLoadError() != null){
+            throw new IOException("The world wasn't read completely, it can't be saved", world.getLoadError());
+        }
+    }
+
+    /**
+     * Checks whether a world file should be written gzip compressed, either
+     * because of its filename or because of the world preference
+     * @param world
+     * @return true to compress
+     */
+    protected boolean isCompressionRequested(World world){
+        if(getFilename().endsWith(COMPRESSED_EXTENSION)) return true;
+        return world != null && world.getPreferences() != null
+                && world.getPreferences().optBoolean(PREFERENCE_COMPRESS, false);
+    }
+
+    /**
+     * Checks whether a file starts with the gzip magic bytes
+     * @param file
+     * @return true if the file is gzip compressed
+     */
+    public static boolean isCompressed(File file){
+        try(InputStream in = new FileInputStream(file)){
+            return in.read() == 0x1f && in.read() == 0x8b;
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Opens a buffered stream of a world file, gzip compressed files are
+     * decompressed
+     * @param file
+     * @return stream of the uncompressed content
+     * @throws IOException
+     */
+    public static InputStream openInputStream(File file) throws IOException {
+        InputStream in = new BufferedInputStream(new FileInputStream(file), 1 << 16);
+        try {
+            in.mark(2);
+            boolean compressed = in.read() == 0x1f && in.read() == 0x8b;
+            in.reset();
+            if(compressed){
+                in = new BufferedInputStream(new GZIPInputStream(in, 1 << 16), 1 << 16);
+            }
+            return in;
+        } catch (IOException ex){
+            in.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Wraps the output stream of a world file in a compressing stream, if
+     * requested. The data is complete after finishOutputStream()
+     * @param out stream of the file
+     * @param compress true to compress
+     * @return stream to write the world to
+     */
+    protected static OutputStream openOutputStream(OutputStream out, boolean compress){
+        return compress ? new PipelinedGZIPOutputStream(out) : out;
+    }
+
+    /**
+     * Writes the remaining data of a stream created by openOutputStream(),
+     * without closing the file
+     * @param out
+     * @throws IOException
+     */
+    protected static void finishOutputStream(OutputStream out) throws IOException {
+        if(out instanceof PipelinedGZIPOutputStream){
+            ((PipelinedGZIPOutputStream) out).finish();
+        } else {
+            out.flush();
+        }
+    }
 }
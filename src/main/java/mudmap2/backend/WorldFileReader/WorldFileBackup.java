@@ -0,0 +1,289 @@
+/*  MUD Map (v2) - A tool to create and organize maps for text-based games
+ *  Copyright (C) 2026  Neop (email: mneop@web.de)
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License along
+ *  with this program; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*  File description
+ *
+ *  Keeps compressed backup generations of a world file, a generation is only
+ *  written if the file content changed
+ */
+
+package mudmap2.backend.WorldFileReader;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Backup generations of a world file. The generations are stored gzip
+ * compressed in the directory filename + ".backup", named by the SHA-256
+ * hash of their content, so a file that didn't change since a backup isn't
+ * copied again. The file "generations" lists the hashes, the newest first.
+ * When there are more generations than the limit, the oldest ones are
+ * deleted
+ * @author neop
+ */
+public class WorldFileBackup {
+
+    public static final int DEFAULT_GENERATIONS = 5;
+
+    static final String DIRECTORY_EXTENSION = ".backup";
+    static final String GENERATIONS_FILENAME = "generations";
+    static final String BACKUP_EXTENSION = ".gz";
+
+    // shared by all world files, backups are written one after another
+    static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "world-backup");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    final File file;
+    final File directory;
+    int generations = DEFAULT_GENERATIONS;
+
+    /**
+     * Constructor
+     * @param file world file
+     */
+    public WorldFileBackup(File file){
+        this.file = file;
+        directory = new File(file.getPath() + DIRECTORY_EXTENSION);
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    public int getGenerations() {
+        return generations;
+    }
+
+    /**
+     * Sets the number of generations that are kept
+     * @param generations number of generations, at least 1
+     */
+    public void setGenerations(int generations) {
+        this.generations = Math.max(1, generations);
+    }
+
+    /**
+     * Writes a backup generation, if the file changed since the last one
+     * @return backup file of the current content or null if the world file
+     * doesn't exist
+     * @throws IOException
+     */
+    public File backup() throws IOException {
+        // the same world file might be opened twice
+        synchronized(WorldFileBackup.class){
+            if(!file.isFile()) return null;
+
+            List<String> hashes = readGenerations();
+            String hash = hash(file);
+            File backupFile = getBackupFile(hash);
+            if(!backupFile.isFile()){
+                // the file might change while it's copied, the hash of the
+                // copy is used
+                hash = copy();
+                backupFile = getBackupFile(hash);
+            }
+
+            if(hashes.isEmpty() || !hashes.get(0).equals(hash)){
+                hashes.remove(hash);
+                hashes.add(0, hash);
+                // delete the oldest generations
+                while(hashes.size() > generations){
+                    getBackupFile(hashes.remove(hashes.size() - 1)).delete();
+                }
+                writeGenerations(hashes);
+            }
+            return backupFile;
+        }
+    }
+
+    /**
+     * Writes a backup generation in the background
+     * @return task, its result is the backup file
+     */
+    public Future<File> backupLater(){
+        return EXECUTOR.submit(new Callable<File>() {
+            @Override
+            public File call() throws Exception {
+                try {
+                    return backup();
+                } catch (IOException ex) {
+                    Logger.getLogger(WorldFileBackup.class.getName()).log(Level.WARNING,
+                            "Could not create world backup of " + file, ex);
+                    throw ex;
+                }
+            }
+        });
+    }
+
+    /**
+     * Gets the backup files
+     * @return backup files, the newest first
+     * @throws IOException
+     */
+    public List<File> getBackupFiles() throws IOException {
+        ArrayList<File> ret = new ArrayList<>();
+        for(String hash: readGenerations()) ret.add(getBackupFile(hash));
+        return ret;
+    }
+
+    /**
+     * Writes the uncompressed content of a backup file
+     * @param backupFile backup file
+     * @param target file to write
+     * @throws IOException
+     */
+    public static void restore(File backupFile, File target) throws IOException {
+        try(InputStream in = new GZIPInputStream(new FileInputStream(backupFile));
+                OutputStream out = new FileOutputStream(target)){
+            transfer(in, out);
+        }
+    }
+
+    private File getBackupFile(String hash){
+        return new File(directory, hash + BACKUP_EXTENSION);
+    }
+
+    /**
+     * Compresses the world file to a new backup file
+     * @return hash of the copied content
+     * @throws IOException
+     */
+    private String copy() throws IOException {
+        File tmpFile = new File(directory, "new" + BACKUP_EXTENSION + ".tmp");
+        MessageDigest digest = getDigest();
+        boolean complete = false;
+        try {
+            try(InputStream in = new DigestInputStream(new FileInputStream(file), digest)){
+                directory.mkdirs();
+                try(OutputStream out = new GZIPOutputStream(new FileOutputStream(tmpFile))){
+                    transfer(in, out);
+                }
+            }
+            String hash = toHex(digest.digest());
+            File backupFile = getBackupFile(hash);
+            if(backupFile.isFile()) tmpFile.delete();
+            else WorldFile.replaceFile(tmpFile, backupFile);
+            complete = true;
+            return hash;
+        } finally {
+            if(!complete) tmpFile.delete();
+        }
+    }
+
+    /**
+     * Reads the hashes of the generations
+     * @return hashes, the newest first
+     * @throws IOException
+     */
+    private List<String> readGenerations() throws IOException {
+        ArrayList<String> ret = new ArrayList<>();
+        File generationsFile = new File(directory, GENERATIONS_FILENAME);
+        if(generationsFile.isFile()){
+            try(BufferedReader reader = new BufferedReader(new FileReader(generationsFile))){
+                String line;
+                while((line = reader.readLine()) != null){
+                    line = line.trim();
+                    // generations whose file was deleted are dropped
+                    if(!line.isEmpty() && getBackupFile(line).isFile()) ret.add(line);
+                }
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Writes the hashes of the generations
+     * @param hashes hashes, the newest first
+     * @throws IOException
+     */
+    private void writeGenerations(List<String> hashes) throws IOException {
+        directory.mkdirs();
+        File tmpFile = new File(directory, GENERATIONS_FILENAME + ".tmp");
+        try(BufferedWriter writer = new BufferedWriter(new FileWriter(tmpFile))){
+            for(String hash: hashes){
+                writer.write(hash);
+                writer.newLine();
+            }
+        }
+        WorldFile.replaceFile(tmpFile, new File(directory, GENERATIONS_FILENAME));
+    }
+
+    /**
+     * Calculates the hash of a file
+     * @param file
+     * @return SHA-256 hash as hex string
+     * @throws IOException
+     */
+    static String hash(File file) throws IOException {
+        MessageDigest digest = getDigest();
+        try(InputStream in = new FileInputStream(file)){
+            byte[] buffer = new byte[1 << 16];
+            int length;
+            while((length = in.read(buffer)) >= 0) digest.update(buffer, 0, length);
+        }
+        return toHex(digest.digest());
+    }
+
+    private static MessageDigest getDigest() throws IOException {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IOException(ex);
+        }
+    }
+
+    private static String toHex(byte[] bytes){
+        StringBuilder builder = new StringBuilder(bytes.length * 2);
+        for(byte b: bytes) builder.append(String.format("%02x", b));
+        return builder.toString();
+    }
+
+    private static void transfer(InputStream in, OutputStream out) throws IOException {
+        byte[] buffer = new byte[1 << 16];
+        int length;
+        while((length = in.read(buffer)) >= 0) out.write(buffer, 0, length);
+    }
+
+}
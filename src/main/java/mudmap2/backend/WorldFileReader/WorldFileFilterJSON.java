@@ -17,11 +17,8 @@
 package mudmap2.backend.WorldFileReader;
 
 import java.io.File;
-import java.util.logging.Level;
-import java.util.logging.Logger;
 import javax.swing.filechooser.FileFilter;
-import mudmap2.backend.WorldFileReader.current.WorldFileDefault;
-import mudmap2.frontend.dialog.OpenWorldDialog;
+import mudmap2.backend.WorldFileReader.current.WorldCatalog;
 
 /**
  *
@@ -33,15 +30,9 @@ public class WorldFileFilterJSON extends FileFilter {
     public boolean accept(File file) {
         if(file == null) return false;
         if(file.isDirectory()) return true;
-        String worldname = null;
-
-        try {
-            worldname = (new WorldFileDefault(file.getPath()).readWorldName());
-        } catch (Exception ex) {
-            Logger.getLogger(OpenWorldDialog.class.getName()).log(Level.SEVERE, null, ex);
-        }
-
-        return worldname != null && !worldname.equals("");
+        // the catalog reads only the beginning of files that changed
+        WorldCatalog.Entry entry = WorldCatalog.getDefault().probe(file);
+        return entry != null && entry.getWorldName() != null && !entry.getWorldName().isEmpty();
     }
 
     @Override
@@ -29,12 +29,12 @@ public class WorldFileFilterM2W extends FileFilter {
     public boolean accept(File file) {
         if(file == null) return false;
         if(file.isDirectory()) return true;
-        return file.getName().endsWith(".m2w");
+        return file.getName().endsWith(".m2w") || file.getName().endsWith(".m2w" + WorldFile.COMPRESSED_EXTENSION);
     }
 
     @Override
     public String getDescription() {
-        return "MUD Map 2 World Files (.m2w)";
+        return "MUD Map 2 World Files (.m2w, .m2w.gz)";
     }
 
 }
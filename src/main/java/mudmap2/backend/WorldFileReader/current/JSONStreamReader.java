@@ -0,0 +1,520 @@
+/*  MUD Map (v2) - A tool to create and organize maps for text-based games
+ *  Copyright (C) 2026  Neop (email: mneop@web.de)
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License along
+ *  with this program; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*  File description
+ *
+ *  Pull parser for JSON documents that reads one token at a time from a
+ *  stream, so large documents don't have to be kept in memory
+ */
+
+package mudmap2.backend.WorldFileReader.current;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Reads a JSON document token by token. The caller walks through the
+ * document with beginObject / nextName / nextString / endObject etc. and
+ * decides for each value whether to read, skip or convert it into a
+ * JSONObject / JSONArray subtree. Only the current token is kept in memory.
+ *
+ * Syntax errors are reported as JSONException, like the org.json parser
+ * does
+ * @author neop
+ */
+public class JSONStreamReader implements Closeable {
+
+    public enum Token {
+        BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY, NAME, STRING,
+        NUMBER, BOOLEAN, NULL, END_DOCUMENT
+    }
+
+    // scopes on the stack
+    static final int EMPTY_DOCUMENT = 0;
+    static final int NONEMPTY_DOCUMENT = 1;
+    static final int EMPTY_OBJECT = 2;
+    static final int DANGLING_NAME = 3;
+    static final int NONEMPTY_OBJECT = 4;
+    static final int EMPTY_ARRAY = 5;
+    static final int NONEMPTY_ARRAY = 6;
+
+    final Reader reader;
+    final char[] buffer = new char[8192];
+    int bufferPos = 0, bufferLimit = 0;
+    // number of characters read, for error messages
+    long position = 0;
+
+    int[] stack = new int[32];
+    int stackSize = 0;
+
+    // token that was peeked but not consumed yet, and its text for names,
+    // strings, numbers and booleans
+    Token peeked = null;
+    String peekedString = null;
+    // true while a value is skipped: strings are not decoded
+    boolean skipping = false;
+
+    final StringBuilder builder = new StringBuilder();
+
+    /**
+     * Creates a reader, the reader should be buffered or read in blocks
+     * @param reader
+     */
+    public JSONStreamReader(Reader reader){
+        this.reader = reader;
+        stack[stackSize++] = EMPTY_DOCUMENT;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * Gets the type of the next token without consuming it
+     * @return next token
+     * @throws IOException
+     * @throws JSONException on syntax errors
+     */
+    public Token peek() throws IOException {
+        if(peeked != null) return peeked;
+
+        int c;
+        switch(stack[stackSize - 1]){
+            case EMPTY_ARRAY:
+                stack[stackSize - 1] = NONEMPTY_ARRAY;
+                c = nextClean();
+                if(c == ']') return peeked = Token.END_ARRAY;
+                if(c == -1) throw syntaxError("Unexpected end of document");
+                --bufferPos;
+                --position;
+                return peeked = readValueToken();
+            case NONEMPTY_ARRAY:
+                c = nextClean();
+                if(c == ']') return peeked = Token.END_ARRAY;
+                if(c != ',') throw syntaxError("Expected ',' or ']'");
+                return peeked = readValueToken();
+            case EMPTY_OBJECT:
+            case NONEMPTY_OBJECT:
+                final boolean empty = stack[stackSize - 1] == EMPTY_OBJECT;
+                c = nextClean();
+                if(c == '}') return peeked = Token.END_OBJECT;
+                if(!empty){
+                    if(c != ',') throw syntaxError("Expected ',' or '}'");
+                    c = nextClean();
+                }
+                if(c != '"') throw syntaxError("Expected a name");
+                stack[stackSize - 1] = DANGLING_NAME;
+                peekedString = readString(skipping);
+                return peeked = Token.NAME;
+            case DANGLING_NAME:
+                stack[stackSize - 1] = NONEMPTY_OBJECT;
+                if(nextClean() != ':') throw syntaxError("Expected ':'");
+                return peeked = readValueToken();
+            case EMPTY_DOCUMENT:
+                stack[stackSize - 1] = NONEMPTY_DOCUMENT;
+                return peeked = readValueToken();
+            default:
+                if(nextClean() != -1) throw syntaxError("Expected end of document");
+                return peeked = Token.END_DOCUMENT;
+        }
+    }
+
+    /**
+     * Checks whether the current object or array has more elements
+     * @return false at the end of an object, array or the document
+     * @throws IOException
+     */
+    public boolean hasNext() throws IOException {
+        final Token token = peek();
+        return token != Token.END_OBJECT && token != Token.END_ARRAY && token != Token.END_DOCUMENT;
+    }
+
+    /**
+     * Consumes the beginning of an object
+     * @throws IOException
+     */
+    public void beginObject() throws IOException {
+        expect(Token.BEGIN_OBJECT);
+        push(EMPTY_OBJECT);
+    }
+
+    /**
+     * Consumes the end of an object
+     * @throws IOException
+     */
+    public void endObject() throws IOException {
+        expect(Token.END_OBJECT);
+        --stackSize;
+    }
+
+    /**
+     * Consumes the beginning of an array
+     * @throws IOException
+     */
+    public void beginArray() throws IOException {
+        expect(Token.BEGIN_ARRAY);
+        push(EMPTY_ARRAY);
+    }
+
+    /**
+     * Consumes the end of an array
+     * @throws IOException
+     */
+    public void endArray() throws IOException {
+        expect(Token.END_ARRAY);
+        --stackSize;
+    }
+
+    /**
+     * Reads the name of the next object member
+     * @return name
+     * @throws IOException
+     */
+    public String nextName() throws IOException {
+        expect(Token.NAME);
+        return peekedString;
+    }
+
+    /**
+     * Reads a string value, numbers and booleans are returned as text
+     * @return string
+     * @throws IOException
+     */
+    public String nextString() throws IOException {
+        final Token token = peek();
+        if(token != Token.STRING && token != Token.NUMBER && token != Token.BOOLEAN){
+            throw syntaxError("Expected a string but was " + token);
+        }
+        peeked = null;
+        return peekedString;
+    }
+
+    /**
+     * Reads an int value, numeric strings are accepted
+     * @return value
+     * @throws IOException
+     */
+    public int nextInt() throws IOException {
+        final String str = nextNumber();
+        try {
+            return Integer.parseInt(str);
+        } catch(NumberFormatException ex){
+            try {
+                return (int) Double.parseDouble(str);
+            } catch(NumberFormatException ex2){
+                throw syntaxError("Expected an int but was " + str);
+            }
+        }
+    }
+
+    /**
+     * Reads a double value, numeric strings are accepted
+     * @return value
+     * @throws IOException
+     */
+    public double nextDouble() throws IOException {
+        final String str = nextNumber();
+        try {
+            return Double.parseDouble(str);
+        } catch(NumberFormatException ex){
+            throw syntaxError("Expected a number but was " + str);
+        }
+    }
+
+    /**
+     * Reads a boolean value
+     * @return value
+     * @throws IOException
+     */
+    public boolean nextBoolean() throws IOException {
+        expect(Token.BOOLEAN);
+        return peekedString.equals("true");
+    }
+
+    /**
+     * Consumes a null value
+     * @throws IOException
+     */
+    public void nextNull() throws IOException {
+        expect(Token.NULL);
+    }
+
+    /**
+     * Skips the next value including all nested values, strings aren't
+     * decoded
+     * @throws IOException
+     */
+    public void skipValue() throws IOException {
+        skipping = true;
+        try {
+            int depth = 0;
+            do {
+                switch(peek()){
+                    case BEGIN_OBJECT:
+                        beginObject();
+                        ++depth;
+                        break;
+                    case BEGIN_ARRAY:
+                        beginArray();
+                        ++depth;
+                        break;
+                    case END_OBJECT:
+                        endObject();
+                        --depth;
+                        break;
+                    case END_ARRAY:
+                        endArray();
+                        --depth;
+                        break;
+                    case END_DOCUMENT:
+                        throw syntaxError("Unexpected end of document");
+                    default:
+                        // names, strings and literals
+                        peeked = null;
+                        break;
+                }
+            } while(depth > 0);
+        } finally {
+            skipping = false;
+        }
+    }
+
+    /**
+     * Reads the next value as JSONObject, JSONArray, String, Number, Boolean
+     * or JSONObject.NULL. Use this for small subtrees only
+     * @return value
+     * @throws IOException
+     */
+    public Object readValue() throws IOException {
+        switch(peek()){
+            case BEGIN_OBJECT:
+                return readObject();
+            case BEGIN_ARRAY:
+                return readArray();
+            case STRING:
+                return nextString();
+            case NUMBER:
+                return JSONObject.stringToValue(nextString());
+            case BOOLEAN:
+                return nextBoolean();
+            case NULL:
+                nextNull();
+                return JSONObject.NULL;
+            default:
+                throw syntaxError("Expected a value but was " + peek());
+        }
+    }
+
+    /**
+     * Reads the next object as JSONObject
+     * @return object
+     * @throws IOException
+     */
+    public JSONObject readObject() throws IOException {
+        JSONObject ret = new JSONObject();
+        beginObject();
+        while(hasNext()){
+            final String name = nextName();
+            ret.put(name, readValue());
+        }
+        endObject();
+        return ret;
+    }
+
+    /**
+     * Reads the next array as JSONArray
+     * @return array
+     * @throws IOException
+     */
+    public JSONArray readArray() throws IOException {
+        JSONArray ret = new JSONArray();
+        beginArray();
+        while(hasNext()){
+            ret.put(readValue());
+        }
+        endArray();
+        return ret;
+    }
+
+    /**
+     * Consumes the next token if it is of the expected type
+     * @param token expected type
+     * @throws IOException
+     */
+    private void expect(Token token) throws IOException {
+        if(peek() != token) throw syntaxError("Expected " + token + " but was " + peeked);
+        peeked = null;
+    }
+
+    /**
+     * Consumes a number or numeric string
+     * @return text of the number
+     * @throws IOException
+     */
+    private String nextNumber() throws IOException {
+        final Token token = peek();
+        if(token != Token.NUMBER && token != Token.STRING){
+            throw syntaxError("Expected a number but was " + token);
+        }
+        peeked = null;
+        return peekedString;
+    }
+
+    private void push(int scope){
+        if(stackSize == stack.length) stack = Arrays.copyOf(stack, stackSize * 2);
+        stack[stackSize++] = scope;
+    }
+
+    /**
+     * Reads the token of a value, strings and literals are read completely
+     * @return token
+     * @throws IOException
+     */
+    private Token readValueToken() throws IOException {
+        final int c = nextClean();
+        switch(c){
+            case '{':
+                return Token.BEGIN_OBJECT;
+            case '[':
+                return Token.BEGIN_ARRAY;
+            case '"':
+                peekedString = readString(skipping);
+                return Token.STRING;
+            case -1:
+                throw syntaxError("Unexpected end of document");
+            default:
+                // true, false, null or a number
+                builder.setLength(0);
+                builder.append((char) c);
+                int n;
+                while((n = read()) != -1 && ",:]}/\\\"[{; \t\r\n".indexOf(n) < 0){
+                    builder.append((char) n);
+                }
+                if(n != -1){
+                    --bufferPos;
+                    --position;
+                }
+                peekedString = builder.toString();
+                switch(peekedString){
+                    case "true":
+                    case "false":
+                        return Token.BOOLEAN;
+                    case "null":
+                        return Token.NULL;
+                    default:
+                        if(c != '-' && (c < '0' || c > '9')) throw syntaxError("Unexpected value " + peekedString);
+                        return Token.NUMBER;
+                }
+        }
+    }
+
+    /**
+     * Reads a string after the opening quote
+     * @param skip if true the characters are dropped
+     * @return decoded string or null if skipped
+     * @throws IOException
+     */
+    private String readString(boolean skip) throws IOException {
+        builder.setLength(0);
+        while(true){
+            int c = read();
+            switch(c){
+                case -1:
+                case '\n':
+                case '\r':
+                    throw syntaxError("Unterminated string");
+                case '"':
+                    return skip ? null : builder.toString();
+                case '\\':
+                    c = read();
+                    switch(c){
+                        case 'b': c = '\b'; break;
+                        case 't': c = '\t'; break;
+                        case 'n': c = '\n'; break;
+                        case 'f': c = '\f'; break;
+                        case 'r': c = '\r'; break;
+                        case 'u':
+                            int code = 0;
+                            for(int i = 0; i < 4; ++i){
+                                final int digit = Character.digit(read(), 16);
+                                if(digit < 0) throw syntaxError("Illegal escape");
+                                code = (code << 4) | digit;
+                            }
+                            c = code;
+                            break;
+                        case '"':
+                        case '\'':
+                        case '\\':
+                        case '/':
+                            break;
+                        default:
+                            throw syntaxError("Illegal escape");
+                    }
+                    if(!skip) builder.append((char) c);
+                    break;
+                default:
+                    if(!skip) builder.append((char) c);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Reads the next character that isn't whitespace
+     * @return character or -1 at the end of the stream
+     * @throws IOException
+     */
+    private int nextClean() throws IOException {
+        int c;
+        do {
+            c = read();
+        } while(c == ' ' || c == '\t' || c == '\n' || c == '\r');
+        return c;
+    }
+
+    /**
+     * Reads a character from the buffer, fills it if necessary
+     * @return character or -1 at the end of the stream
+     * @throws IOException
+     */
+    private int read() throws IOException {
+        if(bufferPos == bufferLimit){
+            final int count = reader.read(buffer, 0, buffer.length);
+            if(count <= 0) return -1;
+            bufferPos = 0;
+            bufferLimit = count;
+        }
+        ++position;
+        return buffer[bufferPos++];
+    }
+
+    /**
+     * Creates an exception with the current position
+     * @param message
+     * @return exception
+     */
+    private JSONException syntaxError(String message){
+        return new JSONException(message + " at character " + position);
+    }
+
+}
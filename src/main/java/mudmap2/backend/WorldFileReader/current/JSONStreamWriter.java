@@ -0,0 +1,226 @@
+/*  MUD Map (v2) - A tool to create and organize maps for text-based games
+ *  Copyright (C) 2026  Neop (email: mneop@web.de)
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License along
+ *  with this program; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*  File description
+ *
+ *  Writes a JSON document token by token to a stream, the counterpart of
+ *  JSONStreamReader
+ */
+
+package mudmap2.backend.WorldFileReader.current;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.HashMap;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Writes a JSON document without building it in memory first. The output
+ * is formatted like JSONObject.write() does: no whitespace, strings and
+ * numbers are converted by org.json.
+ *
+ * A JSONObject keeps its members in a HashMap, so the order of the members
+ * in its output depends on their names. getMemberOrder() gets that order to
+ * write the same bytes as org.json
+ * @author neop
+ */
+public class JSONStreamWriter implements Closeable, Flushable {
+
+    final Writer writer;
+
+    // true for each open object or array that has no members yet
+    boolean[] empty = new boolean[32];
+    int depth = 0;
+    // a name was written, the next value belongs to it
+    boolean afterName = false;
+
+    /**
+     * Creates a writer, the writer should be buffered
+     * @param writer
+     */
+    public JSONStreamWriter(Writer writer){
+        this.writer = writer;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    /**
+     * Begins an object
+     * @return this
+     * @throws IOException
+     */
+    public JSONStreamWriter beginObject() throws IOException {
+        beforeValue();
+        writer.write('{');
+        push();
+        return this;
+    }
+
+    /**
+     * Ends an object
+     * @return this
+     * @throws IOException
+     */
+    public JSONStreamWriter endObject() throws IOException {
+        writer.write('}');
+        --depth;
+        return this;
+    }
+
+    /**
+     * Begins an array
+     * @return this
+     * @throws IOException
+     */
+    public JSONStreamWriter beginArray() throws IOException {
+        beforeValue();
+        writer.write('[');
+        push();
+        return this;
+    }
+
+    /**
+     * Ends an array
+     * @return this
+     * @throws IOException
+     */
+    public JSONStreamWriter endArray() throws IOException {
+        writer.write(']');
+        --depth;
+        return this;
+    }
+
+    /**
+     * Writes the name of an object member, it has to be followed by a value
+     * @param name
+     * @return this
+     * @throws IOException
+     */
+    public JSONStreamWriter name(String name) throws IOException {
+        beforeValue();
+        JSONObject.quote(name, writer);
+        writer.write(':');
+        afterName = true;
+        return this;
+    }
+
+    /**
+     * Writes a string value
+     * @param value string or null
+     * @return this
+     * @throws IOException
+     */
+    public JSONStreamWriter value(String value) throws IOException {
+        beforeValue();
+        if(value == null) writer.write("null");
+        else JSONObject.quote(value, writer);
+        return this;
+    }
+
+    /**
+     * Writes a number value
+     * @param value number or null
+     * @return this
+     * @throws IOException
+     */
+    public JSONStreamWriter value(Number value) throws IOException {
+        beforeValue();
+        writer.write(value == null ? "null" : JSONObject.numberToString(value));
+        return this;
+    }
+
+    /**
+     * Writes a boolean value
+     * @param value
+     * @return this
+     * @throws IOException
+     */
+    public JSONStreamWriter value(boolean value) throws IOException {
+        beforeValue();
+        writer.write(value ? "true" : "false");
+        return this;
+    }
+
+    /**
+     * Writes a JSONObject subtree
+     * @param value object or null
+     * @return this
+     * @throws IOException
+     */
+    public JSONStreamWriter value(JSONObject value) throws IOException {
+        beforeValue();
+        if(value == null) writer.write("null");
+        else value.write(writer);
+        return this;
+    }
+
+    /**
+     * Writes a JSONArray subtree
+     * @param value array or null
+     * @return this
+     * @throws IOException
+     */
+    public JSONStreamWriter value(JSONArray value) throws IOException {
+        beforeValue();
+        if(value == null) writer.write("null");
+        else value.write(writer);
+        return this;
+    }
+
+    /**
+     * Writes the separator before a value or name, if necessary
+     * @throws IOException
+     */
+    private void beforeValue() throws IOException {
+        if(afterName){
+            afterName = false;
+        } else if(depth > 0){
+            if(!empty[depth - 1]) writer.write(',');
+            empty[depth - 1] = false;
+        }
+    }
+
+    private void push(){
+        if(depth == empty.length) empty = Arrays.copyOf(empty, depth * 2);
+        empty[depth++] = true;
+    }
+
+    /**
+     * Gets the order in which a JSONObject writes its members
+     * @param names member names in the order they were put into the object
+     * @return member names in the order of the JSONObject output
+     */
+    public static String[] getMemberOrder(String... names){
+        // same map type and insertion order as in JSONObject
+        HashMap<String, Object> map = new HashMap<>();
+        for(String name: names) map.put(name, name);
+        return map.keySet().toArray(new String[map.size()]);
+    }
+
+}
@@ -0,0 +1,514 @@
+/*  MUD Map (v2) - A tool to create and organize maps for text-based games
+ *  Copyright (C) 2026  Neop (email: mneop@web.de)
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License along
+ *  with this program; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*  File description
+ *
+ *  Cache of world file information for file lists, so the world files don't
+ *  have to be parsed every time they are listed
+ */
+
+package mudmap2.backend.WorldFileReader.current;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.imageio.ImageIO;
+import mudmap2.Environment;
+import mudmap2.backend.Layer;
+import mudmap2.backend.World;
+import mudmap2.backend.WorldFileReader.Exception.WorldFileInvalidTypeException;
+import mudmap2.backend.WorldFileReader.WorldFile;
+import mudmap2.backend.WorldFileReader.WorldFileType;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Information about world files: world name, file format and version, layer
+ * and place count and a thumbnail. An entry is valid as long as the path,
+ * modification time and size of the file are the same.
+ *
+ * probe() creates an entry from the first bytes of a file, the counts of
+ * JSON files and the thumbnail are added by refresh(), which reads the whole
+ * world in the background. The catalog is stored in the user data directory,
+ * the thumbnails as PNG files next to it
+ * @author neop
+ */
+public class WorldCatalog {
+
+    static final int FILE_VER_MAJOR = 1;
+    static final int FILE_VER_MINOR = 0;
+
+    // number of bytes probe() reads
+    static final int PROBE_SIZE = 8 << 10;
+
+    public static final int THUMBNAIL_WIDTH = 160;
+    public static final int THUMBNAIL_HEIGHT = 120;
+
+    private static final String CATALOG_FILENAME = "catalog";
+    private static final String THUMBNAIL_DIRNAME = "thumbnails";
+
+    // shared by all catalogs, files are read one after another
+    static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "world-catalog");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private static WorldCatalog defaultCatalog = null;
+
+    final File catalogFile;
+    final File thumbnailDir;
+    // absolute path -> entry
+    final HashMap<String, Entry> entries = new HashMap<>();
+    boolean modified = false;
+
+    ThumbnailRenderer thumbnailRenderer = null;
+
+    /**
+     * Constructs a catalog and reads it, if the file exists
+     * @param catalogFile catalog file
+     * @param thumbnailDir directory of the thumbnail images
+     */
+    public WorldCatalog(File catalogFile, File thumbnailDir){
+        this.catalogFile = catalogFile;
+        this.thumbnailDir = thumbnailDir;
+        read();
+    }
+
+    /**
+     * Gets the catalog in the user data directory
+     * @return catalog
+     */
+    public static synchronized WorldCatalog getDefault(){
+        File file = new File(Environment.getUserDataDir(), CATALOG_FILENAME);
+        if(defaultCatalog == null || !defaultCatalog.catalogFile.equals(file)){
+            defaultCatalog = new WorldCatalog(file, new File(Environment.getUserDataDir(), THUMBNAIL_DIRNAME));
+        }
+        return defaultCatalog;
+    }
+
+    /**
+     * Sets the renderer for new thumbnails, no thumbnails are created
+     * without renderer
+     * @param renderer renderer or null
+     */
+    public synchronized void setThumbnailRenderer(ThumbnailRenderer renderer){
+        thumbnailRenderer = renderer;
+    }
+
+    /**
+     * Gets the entry of a file
+     * @param file world file
+     * @return entry or null if the file isn't in the catalog or changed
+     */
+    public synchronized Entry get(File file){
+        Entry entry = entries.get(file.getAbsolutePath());
+        if(entry != null && entry.matches(file)) return entry;
+        return null;
+    }
+
+    /**
+     * Gets the entry of a file, a file that isn't in the catalog is probed
+     * @param file world file
+     * @return entry or null if the file isn't a world file
+     */
+    public Entry probe(File file){
+        Entry entry = get(file);
+        if(entry == null){
+            entry = probeFile(file);
+            if(entry != null) put(entry);
+        }
+        return entry;
+    }
+
+    /**
+     * Reads the worlds whose entries are missing or incomplete, in the
+     * background. The catalog file is written afterwards
+     * @param files world files
+     * @param listener is called on the background thread for each updated
+     * entry, may be null
+     * @return task
+     */
+    public Future<?> refresh(Collection<File> files, final Listener listener){
+        final ArrayList<File> pending = new ArrayList<>(files);
+        return EXECUTOR.submit(new Runnable() {
+            @Override
+            public void run() {
+                for(File file: pending){
+                    Entry entry = get(file);
+                    if(entry != null && entry.complete) continue;
+
+                    entry = probeFile(file);
+                    if(entry == null) continue;
+                    complete(entry);
+                    put(entry);
+                    if(listener != null) listener.entryUpdated(entry);
+                }
+                write();
+            }
+        });
+    }
+
+    private synchronized void put(Entry entry){
+        Entry old = entries.put(entry.path, entry);
+        if(old != null && old.thumbnailFile != null && !old.thumbnailFile.equals(entry.thumbnailFile)){
+            old.thumbnailFile.delete();
+        }
+        modified = true;
+    }
+
+    /**
+     * Reads the first bytes of a file
+     * @param file world file
+     * @return entry without thumbnail or null if the file isn't a world
+     * file
+     */
+    static Entry probeFile(File file){
+        if(!file.isFile()) return null;
+        final long modified = file.lastModified();
+        final long size = file.length();
+
+        // compressed files are decompressed, their size isn't the limit
+        byte[] head = new byte[(int) (WorldFile.isCompressed(file) ? PROBE_SIZE : Math.min(size, PROBE_SIZE))];
+        try(InputStream stream = WorldFile.openInputStream(file)){
+            int length = 0;
+            while(length < head.length){
+                int read = stream.read(head, length, head.length - length);
+                if(read < 0) break;
+                length += read;
+            }
+            if(length < head.length) head = Arrays.copyOf(head, length);
+        } catch (IOException ex) {
+            return null;
+        }
+
+        Entry entry = new Entry(file.getAbsolutePath(), modified, size);
+        if(head.length >= WorldFileBinary.MAGIC.length
+                && Arrays.equals(Arrays.copyOf(head, WorldFileBinary.MAGIC.length), WorldFileBinary.MAGIC)){
+            try {
+                WorldFileBinary.Header header = new WorldFileBinary(entry.path).readHeader(ByteBuffer.wrap(head));
+                entry.type = WorldFileType.BINARY;
+                entry.version = header.versionMajor + "." + header.versionMinor;
+                entry.worldName = header.worldName;
+                entry.layerCount = header.layerCount;
+                entry.placeCount = header.placeCount;
+            } catch(RuntimeException | WorldFileInvalidTypeException ex){
+                // header longer than the probe or damaged
+                return null;
+            }
+        } else {
+            // the members of the root object, the world name is at the
+            // beginning of files written by MUD Map
+            try(JSONStreamReader reader = new JSONStreamReader(new InputStreamReader(
+                    new ByteArrayInputStream(head), StandardCharsets.UTF_8))){
+                reader.beginObject();
+                while(reader.hasNext() && (entry.worldName == null || entry.version == null)){
+                    switch(reader.nextName()){
+                        case "worldName":
+                            entry.worldName = reader.nextString();
+                            break;
+                        case "fileVer":
+                            entry.version = reader.nextString();
+                            break;
+                        default:
+                            reader.skipValue();
+                            break;
+                    }
+                }
+            } catch(IOException | JSONException ex){
+                // end of the probe
+            }
+            if(entry.worldName == null){
+                // fall back to the exact check for files of other writers
+                if(!new WorldFileJSON(entry.path).canRead()) return null;
+                try {
+                    entry.worldName = new WorldFileJSON(entry.path).readWorldName();
+                } catch (Exception ex) {
+                    return null;
+                }
+            }
+            entry.type = WorldFileType.JSON;
+        }
+        return entry;
+    }
+
+    /**
+     * Reads the world to get the counts and the thumbnail
+     * @param entry probed entry
+     */
+    private void complete(Entry entry){
+        entry.complete = true;
+        final ThumbnailRenderer renderer;
+        synchronized(this){
+            renderer = thumbnailRenderer;
+        }
+
+        World world;
+        try {
+            world = new WorldFileDefault(entry.path).readFile();
+        } catch (Exception ex) {
+            Logger.getLogger(WorldCatalog.class.getName()).log(Level.WARNING, "Could not read world file " + entry.path, ex);
+            return;
+        }
+
+        // the counts don't need the places of binary files to be read
+        Layer thumbnailLayer = world.getLayer(world.getHome().getLayer());
+        entry.layerCount = 0;
+        entry.placeCount = 0;
+        for(Layer layer: world.getLayers()){
+            if(layer.isEmpty()) continue;
+            ++entry.layerCount;
+            entry.placeCount += layer.getPlaceCount();
+            if(thumbnailLayer == null || thumbnailLayer.isEmpty()) thumbnailLayer = layer;
+        }
+
+        if(renderer != null && thumbnailLayer != null && !thumbnailLayer.isEmpty()){
+            try {
+                BufferedImage image = renderer.render(thumbnailLayer, THUMBNAIL_WIDTH, THUMBNAIL_HEIGHT);
+                File thumbnailFile = new File(thumbnailDir, getThumbnailName(entry.path));
+                thumbnailDir.mkdirs();
+                ImageIO.write(image, "png", thumbnailFile);
+                entry.thumbnailFile = thumbnailFile;
+                entry.thumbnail = image;
+            } catch (IOException | RuntimeException ex) {
+                Logger.getLogger(WorldCatalog.class.getName()).log(Level.WARNING, null, ex);
+            }
+        }
+    }
+
+    /**
+     * Gets the file name of a thumbnail
+     * @param path world file path
+     * @return file name
+     */
+    private static String getThumbnailName(String path){
+        try {
+            StringBuilder builder = new StringBuilder();
+            for(byte b: MessageDigest.getInstance("SHA-1").digest(path.getBytes(StandardCharsets.UTF_8))){
+                builder.append(String.format("%02x", b));
+            }
+            return builder.append(".png").toString();
+        } catch (NoSuchAlgorithmException ex) {
+            return Integer.toHexString(path.hashCode()) + ".png";
+        }
+    }
+
+    // ------------------- catalog file handling -------------------------------
+
+    /**
+     * Reads the catalog file
+     */
+    private synchronized void read(){
+        if(!catalogFile.isFile()) return;
+        try {
+            JSONObject root = new JSONObject(new String(Files.readAllBytes(catalogFile.toPath()), StandardCharsets.UTF_8));
+            String[] version = root.getString("ver").split("\\.");
+            if(Integer.parseInt(version[0]) != FILE_VER_MAJOR) return;
+
+            JSONArray worlds = root.getJSONArray("worlds");
+            for(int i = 0; i < worlds.length(); ++i){
+                JSONObject object = worlds.getJSONObject(i);
+                Entry entry = new Entry(object.getString("file"), object.getLong("modified"), object.getLong("size"));
+                entry.worldName = object.optString("name", null);
+                entry.type = WorldFileType.valueOf(object.getString("type"));
+                entry.version = object.optString("version", null);
+                entry.layerCount = object.optInt("layers", -1);
+                entry.placeCount = object.optInt("places", -1);
+                entry.complete = object.optBoolean("complete", false);
+                if(object.has("thumbnail")) entry.thumbnailFile = new File(thumbnailDir, object.getString("thumbnail"));
+                entries.put(entry.path, entry);
+            }
+        } catch (IOException | JSONException | IllegalArgumentException ex) {
+            Logger.getLogger(WorldCatalog.class.getName()).log(Level.WARNING, null, ex);
+        }
+    }
+
+    /**
+     * Writes the catalog file, if it changed. Entries of missing files are
+     * removed
+     */
+    public synchronized void write(){
+        for(Entry entry: new ArrayList<>(entries.values())){
+            if(!new File(entry.path).exists()){
+                entries.remove(entry.path);
+                if(entry.thumbnailFile != null) entry.thumbnailFile.delete();
+                modified = true;
+            }
+        }
+        if(!modified) return;
+
+        JSONObject root = new JSONObject();
+        root.put("ver", "" + FILE_VER_MAJOR + "." + FILE_VER_MINOR);
+        JSONArray worlds = new JSONArray();
+        root.put("worlds", worlds);
+        for(Entry entry: entries.values()){
+            JSONObject object = new JSONObject();
+            object.put("file", entry.path);
+            object.put("modified", entry.modified);
+            object.put("size", entry.size);
+            object.put("name", entry.worldName);
+            object.put("type", entry.type.toString());
+            object.put("version", entry.version);
+            object.put("layers", entry.layerCount);
+            object.put("places", entry.placeCount);
+            object.put("complete", entry.complete);
+            if(entry.thumbnailFile != null) object.put("thumbnail", entry.thumbnailFile.getName());
+            worlds.put(object);
+        }
+
+        File parentDir = catalogFile.getAbsoluteFile().getParentFile();
+        if(!parentDir.exists()) parentDir.mkdirs();
+        try(BufferedWriter writer = new BufferedWriter(new FileWriter(catalogFile))){
+            root.write(writer);
+            modified = false;
+        } catch (IOException ex) {
+            Logger.getLogger(WorldCatalog.class.getName()).log(Level.WARNING, null, ex);
+        }
+    }
+
+    /**
+     * Called when an entry was updated
+     */
+    public interface Listener {
+        void entryUpdated(Entry entry);
+    }
+
+    /**
+     * Renders the thumbnail of a world
+     */
+    public interface ThumbnailRenderer {
+        BufferedImage render(Layer layer, int width, int height);
+    }
+
+    /**
+     * Information about a world file
+     */
+    public static class Entry {
+        final String path;
+        final long modified;
+        final long size;
+
+        String worldName = null;
+        WorldFileType type = null;
+        String version = null;
+        int layerCount = -1;
+        int placeCount = -1;
+        // the world was read to get the counts and the thumbnail
+        boolean complete = false;
+
+        File thumbnailFile = null;
+        BufferedImage thumbnail = null;
+
+        Entry(String path, long modified, long size){
+            this.path = path;
+            this.modified = modified;
+            this.size = size;
+        }
+
+        /**
+         * Checks whether the entry belongs to the current state of a file
+         * @param file
+         * @return false if the file changed
+         */
+        boolean matches(File file){
+            return file.getAbsolutePath().equals(path)
+                    && file.lastModified() == modified
+                    && file.length() == size;
+        }
+
+        public File getFile() {
+            return new File(path);
+        }
+
+        public String getWorldName() {
+            return worldName;
+        }
+
+        public WorldFileType getType() {
+            return type;
+        }
+
+        /**
+         * Gets the file format version
+         * @return major.minor or null
+         */
+        public String getVersion() {
+            return version;
+        }
+
+        /**
+         * Gets the number of layers with places
+         * @return count or -1 if unknown
+         */
+        public int getLayerCount() {
+            return layerCount;
+        }
+
+        /**
+         * Gets the number of places
+         * @return count or -1 if unknown
+         */
+        public int getPlaceCount() {
+            return placeCount;
+        }
+
+        public boolean isComplete() {
+            return complete;
+        }
+
+        /**
+         * Gets the thumbnail of the home layer, it is read on first access
+         * @return thumbnail or null
+         */
+        public synchronized BufferedImage getThumbnail() {
+            if(thumbnail == null && thumbnailFile != null){
+                try {
+                    thumbnail = ImageIO.read(thumbnailFile);
+                } catch (IOException ex) {
+                    Logger.getLogger(WorldCatalog.class.getName()).log(Level.WARNING, null, ex);
+                }
+                if(thumbnail == null) thumbnailFile = null;
+            }
+            return thumbnail;
+        }
+    }
+
+}
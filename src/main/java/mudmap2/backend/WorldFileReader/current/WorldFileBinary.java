@@ -0,0 +1,1228 @@
+/*  MUD Map (v2) - A tool to create and organize maps for text-based games
+ *  Copyright (C) 2026  Neop (email: mneop@web.de)
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License along
+ *  with this program; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*  File description
+ *
+ *  Reads and writes the compact binary world file format
+ */
+
+package mudmap2.backend.WorldFileReader.current;
+
+import java.awt.Color;
+import java.awt.GraphicsEnvironment;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.JOptionPane;
+import mudmap2.backend.InformationColor;
+import mudmap2.backend.Layer;
+import mudmap2.backend.LayerLoader;
+import mudmap2.backend.Path;
+import mudmap2.backend.Place;
+import mudmap2.backend.PlaceGroup;
+import mudmap2.backend.World;
+import mudmap2.backend.WorldCoordinate;
+import mudmap2.backend.WorldFileReader.Exception.WorldFileInvalidTypeException;
+import mudmap2.backend.WorldFileReader.Exception.WorldFileReadError;
+import mudmap2.backend.WorldFileReader.WorldFile;
+import mudmap2.backend.WorldFileReader.WorldFileType;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Binary world file, it stores the same data as WorldFileJSON in less space
+ * and without parsing text. The places of a layer are read when the layer is
+ * accessed for the first time.
+ *
+ * Layout, all counts and ids are unsigned varints, coordinates and levels
+ * are zigzag encoded signed varints:
+ * <pre>
+ * header:   magic "MMWB", version major (u16), version minor (u16),
+ *           world name (inline string), layer, place and path count
+ * strings:  count, each string as byte length and UTF-8 bytes
+ * world:    mudmap version, show place id (string refs), tile center, path
+ *           and non cardinal path color, path color definitions (count,
+ *           direction string ref, color), home (layer ref, x and y as
+ *           doubles)
+ * info col: count, each id (signed), description (string ref), color
+ * areas:    count, each name (string ref), color, the id is the index + 1
+ * layers:   each name (string ref), center x, center y, place count, byte
+ *           length of the layer section, the id is the index
+ * next id:  greater than all place ids
+ * sections: places and paths of each layer
+ *   places: each id, name (string ref), x, y, a field byte that tells
+ *           which of the following fields exist: area id, information
+ *           color id, min level, max level, children (count, place refs),
+ *           flags (count, string refs), comments (string ref), parents on
+ *           other layers (count, place refs)
+ *   paths:  count, each place id, exit code, place ref, exit code
+ * blobs:    preferences and meta data as JSON text (byte length, 0 if
+ *           missing, UTF-8 bytes)
+ * </pre>
+ * String refs are 0 for null or the index in the string table + 1. Colors
+ * are 0 for null or the RGB value + 1. Exit codes below the number of
+ * standard directions are indices in Path.directions, other exits are
+ * stored as code - number of standard directions = string ref. Place refs
+ * are the place id and 0 for places on the same layer or the layer id + 1,
+ * x and y for places on other layers. Paths and child connections between
+ * layers are stored in the sections of both layers, so a place on a layer
+ * that hasn't been read is created with the position from the reference.
+ *
+ * Version 1.0 files store all places after the layers, with the layer id
+ * after the name, and all paths with place ids after the places. They are
+ * read completely
+ * @author neop
+ */
+public class WorldFileBinary extends WorldFile {
+
+    static final byte[] MAGIC = {'M', 'M', 'W', 'B'};
+    static final int versionMajor = 1;
+    static final int versionMinor = 1;
+
+    // bytes read of compressed files to get the world name
+    static final int HEADER_READ_SIZE = 8 << 10;
+
+    // place field bits
+    static final int FIELD_AREA = 1;
+    static final int FIELD_INFO_RING = 1 << 1;
+    static final int FIELD_LEVEL_MIN = 1 << 2;
+    static final int FIELD_LEVEL_MAX = 1 << 3;
+    static final int FIELD_CHILDREN = 1 << 4;
+    static final int FIELD_FLAGS = 1 << 5;
+    static final int FIELD_COMMENTS = 1 << 6;
+    static final int FIELD_PARENTS = 1 << 7;
+
+    HashMap<Integer, Integer> layerIDs;
+
+    JSONObject metaData;
+    WorldMetaJSON metaWriter;
+
+    /**
+     * Constructor
+     * @param filename world filename with path
+     */
+    public WorldFileBinary(String filename) {
+        super(filename);
+    }
+
+    public void setMetaGetter(WorldMetaJSON meta) {
+        this.metaWriter = meta;
+    }
+
+    public JSONObject getMetaData() {
+        return metaData;
+    }
+
+    public Integer translateLayerID(Integer layer){
+        if(layerIDs == null) return null;
+        return layerIDs.get(layer);
+    }
+
+    /**
+     * Header of a binary world file
+     */
+    static class Header {
+        int versionMajor, versionMinor;
+        String worldName;
+        int layerCount, placeCount, pathCount;
+    }
+
+    /**
+     * Read world file
+     * @return new world object
+     * @throws Exception
+     * @throws WorldFileInvalidTypeException
+     * @throws WorldFileReadError
+     */
+    @Override
+    public World readFile() throws Exception {
+        World world = new World("");
+        world.setWorldFile(this);
+        metaData = null;
+
+        try {
+            ByteBuffer buffer = readBuffer(new File(filename), Integer.MAX_VALUE);
+
+            Header header = readHeader(buffer);
+            checkFileVersion(header);
+            world.setName(header.worldName);
+            if(header.versionMinor > 0 && buffer.isDirect()){
+                // the layers are read later, the file might be replaced until then
+                ByteBuffer copy = ByteBuffer.allocate(buffer.limit());
+                final int position = buffer.position();
+                buffer.position(0);
+                copy.put(buffer);
+                copy.position(position);
+                buffer = copy;
+            }
+
+            Strings strings = new Strings(buffer);
+
+            // world settings
+            strings.get(readVarint(buffer)); // version of MUD Map that wrote the file
+            String showPlaceID = strings.get(readVarint(buffer));
+            if(showPlaceID != null) world.setShowPlaceID(World.ShowPlaceID.valueOf(showPlaceID));
+            Color color = readColor(buffer);
+            if(color != null) world.setTileCenterColor(color);
+            color = readColor(buffer);
+            if(color != null) world.setPathColorStd(color);
+            color = readColor(buffer);
+            if(color != null) world.setPathColorNstd(color);
+            for(int i = readVarint(buffer); i > 0; --i){
+                String direction = strings.get(readVarint(buffer));
+                color = readColor(buffer);
+                if(direction != null && color != null) world.setPathColor(direction, color);
+            }
+            int homeLayer = readVarint(buffer);
+            double homeX = buffer.getDouble();
+            double homeY = buffer.getDouble();
+            if(homeLayer > 0) world.setHome(new WorldCoordinate(homeLayer - 1, homeX, homeY));
+
+            // information colors
+            world.getInformationColors().clear();
+            for(int i = readVarint(buffer); i > 0; --i){
+                int id = readSignedVarint(buffer);
+                String description = strings.get(readVarint(buffer));
+                world.setInformationColor(new InformationColor(id, description, readColor(buffer)));
+            }
+
+            // areas
+            PlaceGroup[] areas = new PlaceGroup[readVarint(buffer)];
+            for(int i = 0; i < areas.length; ++i){
+                String name = strings.get(readVarint(buffer));
+                areas[i] = new PlaceGroup(name, readColor(buffer));
+                world.addPlaceGroup(areas[i]);
+            }
+
+            if(header.versionMinor == 0){
+                readPlaces(buffer, header, world, strings, areas);
+            } else {
+                // layer index
+                final LayerIndex index = new LayerIndex(filename, buffer, strings, areas, header.layerCount);
+                int offset = 0;
+                for(int i = 0; i < header.layerCount; ++i){
+                    String name = strings.get(readVarint(buffer));
+                    int centerX = readSignedVarint(buffer);
+                    int centerY = readSignedVarint(buffer);
+                    index.placeCounts[i] = readVarint(buffer);
+                    index.offsets[i] = offset;
+                    offset += readVarint(buffer);
+
+                    Layer layer = new Layer(i, world);
+                    layer.setQuadtree(centerX, centerY);
+                    if(name != null) layer.setName(name);
+                    world.addLayer(layer);
+                    index.layers[i] = layer;
+                }
+                // places that haven't been read keep their ids
+                Place.reserveID(readVarint(buffer) - 1);
+
+                final int sectionStart = buffer.position();
+                for(int i = 0; i < header.layerCount; ++i){
+                    index.offsets[i] += sectionStart;
+                    index.layers[i].setLoader(index, index.placeCounts[i]);
+                }
+                buffer.position(sectionStart + offset);
+            }
+
+            // preferences and meta data for WorldTab
+            String preferences = readBlob(buffer);
+            if(preferences != null) world.setPreferences(new JSONObject(preferences));
+            String meta = readBlob(buffer);
+            if(meta != null) metaData = new JSONObject(meta);
+        } catch(BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException | JSONException ex){
+            throw new WorldFileReadError(filename, "invalid binary world file", ex);
+        }
+
+        return world;
+    }
+
+    /**
+     * Strings of a world file that is read, a string is decoded when it is
+     * used for the first time
+     */
+    static class Strings {
+        final ByteBuffer buffer;
+        final int[] offsets;
+        final String[] strings;
+
+        /**
+         * Reads the string table
+         * @param buffer buffer at the string table, it is moved behind it
+         */
+        Strings(ByteBuffer buffer){
+            this.buffer = buffer.duplicate();
+            offsets = new int[readVarint(buffer)];
+            strings = new String[offsets.length];
+            for(int i = 0; i < offsets.length; ++i){
+                offsets[i] = buffer.position();
+                final int length = readVarint(buffer);
+                buffer.position(buffer.position() + length);
+            }
+        }
+
+        /**
+         * Gets a string
+         * @param ref string ref
+         * @return string or null
+         */
+        synchronized String get(int ref){
+            if(ref == 0) return null;
+            String string = strings[ref - 1];
+            if(string == null){
+                buffer.position(offsets[ref - 1]);
+                string = strings[ref - 1] = readString(buffer);
+            }
+            return string;
+        }
+    }
+
+    /**
+     * Reads the places and paths of a layer when the layer is accessed for
+     * the first time
+     */
+    static class LayerIndex implements LayerLoader {
+        final String filename;
+        final ByteBuffer buffer;
+        final Strings strings;
+        final PlaceGroup[] areas;
+
+        // position of the layer sections in the buffer
+        final int[] offsets;
+        final int[] placeCounts;
+        final Layer[] layers;
+        final boolean[] loaded;
+
+        // places that have been read or referenced by a layer that was read
+        final Map<Integer, Place> places;
+
+        LayerIndex(String filename, ByteBuffer buffer, Strings strings, PlaceGroup[] areas, int layerCount){
+            this(filename, buffer, strings, areas, layerCount, new HashMap<Integer, Place>());
+        }
+
+        private LayerIndex(String filename, ByteBuffer buffer, Strings strings, PlaceGroup[] areas,
+                int layerCount, Map<Integer, Place> places){
+            this.filename = filename;
+            this.buffer = buffer;
+            this.strings = strings;
+            this.areas = areas;
+            this.places = places;
+            offsets = new int[layerCount];
+            placeCounts = new int[layerCount];
+            layers = new Layer[layerCount];
+            loaded = new boolean[layerCount];
+        }
+
+        /**
+         * Creates an index for a copy of the world, the buffer and strings
+         * are shared. Connections to layers that have been read are copied
+         * with them, so these layers count as read in the copy
+         */
+        @Override
+        public synchronized LayerLoader copy(World world, Map<PlaceGroup, PlaceGroup> placeGroups, Map<Integer, Place> places){
+            PlaceGroup[] areaCopies = new PlaceGroup[areas.length];
+            for(int i = 0; i < areas.length; ++i){
+                areaCopies[i] = placeGroups.get(areas[i]);
+                if(areaCopies[i] == null){
+                    // area that has been removed from the world
+                    areaCopies[i] = new PlaceGroup(areas[i].getName(), areas[i].getColor());
+                    world.addPlaceGroup(areaCopies[i]);
+                    placeGroups.put(areas[i], areaCopies[i]);
+                }
+            }
+
+            LayerIndex index = new LayerIndex(filename, buffer, strings, areaCopies, layers.length, places);
+            System.arraycopy(offsets, 0, index.offsets, 0, offsets.length);
+            System.arraycopy(placeCounts, 0, index.placeCounts, 0, placeCounts.length);
+            for(int i = 0; i < layers.length; ++i){
+                index.layers[i] = world.getLayer(layers[i].getId());
+                index.loaded[i] = loaded[i] || index.layers[i] == null;
+            }
+            return index;
+        }
+
+        @Override
+        public synchronized void load(Layer layer) throws Exception {
+            final int index = layer.getId();
+            if(index < 0 || index >= layers.length || layers[index] != layer || loaded[index]) return;
+            loaded[index] = true;
+
+            final ByteBuffer data = buffer.duplicate();
+            data.position(offsets[index]);
+            final World world = layer.getWorld();
+            try {
+                // places
+                HashMap<Place, ArrayList<Integer>> children = new HashMap<>();
+                for(int i = 0; i < placeCounts[index]; ++i){
+                    int id = readVarint(data);
+                    String name = strings.get(readVarint(data));
+                    int x = readSignedVarint(data);
+                    int y = readSignedVarint(data);
+                    int fields = data.get();
+
+                    // the place might have been created by a reference
+                    Place place = places.get(id);
+                    if(place == null){
+                        place = new Place(id, name, x, y, layer);
+                        places.put(id, place);
+                    } else {
+                        place.setName(name);
+                    }
+
+                    if((fields & FIELD_AREA) != 0) place.setPlaceGroup(areas[readVarint(data) - 1]);
+                    if((fields & FIELD_INFO_RING) != 0) place.setInfoRing(world.getInformationColor(readSignedVarint(data)));
+                    if((fields & FIELD_LEVEL_MIN) != 0) place.setRecLevelMin(readSignedVarint(data));
+                    if((fields & FIELD_LEVEL_MAX) != 0) place.setRecLevelMax(readSignedVarint(data));
+                    if((fields & FIELD_CHILDREN) != 0){
+                        ArrayList<Integer> ids = new ArrayList<>();
+                        for(int c = readVarint(data); c > 0; --c){
+                            Place child = readRef(data, ids);
+                            if(child != null) place.connectChild(child);
+                        }
+                        children.put(place, ids);
+                    }
+                    if((fields & FIELD_FLAGS) != 0){
+                        for(int f = readVarint(data); f > 0; --f){
+                            place.setFlag(strings.get(readVarint(data)), true);
+                        }
+                    }
+                    if((fields & FIELD_COMMENTS) != 0) place.setComments(strings.get(readVarint(data)));
+                    if((fields & FIELD_PARENTS) != 0){
+                        for(int p = readVarint(data); p > 0; --p){
+                            Place parent = readRef(data, null);
+                            if(parent != null) parent.connectChild(place);
+                        }
+                    }
+
+                    layer.put(place);
+                }
+
+                // children on the same layer
+                for(Map.Entry<Place, ArrayList<Integer>> entry: children.entrySet()){
+                    for(int id: entry.getValue()){
+                        Place child = places.get(id);
+                        if(child != null) entry.getKey().connectChild(child);
+                    }
+                }
+
+                // paths
+                for(int i = readVarint(data); i > 0; --i){
+                    Place pl0 = places.get(readVarint(data));
+                    String exit0 = readExit(data, strings);
+                    Place pl1 = readRef(data, null);
+                    String exit1 = readExit(data, strings);
+                    if(pl0 != null && pl1 != null){
+                        pl0.connectPath(new Path(pl0, exit0, pl1, exit1));
+                    }
+                }
+            } catch(BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException ex){
+                throw new WorldFileReadError(filename, "invalid binary world file", ex);
+            }
+        }
+
+        /**
+         * Reads a place reference
+         * @param data
+         * @param sameLayer gets the ids of places on the layer that is read,
+         * if they can't be resolved yet
+         * @return referenced place, null if it is on a layer that was read
+         * before (the connection exists already) or if its id was added to
+         * sameLayer
+         */
+        private Place readRef(ByteBuffer data, ArrayList<Integer> sameLayer){
+            final int id = readVarint(data);
+            final int layer = readVarint(data);
+            if(layer == 0){
+                if(sameLayer == null) return places.get(id);
+                sameLayer.add(id);
+                return null;
+            }
+
+            final int x = readSignedVarint(data);
+            final int y = readSignedVarint(data);
+            if(loaded[layer - 1]) return null;
+            // the place is completed when its layer is read
+            Place place = places.get(id);
+            if(place == null){
+                place = new Place(id, "", x, y, layers[layer - 1]);
+                places.put(id, place);
+            }
+            return place;
+        }
+    }
+
+    /**
+     * Reads the layers, places and paths of a version 1.0 file
+     * @param buffer buffer at the layers
+     * @param header file header
+     * @param world world to fill
+     * @param strings string table
+     * @param areas areas by id - 1
+     * @throws Exception
+     */
+    private static void readPlaces(ByteBuffer buffer, Header header, World world,
+            Strings strings, PlaceGroup[] areas) throws Exception {
+        // layers
+        Layer[] layers = new Layer[header.layerCount];
+        for(int i = 0; i < layers.length; ++i){
+            String name = strings.get(readVarint(buffer));
+            int centerX = readSignedVarint(buffer);
+            int centerY = readSignedVarint(buffer);
+
+            layers[i] = world.getLayer(i);
+            if(layers[i] == null){
+                layers[i] = new Layer(i, world);
+                layers[i].setQuadtree(centerX, centerY);
+                world.addLayer(layers[i]);
+            }
+            if(name != null) layers[i].setName(name);
+        }
+
+        // places
+        HashMap<Integer, Place> places = new HashMap<>();
+        HashMap<Place, int[]> children = new HashMap<>();
+        for(int i = 0; i < header.placeCount; ++i){
+            int id = readVarint(buffer);
+            String name = strings.get(readVarint(buffer));
+            Layer layer = layers[readVarint(buffer)];
+            int x = readSignedVarint(buffer);
+            int y = readSignedVarint(buffer);
+            int fields = buffer.get();
+
+            Place place = new Place(id, name, x, y, layer);
+            if((fields & FIELD_AREA) != 0) place.setPlaceGroup(areas[readVarint(buffer) - 1]);
+            if((fields & FIELD_INFO_RING) != 0) place.setInfoRing(world.getInformationColor(readSignedVarint(buffer)));
+            if((fields & FIELD_LEVEL_MIN) != 0) place.setRecLevelMin(readSignedVarint(buffer));
+            if((fields & FIELD_LEVEL_MAX) != 0) place.setRecLevelMax(readSignedVarint(buffer));
+            if((fields & FIELD_CHILDREN) != 0){
+                int[] ids = new int[readVarint(buffer)];
+                for(int c = 0; c < ids.length; ++c) ids[c] = readVarint(buffer);
+                children.put(place, ids);
+            }
+            if((fields & FIELD_FLAGS) != 0){
+                for(int f = readVarint(buffer); f > 0; --f){
+                    place.setFlag(strings.get(readVarint(buffer)), true);
+                }
+            }
+            if((fields & FIELD_COMMENTS) != 0) place.setComments(strings.get(readVarint(buffer)));
+
+            layer.put(place);
+            places.put(id, place);
+        }
+
+        // connect children
+        for(Map.Entry<Place, int[]> entry: children.entrySet()){
+            for(int id: entry.getValue()){
+                Place child = places.get(id);
+                if(child != null) entry.getKey().connectChild(child);
+            }
+        }
+
+        // paths
+        for(int i = 0; i < header.pathCount; ++i){
+            Place pl0 = places.get(readVarint(buffer));
+            String exit0 = readExit(buffer, strings);
+            Place pl1 = places.get(readVarint(buffer));
+            String exit1 = readExit(buffer, strings);
+            if(pl0 != null && pl1 != null){
+                pl0.connectPath(new Path(pl0, exit0, pl1, exit1));
+            }
+        }
+    }
+
+    /**
+     * Reads the header
+     * @param buffer buffer at the beginning of the file
+     * @return header
+     * @throws WorldFileInvalidTypeException if the file isn't a binary world
+     */
+    Header readHeader(ByteBuffer buffer) throws WorldFileInvalidTypeException {
+        byte[] magic = new byte[MAGIC.length];
+        if(buffer.remaining() < magic.length) throw new WorldFileInvalidTypeException(filename, "not a binary world file", null);
+        buffer.get(magic);
+        if(!Arrays.equals(magic, MAGIC)) throw new WorldFileInvalidTypeException(filename, "not a binary world file", null);
+
+        Header header = new Header();
+        header.versionMajor = buffer.getShort() & 0xffff;
+        header.versionMinor = buffer.getShort() & 0xffff;
+        header.worldName = readString(buffer);
+        header.layerCount = readVarint(buffer);
+        header.placeCount = readVarint(buffer);
+        header.pathCount = readVarint(buffer);
+        return header;
+    }
+
+    /**
+     * Checks whether the file version can be read
+     * @param header file header
+     * @throws WorldFileInvalidTypeException
+     */
+    private void checkFileVersion(Header header) throws WorldFileInvalidTypeException {
+        if(header.versionMajor != versionMajor){
+            // version major not equal: different file format
+            throw new WorldFileInvalidTypeException(filename,
+                    "invalid world file version", null);
+        }
+        if(header.versionMinor > versionMinor){
+            // file was created by a newer MUD Map: might have unsupported features
+            if(GraphicsEnvironment.isHeadless()){
+                Logger.getLogger(WorldFileBinary.class.getName()).log(Level.WARNING,
+                        "World file version is greater than the reader version: {0}", filename);
+            } else {
+                int ret = JOptionPane.showConfirmDialog(null,
+                        "World file version is greater than the reader version. "
+                        + "Please update MUD Map. Continuing might cause data loss.",
+                        "Loading world", JOptionPane.OK_CANCEL_OPTION);
+                if(ret == JOptionPane.CANCEL_OPTION)
+                    throw new WorldFileInvalidTypeException(filename, "Could not read world file", null);
+            }
+        }
+    }
+
+    /**
+     * Write world to file
+     * @param world
+     * @throws IOException
+     */
+    @Override
+    public void writeFile(World world) throws IOException {
+        checkComplete(world);
+        // layers with places, they get new ids from 0 on
+        ArrayList<Layer> layers = new ArrayList<>();
+        layerIDs = new HashMap<>();
+        for(Layer layer: world.getLayers()){
+            if(!layer.getPlaces().isEmpty()){
+                layerIDs.put(layer.getId(), layers.size());
+                layers.add(layer);
+            }
+        }
+
+        // areas in use get ids from 1 on
+        HashSet<PlaceGroup> areasInUse = new HashSet<>();
+        int placeCount = 0;
+        int nextPlaceID = 0;
+        for(Layer layer: layers){
+            for(Place place: layer.getPlaces()){
+                if(place.getPlaceGroup() != null) areasInUse.add(place.getPlaceGroup());
+                ++placeCount;
+                nextPlaceID = Math.max(nextPlaceID, place.getId() + 1);
+            }
+        }
+        LinkedHashMap<PlaceGroup, Integer> areaIDs = new LinkedHashMap<>();
+        for(PlaceGroup area: world.getPlaceGroups()){
+            if(areasInUse.remove(area)) areaIDs.put(area, areaIDs.size() + 1);
+        }
+        // areas that aren't registered in the world
+        for(PlaceGroup area: areasInUse) areaIDs.put(area, areaIDs.size() + 1);
+
+        // mudmap version
+        String mudmapVer = getClass().getPackage().getImplementationVersion();
+        if(mudmapVer == null) mudmapVer = "dev";
+
+        JSONObject preferences = world.getPreferences();
+        // metaWriter data from WorldTab
+        JSONObject meta = metaWriter == null ? null : metaWriter.getMeta(layerIDs);
+
+        // first pass: collect the strings and paths
+        StringTable strings = new StringTable();
+        strings.add(mudmapVer);
+        if(world.getShowPlaceId() != null) strings.add(world.getShowPlaceId().toString());
+        for(Map.Entry<String, Color> pathCol: world.getPathColors().entrySet()){
+            if(pathCol.getValue() != null) strings.add(pathCol.getKey());
+        }
+        for(InformationColor infoCol: world.getInformationColors()){
+            strings.add(infoCol.getDescription());
+        }
+        for(PlaceGroup area: areaIDs.keySet()){
+            strings.add(area.getName());
+        }
+        for(Layer layer: layers){
+            if(layer.hasName()) strings.add(layer.getName());
+        }
+
+        ArrayList<Path> paths = new ArrayList<>();
+        // paths that have been found at their first place only
+        Set<Path> pathsFound = Collections.newSetFromMap(new IdentityHashMap<Path, Boolean>());
+        for(Layer layer: layers){
+            for(Place place: layer.getPlaces()){
+                strings.add(place.getName());
+                for(Map.Entry<String, Boolean> flag: place.getFlags().entrySet()){
+                    if(flag.getValue()) strings.add(flag.getKey());
+                }
+                if(place.getComments() != null && !place.getComments().isEmpty()) strings.add(place.getComments());
+
+                for(Path path: place.getPaths()){
+                    if(pathsFound.remove(path)) continue;
+                    paths.add(path);
+                    for(String exit: path.getExitDirections()){
+                        if(getDirectionCode(exit) < 0) strings.add(exit);
+                    }
+                    if(path.getPlaces()[0] != path.getPlaces()[1]) pathsFound.add(path);
+                }
+            }
+        }
+
+        // second pass: write the file, to a temporary file that replaces
+        // the world file when it is complete
+        final File tmpFile = new File(filename + ".tmp");
+        boolean complete = false;
+        try(FileOutputStream stream = new FileOutputStream(tmpFile);
+                OutputStream file = openOutputStream(stream, isCompressionRequested(world));
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))){
+            // header
+            out.write(MAGIC);
+            out.writeShort(versionMajor);
+            out.writeShort(versionMinor);
+            writeString(out, world.getName());
+            writeVarint(out, layers.size());
+            writeVarint(out, placeCount);
+            writeVarint(out, paths.size());
+
+            // string table
+            writeVarint(out, strings.size());
+            for(String string: strings.getStrings()){
+                writeString(out, string);
+            }
+
+            // world settings
+            writeVarint(out, strings.getRef(mudmapVer));
+            writeVarint(out, world.getShowPlaceId() != null ? strings.getRef(world.getShowPlaceId().toString()) : 0);
+            writeColor(out, world.getTileCenterColor());
+            writeColor(out, world.getPathColorStd());
+            writeColor(out, world.getPathColorNstd());
+            int pathColCount = 0;
+            for(Color color: world.getPathColors().values()){
+                if(color != null) ++pathColCount;
+            }
+            writeVarint(out, pathColCount);
+            for(Map.Entry<String, Color> pathCol: world.getPathColors().entrySet()){
+                if(pathCol.getValue() != null){
+                    writeVarint(out, strings.getRef(pathCol.getKey()));
+                    writeColor(out, pathCol.getValue());
+                }
+            }
+            WorldCoordinate home = world.getHome();
+            Integer homeLayer = translateLayerID(home.getLayer());
+            writeVarint(out, homeLayer != null ? homeLayer + 1 : 0);
+            out.writeDouble(home.getX());
+            out.writeDouble(home.getY());
+
+            // information colors
+            writeVarint(out, world.getInformationColors().size());
+            for(InformationColor infoCol: world.getInformationColors()){
+                writeSignedVarint(out, infoCol.getId());
+                writeVarint(out, strings.getRef(infoCol.getDescription()));
+                writeColor(out, infoCol.getColor());
+            }
+
+            // areas
+            writeVarint(out, areaIDs.size());
+            for(PlaceGroup area: areaIDs.keySet()){
+                writeVarint(out, strings.getRef(area.getName()));
+                writeColor(out, area.getColor());
+            }
+
+            // layer sections, they are written to memory first since their
+            // length is stored in the layer index
+            ArrayList<byte[]> sections = new ArrayList<>(layers.size());
+            for(Layer layer: layers){
+                ByteArrayOutputStream sectionBytes = new ByteArrayOutputStream();
+                DataOutputStream section = new DataOutputStream(sectionBytes);
+                writeSection(section, layer, areaIDs, strings);
+                section.flush();
+                sections.add(sectionBytes.toByteArray());
+            }
+
+            // layer index
+            for(int i = 0; i < layers.size(); ++i){
+                Layer layer = layers.get(i);
+                writeVarint(out, layer.hasName() ? strings.getRef(layer.getName()) : 0);
+                writeSignedVarint(out, layer.getCenterX());
+                writeSignedVarint(out, layer.getCenterY());
+                writeVarint(out, layer.getPlaces().size());
+                writeVarint(out, sections.get(i).length);
+            }
+            writeVarint(out, nextPlaceID);
+
+            for(byte[] section: sections) out.write(section);
+
+            writeBlob(out, preferences != null ? preferences.toString() : null);
+            writeBlob(out, meta != null ? meta.toString() : null);
+
+            out.flush();
+            finishOutputStream(file);
+            // the data has to be on the disk before the old file is replaced
+            stream.getFD().sync();
+            complete = true;
+        } finally {
+            if(!complete) tmpFile.delete();
+        }
+        replaceFile(tmpFile, new File(filename));
+    }
+
+    /**
+     * Writes the places and paths of a layer
+     * @param out
+     * @param layer
+     * @param areaIDs ids of the areas in the file
+     * @param strings string table
+     * @throws IOException
+     */
+    private void writeSection(DataOutputStream out, Layer layer,
+            HashMap<PlaceGroup, Integer> areaIDs, StringTable strings) throws IOException {
+        final int layerID = layerIDs.get(layer.getId());
+        for(Place place: layer.getPlaces()){
+            writePlace(out, place, layerID, areaIDs, strings);
+        }
+
+        // paths on this layer are written once, paths to other layers are
+        // written in the sections of both layers
+        ArrayList<Place> pathPlaces = new ArrayList<>();
+        ArrayList<Path> paths = new ArrayList<>();
+        Set<Path> pathsFound = Collections.newSetFromMap(new IdentityHashMap<Path, Boolean>());
+        for(Place place: layer.getPlaces()){
+            for(Path path: place.getPaths()){
+                Place other = path.getOtherPlace(place);
+                if(getFileLayer(other) == null) continue;
+                if(other.getLayer() == layer){
+                    if(!pathsFound.add(path)) continue;
+                    pathPlaces.add(path.getPlaces()[0]);
+                } else {
+                    pathPlaces.add(place);
+                }
+                paths.add(path);
+            }
+        }
+
+        writeVarint(out, paths.size());
+        for(int i = 0; i < paths.size(); ++i){
+            final Place place = pathPlaces.get(i);
+            final Path path = paths.get(i);
+            final Place other = path.getOtherPlace(place);
+            writeVarint(out, place.getId());
+            writeExit(out, path.getExit(place), strings);
+            writePlaceRef(out, other, layerID);
+            // self loops
+            writeExit(out, other == place ? path.getExitDirections()[1] : path.getExit(other), strings);
+        }
+    }
+
+    /**
+     * Gets the id of a place's layer in the file
+     * @param place
+     * @return layer id or null if the layer isn't written
+     */
+    private Integer getFileLayer(Place place){
+        if(place.getLayer() == null) return null;
+        return layerIDs.get(place.getLayer().getId());
+    }
+
+    /**
+     * Writes a place reference
+     * @param out
+     * @param place referenced place, its layer has to be written
+     * @param layerID id of the layer that is written
+     * @throws IOException
+     */
+    private void writePlaceRef(DataOutputStream out, Place place, int layerID) throws IOException {
+        final int layer = getFileLayer(place);
+        writeVarint(out, place.getId());
+        if(layer == layerID){
+            writeVarint(out, 0);
+        } else {
+            writeVarint(out, layer + 1);
+            writeSignedVarint(out, place.getX());
+            writeSignedVarint(out, place.getY());
+        }
+    }
+
+    /**
+     * Writes an exit code
+     * @param out
+     * @param exit exit direction
+     * @param strings string table
+     * @throws IOException
+     */
+    private static void writeExit(DataOutputStream out, String exit, StringTable strings) throws IOException {
+        final int code = getDirectionCode(exit);
+        writeVarint(out, code >= 0 ? code : Path.directions.length + strings.getRef(exit));
+    }
+
+    /**
+     * Writes a place record
+     * @param out
+     * @param place
+     * @param layerID id of the place layer in the file
+     * @param areaIDs ids of the areas in the file
+     * @param strings string table
+     * @throws IOException
+     */
+    private void writePlace(DataOutputStream out, Place place, int layerID,
+            HashMap<PlaceGroup, Integer> areaIDs, StringTable strings) throws IOException {
+        final boolean hasComments = place.getComments() != null && !place.getComments().isEmpty();
+        int flagCount = 0;
+        for(Boolean flag: place.getFlags().values()){
+            if(flag) ++flagCount;
+        }
+
+        // children on written layers, parents on other written layers
+        ArrayList<Place> children = new ArrayList<>();
+        for(Place child: place.getChildren()){
+            if(getFileLayer(child) != null) children.add(child);
+        }
+        ArrayList<Place> parents = new ArrayList<>();
+        for(Place parent: place.getParents()){
+            Integer layer = getFileLayer(parent);
+            if(layer != null && layer != layerID) parents.add(parent);
+        }
+
+        int fields = 0;
+        if(place.getPlaceGroup() != null) fields |= FIELD_AREA;
+        if(place.getInfoRing() != null) fields |= FIELD_INFO_RING;
+        if(place.getRecLevelMin() > -1) fields |= FIELD_LEVEL_MIN;
+        if(place.getRecLevelMax() > -1) fields |= FIELD_LEVEL_MAX;
+        if(!children.isEmpty()) fields |= FIELD_CHILDREN;
+        if(flagCount > 0) fields |= FIELD_FLAGS;
+        if(hasComments) fields |= FIELD_COMMENTS;
+        if(!parents.isEmpty()) fields |= FIELD_PARENTS;
+
+        writeVarint(out, place.getId());
+        writeVarint(out, strings.getRef(place.getName()));
+        writeSignedVarint(out, place.getX());
+        writeSignedVarint(out, place.getY());
+        out.writeByte(fields);
+
+        if((fields & FIELD_AREA) != 0) writeVarint(out, areaIDs.get(place.getPlaceGroup()));
+        if((fields & FIELD_INFO_RING) != 0) writeSignedVarint(out, place.getInfoRing().getId());
+        if((fields & FIELD_LEVEL_MIN) != 0) writeSignedVarint(out, place.getRecLevelMin());
+        if((fields & FIELD_LEVEL_MAX) != 0) writeSignedVarint(out, place.getRecLevelMax());
+        if((fields & FIELD_CHILDREN) != 0){
+            writeVarint(out, children.size());
+            for(Place child: children) writePlaceRef(out, child, layerID);
+        }
+        if((fields & FIELD_FLAGS) != 0){
+            writeVarint(out, flagCount);
+            for(Map.Entry<String, Boolean> flag: place.getFlags().entrySet()){
+                if(flag.getValue()) writeVarint(out, strings.getRef(flag.getKey()));
+            }
+        }
+        if((fields & FIELD_COMMENTS) != 0) writeVarint(out, strings.getRef(place.getComments()));
+        if((fields & FIELD_PARENTS) != 0){
+            writeVarint(out, parents.size());
+            for(Place parent: parents) writePlaceRef(out, parent, layerID);
+        }
+    }
+
+    /**
+     * Strings of a world file, each string is stored once
+     */
+    static class StringTable {
+        final LinkedHashMap<String, Integer> refs = new LinkedHashMap<>();
+
+        /**
+         * Adds a string, if it isn't in the table yet
+         * @param string string or null
+         */
+        void add(String string){
+            if(string != null && !refs.containsKey(string)) refs.put(string, refs.size() + 1);
+        }
+
+        /**
+         * Gets the reference of a string that was added
+         * @param string string or null
+         * @return 0 for null, index + 1 otherwise
+         */
+        int getRef(String string){
+            return string == null ? 0 : refs.get(string);
+        }
+
+        int size(){
+            return refs.size();
+        }
+
+        Set<String> getStrings(){
+            return refs.keySet();
+        }
+    }
+
+    /**
+     * Gets the code of a standard direction
+     * @param direction
+     * @return index in Path.directions or -1
+     */
+    static int getDirectionCode(String direction){
+        for(int i = 0; i < Path.directions.length; ++i){
+            if(Path.directions[i].equals(direction)) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Writes an unsigned variable length integer, 7 bits per byte, the
+     * highest bit is set if more bytes follow
+     * @param out
+     * @param value
+     * @throws IOException
+     */
+    static void writeVarint(DataOutputStream out, int value) throws IOException {
+        while((value & ~0x7f) != 0){
+            out.writeByte((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    /**
+     * Writes a signed variable length integer, small negative values are
+     * stored in few bytes (zigzag encoding)
+     * @param out
+     * @param value
+     * @throws IOException
+     */
+    static void writeSignedVarint(DataOutputStream out, int value) throws IOException {
+        writeVarint(out, (value << 1) ^ (value >> 31));
+    }
+
+    /**
+     * Reads an unsigned variable length integer
+     * @param buffer
+     * @return value
+     */
+    static int readVarint(ByteBuffer buffer){
+        int value = 0;
+        for(int shift = 0; shift < 35; shift += 7){
+            final byte b = buffer.get();
+            value |= (b & 0x7f) << shift;
+            if((b & 0x80) == 0) return value;
+        }
+        throw new IllegalArgumentException("Invalid varint");
+    }
+
+    /**
+     * Reads a signed variable length integer
+     * @param buffer
+     * @return value
+     */
+    static int readSignedVarint(ByteBuffer buffer){
+        final int value = readVarint(buffer);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Writes a string as byte length and UTF-8 bytes
+     * @param out
+     * @param string string, null is written as empty string
+     * @throws IOException
+     */
+    static void writeString(DataOutputStream out, String string) throws IOException {
+        final byte[] bytes = (string == null ? "" : string).getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Reads a string
+     * @param buffer
+     * @return string
+     */
+    static String readString(ByteBuffer buffer){
+        final byte[] bytes = new byte[readVarint(buffer)];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads an exit code
+     * @param buffer
+     * @param strings string table
+     * @return exit direction
+     */
+    private static String readExit(ByteBuffer buffer, Strings strings){
+        final int code = readVarint(buffer);
+        if(code < Path.directions.length) return Path.directions[code];
+        return strings.get(code - Path.directions.length);
+    }
+
+    /**
+     * Writes a color
+     * @param out
+     * @param color color or null
+     * @throws IOException
+     */
+    private static void writeColor(DataOutputStream out, Color color) throws IOException {
+        writeVarint(out, color == null ? 0 : (color.getRGB() & 0xffffff) + 1);
+    }
+
+    /**
+     * Reads a color
+     * @param buffer
+     * @return color or null
+     */
+    private static Color readColor(ByteBuffer buffer){
+        final int value = readVarint(buffer);
+        return value == 0 ? null : new Color(value - 1);
+    }
+
+    /**
+     * Writes a text blob
+     * @param out
+     * @param text text or null
+     * @throws IOException
+     */
+    private static void writeBlob(DataOutputStream out, String text) throws IOException {
+        if(text == null) writeVarint(out, 0);
+        else writeString(out, text);
+    }
+
+    /**
+     * Reads a text blob
+     * @param buffer
+     * @return text or null
+     */
+    private static String readBlob(ByteBuffer buffer){
+        final String text = readString(buffer);
+        return text.isEmpty() ? null : text;
+    }
+
+    /**
+     * Create a copy of the referenced file.
+     * The new filename will be originalfilename + .bak
+     * existing files will be overwritten
+     * @throws FileNotFoundException
+     */
+    @Override
+    public void backup() throws FileNotFoundException {
+        try {
+            File fileold = new File(filename);
+            File filenew = new File(filename + ".bak");
+
+            if(fileold.canRead()){
+                if(filenew.exists()) filenew.delete();
+                Files.copy(fileold.toPath(), filenew.toPath());
+            }
+        } catch (IOException ex) {
+            Logger.getLogger(WorldFileBinary.class.getName()).log(Level.SEVERE, null, ex);
+            JOptionPane.showMessageDialog(null, "Could not create world backup file", "World backup", JOptionPane.INFORMATION_MESSAGE);
+        }
+    }
+
+    /**
+     * Reads the world name from the header, the rest of the file isn't read
+     * @return world name or null
+     * @throws Exception
+     */
+    @Override
+    public String readWorldName() throws Exception {
+        if(!(new File(filename)).isFile()) return null;
+
+        try {
+            // the header is at the beginning of the file
+            ByteBuffer buffer = readBuffer(new File(filename), HEADER_READ_SIZE);
+            return readHeader(buffer).worldName;
+        } catch(BufferUnderflowException | IllegalArgumentException | WorldFileInvalidTypeException ex){
+            return "";
+        }
+    }
+
+    /**
+     * Reads a world file into a buffer. Uncompressed files are mapped,
+     * compressed files are decompressed to the heap
+     * @param file
+     * @param limit maximum number of bytes read of compressed files
+     * @return buffer of the uncompressed content
+     * @throws IOException
+     */
+    static ByteBuffer readBuffer(File file, int limit) throws IOException {
+        if(isCompressed(file)){
+            try(InputStream stream = openInputStream(file)){
+                ByteArrayOutputStream out = new ByteArrayOutputStream(1 << 16);
+                byte[] block = new byte[1 << 16];
+                int length;
+                while(out.size() < limit && (length = stream.read(block, 0, Math.min(block.length, limit - out.size()))) >= 0){
+                    out.write(block, 0, length);
+                }
+                return ByteBuffer.wrap(out.toByteArray());
+            }
+        }
+        try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)){
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * Checks whether the file starts with the magic bytes of binary world files
+     * @return
+     */
+    @Override
+    public Boolean canRead() {
+        return isBinaryWorldFile(new File(filename));
+    }
+
+    /**
+     * Checks whether a file starts with the magic bytes of binary world files
+     * @param file
+     * @return true for binary world files
+     */
+    public static boolean isBinaryWorldFile(File file){
+        if(!file.isFile()) return false;
+        try(InputStream stream = openInputStream(file)){
+            byte[] magic = new byte[MAGIC.length];
+            int length = 0;
+            while(length < magic.length){
+                int read = stream.read(magic, length, magic.length - length);
+                if(read < 0) return false;
+                length += read;
+            }
+            return Arrays.equals(magic, MAGIC);
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Return this WorldFileType of reader
+     * @return
+     */
+    @Override
+    public WorldFileType getWorldFileType() {
+        return WorldFileType.BINARY;
+    }
+
+}
@@ -0,0 +1,136 @@
+/*  MUD Map (v2) - A tool to create and organize maps for text-based games
+ *  Copyright (C) 2026  Neop (email: mneop@web.de)
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License along
+ *  with this program; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*  File description
+ *
+ *  Converts world files between the JSON and the binary format
+ */
+
+package mudmap2.backend.WorldFileReader.current;
+
+import java.util.HashMap;
+import mudmap2.backend.World;
+import mudmap2.backend.WorldFileReader.WorldFile;
+import mudmap2.backend.WorldFileReader.WorldFileType;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Converts world files between the JSON and the binary format. Everything
+ * that is stored in a world file is kept, including the preferences and the
+ * meta data of the world tab
+ * @author neop
+ */
+public final class WorldFileConverter {
+
+    private WorldFileConverter(){}
+
+    /**
+     * Creates a reader / writer for a world file format
+     * @param filename world file
+     * @param type JSON or BINARY
+     * @return world file
+     * @throws IllegalArgumentException for other types
+     */
+    public static WorldFile create(String filename, WorldFileType type) throws IllegalArgumentException {
+        switch(type){
+            case JSON:
+                return new WorldFileJSON(filename);
+            case BINARY:
+                return new WorldFileBinary(filename);
+            default:
+                throw new IllegalArgumentException("Unsupported world file type: " + type);
+        }
+    }
+
+    /**
+     * Converts a world file
+     * @param source file to read, it's format is detected
+     * @param target file to write
+     * @param type format of the target file, JSON or BINARY
+     * @return converted world
+     * @throws Exception if the world can't be read or written
+     */
+    public static World convert(String source, String target, WorldFileType type) throws Exception {
+        WorldFileDefault sourceFile = new WorldFileDefault(source);
+        if(!sourceFile.canRead()) throw new IllegalArgumentException("Not a world file: " + source);
+        return convert(sourceFile, create(target, type));
+    }
+
+    /**
+     * Converts a world file
+     * @param source file to read, the journal of a WorldFileDefault is
+     * applied
+     * @param target file to write, JSON or binary
+     * @return converted world
+     * @throws Exception if the world can't be read or written
+     */
+    public static World convert(WorldFile source, WorldFile target) throws Exception {
+        World world = source.readFile();
+        // the meta data is read by the file of the detected format
+        if(source instanceof WorldFileDefault) source = ((WorldFileDefault) source).getWorldFile();
+
+        JSONObject meta = null;
+        if(source instanceof WorldFileJSON) meta = ((WorldFileJSON) source).getMetaData();
+        else if(source instanceof WorldFileBinary) meta = ((WorldFileBinary) source).getMetaData();
+
+        if(meta != null){
+            MetaCopy metaCopy = new MetaCopy(meta);
+            if(target instanceof WorldFileJSON) ((WorldFileJSON) target).setMetaGetter(metaCopy);
+            else if(target instanceof WorldFileBinary) ((WorldFileBinary) target).setMetaGetter(metaCopy);
+        }
+
+        target.writeFile(world);
+        world.setWorldFile(target);
+        return world;
+    }
+
+    /**
+     * Writes the meta data that was read from another file, the layer ids in
+     * the history are translated like the ones of the world
+     */
+    static class MetaCopy implements WorldMetaJSON {
+
+        final JSONObject meta;
+
+        public MetaCopy(JSONObject meta) {
+            this.meta = meta;
+        }
+
+        @Override
+        public JSONObject getMeta(HashMap<Integer, Integer> layerTranslation) {
+            JSONObject ret = new JSONObject(meta.toString());
+            JSONArray history = meta.optJSONArray("history");
+            if(history != null){
+                JSONArray historyNew = new JSONArray();
+                for(int i = 0; i < history.length(); ++i){
+                    JSONObject el = new JSONObject(history.getJSONObject(i).toString());
+                    if(el.has("l")){
+                        Integer layer = layerTranslation.get(el.getInt("l"));
+                        // leave out positions on layers that weren't written
+                        if(layer == null) continue;
+                        el.put("l", layer);
+                    }
+                    historyNew.put(el);
+                }
+                ret.put("history", historyNew);
+            }
+            return ret;
+        }
+    }
+
+}
@@ -19,6 +19,8 @@ package mudmap2.backend.WorldFileReader.current;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import mudmap2.backend.World;
 import mudmap2.backend.WorldFileReader.WorldFile;
 import mudmap2.backend.WorldFileReader.WorldFileType;
@@ -34,6 +36,7 @@ public class WorldFileDefault extends WorldFile {
 
     WorldFile worldFile;
     WorldFileType worldFileType;
+    WorldJournal journal = null;
 
     @SuppressWarnings("deprecation")
     public WorldFileDefault(String filename) {
@@ -43,7 +46,9 @@ public class WorldFileDefault extends WorldFile {
             File file = new File(filename);
             if(file.exists()){
                 WorldFileJSON wfj = new WorldFileJSON(filename);
-                if(wfj.canRead()){
+                if(WorldFileBinary.isBinaryWorldFile(file)){
+                    worldFileType = WorldFileType.BINARY;
+                } else if(wfj.canRead()){
                     worldFileType = WorldFileType.JSON;
                 } else {
                     worldFileType = WorldFileType.INVALID;
@@ -56,6 +61,9 @@ public class WorldFileDefault extends WorldFile {
         }
 
         switch(worldFileType){
+            case BINARY:
+                worldFile = new WorldFileBinary(filename);
+                break;
             default:
             case INVALID:
             case UNKNOWN: // set default world file type here:
@@ -73,6 +81,18 @@ public class WorldFileDefault extends WorldFile {
         return worldFile;
     }
 
+    /**
+     * Gets the journal of the world file, it's created when the world is read
+     * @return journal or null
+     */
+    public WorldJournal getJournal() {
+        return journal;
+    }
+
+    public void setJournal(WorldJournal journal) {
+        this.journal = journal;
+    }
+
     @Override
     public WorldFileType getWorldFileType() {
         return worldFileType;
@@ -91,6 +111,14 @@ public class WorldFileDefault extends WorldFile {
         if(worldFile != null){
             world = worldFile.readFile();
             world.setWorldFile(this);
+
+            // apply the changes that were saved after the world file
+            journal = new WorldJournal(filename);
+            try {
+                journal.replay(world);
+            } catch (IOException ex) {
+                Logger.getLogger(WorldFileDefault.class.getName()).log(Level.SEVERE, null, ex);
+            }
         }
 
         if(world == null){
@@ -114,7 +142,7 @@ public class WorldFileDefault extends WorldFile {
     }
 
     /**
-     * write world
+     * write world, in the format of the file that was read
      * @param world
      * @throws java.io.IOException
      */
@@ -17,18 +17,26 @@
 package mudmap2.backend.WorldFileReader.current;
 
 import java.awt.Color;
-import java.io.BufferedReader;
+import java.awt.GraphicsEnvironment;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
 import java.nio.file.Files;
-import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.swing.JOptionPane;
@@ -36,6 +44,7 @@ import mudmap2.backend.PlaceGroup;
 import mudmap2.backend.Layer;
 import mudmap2.backend.Path;
 import mudmap2.backend.Place;
+import mudmap2.backend.Layer.PlaceNotInsertedException;
 import mudmap2.backend.InformationColor;
 import mudmap2.backend.World;
 import mudmap2.backend.WorldCoordinate;
@@ -46,7 +55,8 @@ import mudmap2.backend.WorldFileReader.WorldFileType;
 import org.json.*;
 
 /**
- *
+ * JSON world file, it is always read completely. Only WorldFileBinary reads
+ * the places of a layer when it is accessed
  * @author neop
  */
 public class WorldFileJSON extends WorldFile {
@@ -54,8 +64,6 @@ public class WorldFileJSON extends WorldFile {
     static Integer versionMajor = 2;
     static Integer versionMinor = 0;
 
-    JSONObject fileRoot = null;
-
     HashMap<Integer, Integer> layerIDs;
 
     JSONObject metaData;
@@ -79,27 +87,57 @@ public class WorldFileJSON extends WorldFile {
         return metaData;
     }
 
+    public Integer translateLayerID(Integer layer){
+        if(layerIDs == null) return null;
+        return layerIDs.get(layer);
+    }
+
     /**
-     * Read file to JSONObject
-     * @return JSONObject
-     * @throws IOException
+     * Path that was read before the places it connects
      */
-    private JSONObject getJSONRoot() throws IOException{
-        if(fileRoot == null && (new File(filename)).isFile()){
-            byte[] bytes = Files.readAllBytes(Paths.get(filename));
-            String lines = new String(bytes);
-            fileRoot = new JSONObject(lines);
+    private static class PendingPath {
+        final int id0, id1;
+        final String exit0, exit1;
+
+        public PendingPath(int id0, String exit0, int id1, String exit1) {
+            this.id0 = id0;
+            this.exit0 = exit0;
+            this.id1 = id1;
+            this.exit1 = exit1;
         }
-        return fileRoot;
     }
 
-    public Integer translateLayerID(Integer layer){
-        if(layerIDs == null) return null;
-        return layerIDs.get(layer);
+    /**
+     * Objects that are created while reading and references that can only
+     * be resolved later, since the members of the root object can be in any
+     * order
+     */
+    private static class ReadState {
+        final World world;
+
+        final HashMap<Integer, PlaceGroup> areas = new HashMap<>();
+        final HashMap<Integer, Place> places = new HashMap<>();
+        final HashMap<Place, HashSet<Integer>> childrenMapping = new HashMap<>();
+
+        // references to areas and information colors that were read before
+        // the areas or information colors
+        final HashMap<Place, Integer> pendingAreas = new HashMap<>();
+        final HashMap<Place, Integer> pendingInfoRings = new HashMap<>();
+        // paths that were read before the places
+        final ArrayList<PendingPath> pendingPaths = new ArrayList<>();
+
+        boolean areasRead = false;
+        boolean infoColorsRead = false;
+        boolean placesRead = false;
+
+        public ReadState(World world) {
+            this.world = world;
+        }
     }
 
     /**
-     * Read world file
+     * Read world file. The file is parsed as a stream, the world is created
+     * directly from the tokens without building a JSON tree
      * @return new world object or null if file is invalid
      * @throws Exception
      * @throws WorldFileInvalidTypeException
@@ -107,300 +145,408 @@ public class WorldFileJSON extends WorldFile {
      */
     @Override
     public World readFile() throws Exception {
-        World world = null;
-
-        try{
-            JSONObject root = getJSONRoot();
-
-            // check file version
-            if(root.has("fileVer")){
-                String[] fileVer = root.getString("fileVer").split("\\.");
-                if(versionMajor != Integer.parseInt(fileVer[0])){
-                    // version major not equal: different file format
-                    throw new WorldFileInvalidTypeException(filename,
-                            "invalid world file version", null);
-                }
-                if(versionMinor < Integer.parseInt(fileVer[1])){
-                    // file was created by a newer MUD Map: might have unsupported features
-                    int ret = JOptionPane.showConfirmDialog(null,
-                            "World file version is greater than the reader version. "
-                            + "Please update MUD Map. Continuing might cause data loss.",
-                            "Loading world", JOptionPane.OK_CANCEL_OPTION);
-                    if(ret == JOptionPane.CANCEL_OPTION)
-                        throw new WorldFileInvalidTypeException(filename, "Could not read world file", null);
+        World world = new World("");
+        world.setWorldFile(this);
+        metaData = null;
+
+        ReadState state = new ReadState(world);
+        boolean hasFileVer = false;
+
+        try(JSONStreamReader reader = new JSONStreamReader(new InputStreamReader(openInputStream(new File(filename))))){
+            reader.beginObject();
+            while(reader.hasNext()){
+                switch(reader.nextName()){
+                    case "fileVer":
+                        // check file version
+                        checkFileVersion(reader.nextString());
+                        hasFileVer = true;
+                        break;
+                    case "worldName":
+                        world.setName(reader.nextString());
+                        break;
+                    case "showPlaceID":
+                        world.setShowPlaceID(World.ShowPlaceID.valueOf(reader.nextString()));
+                        break;
+                    case "tileCenterCol":
+                        world.setTileCenterColor(hexToCol(reader.nextString()));
+                        break;
+                    case "pathCol":
+                        world.setPathColorStd(hexToCol(reader.nextString()));
+                        break;
+                    case "pathColNonCardinal":
+                        world.setPathColorNstd(hexToCol(reader.nextString()));
+                        break;
+                    case "pathColDefs":
+                        reader.beginArray();
+                        while(reader.hasNext()){
+                            JSONObject pathColDef = reader.readObject();
+                            if(pathColDef.has("path")
+                                    && pathColDef.has("col")){
+                                world.setPathColor(pathColDef.getString("path"),
+                                        hexToCol(pathColDef.getString("col")));
+                            }
+                        }
+                        reader.endArray();
+                        break;
+                    case "home":
+                        JSONObject home = reader.readObject();
+                        if(home.has("l") && home.has("x") && home.has("y")){
+                            Integer l = home.getInt("l");
+                            Double x = home.getDouble("x");
+                            Double y = home.getDouble("y");
+                            world.setHome(new WorldCoordinate(l, x, y));
+                        }
+                        break;
+                    case "riskLevels":
+                        // information colors (formerly named 'risk levels')
+                        readInformationColors(reader, state);
+                        break;
+                    case "areas":
+                        readAreas(reader, state);
+                        break;
+                    case "layers":
+                        readLayers(reader, state);
+                        break;
+                    case "places":
+                        readPlaces(reader, state);
+                        break;
+                    case "paths":
+                        readPaths(reader, state);
+                        break;
+                    case "preferences":
+                        // world preferences (dialog settings etc.)
+                        world.setPreferences(reader.readObject());
+                        break;
+                    case "meta":
+                        // save meta data for WorldTab
+                        metaData = reader.readObject();
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
                 }
-            } else {
-                throw new WorldFileInvalidTypeException(filename,
-                        "could not read world file version", null);
-            }
-
-            // getPlace world name
-            String worldName = "";
-            if(root.has("worldName")) worldName = root.getString("worldName");
-            if(worldName.isEmpty()) {
-                Integer begin = worldName.lastIndexOf('/');
-                if(begin == -1) begin = worldName.lastIndexOf('\\');
-                begin += 1;
-                worldName = worldName.substring(begin);
-            }
-
-            // create world root
-            world = new World(worldName);
-            world.setWorldFile(this);
-
-            // showPlaceID
-            if(root.has("showPlaceID")){
-                world.setShowPlaceID(World.ShowPlaceID.valueOf(root.getString("showPlaceID")));
             }
+            reader.endObject();
 
-            // tileCenterCol
-            if(root.has("tileCenterCol")){
-                world.setTileCenterColor(hexToCol(root.getString("tileCenterCol")));
+            if(!hasFileVer){
+                throw new WorldFileInvalidTypeException(filename,
+                        "could not read world file version", null);
             }
 
-            // pathCol
-            if(root.has("pathCol")){
-                world.setPathColorStd(hexToCol(root.getString("pathCol")));
-            }
+            resolveReferences(state);
+        } catch(JSONException | IllegalArgumentException ex) {
+            Logger.getLogger(WorldFileJSON.class.getName()).log(Level.SEVERE, "Could not read world file " + filename, ex);
+            throw new WorldFileReadError(filename, ex.getLocalizedMessage(), ex);
+        }
 
-            // pathColNonCardinal
-            if(root.has("pathColNonCardinal")){
-                world.setPathColorNstd(hexToCol(root.getString("pathColNonCardinal")));
-            }
+        return world;
+    }
 
-            // pathColDefs
-            if(root.has("pathColDefs")){
-                JSONArray pathColDefs = root.getJSONArray("pathColDefs");
-                Integer length = pathColDefs.length();
-                for(Integer i = 0; i < length; ++i){
-                    JSONObject pathColDef = pathColDefs.getJSONObject(i);
-                    if(pathColDef.has("path")
-                            && pathColDef.has("col")){
-                        world.setPathColor(pathColDef.getString("path"),
-                                hexToCol(pathColDef.getString("col")));
-                    }
-                }
+    /**
+     * Checks whether the file version can be read
+     * @param version file version major.minor
+     * @throws WorldFileInvalidTypeException
+     */
+    private void checkFileVersion(String version) throws WorldFileInvalidTypeException {
+        String[] fileVer = version.split("\\.");
+        if(versionMajor != Integer.parseInt(fileVer[0])){
+            // version major not equal: different file format
+            throw new WorldFileInvalidTypeException(filename,
+                    "invalid world file version", null);
+        }
+        if(versionMinor < Integer.parseInt(fileVer[1])){
+            // file was created by a newer MUD Map: might have unsupported features
+            if(GraphicsEnvironment.isHeadless()){
+                Logger.getLogger(WorldFileJSON.class.getName()).log(Level.WARNING,
+                        "World file version is greater than the reader version: {0}", filename);
+            } else {
+                int ret = JOptionPane.showConfirmDialog(null,
+                        "World file version is greater than the reader version. "
+                        + "Please update MUD Map. Continuing might cause data loss.",
+                        "Loading world", JOptionPane.OK_CANCEL_OPTION);
+                if(ret == JOptionPane.CANCEL_OPTION)
+                    throw new WorldFileInvalidTypeException(filename, "Could not read world file", null);
             }
+        }
+    }
 
-            // home
-            if(root.has("home")){
-                JSONObject home = root.getJSONObject("home");
-                if(home.has("l") && home.has("x") && home.has("y")){
-                    Integer l = home.getInt("l");
-                    Double x = home.getDouble("x");
-                    Double y = home.getDouble("y");
-                    world.setHome(new WorldCoordinate(l, x, y));
-                }
+    /**
+     * Reads the information colors
+     * @param reader reader at the beginning of the array
+     * @param state
+     * @throws IOException
+     */
+    private void readInformationColors(JSONStreamReader reader, ReadState state) throws IOException {
+        // remove existing information colors
+        state.world.getInformationColors().clear();
+
+        reader.beginArray();
+        while(reader.hasNext()){
+            JSONObject informationColor = reader.readObject();
+            if(informationColor.has("id")
+                    && informationColor.has("desc")
+                    && informationColor.has("col")){
+                Integer id = informationColor.getInt("id");
+                String desc = informationColor.getString("desc");
+                Color col = hexToCol(informationColor.getString("col"));
+                state.world.setInformationColor(new InformationColor(id, desc, col));
             }
+        }
+        reader.endArray();
+        state.infoColorsRead = true;
+    }
 
-            // information colors (formerly named 'risk levels')
-            if(root.has("riskLevels")){
-                // remove existing information colors
-                world.getInformationColors().clear();
-
-                JSONArray informationColors = root.getJSONArray("riskLevels");
-                Integer length = informationColors.length();
-                for(Integer i = 0; i < length; ++i){
-                    JSONObject informationColor = informationColors.getJSONObject(i);
-                    if(informationColor.has("id")
-                            && informationColor.has("desc")
-                            && informationColor.has("col")){
-                        Integer id = informationColor.getInt("id");
-                        String desc = informationColor.getString("desc");
-                        Color col = hexToCol(informationColor.getString("col"));
-                        world.setInformationColor(new InformationColor(id, desc, col));
-                    }
-                }
+    /**
+     * Reads the areas (place groups)
+     * @param reader reader at the beginning of the array
+     * @param state
+     * @throws IOException
+     */
+    private void readAreas(JSONStreamReader reader, ReadState state) throws IOException {
+        reader.beginArray();
+        while(reader.hasNext()){
+            JSONObject area = reader.readObject();
+            if(area.has("id")
+                    && area.has("name")
+                    && area.has("col")){
+                Integer id = area.getInt("id");
+                String name = area.getString("name");
+                Color col = hexToCol(area.getString("col"));
+
+                PlaceGroup a = new PlaceGroup(name, col);
+                state.areas.put(id, a);
+                state.world.addPlaceGroup(a);
             }
+        }
+        reader.endArray();
+        state.areasRead = true;
+    }
 
-            // areaArray
-            HashMap<Integer, PlaceGroup> areas = new HashMap<>();
-
-            if(root.has("areas")){
-                JSONArray areaArray = root.getJSONArray("areas");
-                Integer length = areaArray.length();
-                for(Integer i = 0; i < length; ++i){
-                    JSONObject area = areaArray.getJSONObject(i);
-                    if(area.has("id")
-                            && area.has("name")
-                            && area.has("col")){
-                        Integer id = area.getInt("id");
-                        String name = area.getString("name");
-                        Color col = hexToCol(area.getString("col"));
-
-                        PlaceGroup a = new PlaceGroup(name, col);
-                        areas.put(id, a);
-                        world.addPlaceGroup(a);
+    /**
+     * Reads the layers
+     * @param reader reader at the beginning of the array
+     * @param state
+     * @throws IOException
+     */
+    private void readLayers(JSONStreamReader reader, ReadState state) throws IOException {
+        reader.beginArray();
+        while(reader.hasNext()){
+            JSONObject layer = reader.readObject();
+            if(layer.has("id")){
+                Integer id = layer.getInt("id");
+                // layer might have been created by its places already
+                Layer l = state.world.getLayer(id);
+                if(l == null){
+                    // create layer
+                    l = new Layer(id, state.world);
+
+                    if(layer.has("centerX") && layer.has("centerY")){
+                        // set quadtree center
+                        Integer centerX = layer.getInt("centerX");
+                        Integer centerY = layer.getInt("centerY");
+                        l.setQuadtree(centerX, centerY);
                     }
+                    state.world.addLayer(l);
                 }
-            }
-
-            // layers
-            if(root.has("layers")){
-                JSONArray layers = root.getJSONArray("layers");
-                Integer length = layers.length();
-                for(Integer i = 0; i < length; ++i){
-                    JSONObject layer = layers.getJSONObject(i);
-                    if(layer.has("id")){
-                        Integer id = layer.getInt("id");
-                        // create layer
-                        Layer l = new Layer(id, world);
-
-                        if(layer.has("centerX") && layer.has("centerY")){
-                            // set quadtree center
-                            Integer centerX = layer.getInt("centerX");
-                            Integer centerY = layer.getInt("centerY");
-                            l.setQuadtree(centerX, centerY);
-                        }
-                        if(layer.has("name")){
-                            // set layer name
-                            l.setName(layer.getString("name"));
-                        }
-                        world.addLayer(l);
-                    }
+                if(layer.has("name")){
+                    // set layer name
+                    l.setName(layer.getString("name"));
                 }
             }
+        }
+        reader.endArray();
+    }
 
-            // places
-            HashMap<Integer, Place> places = new HashMap<>();
-            HashMap<Place, HashSet<Integer>> childrenMapping = new HashMap<>();
-
-            if(root.has("places")){
-                JSONArray jPlaces = root.getJSONArray("places");
-                Integer length = jPlaces.length();
-                for(Integer i = 0; i < length; ++i){
-                    JSONObject jPlace = jPlaces.getJSONObject(i);
-                    if(jPlace.has("id")
-                            && jPlace.has("n")
-                            && jPlace.has("l")
-                            && jPlace.has("x")
-                            && jPlace.has("y")){
-                        Integer id = jPlace.getInt("id");
-                        String name = jPlace.getString("n");
-                        Integer layerId = jPlace.getInt("l");
-                        Integer x = jPlace.getInt("x");
-                        Integer y = jPlace.getInt("y");
-
-                        // get layer
-                        Layer layer = world.getLayer(layerId);
-                        if(layer == null){
-                            layer = new Layer(layerId, world);
-                            world.addLayer(layer);
-                        }
-
-                        // create place
-                        Place place = new Place(id, name, x, y, layer);
-
-                        places.put(id, place);
-
-                        // area
-                        if(jPlace.has("a")){
-                            place.setPlaceGroup(areas.get(jPlace.getInt("a")));
-                        }
-                        // information colors
-                        if(jPlace.has("r")){
-                            place.setInfoRing(world.getInformationColor(jPlace.getInt("r")));
-                        }
-                        // rec level
-                        if(jPlace.has("lvlMin")){
-                            place.setRecLevelMin(jPlace.getInt("lvlMin"));
-                        }
-                        if(jPlace.has("lvlMax")){
-                            place.setRecLevelMin(jPlace.getInt("lvlMax"));
-                        }
+    /**
+     * Reads the places, each place is created from its tokens
+     * @param reader reader at the beginning of the array
+     * @param state
+     * @throws IOException
+     */
+    private void readPlaces(JSONStreamReader reader, ReadState state) throws IOException, PlaceNotInsertedException {
+        String separator = System.getProperty("separator");
+        if(separator == null || separator.isEmpty()){
+            separator = "\r\n";
+        }
 
+        reader.beginArray();
+        while(reader.hasNext()){
+            Integer id = null, layerId = null, x = null, y = null;
+            String name = null;
+            Integer area = null, infoRing = null, lvlMin = null, lvlMax = null;
+            HashSet<Integer> children = null;
+            ArrayList<String> flags = null;
+            StringBuilder comments = null;
+
+            reader.beginObject();
+            while(reader.hasNext()){
+                switch(reader.nextName()){
+                    case "id": id = reader.nextInt(); break;
+                    case "n": name = reader.nextString(); break;
+                    case "l": layerId = reader.nextInt(); break;
+                    case "x": x = reader.nextInt(); break;
+                    case "y": y = reader.nextInt(); break;
+                    case "a": area = reader.nextInt(); break;
+                    case "r": infoRing = reader.nextInt(); break;
+                    case "lvlMin": lvlMin = reader.nextInt(); break;
+                    case "lvlMax": lvlMax = reader.nextInt(); break;
+                    case "c":
                         // children
-                        if(jPlace.has("c")){
-                            JSONArray children = jPlace.getJSONArray("c");
-                            HashSet<Integer> set = new HashSet<>();
-                            childrenMapping.put(place, set);
-
-                            Integer lc = children.length();
-                            for(Integer c = 0; c < lc; ++c){
-                                set.add(children.getInt(c));
-                            }
-                        }
-
+                        children = new HashSet<>();
+                        reader.beginArray();
+                        while(reader.hasNext()) children.add(reader.nextInt());
+                        reader.endArray();
+                        break;
+                    case "f":
                         // flags
-                        if(jPlace.has("f")){
-                            JSONArray flags = jPlace.getJSONArray("f");
-                            Integer lf = flags.length();
-                            for(Integer f = 0; f < lf; ++f){
-                                String flagname = flags.getString(f);
-                                place.setFlag(flagname, true);
+                        flags = new ArrayList<>();
+                        reader.beginArray();
+                        while(reader.hasNext()) flags.add(reader.nextString());
+                        reader.endArray();
+                        break;
+                    case "co":
+                        // comments
+                        comments = new StringBuilder();
+                        reader.beginArray();
+                        for(int c = 0; reader.hasNext(); ++c){
+                            if(c > 0) {
+                                comments.append(separator);
                             }
+                            comments.append(reader.nextString());
                         }
+                        reader.endArray();
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+            }
+            reader.endObject();
 
-                        // comments
-                        if(jPlace.has("co")){
-                            JSONArray comments = jPlace.getJSONArray("co");
-                            StringBuilder builder = new StringBuilder();
-
-                            String separator = System.getProperty("separator");
-                            if(separator == null || separator.isEmpty()){
-                                separator = "\r\n";
-                            }
+            if(id == null || name == null || layerId == null || x == null || y == null) continue;
 
-                            for(int c = 0; c < comments.length(); ++c){
-                                if(c > 0) {
-                                    builder.append(separator);
-                                }
-                                builder.append(comments.getString(c));
-                            }
+            // get layer
+            Layer layer = state.world.getLayer(layerId);
+            if(layer == null){
+                layer = new Layer(layerId, state.world);
+                state.world.addLayer(layer);
+            }
 
-                            place.setComments(builder.toString());
-                        }
+            // create place
+            Place place = new Place(id, name, x, y, layer);
+            state.places.put(id, place);
 
-                        layer.put(place);
-                    }
-                }
+            // area
+            if(area != null){
+                if(state.areasRead) place.setPlaceGroup(state.areas.get(area));
+                else state.pendingAreas.put(place, area);
             }
+            // information colors
+            if(infoRing != null){
+                if(state.infoColorsRead) place.setInfoRing(state.world.getInformationColor(infoRing));
+                else state.pendingInfoRings.put(place, infoRing);
+            }
+            // rec level
+            if(lvlMin != null) place.setRecLevelMin(lvlMin);
+            if(lvlMax != null) place.setRecLevelMax(lvlMax);
 
-            // connect children
-            for(Entry<Place, HashSet<Integer>> entry: childrenMapping.entrySet()){
-                Place place = entry.getKey();
-                for(Integer id: entry.getValue()){
-                    place.connectChild(places.get(id));
-                }
+            if(children != null) state.childrenMapping.put(place, children);
+            if(flags != null){
+                for(String flagname: flags) place.setFlag(flagname, true);
             }
+            if(comments != null) place.setComments(comments.toString());
 
-            // paths
-            if(root.has("paths")){
-                JSONArray paths = root.getJSONArray("paths");
-                Integer length = paths.length();
-                for(Integer i = 0; i < length; ++i){
-                    JSONArray path = paths.getJSONArray(i);
-                    if(path.length() == 2){
-                        JSONObject p0 = path.getJSONObject(0);
-                        JSONObject p1 = path.getJSONObject(1);
-                        if(p0.has("p") && p0.has("e")
-                                && p1.has("p") && p1.has("e")){
-                            Place pl0 = places.get(p0.getInt("p"));
-                            Place pl1 = places.get(p1.getInt("p"));
-                            if(pl0 != null && pl1 != null){
-                                Path p = new Path(pl0, p0.getString("e"),
-                                        pl1, p1.getString("e"));
-                                pl0.connectPath(p);
-                            }
+            layer.put(place);
+        }
+        reader.endArray();
+        state.placesRead = true;
+    }
+
+    /**
+     * Reads the paths
+     * @param reader reader at the beginning of the array
+     * @param state
+     * @throws IOException
+     */
+    private void readPaths(JSONStreamReader reader, ReadState state) throws IOException {
+        reader.beginArray();
+        while(reader.hasNext()){
+            // [{"p": place id, "e": exit}, {"p": place id, "e": exit}]
+            Integer[] ids = new Integer[2];
+            String[] exits = new String[2];
+            int count = 0;
+
+            reader.beginArray();
+            while(reader.hasNext()){
+                if(count < 2 && reader.peek() == JSONStreamReader.Token.BEGIN_OBJECT){
+                    reader.beginObject();
+                    while(reader.hasNext()){
+                        switch(reader.nextName()){
+                            case "p": ids[count] = reader.nextInt(); break;
+                            case "e": exits[count] = reader.nextString(); break;
+                            default: reader.skipValue(); break;
                         }
                     }
+                    reader.endObject();
+                } else {
+                    reader.skipValue();
                 }
+                ++count;
             }
-
-            // world preferences (dialog settings etc.)
-            if(root.has("preferences")){
-                world.setPreferences(root.getJSONObject("preferences"));
+            reader.endArray();
+
+            if(count == 2 && ids[0] != null && ids[1] != null
+                    && exits[0] != null && exits[1] != null){
+                if(state.placesRead){
+                    connectPath(state, ids[0], exits[0], ids[1], exits[1]);
+                } else {
+                    state.pendingPaths.add(new PendingPath(ids[0], exits[0], ids[1], exits[1]));
+                }
             }
+        }
+        reader.endArray();
+    }
 
-            // save meta data for WorldTab
-            if(root.has("meta")) metaData = root.getJSONObject("meta");
+    /**
+     * Connects two places with a new path
+     * @param state
+     * @param id0 id of the first place
+     * @param exit0 exit of the first place
+     * @param id1 id of the second place
+     * @param exit1 exit of the second place
+     */
+    private void connectPath(ReadState state, Integer id0, String exit0, Integer id1, String exit1){
+        Place pl0 = state.places.get(id0);
+        Place pl1 = state.places.get(id1);
+        if(pl0 != null && pl1 != null){
+            Path p = new Path(pl0, exit0, pl1, exit1);
+            pl0.connectPath(p);
+        }
+    }
 
-        } catch(JSONException ex) {
-            System.out.println(ex.getLocalizedMessage());
-            throw new WorldFileReadError(filename, ex.getLocalizedMessage(), ex);
+    /**
+     * Resolves the references that couldn't be resolved while reading
+     * @param state
+     */
+    private void resolveReferences(ReadState state){
+        for(Entry<Place, Integer> entry: state.pendingAreas.entrySet()){
+            entry.getKey().setPlaceGroup(state.areas.get(entry.getValue()));
+        }
+        for(Entry<Place, Integer> entry: state.pendingInfoRings.entrySet()){
+            entry.getKey().setInfoRing(state.world.getInformationColor(entry.getValue()));
         }
 
-        return world;
+        // connect children
+        for(Entry<Place, HashSet<Integer>> entry: state.childrenMapping.entrySet()){
+            Place place = entry.getKey();
+            for(Integer id: entry.getValue()){
+                place.connectChild(state.places.get(id));
+            }
+        }
+
+        for(PendingPath path: state.pendingPaths){
+            connectPath(state, path.id0, path.exit0, path.id1, path.exit1);
+        }
     }
 
     /**
@@ -453,260 +599,356 @@ public class WorldFileJSON extends WorldFile {
     }
 
     /**
-     * Write entire world or single layer to file
+     * Write entire world or single layer to file. The file is written as a
+     * stream, the members are in the same order as if the world was
+     * converted to a JSONObject
      * @param world world to write
      * @param exportLayer layer to export or null to export all
      * @throws IOException
      */
     private void writeFile(World world, Layer exportLayer) throws IOException {
-        boolean singleLayer = (exportLayer != null);
-
-        JSONObject root = new JSONObject();
-
-        // metaWriter data
-        // mudmap version
-        String mudmapVer = getClass().getPackage().getImplementationVersion();
-        if(mudmapVer != null)
-            root.put("mudmapVer", getClass().getPackage().getImplementationVersion());
-        else
-            root.put("mudmapVer", "dev");
-
-        // file version
-        root.put("fileVer", versionMajor + "." + versionMinor);
-
-        // world name
-        root.put("worldName", world.getName());
+        final boolean singleLayer = (exportLayer != null);
+        checkComplete(world);
 
-        if(!singleLayer) {
-            root.put("showPlaceID", world.getShowPlaceId());
-
-            // tile center color
-            if(world.getTileCenterColor() != null){
-                root.put("tileCenterCol", colToHex(world.getTileCenterColor()));
-            }
-            // cardinal and non cardinal path color
-            if(world.getPathColorStd() != null){
-                root.put("pathCol", colToHex(world.getPathColorStd()));
-            }
-            if(world.getPathColorNstd() != null){
-                root.put("pathColNonCardinal", colToHex(world.getPathColorNstd()));
-            }
-            // other path colors
-            JSONArray pathColorsArray = new JSONArray();
-            root.put("pathColDefs", pathColorsArray);
-            for(Map.Entry<String, Color> pathCol: world.getPathColors().entrySet()){
-                if(pathCol.getValue() != null){
-                    JSONObject pathColObj = new JSONObject();
-                    pathColObj.put("path", pathCol.getKey());
-                    pathColObj.put("col", colToHex(pathCol.getValue()));
-                    pathColorsArray.put(pathColObj);
-                }
-            }
+        // layers to write
+        LinkedList<Layer> layers = new LinkedList<>();
+        for(Layer layer: world.getLayers()){
+            // skip other layers
+            if(!singleLayer || layer == exportLayer) layers.add(layer);
         }
 
-        // information colors
-        // filter colors if single layer is exported
+        // information colors and place groups (aka areas) in use
         HashSet<InformationColor> infoColsInUse = new HashSet<>();
-        if(singleLayer) {
-            for(Place place: exportLayer.getPlaces()){
-                infoColsInUse.add(place.getInfoRing());
-            }
-        }
-
-        // write
-        JSONArray informationColors = new JSONArray();
-        root.put("riskLevels", informationColors);
-        for(InformationColor infoCol: world.getInformationColors()){
-            // if single layer export: check if infoCol is used on layer
-            if(singleLayer && !infoColsInUse.contains(infoCol)) continue;
-
-            JSONObject rlo = new JSONObject();
-            rlo.put("id", infoCol.getId());
-            rlo.put("desc", infoCol.getDescription());
-            rlo.put("col", colToHex(infoCol.getColor()));
-            informationColors.put(rlo);
-        }
-
-        // place groups (aka areas)
-        // filter place groups if single layer is exported
         HashSet<PlaceGroup> areasInUse = new HashSet<>();
-        if(singleLayer) {
-            for(Place place: exportLayer.getPlaces()){
-                areasInUse.add(place.getPlaceGroup());
+        HashSet<PlaceGroup> areasInUseWorld = new HashSet<>();
+        for(Layer layer: world.getLayers()){
+            final boolean exported = !singleLayer || layer == exportLayer;
+            for(Place place: layer.getPlaces()){
+                if(place.getPlaceGroup() != null) areasInUseWorld.add(place.getPlaceGroup());
+                if(exported){
+                    infoColsInUse.add(place.getInfoRing());
+                    areasInUse.add(place.getPlaceGroup());
+                }
             }
         }
 
-        // create IDs for areaArray
+        // create IDs for areas that are used anywhere
         HashMap<PlaceGroup, Integer> areaIDs = new HashMap<>();
         Integer cnt = 0; // incremental id
         for(PlaceGroup a: world.getPlaceGroups()){
-            Boolean inUse = false;
-            // removePlace unused
-            for(Layer layer: world.getLayers()){
-                for(Place place: layer.getPlaces()){
-                    if(place.getPlaceGroup() == a){
-                        inUse = true;
-                        break;
-                    }
-                }
-            }
-            if(inUse) areaIDs.put(a, ++cnt);
-        }
-
-        // add areaArray
-        JSONArray areas = new JSONArray();
-        root.put("areas", areas);
-        for(PlaceGroup area: world.getPlaceGroups()){
-            // if single layer export: check if area is used on layer
-            if(singleLayer && !areasInUse.contains(area)) continue;
-
-            JSONObject areaObj = new JSONObject();
-            areaObj.put("id", areaIDs.get(area));
-            areaObj.put("name", area.getName());
-            areaObj.put("col", colToHex(area.getColor()));
-            areas.put(areaObj);
+            if(areasInUseWorld.contains(a)) areaIDs.put(a, ++cnt);
         }
 
         // helper to assign new layer ids
         Integer nextLayerID = 0;
         layerIDs = new HashMap<>();
+        for(Layer layer: layers){
+            if(!layer.getPlaces().isEmpty()) layerIDs.put(layer.getId(), nextLayerID++);
+        }
 
-        // layers (for quadtree optimization
-        JSONArray layers = new JSONArray();
-        root.put("layers", layers);
-        for(Layer layer: world.getLayers()){
-            // skip other layers
-            if(singleLayer && layer != exportLayer) continue;
-
-            if(!layer.getPlaces().isEmpty()){
-                JSONObject layerObj = new JSONObject();
-
-                // add layer to id map
-                Integer layerID = nextLayerID++;
-                layerIDs.put(layer.getId(), layerID);
+        // mudmap version
+        String mudmapVer = getClass().getPackage().getImplementationVersion();
+        if(mudmapVer == null) mudmapVer = "dev";
+
+        JSONObject preferences = singleLayer ? null : world.getPreferences();
+        // metaWriter data from WorldTab
+        JSONObject meta = (singleLayer || metaWriter == null) ? null : metaWriter.getMeta(layerIDs);
+
+        // members of the root object in the order they used to be added to
+        // a JSONObject, missing values are left out like JSONObject.put does
+        LinkedList<String> rootMembers = new LinkedList<>();
+        rootMembers.add("mudmapVer");
+        rootMembers.add("fileVer");
+        if(world.getName() != null) rootMembers.add("worldName");
+        if(!singleLayer){
+            if(world.getShowPlaceId() != null) rootMembers.add("showPlaceID");
+            if(world.getTileCenterColor() != null) rootMembers.add("tileCenterCol");
+            if(world.getPathColorStd() != null) rootMembers.add("pathCol");
+            if(world.getPathColorNstd() != null) rootMembers.add("pathColNonCardinal");
+            rootMembers.add("pathColDefs");
+        }
+        rootMembers.add("riskLevels");
+        rootMembers.add("areas");
+        rootMembers.add("layers");
+        rootMembers.add("places");
+        rootMembers.add("paths");
+        if(!singleLayer){
+            rootMembers.add("home");
+            if(preferences != null) rootMembers.add("preferences");
+            if(meta != null) rootMembers.add("meta");
+        }
 
-                layerObj.put("id", layerID);
-                layerObj.put("centerX", layer.getCenterX());
-                layerObj.put("centerY", layer.getCenterY());
-                if(layer.hasName()) layerObj.put("name", layer.getName());
+        // write to a temporary file next to the world file, it replaces the
+        // world file when it is complete
+        final File tmpFile = new File(filename + ".tmp");
+        boolean complete = false;
+        try (FileOutputStream stream = new FileOutputStream(tmpFile);
+                OutputStream out = openOutputStream(stream, isCompressionRequested(singleLayer ? null : world));
+                JSONStreamWriter writer = new JSONStreamWriter(new BufferedWriter(new OutputStreamWriter(out), 1 << 16))) {
+            writer.beginObject();
+            for(String member: JSONStreamWriter.getMemberOrder(rootMembers.toArray(new String[rootMembers.size()]))){
+                writer.name(member);
+                switch(member){
+                    case "mudmapVer":
+                        writer.value(mudmapVer);
+                        break;
+                    case "fileVer":
+                        // file version
+                        writer.value(versionMajor + "." + versionMinor);
+                        break;
+                    case "worldName":
+                        writer.value(world.getName());
+                        break;
+                    case "showPlaceID":
+                        writer.value(world.getShowPlaceId().toString());
+                        break;
+                    case "tileCenterCol":
+                        // tile center color
+                        writer.value(colToHex(world.getTileCenterColor()));
+                        break;
+                    case "pathCol":
+                        // cardinal and non cardinal path color
+                        writer.value(colToHex(world.getPathColorStd()));
+                        break;
+                    case "pathColNonCardinal":
+                        writer.value(colToHex(world.getPathColorNstd()));
+                        break;
+                    case "pathColDefs":
+                        // other path colors
+                        writer.beginArray();
+                        for(Map.Entry<String, Color> pathCol: world.getPathColors().entrySet()){
+                            if(pathCol.getValue() != null){
+                                writeObject(writer, "path", pathCol.getKey(), "col", colToHex(pathCol.getValue()));
+                            }
+                        }
+                        writer.endArray();
+                        break;
+                    case "riskLevels":
+                        // information colors
+                        writer.beginArray();
+                        for(InformationColor infoCol: world.getInformationColors()){
+                            // if single layer export: check if infoCol is used on layer
+                            if(singleLayer && !infoColsInUse.contains(infoCol)) continue;
+                            writeObject(writer, "id", infoCol.getId(), "desc", infoCol.getDescription(),
+                                    "col", colToHex(infoCol.getColor()));
+                        }
+                        writer.endArray();
+                        break;
+                    case "areas":
+                        writer.beginArray();
+                        for(PlaceGroup area: world.getPlaceGroups()){
+                            // if single layer export: check if area is used on layer
+                            if(singleLayer && !areasInUse.contains(area)) continue;
+                            writeObject(writer, "id", areaIDs.get(area), "name", area.getName(),
+                                    "col", colToHex(area.getColor()));
+                        }
+                        writer.endArray();
+                        break;
+                    case "layers":
+                        // layers (for quadtree optimization)
+                        writer.beginArray();
+                        for(Layer layer: layers){
+                            if(!layer.getPlaces().isEmpty()){
+                                writeObject(writer, "id", translateLayerID(layer.getId()),
+                                        "centerX", layer.getCenterX(),
+                                        "centerY", layer.getCenterY(),
+                                        "name", layer.hasName() ? layer.getName() : null);
+                            }
+                        }
+                        writer.endArray();
+                        break;
+                    case "places":
+                        writePlaces(writer, layers, areaIDs);
+                        break;
+                    case "paths":
+                        writePaths(writer, layers);
+                        break;
+                    case "home":
+                        // home position
+                        WorldCoordinate home = world.getHome();
+                        writeObject(writer, "l", translateLayerID(home.getLayer()),
+                                "x", home.getX(), "y", home.getY());
+                        break;
+                    case "preferences":
+                        // world preferences (dialog settings etc.)
+                        writer.value(preferences);
+                        break;
+                    case "meta":
+                        writer.value(meta);
+                        break;
+                }
+            }
+            writer.endObject();
+            writer.flush();
+            finishOutputStream(out);
+            // the data has to be on the disk before the old file is replaced
+            stream.getFD().sync();
+            complete = true;
+        } catch (JSONException ex){
+            throw new IOException(ex);
+        } finally {
+            if(!complete) tmpFile.delete();
+        }
+        replaceFile(tmpFile, new File(filename));
+    }
 
-                layers.put(layerObj);
+    /**
+     * Writes a small object, members with null values are left out
+     * @param writer
+     * @param members alternating names and values (String or Number)
+     * @throws IOException
+     */
+    private void writeObject(JSONStreamWriter writer, Object... members) throws IOException {
+        HashMap<String, Object> values = new HashMap<>();
+        LinkedList<String> names = new LinkedList<>();
+        for(int i = 0; i < members.length; i += 2){
+            if(members[i + 1] != null){
+                names.add((String) members[i]);
+                values.put((String) members[i], members[i + 1]);
             }
         }
 
-        // places
-        JSONArray places = new JSONArray();
-        root.put("places", places);
-        for(Layer layer: world.getLayers()){
-            // skip other layers
-            if(singleLayer && layer != exportLayer) continue;
+        writer.beginObject();
+        for(String name: JSONStreamWriter.getMemberOrder(names.toArray(new String[names.size()]))){
+            writer.name(name);
+            final Object value = values.get(name);
+            if(value instanceof Number) writer.value((Number) value);
+            else writer.value(value.toString());
+        }
+        writer.endObject();
+    }
+
+    /**
+     * Writes the places array
+     * @param writer
+     * @param layers layers to write
+     * @param areaIDs ids of the areas
+     * @throws IOException
+     */
+    private void writePlaces(JSONStreamWriter writer, LinkedList<Layer> layers,
+            HashMap<PlaceGroup, Integer> areaIDs) throws IOException {
+        final String[] names = {"id", "n", "l", "x", "y", "a", "r", "lvlMin", "lvlMax", "c", "p", "f", "co"};
+        // member order for each combination of members
+        HashMap<Integer, String[]> memberOrders = new HashMap<>();
+
+        writer.beginArray();
+        for(Layer layer: layers){
+            final Integer layerID = translateLayerID(layer.getId());
 
             for(Place place: layer.getPlaces()){
-                JSONObject placeObj = new JSONObject();
-
-                placeObj.put("id", place.getId());
-                placeObj.put("n", place.getName());
-                placeObj.put("l", translateLayerID(layer.getId()));
-                placeObj.put("x", place.getX());
-                placeObj.put("y", place.getY());
-
-                if(place.getPlaceGroup() != null) placeObj.put("a", areaIDs.get(place.getPlaceGroup()));
-                if(place.getInfoRing() != null) placeObj.put("r", place.getInfoRing().getId());
-                if(place.getRecLevelMin() > -1) placeObj.put("lvlMin", place.getRecLevelMin());
-                if(place.getRecLevelMax() > -1) placeObj.put("lvlMax", place.getRecLevelMax());
-
-                // child places
-                if(!place.getChildren().isEmpty()){
-                    JSONArray children = new JSONArray();
-                    placeObj.put("c", children);
-                    for(Place child: place.getChildren()){
-                        children.put(child.getId());
-                    }
+                final Integer areaID = place.getPlaceGroup() != null ? areaIDs.get(place.getPlaceGroup()) : null;
+                final boolean hasComments = place.getComments() != null && !place.getComments().isEmpty();
+                final boolean[] present = {true, place.getName() != null, layerID != null, true, true,
+                    areaID != null, place.getInfoRing() != null, place.getRecLevelMin() > -1,
+                    place.getRecLevelMax() > -1, !place.getChildren().isEmpty(),
+                    !place.getParents().isEmpty(), !place.getFlags().isEmpty(), hasComments};
+
+                int mask = 0;
+                for(int i = 0; i < present.length; ++i){
+                    if(present[i]) mask |= 1 << i;
                 }
-
-                // parent places
-                if(!place.getParents().isEmpty()){
-                    JSONArray parents = new JSONArray();
-                    placeObj.put("p", parents);
-                    for(Place parent: place.getParents()){
-                        parents.put(parent.getId());
+                String[] order = memberOrders.get(mask);
+                if(order == null){
+                    LinkedList<String> list = new LinkedList<>();
+                    for(int i = 0; i < present.length; ++i){
+                        if(present[i]) list.add(names[i]);
                     }
+                    order = JSONStreamWriter.getMemberOrder(list.toArray(new String[list.size()]));
+                    memberOrders.put(mask, order);
                 }
 
-                // flags
-                if(!place.getFlags().isEmpty()){
-                    JSONArray flags = new JSONArray();
-                    placeObj.put("f", flags);
-                    for(Map.Entry<String, Boolean> flag: place.getFlags().entrySet()){
-                        if(flag.getValue()) flags.put(flag.getKey());
+                writer.beginObject();
+                for(String name: order){
+                    writer.name(name);
+                    switch(name){
+                        case "id": writer.value(place.getId()); break;
+                        case "n": writer.value(place.getName()); break;
+                        case "l": writer.value(layerID); break;
+                        case "x": writer.value(place.getX()); break;
+                        case "y": writer.value(place.getY()); break;
+                        case "a": writer.value(areaID); break;
+                        case "r": writer.value(place.getInfoRing().getId()); break;
+                        case "lvlMin": writer.value(place.getRecLevelMin()); break;
+                        case "lvlMax": writer.value(place.getRecLevelMax()); break;
+                        case "c":
+                            // child places
+                            writer.beginArray();
+                            for(Place child: place.getChildren()){
+                                writer.value(child.getId());
+                            }
+                            writer.endArray();
+                            break;
+                        case "p":
+                            // parent places
+                            writer.beginArray();
+                            for(Place parent: place.getParents()){
+                                writer.value(parent.getId());
+                            }
+                            writer.endArray();
+                            break;
+                        case "f":
+                            // flags
+                            writer.beginArray();
+                            for(Map.Entry<String, Boolean> flag: place.getFlags().entrySet()){
+                                if(flag.getValue()) writer.value(flag.getKey());
+                            }
+                            writer.endArray();
+                            break;
+                        case "co":
+                            // comments
+                            writer.beginArray();
+                            writer.value(place.getComments());
+                            writer.endArray();
+                            break;
                     }
                 }
-
-                // comments
-                if(place.getComments() != null && !place.getComments().isEmpty()){
-                    JSONArray comments = new JSONArray();
-                    comments.put(place.getComments());
-                    placeObj.put("co", comments);
-                }
-
-                places.put(placeObj);
+                writer.endObject();
             }
         }
+        writer.endArray();
+    }
 
-        // paths
-        JSONArray pathsArray = new JSONArray();
-        root.put("paths", pathsArray);
-        HashSet<Path> paths = new HashSet<>(); // paths that have already been added
-        for(Layer layer: world.getLayers()){
-            // skip other layers
-            if(singleLayer && layer != exportLayer) continue;
-
+    /**
+     * Writes the paths array. Each path is written when it is found first,
+     * it is remembered until its other place is reached
+     * @param writer
+     * @param layers layers to write
+     * @throws IOException
+     */
+    private void writePaths(JSONStreamWriter writer, LinkedList<Layer> layers) throws IOException {
+        // paths that have been written, but not yet been found at their
+        // second place
+        Set<Path> paths = Collections.newSetFromMap(new IdentityHashMap<Path, Boolean>());
+        final String[] order = JSONStreamWriter.getMemberOrder("p", "e");
+
+        writer.beginArray();
+        for(Layer layer: layers){
             for(Place place: layer.getPlaces()){
                 for(Path path: place.getPaths()){
-                    if(!paths.contains(path)){
-                        JSONArray pathObj = new JSONArray();
-
-                        JSONObject p1 = new JSONObject();
-                        p1.put("p", path.getPlaces()[0].getId());
-                        p1.put("e", path.getExit(path.getPlaces()[0]));
-                        pathObj.put(p1);
-
-                        JSONObject p2 = new JSONObject();
-                        p2.put("p", path.getPlaces()[1].getId());
-                        p2.put("e", path.getExit(path.getPlaces()[1]));
-                        pathObj.put(p2);
-
-                        pathsArray.put(pathObj);
-                        paths.add(path);
+                    if(paths.remove(path)) continue;
+
+                    final Place[] places = path.getPlaces();
+                    writer.beginArray();
+                    for(Place pl: places){
+                        final String exit = path.getExit(pl);
+                        if(exit == null){
+                            writeObject(writer, "p", pl.getId(), "e", exit);
+                        } else {
+                            writer.beginObject();
+                            for(String name: order){
+                                writer.name(name);
+                                if(name.equals("p")) writer.value(pl.getId());
+                                else writer.value(exit);
+                            }
+                            writer.endObject();
+                        }
                     }
+                    writer.endArray();
+                    if(places[0] != places[1]) paths.add(path);
                 }
             }
         }
-
-        if(!singleLayer){
-            // home position
-            WorldCoordinate home = world.getHome();
-            JSONObject obj = new JSONObject();
-            obj.put("l", translateLayerID(home.getLayer()));
-            obj.put("x", home.getX());
-            obj.put("y", home.getY());
-            root.put("home", obj);
-
-            // world preferences (dialog settings etc.)
-            root.put("preferences", world.getPreferences());
-
-            // add metaWriter data from WorldTab
-            if(metaWriter != null) root.put("meta", metaWriter.getMeta(layerIDs));
-        }
-
-        try ( FileWriter writer = new FileWriter(filename)) {
-            // indentation for better readability (for debugging), increases file size
-            //root.write(writer, 4, 0);
-            root.write(writer);
-            fileRoot = root;
-        } catch (Exception ex){
-            System.out.println(ex.getLocalizedMessage());
-        }
+        writer.endArray();
     }
 
     /**
@@ -732,56 +974,58 @@ public class WorldFileJSON extends WorldFile {
     }
 
     /**
-     * Read world name from file
+     * Read world name from file, the other members are skipped
      * @return
      * @throws Exception
      */
     @Override
     public String readWorldName() throws Exception {
-        try{
-            JSONObject object = getJSONRoot();
-            if(object != null && object.has("worldName")){
-                return object.getString("worldName");
-            } else return null;
+        if(!(new File(filename)).isFile()) return null;
+
+        try(JSONStreamReader reader = new JSONStreamReader(new InputStreamReader(openInputStream(new File(filename))))){
+            reader.beginObject();
+            while(reader.hasNext()){
+                if(reader.nextName().equals("worldName")){
+                    return reader.nextString();
+                }
+                reader.skipValue();
+            }
+            return null;
         } catch(JSONException ex) {
             return "";
         }
     }
 
     /**
-     * Check whether the file can be read by this reader class
+     * Check whether the file can be read by this reader class. The world name
+     * is near the beginning of files written by MUD Map, so usually only the
+     * first block of the file is read
      * @return
      */
     @Override
     public Boolean canRead() {
-        // exact check
-        try {
-            FileReader fileReader = new FileReader(filename);
-            BufferedReader bufferedReader = new BufferedReader(fileReader);
+        final String key = "\"worldName\"";
+        try(Reader reader = new InputStreamReader(openInputStream(new File(filename)))){
+            char[] buffer = new char[8 << 10];
+            // end of the previous block, the key might span two blocks
+            String carry = "";
             Boolean first = true;
-            String line;
-            while((line = bufferedReader.readLine()) != null){
+            int length;
+            while((length = reader.read(buffer)) >= 0){
+                String text = carry + new String(buffer, 0, length);
                 if(first){
-                    line = line.trim();
-                    if(!line.isEmpty()){
-                        if(!line.startsWith("{")) return false;
+                    String trimmed = text.trim();
+                    if(!trimmed.isEmpty()){
+                        if(!trimmed.startsWith("{")) return false;
                         first = false;
                     }
                 }
-                if(line.contains("\"worldName\"")) return true;
+                if(text.contains(key)) return true;
+                carry = text.substring(Math.max(0, text.length() - key.length()));
             }
         } catch (IOException ex) {
             return false;
         }
-
-        // quick check
-        /*try{
-        JSONObject object = getJSONRoot();
-        if(object == null) return false;
-        return object.has("worldName");
-        } catch(JSONException | IOException ex) {
-        System.out.println(filename + " " + ex.getLocalizedMessage());
-        }*/
         return false;
     }
 
@@ -0,0 +1,1203 @@
+/*  MUD Map (v2) - A tool to create and organize maps for text-based games
+ *  Copyright (C) 2026  Neop (email: mneop@web.de)
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License along
+ *  with this program; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*  File description
+ *
+ *  Append-only journal of world changes next to a world file, so a save
+ *  only has to write the changes instead of the whole world
+ */
+
+package mudmap2.backend.WorldFileReader.current;
+
+import java.awt.Color;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+import mudmap2.backend.InformationColor;
+import mudmap2.backend.Layer;
+import mudmap2.backend.LayerChangeListener;
+import mudmap2.backend.LayerElement;
+import mudmap2.backend.Path;
+import mudmap2.backend.Place;
+import mudmap2.backend.PlaceGroup;
+import mudmap2.backend.World;
+import mudmap2.backend.WorldChangeListener;
+import mudmap2.backend.WorldCoordinate;
+import mudmap2.backend.WorldFileReader.WorldFile;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Journal of the changes of a world since its world file (the base) was
+ * written. Each change of the world is appended as a record with the whole
+ * new state of the changed object, eg. a place with its paths. Replaying a
+ * record twice doesn't change the result.
+ *
+ * Records are collected in memory and written and synced in groups every
+ * COMMIT_INTERVAL milliseconds, a crash loses at most the last group. A save
+ * adds a save marker, closing without saving cuts the journal back to the
+ * last marker.
+ *
+ * The journal header contains the size and CRC32 of the base, a journal
+ * that doesn't match its base isn't replayed. It is renamed when the
+ * recording starts, instead of being overwritten. A compaction writes a new
+ * base: the changes made while it is written go to a second journal file
+ * that replaces the first one when the base is complete.
+ *
+ * Layers and place groups get ids that are only used in the journal, since
+ * the world files don't keep the layer ids and have no place group ids. A
+ * base record maps them to the layers with places, in the order the world
+ * files write them, and to the place groups with the same name and color.
+ * Records refer to places by id only, so replaying place records reads the
+ * layers of a world that haven't been read yet
+ * @author neop
+ */
+public class WorldJournal implements WorldChangeListener, LayerChangeListener {
+
+    public static final String EXTENSION = ".journal";
+    public static final String EXTENSION_NEW = ".journal.new";
+
+    static final byte[] MAGIC = {'M', 'M', 'W', 'J'};
+    static final int VERSION = 2;
+    // magic, version, base size and checksum
+    static final int HEADER_SIZE = 4 + 2 + 8 + 8;
+
+    // record types
+    static final int RECORD_BASE = 1;
+    static final int RECORD_PLACE = 2;
+    static final int RECORD_REMOVE = 3;
+    static final int RECORD_LAYER = 4;
+    static final int RECORD_WORLD = 5;
+    static final int RECORD_SAVE = 6;
+
+    // group commit interval in milliseconds
+    static final long COMMIT_INTERVAL = 1000;
+
+    // the base is rewritten if the journal is larger than this or than the
+    // base size multiplied by compactionRatio
+    long compactionSize = 8 << 20;
+    double compactionRatio = 0.5;
+
+    final String filename;
+    final File journalFile;
+    final File newFile;
+
+    World world = null;
+
+    // journal ids of the layers and place groups
+    final HashMap<Integer, Layer> layers = new HashMap<>();
+    final IdentityHashMap<Layer, Integer> layerIDs = new IdentityHashMap<>();
+    final HashMap<Integer, PlaceGroup> groups = new HashMap<>();
+    final IdentityHashMap<PlaceGroup, Integer> groupIDs = new IdentityHashMap<>();
+    int nextLayerID = 0, nextGroupID = 0;
+
+    // last recorded layer names and world settings
+    final HashMap<Integer, String> layerNames = new HashMap<>();
+    String worldState = null;
+
+    // layers with listener
+    final Set<Layer> watchedLayers = Collections.newSetFromMap(new IdentityHashMap<Layer, Boolean>());
+
+    // replay results, the saved sizes are the ends of the last save markers
+    ByteArrayOutputStream replayedJournal = null, replayedNew = null;
+    int replayedJournalSaved = 0, replayedNewSaved = 0;
+    boolean unsavedChanges = false;
+
+    // records that haven't been written yet, guarded by this
+    ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    byte[] lastRecord = null;
+
+    // file that is written, guarded by fileLock
+    final Object fileLock = new Object();
+    FileChannel channel = null;
+    File channelFile = null;
+    // journal before a compaction started, null if none is running
+    FileChannel compactedChannel = null;
+    // end of the last save marker
+    long savedOffset = 0;
+    // size and modification time of the base of the journal, to notice
+    // writes without the journal
+    long baseSize = -1, baseModified = -1;
+
+    ScheduledExecutorService executor = null;
+
+    /**
+     * Constructor
+     * @param filename world file name
+     */
+    public WorldJournal(String filename){
+        this.filename = filename;
+        journalFile = new File(filename + EXTENSION);
+        newFile = new File(filename + EXTENSION_NEW);
+    }
+
+    public String getFilename(){
+        return filename;
+    }
+
+    /**
+     * Checks whether the replayed journal has changes after the last save
+     * marker, eg. after a crash
+     * @return true if there are unsaved changes
+     */
+    public boolean hasUnsavedChanges(){
+        return unsavedChanges;
+    }
+
+    // --------- replay --------------------------------------------------------
+
+    /**
+     * Applies the journal to a world that was read from the base file
+     * @param world world read from the base
+     * @return number of applied records
+     * @throws IOException
+     */
+    public int replay(World world) throws IOException {
+        this.world = world;
+        ReplayState state = new ReplayState(world);
+        File base = new File(filename);
+        int count = 0;
+        final long checksum = base.isFile() ? checksum(base) : 0;
+
+        if(matchesBase(journalFile, base, checksum, false)){
+            replayedJournal = new ByteArrayOutputStream();
+            count += replay(journalFile, state, replayedJournal);
+            replayedJournalSaved = state.saved;
+        }
+        // if a compaction didn't finish it's changes follow the journal
+        if(matchesBase(newFile, base, checksum, replayedJournal != null)){
+            replayedNew = new ByteArrayOutputStream();
+            count += replay(newFile, state, replayedNew);
+            replayedNewSaved = state.saved;
+        }
+        if(replayedJournal == null && journalFile.exists()){
+            Logger.getLogger(WorldJournal.class.getName()).log(Level.WARNING,
+                    "Journal {0} doesn''t match the world file, it isn''t replayed", journalFile);
+        }
+        unsavedChanges = state.unsaved;
+        return count;
+    }
+
+    /**
+     * Objects that are needed while replaying
+     */
+    private static class ReplayState {
+        final World world;
+        // places by id, the layers are read when the first place is replayed
+        HashMap<Integer, Place> places = null;
+        boolean unsaved = false;
+        // end of the last save marker or base record of the current file
+        int saved = 0;
+
+        ReplayState(World world){
+            this.world = world;
+        }
+
+        HashMap<Integer, Place> getPlaces(){
+            if(places == null){
+                places = new HashMap<>();
+                for(Layer layer: world.getLayers()){
+                    for(Place place: layer.getPlaces()) places.put(place.getId(), place);
+                }
+            }
+            return places;
+        }
+    }
+
+    /**
+     * Checks whether a journal belongs to the base
+     * @param file journal file
+     * @param base base file
+     * @param checksum checksum of the base file
+     * @param allowPending accept journals of unfinished compactions
+     * @return true if the journal can be applied
+     */
+    private static boolean matchesBase(File file, File base, long checksum, boolean allowPending){
+        if(!file.isFile() || !base.isFile()) return false;
+        try(FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ)){
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while(header.hasRemaining() && ch.read(header) >= 0);
+            if(header.hasRemaining()) return false;
+            header.flip();
+
+            byte[] magic = new byte[MAGIC.length];
+            header.get(magic);
+            if(!Arrays.equals(magic, MAGIC) || header.getShort() != VERSION) return false;
+            long size = header.getLong();
+            long crc = header.getLong();
+            if(allowPending && size == 0 && crc == 0) return true;
+            // the modification time isn't used, it changes when the file is copied
+            return size == base.length() && crc == checksum;
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Applies the records of a journal file, a damaged end is ignored
+     * @param file journal file
+     * @param state
+     * @param replayed gets the applied records
+     * @return number of applied records
+     * @throws IOException
+     */
+    private int replay(File file, ReplayState state, ByteArrayOutputStream replayed) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+        buffer.position(HEADER_SIZE);
+        CRC32 crc = new CRC32();
+        int count = 0;
+        state.saved = 0;
+
+        while(buffer.hasRemaining()){
+            final int start = buffer.position();
+            ByteBuffer payload;
+            int type;
+            try {
+                type = buffer.get() & 0xff;
+                final int length = WorldFileBinary.readVarint(buffer);
+                if(length < 0 || length > buffer.remaining() - 4) break;
+                payload = buffer.slice();
+                payload.limit(length);
+                buffer.position(buffer.position() + length);
+
+                crc.reset();
+                crc.update(buffer.array(), start, buffer.position() - start);
+                if((int) crc.getValue() != buffer.getInt()) break;
+            } catch(BufferUnderflowException | IllegalArgumentException ex){
+                // incomplete record at the end of the journal
+                break;
+            }
+
+            try {
+                apply(type, payload, state);
+            } catch(BufferUnderflowException | IllegalArgumentException | JSONException ex){
+                Logger.getLogger(WorldJournal.class.getName()).log(Level.WARNING, "Invalid journal record in " + file, ex);
+            }
+            replayed.write(buffer.array(), start, buffer.position() - start);
+            if(type == RECORD_SAVE || type == RECORD_BASE) state.saved = replayed.size();
+            state.unsaved = type != RECORD_SAVE && (state.unsaved || type != RECORD_BASE);
+            ++count;
+        }
+        return count;
+    }
+
+    /**
+     * Applies a record
+     * @param type record type
+     * @param payload record data
+     * @param state
+     */
+    private void apply(int type, ByteBuffer payload, ReplayState state){
+        switch(type){
+            case RECORD_BASE:
+                applyBase(payload);
+                break;
+            case RECORD_PLACE:
+                applyPlace(payload, state);
+                break;
+            case RECORD_REMOVE:
+                Place place = state.getPlaces().remove(WorldFileBinary.readVarint(payload));
+                if(place != null){
+                    place.removeConnections();
+                    place.getLayer().remove(place);
+                }
+                break;
+            case RECORD_LAYER:
+                Layer layer = getLayer(WorldFileBinary.readVarint(payload));
+                String name = WorldFileBinary.readString(payload);
+                if(!name.isEmpty()) layer.setName(name);
+                break;
+            case RECORD_WORLD:
+                applyWorld(new JSONObject(WorldFileBinary.readString(payload)));
+                break;
+        }
+    }
+
+    /**
+     * Maps the journal ids to the layers and place groups of the world
+     * @param payload layer ids in the order of the world file, place group
+     * ids with name and color
+     */
+    private void applyBase(ByteBuffer payload){
+        ArrayList<Layer> baseLayers = getBaseLayers(world);
+        HashSet<PlaceGroup> baseGroups = new HashSet<>(world.getPlaceGroups());
+        layers.clear();
+        layerIDs.clear();
+        groups.clear();
+        groupIDs.clear();
+
+        for(int i = WorldFileBinary.readVarint(payload), j = 0; j < i; ++j){
+            int id = WorldFileBinary.readVarint(payload);
+            if(j < baseLayers.size()) mapLayer(id, baseLayers.get(j));
+        }
+        for(int i = WorldFileBinary.readVarint(payload); i > 0; --i){
+            final int id = WorldFileBinary.readVarint(payload);
+            final String name = WorldFileBinary.readString(payload);
+            final int rgb = payload.getInt();
+
+            PlaceGroup group = null;
+            for(PlaceGroup baseGroup: baseGroups){
+                if(name.equals(baseGroup.getName()) && baseGroup.getColor() != null && rgb == baseGroup.getColor().getRGB()){
+                    group = baseGroup;
+                    break;
+                }
+            }
+            if(group == null){
+                // unused place groups aren't written to the world file
+                group = new PlaceGroup(name, new Color(rgb, true));
+                world.addPlaceGroup(group);
+            }
+            baseGroups.remove(group);
+            mapGroup(id, group);
+        }
+    }
+
+    /**
+     * Creates or updates a place
+     * @param payload place record
+     * @param state
+     */
+    private void applyPlace(ByteBuffer payload, ReplayState state){
+        final int id = WorldFileBinary.readVarint(payload);
+        final Layer layer = getLayer(WorldFileBinary.readVarint(payload));
+        final int x = WorldFileBinary.readSignedVarint(payload);
+        final int y = WorldFileBinary.readSignedVarint(payload);
+        final String name = WorldFileBinary.readString(payload);
+
+        Place place = state.getPlaces().get(id);
+        // a place that was at the position before
+        Place other = layer.get(x, y);
+        if(other != null && other != place){
+            state.getPlaces().remove(other.getId());
+            other.removeConnections();
+            layer.remove(other);
+        }
+        try {
+            if(place == null){
+                place = new Place(id, name, x, y, layer);
+                layer.put(place);
+                state.getPlaces().put(id, place);
+            } else {
+                if(place.getLayer() != layer || place.getX() != x || place.getY() != y){
+                    layer.put(place, x, y);
+                }
+                place.setName(name);
+            }
+        } catch (Exception ex) {
+            throw new IllegalArgumentException(ex);
+        }
+
+        final int group = WorldFileBinary.readVarint(payload);
+        place.setPlaceGroup(group == 0 ? null : getGroup(group - 1));
+        final boolean hasInfoRing = payload.get() != 0;
+        final int infoRing = WorldFileBinary.readSignedVarint(payload);
+        place.setInfoRing(hasInfoRing ? world.getInformationColor(infoRing) : null);
+        place.setRecLevelMin(WorldFileBinary.readSignedVarint(payload));
+        place.setRecLevelMax(WorldFileBinary.readSignedVarint(payload));
+
+        place.getFlags().clear();
+        for(int i = WorldFileBinary.readVarint(payload); i > 0; --i){
+            place.setFlag(WorldFileBinary.readString(payload), true);
+        }
+        place.setComments(WorldFileBinary.readString(payload));
+
+        // children and parents
+        HashSet<Place> children = readPlaces(payload, state);
+        for(Place child: new ArrayList<>(place.getChildren())){
+            if(!children.contains(child)) place.removeChild(child);
+        }
+        for(Place child: children) place.connectChild(child);
+        HashSet<Place> parents = readPlaces(payload, state);
+        for(Place parent: new ArrayList<>(place.getParents())){
+            if(!parents.contains(parent)) parent.removeChild(place);
+        }
+        for(Place parent: parents) parent.connectChild(place);
+
+        // paths: other place, exit of this place, exit of the other place
+        HashSet<String> paths = new HashSet<>();
+        for(int i = WorldFileBinary.readVarint(payload); i > 0; --i){
+            paths.add(WorldFileBinary.readVarint(payload) + " " + WorldFileBinary.readString(payload)
+                    + " " + WorldFileBinary.readString(payload));
+        }
+        for(Path path: new ArrayList<>(place.getPaths())){
+            if(!paths.remove(getPathKey(place, path))) path.remove();
+        }
+        for(String key: paths){
+            String[] parts = key.split(" ", 3);
+            Place otherPlace = state.getPlaces().get(Integer.parseInt(parts[0]));
+            if(otherPlace != null){
+                try {
+                    place.connectPath(new Path(place, parts[1], otherPlace, parts[2]));
+                } catch(RuntimeException ex){
+                    Logger.getLogger(WorldJournal.class.getName()).log(Level.WARNING, null, ex);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads a list of place ids, places that don't exist are left out
+     * @param payload
+     * @param state
+     * @return places
+     */
+    private static HashSet<Place> readPlaces(ByteBuffer payload, ReplayState state){
+        HashSet<Place> ret = new HashSet<>();
+        for(int i = WorldFileBinary.readVarint(payload); i > 0; --i){
+            Place place = state.getPlaces().get(WorldFileBinary.readVarint(payload));
+            if(place != null) ret.add(place);
+        }
+        return ret;
+    }
+
+    /**
+     * Gets a string that identifies a path of a place, exits are separated by
+     * spaces, so an exit might contain spaces, but the key is still unique
+     * @param place
+     * @param path
+     * @return other place id, exit of this place, exit of the other place
+     */
+    private static String getPathKey(Place place, Path path){
+        final Place[] pathPlaces = path.getPlaces();
+        final String[] exits = path.getExitDirections();
+        // self loops are found from their first exit
+        final int own = pathPlaces[0] == place ? 0 : 1;
+        return pathPlaces[1 - own].getId() + " " + exits[own] + " " + exits[1 - own];
+    }
+
+    /**
+     * Sets the world settings, information colors and place groups
+     * @param json world record
+     */
+    private void applyWorld(JSONObject json){
+        world.setName(json.getString("name"));
+        if(json.has("showPlaceID")) world.setShowPlaceID(World.ShowPlaceID.valueOf(json.getString("showPlaceID")));
+        if(json.has("tileCenterCol")) world.setTileCenterColor(new Color(json.getInt("tileCenterCol")));
+        if(json.has("pathCol")) world.setPathColorStd(new Color(json.getInt("pathCol")));
+        if(json.has("pathColNonCardinal")) world.setPathColorNstd(new Color(json.getInt("pathColNonCardinal")));
+        JSONObject pathColors = json.getJSONObject("pathColDefs");
+        for(String dir: pathColors.keySet()){
+            world.setPathColor(dir, new Color(pathColors.getInt(dir)));
+        }
+        if(json.has("home")){
+            JSONObject home = json.getJSONObject("home");
+            world.setHome(new WorldCoordinate(getLayer(home.getInt("l")).getId(), home.getDouble("x"), home.getDouble("y")));
+        }
+        if(json.has("preferences")) world.setPreferences(json.getJSONObject("preferences"));
+
+        world.getInformationColors().clear();
+        JSONArray infoCols = json.getJSONArray("infoCols");
+        for(int i = 0; i < infoCols.length(); ++i){
+            JSONArray infoCol = infoCols.getJSONArray(i);
+            world.setInformationColor(new InformationColor(infoCol.getInt(0), infoCol.getString(1), new Color(infoCol.getInt(2))));
+        }
+
+        HashSet<PlaceGroup> removed = new HashSet<>(world.getPlaceGroups());
+        JSONArray groupArray = json.getJSONArray("groups");
+        for(int i = 0; i < groupArray.length(); ++i){
+            JSONArray groupJSON = groupArray.getJSONArray(i);
+            PlaceGroup group = getGroup(groupJSON.getInt(0));
+            group.setName(groupJSON.getString(1));
+            group.setColor(new Color(groupJSON.getInt(2)));
+            world.addPlaceGroup(group);
+            removed.remove(group);
+        }
+        for(PlaceGroup group: removed){
+            world.removePlaceGroup(group);
+            groups.remove(groupIDs.remove(group));
+        }
+    }
+
+    /**
+     * Gets the layer of a journal id, creates it if necessary
+     * @param id journal layer id
+     * @return layer
+     */
+    private Layer getLayer(int id){
+        Layer layer = layers.get(id);
+        if(layer == null){
+            layer = world.getNewLayer();
+            mapLayer(id, layer);
+        }
+        return layer;
+    }
+
+    /**
+     * Gets the place group of a journal id, creates it if necessary
+     * @param id journal place group id
+     * @return place group
+     */
+    private PlaceGroup getGroup(int id){
+        PlaceGroup group = groups.get(id);
+        if(group == null){
+            group = new PlaceGroup("", Color.WHITE);
+            world.addPlaceGroup(group);
+            mapGroup(id, group);
+        }
+        return group;
+    }
+
+    private void mapLayer(int id, Layer layer){
+        layers.put(id, layer);
+        layerIDs.put(layer, id);
+        nextLayerID = Math.max(nextLayerID, id + 1);
+    }
+
+    private void mapGroup(int id, PlaceGroup group){
+        groups.put(id, group);
+        groupIDs.put(group, id);
+        nextGroupID = Math.max(nextGroupID, id + 1);
+    }
+
+    /**
+     * Gets the layers that a world file writes, in the same order
+     * @param world
+     * @return layers with places
+     */
+    static ArrayList<Layer> getBaseLayers(World world){
+        ArrayList<Layer> ret = new ArrayList<>();
+        for(Layer layer: world.getLayers()){
+            if(!layer.isEmpty()) ret.add(layer);
+        }
+        return ret;
+    }
+
+    // --------- recording -----------------------------------------------------
+
+    /**
+     * Starts recording the changes of the world, after replay() was called.
+     * The replayed records are kept, the records of an unfinished compaction
+     * are moved to the journal
+     * @param world world that was read from the base
+     * @throws IOException
+     */
+    public void start(World world) throws IOException {
+        if(executor != null) return;
+        this.world = world;
+
+        synchronized(fileLock){
+            File base = new File(filename);
+            // journals that weren't replayed are kept
+            if(replayedNew == null) setAside(newFile);
+            if(replayedJournal != null && replayedNew == null){
+                // continue the journal
+                channel = FileChannel.open(journalFile.toPath(), StandardOpenOption.WRITE);
+                channel.truncate(HEADER_SIZE + replayedJournal.size());
+                channel.position(channel.size());
+                channelFile = journalFile;
+                savedOffset = HEADER_SIZE + replayedJournalSaved;
+            } else {
+                // write a new journal, with the changes of both files
+                if(replayedJournal == null) setAside(journalFile);
+                File tmpFile = new File(filename + EXTENSION + ".tmp");
+                channel = FileChannel.open(tmpFile.toPath(), StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                writeHeader(channel, base.length(), checksum(base));
+                if(replayedJournal == null && replayedNew == null){
+                    write(channel, getBaseRecord(world));
+                }
+                savedOffset = channel.position();
+                if(replayedJournal != null){
+                    write(channel, replayedJournal.toByteArray());
+                    // the journal was saved by the compaction
+                    write(channel, getRecord(RECORD_SAVE, new byte[0]));
+                    savedOffset = channel.position();
+                }
+                if(replayedNew != null){
+                    write(channel, replayedNew.toByteArray());
+                    savedOffset += replayedNewSaved;
+                }
+                channel.force(false);
+                channel.close();
+
+                WorldFile.replaceFile(tmpFile, journalFile);
+                newFile.delete();
+                channel = FileChannel.open(journalFile.toPath(), StandardOpenOption.WRITE);
+                channel.position(channel.size());
+                channelFile = journalFile;
+            }
+            replayedJournal = replayedNew = null;
+            baseSize = base.length();
+            baseModified = base.lastModified();
+        }
+
+        startRecording();
+    }
+
+    /**
+     * Registers the listeners and starts the group commits
+     */
+    private void startRecording(){
+        if(executor != null) return;
+
+        for(Layer layer: world.getLayers()){
+            // names of empty layers are recorded when they get places
+            if(!layer.isEmpty()) layerNames.put(getLayerID(layer), layer.hasName() ? layer.getName() : "");
+            watchLayer(layer);
+        }
+        for(PlaceGroup group: world.getPlaceGroups()) getGroupID(group);
+        worldState = getWorldState().toString();
+        world.addChangeListener(this);
+
+        executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "World journal " + filename);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        executor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    flush(false);
+                } catch (IOException ex) {
+                    Logger.getLogger(WorldJournal.class.getName()).log(Level.SEVERE, null, ex);
+                }
+            }
+        }, COMMIT_INTERVAL, COMMIT_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void worldChanged(Object source) {
+        if(source instanceof Place){
+            Place place = (Place) source;
+            // the place isn't on the map yet
+            if(place.getLayer() == null || place.getLayer().get(place.getX(), place.getY()) != place) return;
+            recordPlace(place);
+        } else if(source instanceof Layer){
+            Layer layer = (Layer) source;
+            watchLayer(layer);
+            recordLayer(layer);
+        } else if(source instanceof World || source instanceof PlaceGroup || source instanceof InformationColor){
+            recordWorld();
+        }
+    }
+
+    @Override
+    public void elementAdded(Layer layer, LayerElement element) {
+        if(element instanceof Place) recordPlace((Place) element);
+    }
+
+    @Override
+    public void elementRemoved(Layer layer, LayerElement element) {
+        // new places are removed from their layer before they are added,
+        // removing an unknown id has no effect on replay
+        if(element instanceof Place && layer.get(element.getX(), element.getY()) != element){
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try(DataOutputStream out = new DataOutputStream(bytes)) {
+                WorldFileBinary.writeVarint(out, ((Place) element).getId());
+            } catch (IOException ex) {
+                throw new RuntimeException(ex);
+            }
+            addRecord(RECORD_REMOVE, bytes.toByteArray());
+        }
+    }
+
+    /**
+     * Records the changes that aren't reported by world change events, eg.
+     * renamed layers. It should be called before the journal is saved
+     */
+    public void recordChanges(){
+        for(Layer layer: world.getLayers()){
+            if(!layer.isEmpty()) recordLayer(layer);
+        }
+        recordWorld();
+    }
+
+    /**
+     * Records a layer if it's new or renamed
+     * @param layer
+     */
+    private void recordLayer(Layer layer){
+        final int id = getLayerID(layer);
+        final String name = layer.hasName() ? layer.getName() : "";
+        if(name.equals(layerNames.get(id))) return;
+        layerNames.put(id, name);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try(DataOutputStream out = new DataOutputStream(bytes)) {
+            WorldFileBinary.writeVarint(out, id);
+            WorldFileBinary.writeString(out, name);
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+        addRecord(RECORD_LAYER, bytes.toByteArray());
+    }
+
+    /**
+     * Records the world settings, if they changed
+     */
+    private void recordWorld(){
+        final String state = getWorldState().toString();
+        if(state.equals(worldState)) return;
+        worldState = state;
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try(DataOutputStream out = new DataOutputStream(bytes)) {
+            WorldFileBinary.writeString(out, state);
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+        addRecord(RECORD_WORLD, bytes.toByteArray());
+    }
+
+    /**
+     * Gets the world settings, information colors and place groups
+     * @return world record
+     */
+    private JSONObject getWorldState(){
+        JSONObject json = new JSONObject();
+        json.put("name", world.getName());
+        if(world.getShowPlaceId() != null) json.put("showPlaceID", world.getShowPlaceId().toString());
+        if(world.getTileCenterColor() != null) json.put("tileCenterCol", world.getTileCenterColor().getRGB());
+        if(world.getPathColorStd() != null) json.put("pathCol", world.getPathColorStd().getRGB());
+        if(world.getPathColorNstd() != null) json.put("pathColNonCardinal", world.getPathColorNstd().getRGB());
+        JSONObject pathColors = new JSONObject();
+        for(Map.Entry<String, Color> pathColor: world.getPathColors().entrySet()){
+            if(pathColor.getValue() != null) pathColors.put(pathColor.getKey(), pathColor.getValue().getRGB());
+        }
+        json.put("pathColDefs", pathColors);
+        WorldCoordinate home = world.getHome();
+        Layer homeLayer = home != null ? world.getLayer(home.getLayer()) : null;
+        if(homeLayer != null){
+            JSONObject homeJSON = new JSONObject();
+            homeJSON.put("l", getLayerID(homeLayer));
+            homeJSON.put("x", home.getX());
+            homeJSON.put("y", home.getY());
+            json.put("home", homeJSON);
+        }
+        if(world.getPreferences() != null) json.put("preferences", world.getPreferences());
+
+        JSONArray infoCols = new JSONArray();
+        for(InformationColor infoCol: world.getInformationColors()){
+            infoCols.put(new JSONArray().put(infoCol.getId()).put(infoCol.getDescription()).put(infoCol.getColor().getRGB()));
+        }
+        json.put("infoCols", infoCols);
+        JSONArray groupArray = new JSONArray();
+        for(PlaceGroup group: world.getPlaceGroups()){
+            groupArray.put(new JSONArray().put(getGroupID(group)).put(group.getName()).put(group.getColor().getRGB()));
+        }
+        json.put("groups", groupArray);
+        return json;
+    }
+
+    /**
+     * Records the state of a place
+     * @param place
+     */
+    private void recordPlace(Place place){
+        final Layer layer = place.getLayer();
+        // a new layer has to be recorded first
+        watchLayer(layer);
+        recordLayer(layer);
+        // a new place group has to be recorded first
+        if(place.getPlaceGroup() != null && !groupIDs.containsKey(place.getPlaceGroup())) recordWorld();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try(DataOutputStream out = new DataOutputStream(bytes)) {
+            WorldFileBinary.writeVarint(out, place.getId());
+            WorldFileBinary.writeVarint(out, getLayerID(layer));
+            WorldFileBinary.writeSignedVarint(out, place.getX());
+            WorldFileBinary.writeSignedVarint(out, place.getY());
+            WorldFileBinary.writeString(out, place.getName());
+            WorldFileBinary.writeVarint(out, place.getPlaceGroup() == null ? 0 : getGroupID(place.getPlaceGroup()) + 1);
+            out.writeByte(place.getInfoRing() != null ? 1 : 0);
+            WorldFileBinary.writeSignedVarint(out, place.getInfoRing() != null ? place.getInfoRing().getId() : 0);
+            WorldFileBinary.writeSignedVarint(out, place.getRecLevelMin());
+            WorldFileBinary.writeSignedVarint(out, place.getRecLevelMax());
+
+            ArrayList<String> flags = new ArrayList<>();
+            for(Map.Entry<String, Boolean> flag: place.getFlags().entrySet()){
+                if(flag.getValue()) flags.add(flag.getKey());
+            }
+            WorldFileBinary.writeVarint(out, flags.size());
+            for(String flag: flags) WorldFileBinary.writeString(out, flag);
+            WorldFileBinary.writeString(out, place.getComments());
+
+            WorldFileBinary.writeVarint(out, place.getChildren().size());
+            for(Place child: place.getChildren()) WorldFileBinary.writeVarint(out, child.getId());
+            WorldFileBinary.writeVarint(out, place.getParents().size());
+            for(Place parent: place.getParents()) WorldFileBinary.writeVarint(out, parent.getId());
+
+            // a self loop is in the set once but has two exits
+            LinkedHashSet<String> paths = new LinkedHashSet<>();
+            for(Path path: place.getPaths()){
+                paths.add(getPathKey(place, path));
+            }
+            WorldFileBinary.writeVarint(out, paths.size());
+            for(String key: paths){
+                String[] parts = key.split(" ", 3);
+                WorldFileBinary.writeVarint(out, Integer.parseInt(parts[0]));
+                WorldFileBinary.writeString(out, parts[1]);
+                WorldFileBinary.writeString(out, parts[2]);
+            }
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+        addRecord(RECORD_PLACE, bytes.toByteArray());
+    }
+
+    /**
+     * Registers the layer listener, if it isn't registered yet
+     * @param layer
+     */
+    private void watchLayer(Layer layer){
+        if(watchedLayers.add(layer)) layer.addLayerChangeListener(this);
+    }
+
+    private int getLayerID(Layer layer){
+        Integer id = layerIDs.get(layer);
+        if(id == null){
+            id = nextLayerID;
+            mapLayer(id, layer);
+        }
+        return id;
+    }
+
+    private int getGroupID(PlaceGroup group){
+        Integer id = groupIDs.get(group);
+        if(id == null){
+            id = nextGroupID;
+            mapGroup(id, group);
+        }
+        return id;
+    }
+
+    /**
+     * Creates the base record that maps the journal ids to the layers and
+     * place groups in a world file written from the world
+     * @param world
+     * @return record
+     */
+    private byte[] getBaseRecord(World world){
+        ArrayList<Layer> baseLayers = getBaseLayers(world);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try(DataOutputStream out = new DataOutputStream(bytes)) {
+            WorldFileBinary.writeVarint(out, baseLayers.size());
+            for(Layer layer: baseLayers) WorldFileBinary.writeVarint(out, getLayerID(layer));
+            WorldFileBinary.writeVarint(out, world.getPlaceGroups().size());
+            for(PlaceGroup group: world.getPlaceGroups()){
+                WorldFileBinary.writeVarint(out, getGroupID(group));
+                WorldFileBinary.writeString(out, group.getName());
+                out.writeInt(group.getColor() != null ? group.getColor().getRGB() : Color.WHITE.getRGB());
+            }
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+        return getRecord(RECORD_BASE, bytes.toByteArray());
+    }
+
+    /**
+     * Adds a record to the records that will be written with the next group
+     * @param type record type
+     * @param payload record data
+     */
+    private synchronized void addRecord(int type, byte[] payload){
+        final byte[] record = getRecord(type, payload);
+        // the same change is often reported more than once
+        if(Arrays.equals(record, lastRecord)) return;
+        lastRecord = record;
+        pending.write(record, 0, record.length);
+    }
+
+    /**
+     * Creates a record: type, length, data and CRC32 of type, length and data
+     * @param type record type
+     * @param payload record data
+     * @return record
+     */
+    static byte[] getRecord(int type, byte[] payload){
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(payload.length + 10);
+        try(DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(type);
+            WorldFileBinary.writeVarint(out, payload.length);
+            out.write(payload);
+            CRC32 crc = new CRC32();
+            crc.update(bytes.toByteArray());
+            out.writeInt((int) crc.getValue());
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Takes the records that haven't been written
+     * @return records
+     */
+    private synchronized byte[] takePending(){
+        final byte[] ret = pending.toByteArray();
+        pending.reset();
+        lastRecord = null;
+        return ret;
+    }
+
+    /**
+     * Writes the pending records
+     * @param save add a save marker
+     * @throws IOException
+     */
+    void flush(boolean save) throws IOException {
+        synchronized(fileLock){
+            if(channel == null) return;
+            byte[] records = takePending();
+            if(records.length == 0 && !save) return;
+            write(channel, records);
+            if(save) write(channel, getRecord(RECORD_SAVE, new byte[0]));
+            channel.force(false);
+            if(save) savedOffset = channel.position();
+        }
+    }
+
+    /**
+     * Saves the changes, the records are written and synced with a save
+     * marker
+     * @throws IOException
+     */
+    public void commit() throws IOException {
+        // place ids of an incomplete world might clash with the missing places,
+        // layers that haven't been read don't change and their ids are reserved
+        if(world != null) WorldFile.checkLoadError(world);
+        flush(true);
+    }
+
+    /**
+     * Checks whether the changes can be saved in the journal, it has to be
+     * open and belong to the current base
+     * @return false if the base has to be written
+     */
+    public boolean canCommit(){
+        synchronized(fileLock){
+            if(channel == null || channelFile != journalFile) return false;
+            // the world file was written without the journal
+            File base = new File(filename);
+            return base.length() == baseSize && base.lastModified() == baseModified;
+        }
+    }
+
+    /**
+     * Checks whether the base should be rewritten
+     * @return true if the journal is too large
+     */
+    public boolean needsCompaction(){
+        synchronized(fileLock){
+            if(!canCommit()) return true;
+            try {
+                final long size = channel.size();
+                return size > compactionSize || size > new File(filename).length() * compactionRatio;
+            } catch (IOException ex) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Starts a compaction, has to be called when the snapshot of the world
+     * is taken. The following changes are written to a new journal
+     * @param world world that will be written to the base
+     * @throws IOException
+     */
+    public void beginCompaction(World world) throws IOException {
+        this.world = world;
+        synchronized(fileLock){
+            flush(false);
+            if(channel != null && channelFile == journalFile){
+                compactedChannel = channel;
+            } else if(channel != null){
+                // a new journal without base, it's in the snapshot
+                channel.close();
+            }
+            channel = FileChannel.open(newFile.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            channelFile = newFile;
+            // pending base: size and checksum aren't known yet
+            writeHeader(channel, 0, 0);
+            write(channel, getBaseRecord(world));
+            channel.force(false);
+            savedOffset = channel.position();
+        }
+        // empty layers aren't in the base, their names have to be recorded again
+        for(Layer layer: world.getLayers()){
+            if(layer.isEmpty() && layerIDs.containsKey(layer)) layerNames.remove(layerIDs.get(layer));
+        }
+        startRecording();
+    }
+
+    /**
+     * Finishes a compaction after the base was written, the new journal
+     * replaces the old one
+     * @throws IOException
+     */
+    public void finishCompaction() throws IOException {
+        synchronized(fileLock){
+            if(channelFile != newFile) return;
+            flush(false);
+            File base = new File(filename);
+            final long position = channel.position();
+            channel.position(0);
+            baseSize = base.length();
+            baseModified = base.lastModified();
+            writeHeader(channel, baseSize, checksum(base));
+            channel.force(false);
+            channel.close();
+
+            WorldFile.replaceFile(newFile, journalFile);
+            if(compactedChannel != null) compactedChannel.close();
+            compactedChannel = null;
+            channel = FileChannel.open(journalFile.toPath(), StandardOpenOption.WRITE);
+            channel.position(position);
+            channelFile = journalFile;
+        }
+    }
+
+    /**
+     * Cancels a compaction after the base couldn't be written, the changes
+     * are moved back to the old journal
+     * @throws IOException
+     */
+    public void abortCompaction() throws IOException {
+        synchronized(fileLock){
+            if(channelFile != newFile || compactedChannel == null) return;
+            flush(false);
+            channel.close();
+
+            byte[] data = Files.readAllBytes(newFile.toPath());
+            write(compactedChannel, Arrays.copyOfRange(data, HEADER_SIZE, data.length));
+            compactedChannel.force(false);
+            newFile.delete();
+            channel = compactedChannel;
+            channelFile = journalFile;
+            compactedChannel = null;
+        }
+    }
+
+    /**
+     * Removes the changes after the last save marker, eg. if the world is
+     * closed without saving
+     * @throws IOException
+     */
+    public void discard() throws IOException {
+        synchronized(fileLock){
+            takePending();
+            if(channel != null && savedOffset >= HEADER_SIZE){
+                channel.truncate(savedOffset);
+                channel.force(false);
+            }
+        }
+    }
+
+    /**
+     * Stops recording and closes the journal, pending records are written
+     * @throws IOException
+     */
+    public void close() throws IOException {
+        if(executor != null){
+            executor.shutdown();
+            executor = null;
+            world.removeChangeListener(this);
+            for(Layer layer: watchedLayers) layer.removeLayerChangeListener(this);
+            watchedLayers.clear();
+        }
+        synchronized(fileLock){
+            flush(false);
+            if(channel != null) channel.close();
+            if(compactedChannel != null) compactedChannel.close();
+            channel = compactedChannel = null;
+        }
+    }
+
+    /**
+     * Renames a journal that doesn't belong to the base, so it isn't lost
+     * when a new journal is written
+     * @param file journal file
+     * @throws IOException
+     */
+    private static void setAside(File file) throws IOException {
+        if(!file.exists()) return;
+        File target = new File(file.getPath() + "." + System.currentTimeMillis() + ".unmatched");
+        Files.move(file.toPath(), target.toPath());
+        Logger.getLogger(WorldJournal.class.getName()).log(Level.WARNING,
+                "Journal {0} doesn''t match the world file, it was renamed to {1}", new Object[]{file, target});
+    }
+
+    /**
+     * Calculates the checksum of a base file
+     * @param file base file
+     * @return CRC32 of the file
+     * @throws IOException
+     */
+    static long checksum(File file) throws IOException {
+        CRC32 crc = new CRC32();
+        try(InputStream in = new FileInputStream(file)){
+            byte[] buffer = new byte[1 << 16];
+            int length;
+            while((length = in.read(buffer)) > 0) crc.update(buffer, 0, length);
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Writes the journal header
+     * @param channel
+     * @param baseSize size of the base file
+     * @param baseChecksum checksum of the base file
+     * @throws IOException
+     */
+    private static void writeHeader(FileChannel channel, long baseSize, long baseChecksum) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.put(MAGIC);
+        header.putShort((short) VERSION);
+        header.putLong(baseSize);
+        header.putLong(baseChecksum);
+        header.flip();
+        while(header.hasRemaining()) channel.write(header);
+    }
+
+    private static void write(FileChannel channel, byte[] data) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        while(buffer.hasRemaining()) channel.write(buffer);
+    }
+
+}
@@ -24,8 +24,10 @@
 
 package mudmap2.backend;
 
+import java.io.File;
 import java.util.HashSet;
 import mudmap2.backend.WorldFileReader.WorldFile;
+import mudmap2.backend.WorldFileReader.WorldFileBackup;
 import mudmap2.backend.WorldFileReader.current.WorldFileDefault;
 
 /**
@@ -81,7 +83,9 @@ public class WorldManager {
             WorldFile worldFile = new WorldFileDefault(filename);
             if(worldFile.canRead()){
                 ret = worldFile.readFile();
-                worldFile.backup();
+                // keeps a generation if the file changed, without delaying
+                // the loading
+                new WorldFileBackup(new File(filename)).backupLater();
                 register(ret);
             } else {
                 throw new Exception("Could not read world file: invalid format");
@@ -0,0 +1,389 @@
+/*  MUD Map (v2) - A tool to create and organize maps for text-based games
+ *  Copyright (C) 2026  Neop (email: mneop@web.de)
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License along
+ *  with this program; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*  File description
+ *
+ *  Creates a detached copy of a whole world that can be saved by another
+ *  thread while the original world is edited, the copy can be updated with
+ *  the changed layers only
+ */
+
+package mudmap2.backend;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.json.JSONObject;
+
+/**
+ * Copies a world with everything that is written to a world file: layers,
+ * places with the same ids and coordinates, paths, children, place groups,
+ * information colors, colors, home and preferences. Like LayerSnapshot, but
+ * for all layers. The snapshot doesn't change when the original world is
+ * modified. Layers that haven't been read aren't read by the snapshot, they
+ * are read into the copy when it accesses them.
+ *
+ * A WorldSnapshot object keeps its copy and watches the world. An update
+ * only copies the places of the layers that were changed since the last
+ * update again, the other places keep their copies. A layer that was read in
+ * the meantime creates the whole copy again, since it adds connections to
+ * the other layers
+ * @author neop
+ */
+public class WorldSnapshot implements WorldChangeListener {
+
+    final World world;
+    // false for a single copy that doesn't watch the world
+    final boolean watch;
+
+    World worldCopy = null;
+    final HashMap<Layer, Layer> layerCopies = new HashMap<>();
+    // place copies by original and the other way round
+    final HashMap<Place, Place> copies = new HashMap<>();
+    final HashMap<Place, Place> originals = new HashMap<>();
+    final HashMap<PlaceGroup, PlaceGroup> placeGroups = new HashMap<>();
+    final HashMap<InformationColor, InformationColor> informationColors = new HashMap<>();
+    // copies of places on layers that haven't been read, by id, the copied
+    // loaders complete them
+    final HashMap<Integer, Place> unloadedPlaces = new HashMap<>();
+    // layers that hadn't been read when the copy was created
+    final HashSet<Layer> unloadedLayers = new HashSet<>();
+
+    // changes since the last update
+    final HashSet<Layer> changedLayers = new HashSet<>();
+    boolean changedAll = true;
+    // a connection to a place that couldn't be copied
+    boolean incomplete = false;
+
+    /**
+     * Creates a snapshot that watches the changes of a world, the copy is
+     * created by the first update
+     * @param world world to copy
+     */
+    public WorldSnapshot(World world){
+        this(world, true);
+    }
+
+    private WorldSnapshot(World world, boolean watch){
+        this.world = world;
+        this.watch = watch;
+        if(watch) world.addChangeListener(this);
+    }
+
+    /**
+     * Creates a snapshot of a world. The world must not be modified while
+     * the snapshot is created
+     * @param world world to copy
+     * @return copy of the world, without world file
+     */
+    public static World create(World world){
+        return new WorldSnapshot(world, false).update();
+    }
+
+    /**
+     * Stops watching the world
+     */
+    public void close(){
+        if(watch) world.removeChangeListener(this);
+    }
+
+    /**
+     * Updates the copy with the changes of the world since the last update.
+     * The world must not be modified while the copy is updated and the copy
+     * of the last update must not be used anymore, eg. by a thread that
+     * writes it
+     * @return copy of the world, without world file
+     */
+    public World update(){
+        boolean create = worldCopy == null || changedAll || worldCopy.loadError != world.loadError;
+        for(Layer layer: world.getLayers()){
+            if(layer.isLoaded() == unloadedLayers.contains(layer)) create = true;
+        }
+        if(create){
+            worldCopy = new World(world.getName());
+            worldCopy.informationColors.clear();
+            layerCopies.clear();
+            copies.clear();
+            originals.clear();
+            placeGroups.clear();
+            informationColors.clear();
+            unloadedPlaces.clear();
+            unloadedLayers.clear();
+        }
+
+        copyWorld();
+
+        for(Layer layer: world.getLayers()){
+            Layer layerCopy = layerCopies.get(layer);
+            if(layerCopy == null){
+                layerCopy = new Layer(layer.getId(), worldCopy);
+                if(layer.isLoaded() && !layer.isEmpty()) layerCopy.setQuadtree(layer.getCenterX(), layer.getCenterY());
+                worldCopy.addLayer(layerCopy);
+                layerCopies.put(layer, layerCopy);
+                changedLayers.add(layer);
+            }
+            layerCopy.name = layer.name;
+        }
+
+        // layers that haven't been read are read into the copy by a copy of
+        // their loader when they are accessed
+        if(create){
+            final IdentityHashMap<LayerLoader, LayerLoader> loaders = new IdentityHashMap<>();
+            for(Layer layer: world.getLayers()){
+                final LayerLoader loader = layer.loader;
+                if(loader == null) continue;
+                if(!loaders.containsKey(loader)){
+                    loaders.put(loader, loader.copy(worldCopy, placeGroups, unloadedPlaces));
+                }
+                if(loaders.get(loader) != null){
+                    layerCopies.get(layer).setLoader(loaders.get(loader), layer.getPlaceCount());
+                    unloadedLayers.add(layer);
+                } else {
+                    layer.load();
+                }
+            }
+        }
+
+        // changed layers that have been read
+        final ArrayList<Layer> layers = new ArrayList<>();
+        for(Layer layer: world.getLayers()){
+            if(layer.isLoaded() && (create || changedLayers.contains(layer))) layers.add(layer);
+        }
+
+        // copies that aren't at the position of their original anymore
+        final HashSet<Place> removed = new HashSet<>();
+        for(Layer layer: layers){
+            final Layer layerCopy = layerCopies.get(layer);
+            for(Place copy: layerCopy.getPlaces()){
+                if(layer.get(copy.getX(), copy.getY()) != originals.get(copy)){
+                    layerCopy.remove(copy);
+                    removed.add(copy);
+                }
+            }
+        }
+
+        final HashSet<Place> changedPlaces = new HashSet<>();
+        for(Layer layer: layers){
+            final Layer layerCopy = layerCopies.get(layer);
+            for(Place place: layer.getPlaces()){
+                Place copy = copies.get(place);
+                try {
+                    if(copy == null){
+                        copy = new Place(place.getId(), place.getName(), place.getX(), place.getY(), layerCopy);
+                        copies.put(place, copy);
+                        originals.put(copy, place);
+                        layerCopy.put(copy);
+                    } else if(removed.remove(copy) || copy.getLayer() != layerCopy){
+                        layerCopy.put(copy, place.getX(), place.getY());
+                    }
+                } catch (Exception ex) {
+                    Logger.getLogger(WorldSnapshot.class.getName()).log(Level.SEVERE, null, ex);
+                }
+                copyPlace(place, copy);
+                changedPlaces.add(place);
+            }
+        }
+
+        // removed places
+        for(Place copy: removed){
+            clearConnections(copy);
+            copies.remove(originals.remove(copy));
+        }
+
+        // connections of the changed places, the connections to unchanged
+        // places are copied by the changed place
+        for(Place place: changedPlaces){
+            clearConnections(copies.get(place));
+        }
+        for(Place place: changedPlaces){
+            final Place copy = copies.get(place);
+            for(Path path: place.getPaths()){
+                final Place[] places = path.getPlaces();
+                // paths between changed places are copied by their first place
+                if(places[0] != place && changedPlaces.contains(places[0])) continue;
+                final Place copy0 = getCopy(places[0]);
+                final Place copy1 = getCopy(places[1]);
+                if(copy0 != null && copy1 != null){
+                    final String[] exits = path.getExitDirections();
+                    final Path pathCopy = new Path(copy0, exits[0], copy1, exits[1]);
+                    copy0.paths.add(pathCopy);
+                    copy1.paths.add(pathCopy);
+                }
+            }
+            for(Place child: place.getChildren()){
+                final Place childCopy = getCopy(child);
+                if(childCopy != null){
+                    copy.children.add(childCopy);
+                    childCopy.parents.add(copy);
+                }
+            }
+            for(Place parent: place.getParents()){
+                // changed parents add their children
+                if(changedPlaces.contains(parent)) continue;
+                final Place parentCopy = getCopy(parent);
+                if(parentCopy != null){
+                    parentCopy.children.add(copy);
+                    copy.parents.add(parentCopy);
+                }
+            }
+        }
+
+        // the layer constructor changes the next id
+        worldCopy.nextLayerID = world.nextLayerID;
+        // errors of layers that are read later are set by the copied loaders
+        worldCopy.loadError = world.loadError;
+
+        changedLayers.clear();
+        changedAll = false;
+        if(incomplete){
+            incomplete = false;
+            changedAll = true;
+            return update();
+        }
+        return worldCopy;
+    }
+
+    /**
+     * Copies the world settings, information colors and place groups. The
+     * copies of the colors and groups are kept, since places refer to them
+     */
+    private void copyWorld(){
+        worldCopy.setName(world.getName());
+        worldCopy.pathColorCardinal = world.pathColorCardinal;
+        worldCopy.pathColorNonCardinal = world.pathColorNonCardinal;
+        worldCopy.tileCenterColor = world.tileCenterColor;
+        worldCopy.pathColors.clear();
+        worldCopy.pathColors.putAll(world.pathColors);
+        worldCopy.showPlaceID = world.showPlaceID;
+        worldCopy.home = new WorldCoordinate(world.home);
+        worldCopy.preferences = world.preferences != null ? new JSONObject(world.preferences.toString()) : null;
+
+        final HashMap<InformationColor, InformationColor> informationColorCopies = new HashMap<>();
+        worldCopy.informationColors.clear();
+        for(InformationColor informationColor: world.informationColors.values()){
+            InformationColor copy = informationColors.get(informationColor);
+            if(copy == null || copy.getId() != informationColor.getId()){
+                copy = new InformationColor(informationColor.getId(),
+                        informationColor.getDescription(), informationColor.getColor());
+            } else {
+                copy.setDescription(informationColor.getDescription());
+                copy.setColor(informationColor.getColor());
+            }
+            worldCopy.informationColors.put(copy.getId(), copy);
+            informationColorCopies.put(informationColor, copy);
+        }
+        informationColors.clear();
+        informationColors.putAll(informationColorCopies);
+
+        // groups that aren't registered in the world anymore are kept, if
+        // places still use them
+        worldCopy.placeGroups.clear();
+        for(PlaceGroup placeGroup: world.placeGroups){
+            if(!placeGroups.containsKey(placeGroup)){
+                placeGroups.put(placeGroup, new PlaceGroup(placeGroup.getName(), placeGroup.getColor()));
+            }
+        }
+        for(Map.Entry<PlaceGroup, PlaceGroup> entry: placeGroups.entrySet()){
+            entry.getValue().setName(entry.getKey().getName());
+            entry.getValue().setColor(entry.getKey().getColor());
+            worldCopy.placeGroups.add(entry.getValue());
+        }
+    }
+
+    /**
+     * Copies the data of a place, without its connections
+     * @param place original place
+     * @param copy copy of the place
+     */
+    private void copyPlace(Place place, Place copy){
+        if(place.placeGroup != null && !placeGroups.containsKey(place.placeGroup)){
+            // group that isn't registered in the world
+            PlaceGroup groupCopy = new PlaceGroup(place.placeGroup.getName(), place.placeGroup.getColor());
+            worldCopy.placeGroups.add(groupCopy);
+            placeGroups.put(place.placeGroup, groupCopy);
+        }
+        copy.name = place.name;
+        copy.placeGroup = placeGroups.get(place.placeGroup);
+        copy.recLevelMin = place.recLevelMin;
+        copy.recLevelMax = place.recLevelMax;
+        copy.infoRing = informationColors.get(place.infoRing);
+        copy.flags = new TreeMap<>(place.flags);
+        copy.comments = place.comments;
+    }
+
+    /**
+     * Removes the paths and child connections of a copy from the copy and
+     * the connected copies
+     * @param copy
+     */
+    private static void clearConnections(Place copy){
+        for(Path path: copy.paths){
+            final Place other = path.getOtherPlace(copy);
+            if(other != copy) other.paths.remove(path);
+        }
+        copy.paths.clear();
+        for(Place child: copy.children) child.parents.remove(copy);
+        copy.children.clear();
+        for(Place parent: copy.parents) parent.children.remove(copy);
+        copy.parents.clear();
+    }
+
+    /**
+     * Gets the copy of a connected place. A place on a layer that hasn't
+     * been read is copied, the loader of the layer copy completes it
+     * @param place original place
+     * @return copy or null if the place isn't on a layer
+     */
+    private Place getCopy(Place place){
+        Place copy = copies.get(place);
+        if(copy != null || place.getLayer() == null || place.getLayer().isLoaded()) return copy;
+
+        final Layer layerCopy = layerCopies.get(place.getLayer());
+        if(layerCopy == null) return null;
+        if(layerCopy.isLoaded()){
+            // the copy of the layer was read after the last update
+            incomplete = true;
+            return null;
+        }
+        copy = new Place(place.getId(), place.getName(), place.getX(), place.getY(), layerCopy);
+        copies.put(place, copy);
+        originals.put(copy, place);
+        unloadedPlaces.put(place.getId(), copy);
+        return copy;
+    }
+
+    @Override
+    public void worldChanged(Object source) {
+        if(source instanceof Place){
+            final Layer layer = ((Place) source).getLayer();
+            if(layer != null) changedLayers.add(layer);
+            else changedAll = true;
+        } else if(source instanceof Layer){
+            changedLayers.add((Layer) source);
+        } else if(!(source instanceof World || source instanceof PlaceGroup
+                || source instanceof InformationColor)){
+            // unknown change
+            changedAll = true;
+        }
+    }
+
+}
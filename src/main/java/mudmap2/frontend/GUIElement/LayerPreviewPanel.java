@@ -17,50 +17,39 @@
 package mudmap2.frontend.GUIElement;
 
 import java.awt.Color;
-import mudmap2.frontend.GUIElement.WorldPanel.MapPainter;
-import mudmap2.frontend.GUIElement.WorldPanel.MapPainterDefault;
 import java.awt.Graphics;
+import java.awt.image.BufferedImage;
 import javax.swing.JPanel;
 import mudmap2.backend.Layer;
-import mudmap2.backend.WorldCoordinate;
 
 /**
- *
+ * Shows the thumbnail of a layer, it is taken from the thumbnail cache
  * @author neop
  */
 public class LayerPreviewPanel extends JPanel {
     private static final long serialVersionUID = 1L;
 
-    final static Integer MIN_TILE_SIZE = 20;
-
     Layer layer;
-    MapPainter mappainter;
+    LayerThumbnailCache thumbnails;
     Boolean marked;
 
-    public LayerPreviewPanel(Layer layer) {
+    public LayerPreviewPanel(Layer layer, LayerThumbnailCache thumbnails) {
         this.layer = layer;
-        mappainter = new MapPainterDefault();
-        ((MapPainterDefault) mappainter).setShowPaths(false);
-        ((MapPainterDefault) mappainter).setGridEnabled(false);
-        ((MapPainterDefault) mappainter).setCursorVisible(false);
-        ((MapPainterDefault) mappainter).setPlaceSelectionVisible(false);
+        this.thumbnails = thumbnails;
         marked = false;
     }
 
-    private WorldCoordinate getCenter(){
-        Integer tileCntX = layer.getXMax() - layer.getXMin() + 1;
-        Integer tileCntY = layer.getYMax() - layer.getYMin() + 1;
-        Double centerX = layer.getXMin() + (tileCntX / 2.0);
-        Double centerY = layer.getYMin() + (tileCntY / 2.0) - 1;
-
-        return new WorldCoordinate(layer.getId(), centerX, centerY);
+    public Layer getLayer() {
+        return layer;
     }
 
-    private int getTileSize(){
-        Integer tileCntX = layer.getXMax() - layer.getXMin() + 1;
-        Integer tileCntY = layer.getYMax() - layer.getYMin() + 1;
-
-        return Math.min(getWidth() / tileCntX, getHeight() / tileCntY);
+    /**
+     * Sets the layer to show, eg. when the panel is used as list cell
+     * renderer
+     * @param layer
+     */
+    public void setLayer(Layer layer) {
+        this.layer = layer;
     }
 
     public Boolean getMarked() {
@@ -70,15 +59,23 @@ public class LayerPreviewPanel extends JPanel {
     public void setMarked(Boolean marked) {
         this.marked = marked;
     }
-    
+
     @Override
     public void paintComponent(Graphics g){
+        super.paintComponent(g);
         if(marked){
-            ((MapPainterDefault) mappainter).setBackgroundColor(Color.lightGray);
-        } else {
-            ((MapPainterDefault) mappainter).setBackgroundColor(null);
+            g.setColor(Color.lightGray);
+            g.fillRect(0, 0, getWidth(), getHeight());
+        }
+
+        // only called for visible previews, the thumbnail is rendered on
+        // first use
+        BufferedImage image = thumbnails.get(layer, getWidth(), getHeight());
+        if(image != null){
+            // outdated images might have a different size until the new one
+            // is rendered
+            g.drawImage(image, 0, 0, getWidth(), getHeight(), null);
         }
-        mappainter.paint(g, getTileSize(), getWidth(), getHeight(), layer, getCenter());
     }
 
 }
@@ -0,0 +1,292 @@
+/*  MUD Map (v2) - A tool to create and organize maps for text-based games
+ *  Copyright (C) 2026  Neop (email: mneop@web.de)
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License along
+ *  with this program; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*  File description
+ *
+ *  Keeps rendered layer previews, renders them in the background when they
+ *  are shown for the first time or after their layer changed
+ */
+
+package mudmap2.frontend.GUIElement;
+
+import java.awt.Color;
+import java.awt.EventQueue;
+import java.awt.Graphics2D;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.Timer;
+import mudmap2.backend.Layer;
+import mudmap2.backend.LayerElement;
+import mudmap2.backend.LayerSnapshot;
+import mudmap2.backend.World;
+import mudmap2.backend.WorldChangeListener;
+import mudmap2.backend.WorldCoordinate;
+import mudmap2.frontend.GUIElement.WorldPanel.MapPainterDefault;
+
+/**
+ * Thumbnail images of the layers of a world. A thumbnail is rendered when it
+ * is requested for the first time, so only previews that are painted, ie.
+ * visible, are rendered. A world change marks the thumbnail of the changed
+ * layer as outdated, it is rendered again after no further change happened
+ * for the delay. Until then the outdated image is returned.
+ *
+ * The layer is copied on the event dispatch thread and drawn on a background
+ * thread. All methods have to be called on the event dispatch thread
+ * @author neop
+ */
+public class LayerThumbnailCache implements WorldChangeListener {
+
+    // time in ms without changes before an outdated thumbnail is rendered
+    public static final int DEFAULT_DELAY = 300;
+
+    // shared by all worlds, thumbnails are rendered one after another
+    static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "layer-thumbnails");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    final World world;
+    // layer id -> thumbnail
+    final HashMap<Integer, Entry> entries = new HashMap<>();
+    final HashSet<Listener> listeners = new HashSet<>();
+    int delay = DEFAULT_DELAY;
+
+    /**
+     * Constructs a thumbnail cache, worldChanged() has to be called on world
+     * changes
+     * @param world world of the layers
+     */
+    public LayerThumbnailCache(World world){
+        if(world == null) throw new NullPointerException();
+        this.world = world;
+    }
+
+    public int getDelay() {
+        return delay;
+    }
+
+    /**
+     * Sets the time without changes before an outdated thumbnail is rendered
+     * @param delay delay in ms
+     */
+    public void setDelay(int delay) {
+        this.delay = Math.max(0, delay);
+    }
+
+    /**
+     * Gets the thumbnail of a layer and starts rendering it if it doesn't
+     * exist, is outdated or has a different size
+     * @param layer layer
+     * @param width thumbnail width
+     * @param height thumbnail height
+     * @return thumbnail, maybe outdated or with a different size, or null if
+     * it wasn't rendered yet
+     */
+    public BufferedImage get(Layer layer, int width, int height){
+        Entry entry = entries.get(layer.getId());
+        if(entry == null) entries.put(layer.getId(), entry = new Entry(layer.getId()));
+
+        if(width > 0 && height > 0 && (entry.image == null || entry.outdated
+                || entry.image.getWidth() != width || entry.image.getHeight() != height)){
+            entry.width = width;
+            entry.height = height;
+            if(!entry.scheduled){
+                entry.scheduled = true;
+                // the first image is rendered at once, changes are debounced
+                entry.timer.setInitialDelay(entry.image == null ? 0 : delay);
+                entry.timer.start();
+            }
+        }
+        return entry.image;
+    }
+
+    /**
+     * Checks whether a thumbnail exists and is up to date
+     * @param layer
+     * @return true if the thumbnail is up to date
+     */
+    public boolean isValid(Layer layer){
+        Entry entry = entries.get(layer.getId());
+        return entry != null && entry.image != null && !entry.outdated;
+    }
+
+    /**
+     * Marks the thumbnail of a layer as outdated
+     * @param layer layer or null for all layers
+     */
+    public void invalidate(Layer layer){
+        if(layer == null){
+            for(Entry entry: entries.values()) entry.invalidate();
+        } else {
+            Entry entry = entries.get(layer.getId());
+            if(entry != null) entry.invalidate();
+        }
+    }
+
+    /**
+     * Adds a listener that is called when a thumbnail was rendered
+     * @param listener
+     */
+    public void addListener(Listener listener){
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener){
+        listeners.remove(listener);
+    }
+
+    @Override
+    public void worldChanged(Object source) {
+        if(source instanceof LayerElement){
+            invalidate(((LayerElement) source).getLayer());
+        } else if(source instanceof Layer){
+            invalidate((Layer) source);
+        } else {
+            // world settings like colors
+            invalidate(null);
+        }
+    }
+
+    /**
+     * Renders a thumbnail, the layer is scaled to fit into it
+     * @param layer layer to draw
+     * @param width thumbnail width
+     * @param height thumbnail height
+     * @return image with transparent background
+     */
+    public static BufferedImage render(Layer layer, int width, int height){
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setBackground(new Color(255, 255, 255, 0));
+
+        MapPainterDefault mappainter = new MapPainterDefault();
+        mappainter.setShowPaths(false);
+        mappainter.setGridEnabled(false);
+        mappainter.setCursorVisible(false);
+        mappainter.setPlaceSelectionVisible(false);
+
+        final int tileCntX = layer.getXMax() - layer.getXMin() + 1;
+        final int tileCntY = layer.getYMax() - layer.getYMin() + 1;
+        final int tileSize = Math.min(width / tileCntX, height / tileCntY);
+        final double centerX = layer.getXMin() + (tileCntX / 2.0);
+        final double centerY = layer.getYMin() + (tileCntY / 2.0) - 1;
+
+        mappainter.paint(graphics, tileSize, width, height, layer, new WorldCoordinate(layer.getId(), centerX, centerY));
+        graphics.dispose();
+        return image;
+    }
+
+    /**
+     * Called when a thumbnail was rendered
+     */
+    public interface Listener {
+        void thumbnailUpdated(Layer layer);
+    }
+
+    /**
+     * Thumbnail of a layer and its state
+     */
+    class Entry implements ActionListener {
+        final int layerId;
+        final Timer timer;
+        BufferedImage image = null;
+        // requested size
+        int width, height;
+        boolean outdated = false;
+        // rendering is pending
+        boolean scheduled = false;
+        // incremented on every change, to detect changes while rendering
+        int version = 0;
+
+        Entry(int layerId){
+            this.layerId = layerId;
+            timer = new Timer(0, this);
+            timer.setRepeats(false);
+        }
+
+        void invalidate(){
+            outdated = true;
+            ++version;
+            // postpone a pending render until the changes are finished
+            if(timer.isRunning()) timer.restart();
+        }
+
+        /**
+         * Copies the layer and renders it in the background
+         */
+        @Override
+        public void actionPerformed(ActionEvent e) {
+            final Layer layer = world.getLayer(layerId);
+            if(layer == null){
+                scheduled = false;
+                return;
+            }
+
+            final Layer snapshot = LayerSnapshot.create(layer);
+            final int renderVersion = version;
+            final int renderWidth = width, renderHeight = height;
+            EXECUTOR.submit(new Runnable() {
+                @Override
+                public void run() {
+                    BufferedImage rendered = null;
+                    try {
+                        rendered = render(snapshot, renderWidth, renderHeight);
+                    } catch (RuntimeException ex) {
+                        Logger.getLogger(LayerThumbnailCache.class.getName()).log(Level.SEVERE, null, ex);
+                        // show an empty thumbnail instead of trying again
+                        rendered = new BufferedImage(renderWidth, renderHeight, BufferedImage.TYPE_INT_ARGB);
+                    }
+                    final BufferedImage result = rendered;
+                    EventQueue.invokeLater(new Runnable() {
+                        @Override
+                        public void run() {
+                            finished(layer, result, renderVersion);
+                        }
+                    });
+                }
+            });
+        }
+
+        /**
+         * Stores a rendered thumbnail and notifies the listeners
+         * @param layer layer of the thumbnail
+         * @param result thumbnail
+         * @param renderVersion version of the layer that was rendered
+         */
+        void finished(Layer layer, BufferedImage result, int renderVersion){
+            scheduled = false;
+            image = result;
+            outdated = renderVersion != version;
+            for(Listener listener: listeners){
+                listener.thumbnailUpdated(layer);
+            }
+        }
+    }
+
+}
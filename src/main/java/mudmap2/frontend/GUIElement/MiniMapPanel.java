@@ -0,0 +1,249 @@
+/*  MUD Map (v2) - A tool to create and organize maps for text-based games
+ *  Copyright (C) 2026  Neop (email: mneop@web.de)
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License along
+ *  with this program; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*  File description
+ *
+ *  Overview of the whole layer that is shown in a world panel, with the
+ *  visible part marked. Clicking it moves the world panel
+ */
+
+package mudmap2.frontend.GUIElement;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import javax.swing.BorderFactory;
+import javax.swing.JPanel;
+import mudmap2.backend.Layer;
+import mudmap2.backend.LayerChangeListener;
+import mudmap2.backend.LayerElement;
+import mudmap2.backend.Place;
+import mudmap2.backend.PlaceGroup;
+import mudmap2.backend.World;
+import mudmap2.backend.WorldChangeListener;
+import mudmap2.backend.WorldCoordinate;
+import mudmap2.frontend.GUIElement.WorldPanel.ViewportListener;
+import mudmap2.frontend.GUIElement.WorldPanel.WorldPanel;
+
+/**
+ * Mini map of the current layer of a world panel. The places are kept in a
+ * MiniMapRaster that is updated place by place from layer change events, it
+ * is only drawn again from scratch when the layer or the world colors change.
+ * The raster is scaled to the panel size, the visible area of the world panel
+ * is drawn as a rectangle.
+ *
+ * Coordinates on the mini map are continuous place coordinates, place (x, y)
+ * covers [x, x + 1) x [y, y + 1)
+ * @author neop
+ */
+public class MiniMapPanel extends JPanel implements LayerChangeListener, WorldChangeListener, ViewportListener, MiniMapRaster.ColorSource {
+    private static final long serialVersionUID = 1L;
+
+    // maximum size of a place on the mini map in pixel
+    static final double MAX_PLACE_SIZE = 4;
+    // space around the map in pixel
+    static final int PADDING = 4;
+    static final Color VIEWPORT_COLOR = Color.RED;
+
+    final WorldPanel worldPanel;
+    final World world;
+    final MiniMapRaster raster = new MiniMapRaster();
+    // currently shown layer
+    Layer layer = null;
+
+    // mapping of the last paint, continuous place coordinates of the upper
+    // left corner and pixel per place
+    double regionX, regionY, regionScale = 0;
+    int offsetX, offsetY;
+
+    /**
+     * Constructs a mini map that follows a world panel
+     * @param worldPanel
+     */
+    public MiniMapPanel(final WorldPanel worldPanel){
+        this.worldPanel = worldPanel;
+        world = worldPanel.getWorld();
+
+        setPreferredSize(new Dimension(150, 150));
+        setMinimumSize(new Dimension(50, 50));
+        setBorder(BorderFactory.createLineBorder(Color.GRAY));
+
+        world.addChangeListener(this);
+        worldPanel.addViewportListener(this);
+        setLayer(world.getLayer(worldPanel.getPosition().getLayer()));
+
+        MouseAdapter mouseAdapter = new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                if(layer == null || regionScale <= 0) return;
+                // center the clicked place
+                worldPanel.pushPosition(new WorldCoordinate(layer.getId(),
+                        Math.floor(getPlaceX(e.getX())), Math.floor(getPlaceY(e.getY()))));
+                worldPanel.repaint();
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                if(layer == null || regionScale <= 0) return;
+                // move the view continuously without adding to the history
+                WorldCoordinate position = worldPanel.getPosition();
+                position.setX(getPlaceX(e.getX()));
+                position.setY(getPlaceY(e.getY()) - 1);
+                worldPanel.repaint();
+            }
+        };
+        addMouseListener(mouseAdapter);
+        addMouseMotionListener(mouseAdapter);
+    }
+
+    public Layer getLayer() {
+        return layer;
+    }
+
+    public MiniMapRaster getRaster() {
+        return raster;
+    }
+
+    /**
+     * Shows another layer, the raster is created from its places
+     * @param layer layer or null
+     */
+    public void setLayer(Layer layer){
+        if(this.layer != null) this.layer.removeLayerChangeListener(this);
+        this.layer = layer;
+        if(layer != null) layer.addLayerChangeListener(this);
+        raster.rebuild(layer, this);
+        repaint();
+    }
+
+    @Override
+    public int getColor(Place place){
+        PlaceGroup group = place.getPlaceGroup();
+        Color color = group != null && group.getColor() != null ? group.getColor() : world.getTileCenterColor();
+        return color != null ? color.getRGB() : Color.GRAY.getRGB();
+    }
+
+    @Override
+    public void elementAdded(Layer layer, LayerElement element) {
+        if(element instanceof Place){
+            raster.put(element, getColor((Place) element));
+            repaint();
+        }
+    }
+
+    @Override
+    public void elementRemoved(Layer layer, LayerElement element) {
+        raster.remove(element);
+        repaint();
+    }
+
+    @Override
+    public void worldChanged(Object source) {
+        if(source instanceof Place){
+            // eg. the place group changed
+            Place place = (Place) source;
+            if(place.getLayer() == layer){
+                raster.setColor(place, getColor(place));
+                repaint();
+            }
+        } else if(source instanceof World){
+            // colors changed
+            raster.rebuild(layer, this);
+            repaint();
+        } else if(source instanceof Layer && layer != null && world.getLayer(layer.getId()) != layer){
+            // layer was removed or replaced
+            setLayer(world.getLayer(worldPanel.getPosition().getLayer()));
+        }
+    }
+
+    @Override
+    public void viewportChanged(WorldPanel worldPanel) {
+        final Layer current = world.getLayer(worldPanel.getPosition().getLayer());
+        if(current != layer){
+            setLayer(current);
+        } else {
+            repaint();
+        }
+    }
+
+    /**
+     * Converts a mini map x coordinate to a place coordinate
+     * @param x pixel
+     * @return continuous place coordinate
+     */
+    double getPlaceX(int x){
+        return regionX + (x - offsetX) / regionScale;
+    }
+
+    /**
+     * Converts a mini map y coordinate to a place coordinate
+     * @param y pixel
+     * @return continuous place coordinate
+     */
+    double getPlaceY(int y){
+        return regionY - (y - offsetY) / regionScale;
+    }
+
+    @Override
+    public void paintComponent(Graphics g){
+        super.paintComponent(g);
+
+        final BufferedImage image = raster.getImage();
+        final int[] bounds = raster.getBounds();
+        if(image == null || bounds == null){
+            regionScale = 0;
+            return;
+        }
+
+        // fit the bounds of the places into the panel
+        final int regionWidth = bounds[2] - bounds[0] + 1;
+        final int regionHeight = bounds[3] - bounds[1] + 1;
+        final int width = getWidth() - 2 * PADDING;
+        final int height = getHeight() - 2 * PADDING;
+        if(width <= 0 || height <= 0) return;
+        regionScale = Math.min(MAX_PLACE_SIZE, Math.min((double) width / regionWidth, (double) height / regionHeight));
+        regionX = bounds[0];
+        regionY = bounds[3] + 1;
+        final int drawWidth = (int) Math.round(regionWidth * regionScale);
+        final int drawHeight = (int) Math.round(regionHeight * regionScale);
+        offsetX = PADDING + (width - drawWidth) / 2;
+        offsetY = PADDING + (height - drawHeight) / 2;
+
+        // bounds are aligned to the raster pixels
+        final int scale = raster.getScale();
+        final int sx = (bounds[0] - raster.getXMin()) / scale;
+        final int sy = (raster.getYMax() - bounds[3]) / scale;
+        g.drawImage(image, offsetX, offsetY, offsetX + drawWidth, offsetY + drawHeight,
+                sx, sy, sx + regionWidth / scale, sy + regionHeight / scale, null);
+
+        // visible area of the world panel
+        final WorldCoordinate position = worldPanel.getPosition();
+        final double tileSize = worldPanel.getTileSize();
+        final double halfWidth = worldPanel.getWidth() / tileSize / 2;
+        final double halfHeight = worldPanel.getHeight() / tileSize / 2;
+        final int x1 = (int) Math.round(offsetX + (position.getX() - halfWidth - regionX) * regionScale);
+        final int x2 = (int) Math.round(offsetX + (position.getX() + halfWidth - regionX) * regionScale);
+        final int y1 = (int) Math.round(offsetY + (regionY - (position.getY() + 1 + halfHeight)) * regionScale);
+        final int y2 = (int) Math.round(offsetY + (regionY - (position.getY() + 1 - halfHeight)) * regionScale);
+        g.setColor(VIEWPORT_COLOR);
+        g.drawRect(x1, y1, Math.max(1, x2 - x1), Math.max(1, y2 - y1));
+    }
+
+}
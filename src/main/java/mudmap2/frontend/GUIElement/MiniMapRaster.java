@@ -0,0 +1,376 @@
+/*  MUD Map (v2) - A tool to create and organize maps for text-based games
+ *  Copyright (C) 2026  Neop (email: mneop@web.de)
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License along
+ *  with this program; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*  File description
+ *
+ *  Downsampled image of a layer with one pixel per place or per square of
+ *  places, updated place by place
+ */
+
+package mudmap2.frontend.GUIElement;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.HashMap;
+import mudmap2.backend.Layer;
+import mudmap2.backend.LayerElement;
+import mudmap2.backend.Place;
+
+/**
+ * A raster image of the places of a layer. Each pixel covers a square of
+ * scale x scale places, scale is a power of two. The number of places per
+ * pixel is counted, so adding, removing and moving a place only changes a
+ * single pixel.
+ *
+ * The raster grows with a margin when a place is added outside of it, so
+ * growing is rare. If it would get larger than MAX_SIZE the scale is doubled
+ * and the raster is created again from the known places.
+ *
+ * Pixel columns increase with x, pixel rows increase with decreasing y, like
+ * on the map
+ * @author neop
+ */
+public class MiniMapRaster {
+
+    // maximum width and height in pixel
+    public static final int MAX_SIZE = 512;
+    // initial width and height in pixel
+    static final int INITIAL_SIZE = 32;
+
+    // places per pixel in each direction
+    int scale = 1;
+    // cell coordinates of the upper left pixel, a cell is a square of
+    // scale x scale places
+    int cellXMin = 0, cellYMax = 0;
+    int width = 0, height = 0;
+    // number of places per pixel
+    int[] counts = new int[0];
+    BufferedImage image = null;
+    int[] pixels = new int[0];
+
+    // cell bounds of the added places, they are only extended on add
+    int boundsXMin, boundsXMax, boundsYMin, boundsYMax;
+
+    // added elements -> position and color
+    final HashMap<LayerElement, Entry> entries = new HashMap<>();
+
+    /**
+     * Removes all places and resets the scale
+     */
+    public void clear(){
+        entries.clear();
+        scale = 1;
+        width = height = 0;
+        counts = new int[0];
+        pixels = new int[0];
+        image = null;
+    }
+
+    /**
+     * Removes all places and adds the places of a layer
+     * @param layer layer or null
+     * @param colors color of each place
+     */
+    public void rebuild(Layer layer, ColorSource colors){
+        clear();
+        if(layer == null) return;
+        for(Place place: layer.getPlaces()){
+            put(place, colors.getColor(place));
+        }
+    }
+
+    /**
+     * Adds an element or moves it to its current position
+     * @param element element
+     * @param argb pixel color
+     */
+    public void put(LayerElement element, int argb){
+        Entry entry = entries.get(element);
+        if(entry != null){
+            if(entry.x == element.getX() && entry.y == element.getY()){
+                setColor(entry, argb);
+                return;
+            }
+            remove(element);
+        }
+
+        entry = new Entry(element.getX(), element.getY(), argb);
+        entries.put(element, entry);
+        final int cellX = Math.floorDiv(entry.x, scale);
+        final int cellY = Math.floorDiv(entry.y, scale);
+        if(image == null || !isInside(cellX, cellY)){
+            grow(entry);
+        } else {
+            draw(entry, 1);
+        }
+    }
+
+    /**
+     * Removes an element, unknown elements are ignored
+     * @param element element
+     */
+    public void remove(LayerElement element){
+        Entry entry = entries.remove(element);
+        if(entry != null) draw(entry, -1);
+    }
+
+    /**
+     * Changes the color of an element, unknown elements are ignored
+     * @param element element
+     * @param argb pixel color
+     */
+    public void setColor(LayerElement element, int argb){
+        Entry entry = entries.get(element);
+        if(entry != null) setColor(entry, argb);
+    }
+
+    /**
+     * Gets the number of places
+     * @return
+     */
+    public int getPlaceCount(){
+        return entries.size();
+    }
+
+    /**
+     * Gets the number of places that are drawn to a pixel
+     * @param x place x coordinate
+     * @param y place y coordinate
+     * @return number of places in the square of the pixel
+     */
+    public int getCount(int x, int y){
+        final int cellX = Math.floorDiv(x, scale);
+        final int cellY = Math.floorDiv(y, scale);
+        if(image == null || !isInside(cellX, cellY)) return 0;
+        return counts[getIndex(cellX, cellY)];
+    }
+
+    /**
+     * Gets the color of the pixel that covers a place
+     * @param x place x coordinate
+     * @param y place y coordinate
+     * @return argb color, 0 if there is no place
+     */
+    public int getPixel(int x, int y){
+        final int cellX = Math.floorDiv(x, scale);
+        final int cellY = Math.floorDiv(y, scale);
+        if(image == null || !isInside(cellX, cellY)) return 0;
+        return pixels[getIndex(cellX, cellY)];
+    }
+
+    /**
+     * Gets the image, it is changed by later updates
+     * @return image or null if no place was added
+     */
+    public BufferedImage getImage() {
+        return image;
+    }
+
+    public int getScale() {
+        return scale;
+    }
+
+    /**
+     * Gets the x coordinate of the left edge of the image in places
+     * @return
+     */
+    public int getXMin(){
+        return cellXMin * scale;
+    }
+
+    /**
+     * Gets the y coordinate of the top edge of the image in places, the
+     * place at that coordinate is in the first pixel row
+     * @return
+     */
+    public int getYMax(){
+        return (cellYMax + 1) * scale - 1;
+    }
+
+    /**
+     * Gets the bounds of the places in place coordinates. Since they aren't
+     * reduced when places are removed they may be too large
+     * @return {xMin, yMin, xMax, yMax} or null if there are no places
+     */
+    public int[] getBounds(){
+        if(image == null) return null;
+        return new int[]{boundsXMin * scale, boundsYMin * scale,
+            (boundsXMax + 1) * scale - 1, (boundsYMax + 1) * scale - 1};
+    }
+
+    private boolean isInside(int cellX, int cellY){
+        return cellX >= cellXMin && cellX < cellXMin + width
+                && cellY <= cellYMax && cellY > cellYMax - height;
+    }
+
+    private int getIndex(int cellX, int cellY){
+        return (cellYMax - cellY) * width + cellX - cellXMin;
+    }
+
+    private void setColor(Entry entry, int argb){
+        entry.color = argb;
+        final int index = getIndex(Math.floorDiv(entry.x, scale), Math.floorDiv(entry.y, scale));
+        pixels[index] = argb;
+    }
+
+    /**
+     * Adds or subtracts a place from its pixel, the pixel has to be inside
+     * of the raster
+     * @param entry place
+     * @param count 1 to add, -1 to remove
+     */
+    private void draw(Entry entry, int count){
+        final int cellX = Math.floorDiv(entry.x, scale);
+        final int cellY = Math.floorDiv(entry.y, scale);
+        final int index = getIndex(cellX, cellY);
+        counts[index] += count;
+        if(count > 0){
+            pixels[index] = entry.color;
+            boundsXMin = Math.min(boundsXMin, cellX);
+            boundsXMax = Math.max(boundsXMax, cellX);
+            boundsYMin = Math.min(boundsYMin, cellY);
+            boundsYMax = Math.max(boundsYMax, cellY);
+        } else if(counts[index] == 0){
+            pixels[index] = 0;
+        }
+    }
+
+    /**
+     * Creates a raster that includes the current one and a new place, then
+     * draws the place. The raster is at least twice as large in the direction
+     * that grows, if it would exceed MAX_SIZE the scale is increased instead
+     * @param entry new place, already in entries
+     */
+    private void grow(Entry entry){
+        final int cellX = Math.floorDiv(entry.x, scale);
+        final int cellY = Math.floorDiv(entry.y, scale);
+        int xMin, xMax, yMin, yMax;
+        if(image == null){
+            xMin = cellX - INITIAL_SIZE / 2;
+            xMax = xMin + INITIAL_SIZE - 1;
+            yMax = cellY + INITIAL_SIZE / 2;
+            yMin = yMax - INITIAL_SIZE + 1;
+        } else {
+            xMin = cellXMin;
+            xMax = cellXMin + width - 1;
+            yMax = cellYMax;
+            yMin = cellYMax - height + 1;
+            if(cellX < xMin) xMin = Math.min(cellX, xMin - width);
+            if(cellX > xMax) xMax = Math.max(cellX, xMax + width);
+            if(cellY < yMin) yMin = Math.min(cellY, yMin - height);
+            if(cellY > yMax) yMax = Math.max(cellY, yMax + height);
+        }
+
+        if((long) xMax - xMin + 1 > MAX_SIZE || (long) yMax - yMin + 1 > MAX_SIZE){
+            rescale();
+            return;
+        }
+
+        final int widthNew = xMax - xMin + 1;
+        final int heightNew = yMax - yMin + 1;
+        final int[] countsNew = new int[widthNew * heightNew];
+        final BufferedImage imageNew = new BufferedImage(widthNew, heightNew, BufferedImage.TYPE_INT_ARGB);
+        final int[] pixelsNew = ((DataBufferInt) imageNew.getRaster().getDataBuffer()).getData();
+
+        if(image == null){
+            boundsXMin = boundsXMax = cellX;
+            boundsYMin = boundsYMax = cellY;
+        } else {
+            // copy the old raster row by row
+            final int offsetX = cellXMin - xMin;
+            for(int row = 0; row < height; ++row){
+                final int rowNew = yMax - (cellYMax - row);
+                System.arraycopy(counts, row * width, countsNew, rowNew * widthNew + offsetX, width);
+                System.arraycopy(pixels, row * width, pixelsNew, rowNew * widthNew + offsetX, width);
+            }
+        }
+
+        cellXMin = xMin;
+        cellYMax = yMax;
+        width = widthNew;
+        height = heightNew;
+        counts = countsNew;
+        pixels = pixelsNew;
+        image = imageNew;
+
+        draw(entry, 1);
+    }
+
+    /**
+     * Doubles the scale until all places fit into MAX_SIZE and draws the
+     * raster again
+     */
+    private void rescale(){
+        int xMin = Integer.MAX_VALUE, xMax = Integer.MIN_VALUE;
+        int yMin = Integer.MAX_VALUE, yMax = Integer.MIN_VALUE;
+        for(Entry entry: entries.values()){
+            xMin = Math.min(xMin, entry.x);
+            xMax = Math.max(xMax, entry.x);
+            yMin = Math.min(yMin, entry.y);
+            yMax = Math.max(yMax, entry.y);
+        }
+
+        // use half of the maximum size to leave room to grow
+        int scaleNew = scale;
+        while((long) Math.floorDiv(xMax, scaleNew) - Math.floorDiv(xMin, scaleNew) + 1 > MAX_SIZE / 2
+                || (long) Math.floorDiv(yMax, scaleNew) - Math.floorDiv(yMin, scaleNew) + 1 > MAX_SIZE / 2){
+            scaleNew *= 2;
+        }
+
+        scale = scaleNew;
+        final int cellXMinNew = Math.floorDiv(xMin, scale);
+        final int cellXMaxNew = Math.floorDiv(xMax, scale);
+        final int cellYMinNew = Math.floorDiv(yMin, scale);
+        final int cellYMaxNew = Math.floorDiv(yMax, scale);
+        final int margin = Math.max(cellXMaxNew - cellXMinNew, cellYMaxNew - cellYMinNew) / 2 + 1;
+        width = Math.min(MAX_SIZE, cellXMaxNew - cellXMinNew + 1 + 2 * margin);
+        height = Math.min(MAX_SIZE, cellYMaxNew - cellYMinNew + 1 + 2 * margin);
+        cellXMin = cellXMinNew - (width - (cellXMaxNew - cellXMinNew + 1)) / 2;
+        cellYMax = cellYMaxNew + (height - (cellYMaxNew - cellYMinNew + 1)) / 2;
+
+        counts = new int[width * height];
+        image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        boundsXMin = boundsXMax = cellXMinNew;
+        boundsYMin = boundsYMax = cellYMinNew;
+        for(Entry e: entries.values()){
+            draw(e, 1);
+        }
+    }
+
+    /**
+     * Provides the pixel color of a place
+     */
+    public interface ColorSource {
+        int getColor(Place place);
+    }
+
+    /**
+     * Position and color of an added element
+     */
+    static class Entry {
+        final int x, y;
+        int color;
+
+        Entry(int x, int y, int color){
+            this.x = x;
+            this.y = y;
+            this.color = color;
+        }
+    }
+
+}
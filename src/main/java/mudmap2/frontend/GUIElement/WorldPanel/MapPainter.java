@@ -16,6 +16,11 @@ import mudmap2.backend.WorldCoordinate;
  * @author Neop
  */
 public interface MapPainter {
+
+    public enum RenderQuality {
+        INTERACTIVE, //< fills and straight paths only, eg. while navigating
+        FULL         //< text, curves, gradients and antialiasing
+    }
     
     /**
      * Sets a place group
@@ -48,4 +53,10 @@ public interface MapPainter {
      * @param cur_pos 
      */
     public void paint(Graphics g, int tile_size, double graphics_width, double graphics_height, Layer layer, WorldCoordinate cur_pos);
+
+    /**
+     * Sets the quality of the following frames
+     * @param quality
+     */
+    public void setRenderQuality(RenderQuality quality);
 }
@@ -23,9 +23,10 @@ import java.awt.FontMetrics;
 import java.awt.GradientPaint;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
 import java.awt.RenderingHints;
 import java.awt.font.TextAttribute;
-import java.awt.geom.CubicCurve2D;
+import java.awt.geom.Path2D;
 import java.awt.image.BufferedImage;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -33,10 +34,10 @@ import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import mudmap2.utils.Pair;
 import mudmap2.backend.Layer;
 import mudmap2.backend.Path;
+import mudmap2.backend.PathSegmentIndex;
 import mudmap2.backend.Place;
 import mudmap2.backend.WorldCoordinate;
 
@@ -55,6 +56,9 @@ public class MapPainterDefault implements MapPainter {
     static final int TILE_BORDER_WIDTH = 10;
     static final int EXIT_RADIUS = 5;
 
+    // additional tiles around the screen to search for visible paths
+    static final int PATH_CULLING_MARGIN = 2;
+
     static final String STR_INFO_COMMENT = "C: ";
     static final String STR_INFO_MAP_LINK = "Map: ";
     static final String STR_INFO_LEVEL = "lvl: ";
@@ -82,6 +86,29 @@ public class MapPainterDefault implements MapPainter {
     Boolean showPlaceCursor = true;
     Boolean showPlaceSelection = true;
 
+    RenderQuality renderQuality = RenderQuality.FULL;
+
+    // path geometry is collected per color and stroked once per frame
+    final HashMap<Color, Path2D.Double> pathShapes = new HashMap<>();
+    // paths with different exit colors, drawn after the single colored paths
+    final ArrayList<GradientSegment> gradientSegments = new ArrayList<>();
+    int gradientSegmentCount = 0;
+    final Path2D.Double gradientShape = new Path2D.Double();
+    // visible paths of the current frame
+    final ArrayList<PathSegmentIndex.Segment> visibleSegments = new ArrayList<>();
+
+    // scratch objects for the exit and control point calculation
+    final int[] exitOffsetScratch = new int[2];
+    final int[] exitOffsetOtherScratch = new int[2];
+    final double[] exitNormalScratch = new double[2];
+    final double[] exitNormalOtherScratch = new double[2];
+
+    // wrapped tile text and string widths of previous frames
+    final TextLayoutCache textLayoutCache = new TextLayoutCache();
+    // font for the exits string, derived from tileFont
+    Font exitsFont = null;
+    Font exitsFontBase = null;
+
     public MapPainterDefault() {}
 
     @Override
@@ -146,6 +173,15 @@ public class MapPainterDefault implements MapPainter {
      * @return area border width
      */
     private int getTileBorderWidth(){
+        return getTileBorderWidth(tileSize);
+    }
+
+    /**
+     * Gets the tile border area size
+     * @param tileSize tile size in pixel
+     * @return area border width
+     */
+    public static int getTileBorderWidth(int tileSize){
         // with interpolation for smooth transition
         return (int) Math.round(TILE_BORDER_WIDTH * Math.min(1.0, Math.max(0.5, (double) (tileSize - 20) / 80)));
     }
@@ -155,6 +191,15 @@ public class MapPainterDefault implements MapPainter {
      * @return
      */
     private int getExitCircleRadius(){
+        return getExitCircleRadius(tileSize);
+    }
+
+    /**
+     * Gets the radius of the exit circles / dots
+     * @param tileSize tile size in pixel
+     * @return
+     */
+    public static int getExitCircleRadius(int tileSize){
         return (int) Math.round(EXIT_RADIUS * Math.min(1.0, Math.max(0.5, (double) (tileSize - 20) / 80)));
     }
 
@@ -171,6 +216,15 @@ public class MapPainterDefault implements MapPainter {
      * @return
      */
     private float getInformationColorStrokeWidth(){
+        return getInformationColorStrokeWidth(tileSize);
+    }
+
+    /**
+     * Gets the stroke width of the information color border
+     * @param tileSize tile size in pixel
+     * @return
+     */
+    public static float getInformationColorStrokeWidth(int tileSize){
         return TILE_INFOCOL_STROKE_WIDTH * (float) (1.0 + tileSize / 200.0);
     }
 
@@ -179,6 +233,15 @@ public class MapPainterDefault implements MapPainter {
      * @return
      */
     private float getPathStrokeWidth(){
+        return getPathStrokeWidth(tileSize);
+    }
+
+    /**
+     * Gets the path stroke width
+     * @param tileSize tile size in pixel
+     * @return
+     */
+    public static float getPathStrokeWidth(int tileSize){
         return PATH_STROKE_WIDTH * (float) (1.0 + tileSize / 200.0);
     }
 
@@ -210,6 +273,15 @@ public class MapPainterDefault implements MapPainter {
         this.showPathsCurved = showPathsCurved;
     }
 
+    public RenderQuality getRenderQuality() {
+        return renderQuality;
+    }
+
+    @Override
+    public void setRenderQuality(RenderQuality quality) {
+        renderQuality = quality;
+    }
+
     public Color getBackgroundColor() {
         return backgroundColor;
     }
@@ -222,52 +294,53 @@ public class MapPainterDefault implements MapPainter {
      * Calculates the offset of the exit visualization (dot/circle) to the
      * upper left corner of a tile
      * @param dir eit direction
+     * @param tileSize tile size in pixel
      * @param tileBorderWidthScaled border width
-     * @return false if the dot/circle doesn't have to be drawn
+     * @param ret x and y offset will be written to this array
+     * @return ret
      */
-    private Pair<Integer, Integer> getExitOffset(String dir, int tileBorderWidthScaled){
-        Pair<Integer, Integer> ret = new Pair<>(0, 0);
+    public static int[] getExitOffset(String dir, int tileSize, int tileBorderWidthScaled, int[] ret){
         switch (dir) {
             case "n":
                 // north
-                ret.first = tileSize / 2;
-                ret.second = tileBorderWidthScaled;
+                ret[0] = tileSize / 2;
+                ret[1] = tileBorderWidthScaled;
                 break;
             case "e":
                 // east
-                ret.first = tileSize - tileBorderWidthScaled;
-                ret.second = tileSize / 2;
+                ret[0] = tileSize - tileBorderWidthScaled;
+                ret[1] = tileSize / 2;
                 break;
             case "s":
                 // south
-                ret.first = tileSize / 2;
-                ret.second = tileSize - tileBorderWidthScaled;
+                ret[0] = tileSize / 2;
+                ret[1] = tileSize - tileBorderWidthScaled;
                 break;
             case "w":
                 // west
-                ret.first = tileBorderWidthScaled;
-                ret.second = tileSize / 2;
+                ret[0] = tileBorderWidthScaled;
+                ret[1] = tileSize / 2;
                 break;
             case "ne":
                 // north-east
-                ret.first = tileSize - tileBorderWidthScaled;
-                ret.second = tileBorderWidthScaled;
+                ret[0] = tileSize - tileBorderWidthScaled;
+                ret[1] = tileBorderWidthScaled;
                 break;
             case "se":
                 // south-east
-                ret.first = ret.second = tileSize - tileBorderWidthScaled;
+                ret[0] = ret[1] = tileSize - tileBorderWidthScaled;
                 break;
             case "nw":
                 // north-west
-                ret.first = ret.second = tileBorderWidthScaled;
+                ret[0] = ret[1] = tileBorderWidthScaled;
                 break;
             case "sw":
                 // south-west
-                ret.first = tileBorderWidthScaled;
-                ret.second = tileSize - tileBorderWidthScaled;
+                ret[0] = tileBorderWidthScaled;
+                ret[1] = tileSize - tileBorderWidthScaled;
                 break;
             default:
-                ret.first = ret.second = tileSize / 2;
+                ret[0] = ret[1] = tileSize / 2;
                 break;
         }
         return ret;
@@ -276,53 +349,185 @@ public class MapPainterDefault implements MapPainter {
     /**
     * Gets the normal vector of an exit
     * @param dir exit direction
-    * @return normal vector
+    * @param ret normal vector will be written to this array
+    * @return ret
     */
-    private Pair<Double, Double> getExitNormal(String dir){
-        Pair<Double, Double> ret = new Pair<>(0.0, 0.0);
+    public static double[] getExitNormal(String dir, double[] ret){
+        ret[0] = ret[1] = 0.0;
         switch (dir) {
             case "n":
-                ret.first = 0.0;
-                ret.second = 1.0;
+                ret[0] = 0.0;
+                ret[1] = 1.0;
                 break;
             case "e":
-                ret.first = 1.0;
-                ret.second = 0.0;
+                ret[0] = 1.0;
+                ret[1] = 0.0;
                 break;
             case "s":
-                ret.first = 0.0;
-                ret.second = -1.0;
+                ret[0] = 0.0;
+                ret[1] = -1.0;
                 break;
             case "w":
-                ret.first = -1.0;
-                ret.second = 0.0;
+                ret[0] = -1.0;
+                ret[1] = 0.0;
                 break;
             case "ne":
-                ret.first = 1.0;
-                ret.second = 1.0;
+                ret[0] = 1.0;
+                ret[1] = 1.0;
                 break;
             case "se":
-                ret.first = 1.0;
-                ret.second = -1.0;
+                ret[0] = 1.0;
+                ret[1] = -1.0;
                 break;
             case "nw":
-                ret.first = -1.0;
-                ret.second = 1.0;
+                ret[0] = -1.0;
+                ret[1] = 1.0;
                 break;
             case "sw":
-                ret.first = -1.0;
-                ret.second = -1.0;
+                ret[0] = -1.0;
+                ret[1] = -1.0;
                 break;
         }
         // normalize it
-        if(ret.first != 0.0 && ret.second != 0.0){
-            double length = Math.sqrt(ret.first * ret.first + ret.second * ret.second);
-            ret.first /= length;
-            ret.second /= length;
+        if(ret[0] != 0.0 && ret[1] != 0.0){
+            double length = Math.sqrt(ret[0] * ret[0] + ret[1] * ret[1]);
+            ret[0] /= length;
+            ret[1] /= length;
         }
         return ret;
     }
 
+    /**
+     * Checks whether a path is drawn as curve. Short paths are drawn as
+     * straight lines since their curves would be distorted
+     * @param exit1x first exit position in pixel
+     * @param exit1y first exit position in pixel
+     * @param exit2x second exit position in pixel
+     * @param exit2y second exit position in pixel
+     * @param tileSize tile size in pixel
+     * @return true if the exits are far enough apart for a curve
+     */
+    public static boolean isCurveDrawable(double exit1x, double exit1y, double exit2x, double exit2y, int tileSize){
+        double dx = exit2x - exit1x;
+        double dy = exit2y - exit1y;
+        return Math.sqrt(dx * dx + dy * dy) >= 1.5 * tileSize;
+    }
+
+    /**
+     * Gets the shape that collects all paths of a color in the current frame
+     * @param color path color
+     * @return path shape
+     */
+    private Path2D.Double getPathShape(Color color){
+        Path2D.Double shape = pathShapes.get(color);
+        if(shape == null){
+            shape = new Path2D.Double();
+            pathShapes.put(color, shape);
+        }
+        return shape;
+    }
+
+    /**
+     * Gets an unused gradient segment, segments are reused between frames
+     * @return gradient segment
+     */
+    private GradientSegment getGradientSegment(){
+        if(gradientSegmentCount == gradientSegments.size()){
+            gradientSegments.add(new GradientSegment());
+        }
+        return gradientSegments.get(gradientSegmentCount++);
+    }
+
+    /**
+     * Clears the path geometry of the previous frame
+     */
+    private void resetPathGeometry(){
+        for(Path2D.Double shape: pathShapes.values()){
+            shape.reset();
+        }
+        gradientSegmentCount = 0;
+    }
+
+    /**
+     * Adds a path to the path geometry of the current frame
+     * @param layer layer
+     * @param path path
+     * @param placeXpx screen position of the first place of the path
+     * @param placeYpx screen position of the first place of the path
+     * @param tileBorderWidthScaled border width
+     */
+    private void addPathGeometry(Layer layer, Path path, int placeXpx, int placeYpx, int tileBorderWidthScaled){
+        final Place place = path.getPlaces()[0];
+        final Place otherPlace = path.getPlaces()[1];
+
+        final Color colorPlace1 = layer.getWorld().getPathColor(path.getExitDirections()[0]);
+        final Color colorPlace2 = layer.getWorld().getPathColor(path.getExitDirections()[1]);
+
+        int[] exitOffset = getExitOffset(path.getExitDirections()[0], tileSize, tileBorderWidthScaled, exitOffsetScratch);
+        int[] exitOffsetOther = getExitOffset(path.getExitDirections()[1], tileSize, tileBorderWidthScaled, exitOffsetOtherScratch);
+
+        final boolean fullQuality = renderQuality == RenderQuality.FULL;
+        boolean drawCurves = getPathsCurved() && fullQuality;
+
+        // exit positions on the map
+        final double exit1x = placeXpx + exitOffset[0];
+        final double exit1y = placeYpx + exitOffset[1];
+        final double exit2x = placeXpx + (otherPlace.getX() - place.getX()) * tileSize + exitOffsetOther[0];
+        final double exit2y = placeYpx - (otherPlace.getY() - place.getY()) * tileSize + exitOffsetOther[1];
+
+        if(drawCurves){
+            drawCurves = isCurveDrawable(exit1x, exit1y, exit2x, exit2y, tileSize);
+        }
+
+        double ctrl1x = 0, ctrl1y = 0, ctrl2x = 0, ctrl2y = 0;
+        if(drawCurves){
+            double[] normal1 = getExitNormal(path.getExitDirections()[0], exitNormalScratch);
+            double[] normal2 = getExitNormal(path.getExitDirections()[1], exitNormalOtherScratch);
+
+            ctrl1x = exit1x + normal1[0] * tileSize;
+            ctrl1y = exit1y - normal1[1] * tileSize;
+            ctrl2x = exit2x + normal2[0] * tileSize;
+            ctrl2y = exit2y - normal2[1] * tileSize;
+        }
+
+        if(colorPlace1.equals(colorPlace2) || !fullQuality){ // same color
+            Path2D.Double shape = getPathShape(colorPlace1);
+            if(drawCurves){
+                shape.moveTo(exit1x, exit1y);
+                shape.curveTo(ctrl1x, ctrl1y, ctrl2x, ctrl2y, exit2x, exit2y);
+            } else {
+                shape.moveTo((int) exit1x, (int) exit1y);
+                shape.lineTo((int) exit2x, (int) exit2y);
+            }
+        } else { // draw gradient
+            getGradientSegment().set(exit1x, exit1y, ctrl1x, ctrl1y, ctrl2x, ctrl2y,
+                    exit2x, exit2y, drawCurves, colorPlace1, colorPlace2);
+        }
+    }
+
+    /**
+     * Strokes the collected path geometry: one draw call per color and one
+     * per path with a color gradient
+     * @param g graphics to draw on
+     */
+    private void drawPathGeometry(Graphics2D g){
+        for(Map.Entry<Color, Path2D.Double> entry: pathShapes.entrySet()){
+            if(entry.getValue().getCurrentPoint() != null){
+                g.setPaint(entry.getKey());
+                g.draw(entry.getValue());
+            }
+        }
+
+        for(int i = 0; i < gradientSegmentCount; ++i){
+            GradientSegment segment = gradientSegments.get(i);
+            gradientShape.reset();
+            segment.appendTo(gradientShape);
+            g.setPaint(new GradientPaint((float) segment.x1, (float) segment.y1, segment.color1,
+                                         (float) segment.x2, (float) segment.y2, segment.color2));
+            g.draw(gradientShape);
+        }
+    }
+
     /**
      * fits the string to max_width in px, cuts it at whitespaces if possible
      * @param str string to be fitted
@@ -331,7 +536,7 @@ public class MapPainterDefault implements MapPainter {
      * @param maxLines maximum number of lines
      * @return a list of strings
      */
-    private LinkedList<String> fitLineLength(String str, FontMetrics fm, int maxLength, int maxLines){
+    public static LinkedList<String> fitLineLength(String str, FontMetrics fm, int maxLength, int maxLines){
         LinkedList<String> ret;
 
         if(maxLines == 0) return new LinkedList<>();
@@ -369,6 +574,49 @@ public class MapPainterDefault implements MapPainter {
         return ret;
     }
 
+    /**
+     * Gets the fitted lines of a string from the text layout cache, see
+     * fitLineLength
+     * @param str string to be fitted
+     * @param fm fontmetrics
+     * @param maxLength maximum length of the string in pixel
+     * @param maxLines maximum number of lines
+     * @return a list of strings, must not be modified
+     */
+    private List<String> getFittedLines(String str, FontMetrics fm, int maxLength, int maxLines){
+        List<String> ret = textLayoutCache.getLines(str, fm, maxLength, maxLines);
+        if(ret == null){
+            ret = fitLineLength(str, fm, maxLength, maxLines);
+            textLayoutCache.putLines(str, fm, maxLength, maxLines, ret);
+        }
+        return ret;
+    }
+
+    /**
+     * Gets the font for the exits string
+     * @param orig tile font
+     * @return derived font
+     */
+    private Font getExitsFont(Font orig){
+        if(exitsFont == null || !orig.equals(exitsFontBase)){
+            // derive font: increase font size and decrease character spacing
+            Map<TextAttribute, Object> attributes = new HashMap<>();
+            attributes.put(TextAttribute.SIZE, 17);
+            attributes.put(TextAttribute.TRACKING, 0.0);
+            exitsFont = orig.deriveFont(attributes);
+            exitsFontBase = orig;
+        }
+        return exitsFont;
+    }
+
+    /**
+     * Gets the text layout cache
+     * @return
+     */
+    TextLayoutCache getTextLayoutCache(){
+        return textLayoutCache;
+    }
+
     /**
      * Draw place tile text
      *
@@ -380,8 +628,9 @@ public class MapPainterDefault implements MapPainter {
      * @param top text for the top part
      * @param flags flags line
      * @param exits exits line
+     * @param place place of the tile
      */
-    private void drawText(Graphics g, int x, int y, int width, int height, List<String> top, String flags, String exits){
+    private void drawText(Graphics g, int x, int y, int width, int height, List<String> top, String flags, String exits, Place place){
         FontMetrics fm = g.getFontMetrics();
 
         final int lineHeight = fm.getMaxAscent();
@@ -391,10 +640,9 @@ public class MapPainterDefault implements MapPainter {
         final int topLines = maxLines - ((!flags.isEmpty() || !exits.isEmpty()) && maxLines > 1 ? 1 : 0);
 
         // reformat lines
-        LinkedList<String> linesTop = new LinkedList<>();
+        ArrayList<String> linesTop = new ArrayList<>();
         for(String topText: top){
-            LinkedList<String> fitLineLength = fitLineLength(topText, fm, width, topLines);
-            linesTop.addAll(fitLineLength);
+            linesTop.addAll(getFittedLines(topText, fm, width, topLines));
             if(linesTop.size() >= topLines) break;
         }
 
@@ -404,22 +652,18 @@ public class MapPainterDefault implements MapPainter {
         }
 
         if(maxLines > 1){
-            if(fm.stringWidth(flags + exits) < width){
+            if(textLayoutCache.stringWidth(flags + exits, fm) < width){
                 // draw flags
                 g.drawString(flags, x, y + height - fm.getDescent());
             }
 
             // change font for exits
             Font orig = g.getFont();
-            // derive font: increase font size and decrease character spacing
-            Map<TextAttribute, Object> attributes = new HashMap<>();
-            attributes.put(TextAttribute.SIZE, 17);
-            attributes.put(TextAttribute.TRACKING, 0.0);
-            g.setFont(orig.deriveFont(attributes));
+            g.setFont(getExitsFont(orig));
 
             FontMetrics fm2 = g.getFontMetrics();
 
-            int exitsWidth = fm2.stringWidth(exits);
+            int exitsWidth = textLayoutCache.stringWidth(exits, fm2);
 
             // draw exit string
             g.drawString(exits, x + width - exitsWidth, y + height - fm2.getDescent());
@@ -428,44 +672,6 @@ public class MapPainterDefault implements MapPainter {
         }
     }
 
-    /**
-     * Converts world coordinates to screen coordinates
-     * @param placeX a world (place) coordinate (x axis)
-     * @return a screen coordinate x
-     */
-    private int getScreenPosX(int placeX){
-        double screenCenterX = (graphicsWidth / tileSize) / 2; // note: wdtwd2
-        int placeXOffset = (int) (Math.round(curPos.getX()) - Math.round(screenCenterX));
-        return (int)((placeX - placeXOffset + remint(screenCenterX) - remint(curPos.getX())) * tileSize);
-    }
-
-    /**
-     * Converts world coordinates to screen coordinates
-     * @param placeY a world (place) coordinate (y axis)
-     * @return a screen coordinate y
-     */
-    private int getScreenPosY(int placeY){
-        double screenCenterY = (graphicsHeight / tileSize) / 2;
-        int placeYOffset = (int) (Math.round(curPos.getY()) - Math.round(screenCenterY));
-        return (int)((-placeY + placeYOffset - remint(screenCenterY) + remint(curPos.getY())) * tileSize + graphicsHeight);
-    }
-
-    /**
-     * Checks whether a place is currently drawn on the screen
-     * @param place
-     * @return
-     */
-    private boolean isOnScreen(Place place){
-        int x = getScreenPosX(place.getX());
-        if(x < 0 || x > graphicsWidth) return false;
-
-        int y = getScreenPosY(place.getY());
-        /*
-        if(y < 0 || y > graphicsHeight) return false;
-        else return true;*/
-        return !(y < 0 || y > graphicsHeight);
-    }
-
     /**
      * Remove integer part, the part after the point remains
      * @param val
@@ -521,6 +727,7 @@ public class MapPainterDefault implements MapPainter {
         this.curPos = curPos;
 
         tileFont = g.getFont();
+        textLayoutCache.resetStatistics();
 
         final float selectionStrokeWidth = getTileSelectionStrokeWidth();
         final int tileBorderWidthScaled = getTileBorderWidth();
@@ -530,6 +737,18 @@ public class MapPainterDefault implements MapPainter {
         final int maxLines = (int) Math.round((double)(tileSize - 3 * (tileBorderWidthScaled + (int) Math.ceil(getInformationColorStrokeWidth()))) / fm.getHeight());
         final int maxLineLength = tileSize - 2 * (tileBorderWidthScaled + (int) selectionStrokeWidth + (int) Math.ceil(getInformationColorStrokeWidth()));
         final Boolean drawText = fm.stringWidth("WW") < (tileSize - 2 * (getInformationColorStrokeWidth() + tileBorderWidthScaled));
+        // interactive frames don't draw text, curves, gradients and antialiasing
+        final boolean fullQuality = renderQuality == RenderQuality.FULL;
+        final Object antialiasing = fullQuality ? RenderingHints.VALUE_ANTIALIAS_ON : RenderingHints.VALUE_ANTIALIAS_OFF;
+
+        // only the area within the clip bounds will be drawn, eg. a single
+        // part of a large image
+        Rectangle clip = g.getClipBounds();
+        if(clip == null){
+            clip = new Rectangle(0, 0, (int) graphicsWidth, (int) graphicsHeight);
+        }
+        final double clipRight = clip.x + clip.width;
+        final double clipBottom = clip.y + clip.height;
 
         // screen center in world coordinates
         final double screenCenterX = (graphicsWidth / tileSize) / 2.0; // note: wdtwd2
@@ -545,11 +764,13 @@ public class MapPainterDefault implements MapPainter {
         // prepare graphic for paths
         // Paths will be drawn on this graphic and later on copied to g
         ArrayList<Pair<Integer, Integer>> tilePositions = new ArrayList<>(); // to mask out the tile positions on graphic_path
-        BufferedImage imagePath = new BufferedImage((int) graphicsWidth, (int) graphicsHeight, BufferedImage.TYPE_INT_ARGB);
+        BufferedImage imagePath = new BufferedImage(Math.max(clip.width, 1), Math.max(clip.height, 1), BufferedImage.TYPE_INT_ARGB);
         Graphics graphicPath = imagePath.getGraphics();
+        graphicPath.translate(-clip.x, -clip.y);
         ((Graphics2D) graphicPath).setStroke(new BasicStroke(getPathStrokeWidth()));
-        ((Graphics2D) graphicPath).setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-        ((Graphics2D) g).setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        ((Graphics2D) graphicPath).setRenderingHint(RenderingHints.KEY_ANTIALIASING, antialiasing);
+        ((Graphics2D) g).setRenderingHint(RenderingHints.KEY_ANTIALIASING, antialiasing);
+        resetPathGeometry();
 
         // getPlace the locations of copied places
         HashSet<Pair<Integer, Integer>> copiedPlaceLocations = null;
@@ -568,19 +789,19 @@ public class MapPainterDefault implements MapPainter {
         // ------------------ draw the grid --------------------------------
         if(isGridEnabled()){
             g.setColor(Color.lightGray);
-            for(int tileX = (g.getClipBounds().x / tileSize) - 1; tileX < graphicsWidth / tileSize + 1; ++tileX){
+            for(int tileX = (clip.x / tileSize) - 1; tileX < clipRight / tileSize + 1; ++tileX){
                 final int x = (int) Math.round((tileX + placeXpxConst) * tileSize);
                 g.drawLine(x, 0, x, (int) graphicsHeight);
             }
-            for(int tileY = (g.getClipBounds().y / tileSize) - 1; tileY < graphicsHeight / tileSize + 1; ++tileY){
+            for(int tileY = (clip.y / tileSize) - 1; tileY < clipBottom / tileSize + 1; ++tileY){
                 final int y = (int) Math.round((tileY + placeYpxConst) * tileSize);
                 g.drawLine(0, y, (int) graphicsWidth, y);
             }
         }
 
         // ------------------ draw the tiles / places ----------------------
-        for(int tileX = (g.getClipBounds().x / tileSize) - 1; tileX < graphicsWidth / tileSize + 1; ++tileX){
-            for(int tileY = (g.getClipBounds().y / tileSize) - 1; tileY < graphicsHeight / tileSize + 1; ++tileY){
+        for(int tileX = (clip.x / tileSize) - 1; tileX < clipRight / tileSize + 1; ++tileX){
+            for(int tileY = (clip.y / tileSize) - 1; tileY < clipBottom / tileSize + 1; ++tileY){
 
                 // place position on the map
                 final int placeX = tileX + placeXOffset;
@@ -621,7 +842,7 @@ public class MapPainterDefault implements MapPainter {
                     String flags = "", exits = "";
 
                     // draw text, if tiles are large enough
-                    if(drawText){
+                    if(drawText && fullQuality){
                         g.setColor(Color.BLACK);
 
                         // place name
@@ -690,7 +911,7 @@ public class MapPainterDefault implements MapPainter {
                         // other flags
                         for(Map.Entry<String, Boolean> flag: curPlace.getFlags().entrySet()){
                             if(flag.getValue()) flags += flag.getKey().toUpperCase();
-                            if(fm.stringWidth(flags) >= tileSize - 2 * tileBorderWidthScaled) break;
+                            if(textLayoutCache.stringWidth(flags, fm) >= tileSize - 2 * tileBorderWidthScaled) break;
                         }
                     }
 
@@ -700,67 +921,11 @@ public class MapPainterDefault implements MapPainter {
                         g.fillRect(placeXpx, placeYpx, tileSize, tileSize);
                     }
 
-                    // draw path lines here
+                    // draw exits
                     boolean exitUp = false, exitDown = false, exitnstd = false;
                     if(getShowPaths()){
                         for(Path path: curPlace.getPaths()){
-                            Place otherPlace = path.getOtherPlace(curPlace);
-
-                            Color colorPlace1 = layer.getWorld().getPathColor(path.getExitDirections()[0]);
-                            Color colorPlace2 = layer.getWorld().getPathColor(path.getExitDirections()[1]);
-                            if(path.getPlaces()[0] != curPlace) {
-                                Color tmp = colorPlace1;
-                                colorPlace1 = colorPlace2;
-                                colorPlace2 = tmp;
-                            }
-
-                            // if both places of a path are on the same layer and at least one of the two places is on the screen
-                            // usually the main place (path.getPlaces()[0]) draws the path. If it isn't on screen, the other place draws it
-                            if(Objects.equals(otherPlace.getLayer().getId(), layer.getId()) && (path.getPlaces()[0] == curPlace || !isOnScreen(otherPlace))){
-                                Pair<Integer, Integer> exitOffset = getExitOffset(path.getExit(curPlace), tileBorderWidthScaled);
-                                Pair<Integer, Integer> exitOffsetOther = getExitOffset(path.getExit(otherPlace), tileBorderWidthScaled);
-
-                                boolean drawCurves = getPathsCurved();
-
-                                // exit positions on the map
-                                final double exit1x = placeXpx + exitOffset.first;
-                                final double exit1y = placeYpx + exitOffset.second;
-                                final double exit2x = placeXpx + (otherPlace.getX() - curPlace.getX()) * tileSize + exitOffsetOther.first;
-                                final double exit2y = placeYpx - (otherPlace.getY() - curPlace.getY()) * tileSize + exitOffsetOther.second;
-
-                                if(colorPlace1.equals(colorPlace2)){ // same color
-                                    ((Graphics2D) graphicPath).setPaint(colorPlace1);
-                                } else { // draw gradient
-                                    GradientPaint gp = new GradientPaint((float) exit1x, (float) exit1y, colorPlace1,
-                                                                         (float) exit2x, (float) exit2y, colorPlace2);
-                                    ((Graphics2D) graphicPath).setPaint(gp);
-                                }
-
-                                if(drawCurves){
-                                    Pair<Double, Double> normal1 = getExitNormal(path.getExit(curPlace));
-                                    Pair<Double, Double> normal2 = getExitNormal(path.getExit(otherPlace));
-
-                                    double dx = exit2x - exit1x;
-                                    double dy = exit2y - exit1y;
-
-                                    if(drawCurves = Math.sqrt(dx * dx + dy * dy) >= 1.5 * tileSize){
-                                        CubicCurve2D c = new CubicCurve2D.Double();
-                                        c.setCurve(// point 1
-                                                exit1x, exit1y,
-                                                // point 2
-                                                exit1x + normal1.first * tileSize, exit1y - normal1.second * tileSize,
-                                                // point 3
-                                                exit2x + normal2.first * tileSize, exit2y - normal2.second * tileSize,
-                                                // point 4
-                                                exit2x, exit2y);
-                                        ((Graphics2D) graphicPath).draw(c);
-                                    }
-                                }
-
-                                if(!drawCurves) {
-                                    graphicPath.drawLine((int) exit1x, (int) exit1y, (int) exit2x, (int) exit2y);
-                                }
-                            }
+                            Color colorPlace1 = layer.getWorld().getPathColor(path.getExit(curPlace));
 
                             // draw exit dots, if tiles are larger than 20
                             if(tileSize >= 20){
@@ -774,10 +939,10 @@ public class MapPainterDefault implements MapPainter {
                                         exitDown = true;
                                         break;
                                     default:
-                                        Pair<Integer, Integer> exitOffset = getExitOffset(exit, tileBorderWidthScaled);
-                                        if(exitOffset.first != tileSize / 2 || exitOffset.second != tileSize / 2){
+                                        int[] exitOffset = getExitOffset(exit, tileSize, tileBorderWidthScaled, exitOffsetScratch);
+                                        if(exitOffset[0] != tileSize / 2 || exitOffset[1] != tileSize / 2){
                                             int exitCircleRadius2 = getExitCircleRadius();
-                                            g.fillOval(placeXpx + exitOffset.first - exitCircleRadius2, placeYpx + exitOffset.second - exitCircleRadius2, 2 * exitCircleRadius2, 2 * exitCircleRadius2);
+                                            g.fillOval(placeXpx + exitOffset[0] - exitCircleRadius2, placeYpx + exitOffset[1] - exitCircleRadius2, 2 * exitCircleRadius2, 2 * exitCircleRadius2);
                                         } else { // non-standard exit
                                             exitnstd = true;
                                         }
@@ -788,14 +953,14 @@ public class MapPainterDefault implements MapPainter {
                     }
 
                     // draw exits
-                    if(tileSize >= 20 && (exitUp || exitDown) && drawText){
+                    if(tileSize >= 20 && (exitUp || exitDown) && drawText && fullQuality){
                         // have some arrows: ⬆⬇ ↑↓
                         exits = "" + (exitnstd ? "+" : "") + (exitUp ? "↑" : "") + (exitDown ? "↓" : "");
                     }
 
                     g.setColor(Color.BLACK);
                     final int border = (int) (tileBorderWidthScaled + getInformationColorStrokeWidth());
-                    drawText(g, placeXpx + border, placeYpx + border, tileSize - 2 * border, tileSize - 2 * border, text, flags, exits);
+                    if(fullQuality) drawText(g, placeXpx + border, placeYpx + border, tileSize - 2 * border, tileSize - 2 * border, text, flags, exits, curPlace);
                 }
 
                 //TODO: extract from parent loop
@@ -827,6 +992,33 @@ public class MapPainterDefault implements MapPainter {
             }
         }
 
+        // ------------------ collect and draw the paths --------------------
+        if(getShowPaths() && layer != null){
+            // visible area in world coordinates, the margin includes paths
+            // that leave the screen through exit offsets and curves
+            final int tilesY = (int) (graphicsHeight / tileSize);
+            final int xMin = (clip.x / tileSize) - 1 + placeXOffset - PATH_CULLING_MARGIN;
+            final int xMax = (int) Math.ceil(clipRight / tileSize) + 1 + placeXOffset + PATH_CULLING_MARGIN;
+            final int yMin = tilesY - (int) Math.ceil(clipBottom / tileSize) - 1 + placeYOffset - PATH_CULLING_MARGIN;
+            final int yMax = tilesY - (clip.y / tileSize) + 1 + placeYOffset + PATH_CULLING_MARGIN;
+
+            visibleSegments.clear();
+            layer.getPathSegmentIndex().query(xMin, yMin, xMax, yMax, visibleSegments);
+
+            for(PathSegmentIndex.Segment segment: visibleSegments){
+                // position of the first place in pixel on the screen
+                final Place place = segment.getPath().getPlaces()[0];
+                final int placeXpx = (int) Math.round((place.getX() - placeXOffset + placeXpxConst) * tileSize);
+                final int placeYpx = (int) Math.round((tilesY - place.getY() + placeYOffset + placeYpxConst) * tileSize);
+
+                addPathGeometry(layer, segment.getPath(), placeXpx, placeYpx, tileBorderWidthScaled);
+            }
+            visibleSegments.clear();
+
+            // stroke the collected paths
+            drawPathGeometry((Graphics2D) graphicPath);
+        }
+
         // mask out tile positions on graphicPath
         ((Graphics2D) graphicPath).setBackground(new Color(0,0,0,0));
         int clearTileSize = tileSize - 2 * tileBorderWidthScaled;
@@ -835,8 +1027,46 @@ public class MapPainterDefault implements MapPainter {
             graphicPath.clearRect(p.first + tileBorderWidthScaled, p.second + tileBorderWidthScaled, clearTileSize, clearTileSize);
 
         // draw graphicPath to g
-        if(getShowPaths()) g.drawImage(imagePath, 0, 0, null);
+        if(getShowPaths()) g.drawImage(imagePath, clip.x, clip.y, null);
         graphicPath.dispose();
     }
 
+    /**
+     * A path with different colors at its ends, drawn with a color gradient
+     */
+    static class GradientSegment {
+        double x1, y1, ctrl1x, ctrl1y, ctrl2x, ctrl2y, x2, y2;
+        boolean curved;
+        Color color1, color2;
+
+        void set(double x1, double y1, double ctrl1x, double ctrl1y, double ctrl2x, double ctrl2y,
+                double x2, double y2, boolean curved, Color color1, Color color2){
+            this.x1 = x1;
+            this.y1 = y1;
+            this.ctrl1x = ctrl1x;
+            this.ctrl1y = ctrl1y;
+            this.ctrl2x = ctrl2x;
+            this.ctrl2y = ctrl2y;
+            this.x2 = x2;
+            this.y2 = y2;
+            this.curved = curved;
+            this.color1 = color1;
+            this.color2 = color2;
+        }
+
+        /**
+         * Appends the segment geometry to a shape
+         * @param shape
+         */
+        void appendTo(Path2D.Double shape){
+            if(curved){
+                shape.moveTo(x1, y1);
+                shape.curveTo(ctrl1x, ctrl1y, ctrl2x, ctrl2y, x2, y2);
+            } else {
+                shape.moveTo((int) x1, (int) y1);
+                shape.lineTo((int) x2, (int) y2);
+            }
+        }
+    }
+
 }
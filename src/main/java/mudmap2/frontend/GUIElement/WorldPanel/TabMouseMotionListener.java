@@ -17,6 +17,7 @@ public class TabMouseMotionListener implements MouseMotionListener {
             final double dx = (e.getX() - worldPanel.getMouseXPrevious()) / worldPanel.getTileSize();
             final double dy = (e.getY() - worldPanel.getMouseYPrevious()) / worldPanel.getTileSize();
             if (!e.isShiftDown()) {
+                worldPanel.navigationInput();
                 worldPanel.getPosition().move(-dx, dy);
             } else { // shift pressed: box selection
                 worldPanel.placeGroupBoxModifySelection(worldPanel.getPlacePosX(e.getX()), worldPanel.getPlacePosY(e.getY()));
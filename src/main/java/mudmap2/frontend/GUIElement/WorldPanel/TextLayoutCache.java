@@ -0,0 +1,209 @@
+/*  MUD Map (v2) - A tool to create and organize maps for text-based games
+ *  Copyright (C) 2026  Neop (email: mneop@web.de)
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License along
+ *  with this program; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*  File description
+ *
+ *  Caches wrapped text lines and string widths of the map tiles, so they
+ *  don't have to be measured again on every repaint
+ */
+
+package mudmap2.frontend.GUIElement.WorldPanel;
+
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.font.FontRenderContext;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A bounded least recently used cache of text layouts. Entries are identified
+ * by the text, the maximum width, the maximum number of lines, the font and
+ * the font render context, so changed texts simply get new entries
+ * @author neop
+ */
+public class TextLayoutCache {
+
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    final int capacity;
+    final LinkedHashMap<Key, CachedLayout> entries;
+
+    int hits = 0;
+    int misses = 0;
+
+    /**
+     * Constructs a cache with the default capacity
+     */
+    public TextLayoutCache(){
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs a cache
+     * @param capacity maximum number of entries
+     */
+    public TextLayoutCache(final int capacity){
+        this.capacity = capacity;
+        entries = new LinkedHashMap<Key, CachedLayout>(16, 0.75f, true){
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, CachedLayout> eldest) {
+                return size() > TextLayoutCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * Gets the cached lines of a text
+     * @param text text
+     * @param fm font metrics used for measuring
+     * @param maxWidth maximum line width in pixel
+     * @param maxLines maximum number of lines
+     * @return cached lines or null
+     */
+    public List<String> getLines(final String text, final FontMetrics fm, final int maxWidth, final int maxLines){
+        CachedLayout entry = entries.get(new Key(text, fm, maxWidth, maxLines));
+        if(entry != null){
+            ++hits;
+            return entry.lines;
+        }
+        ++misses;
+        return null;
+    }
+
+    /**
+     * Adds lines to the cache
+     * @param text text
+     * @param fm font metrics used for measuring
+     * @param maxWidth maximum line width in pixel
+     * @param maxLines maximum number of lines
+     * @param lines wrapped text, should not be modified afterwards
+     */
+    public void putLines(final String text, final FontMetrics fm, final int maxWidth, final int maxLines, final List<String> lines){
+        entries.put(new Key(text, fm, maxWidth, maxLines), new CachedLayout(lines, 0));
+    }
+
+    /**
+     * Gets the width of a single line string, the value gets cached
+     * @param text string
+     * @param fm font metrics
+     * @return width in pixel
+     */
+    public int stringWidth(final String text, final FontMetrics fm){
+        // maxWidth and maxLines -1 mark width entries
+        Key key = new Key(text, fm, -1, -1);
+        CachedLayout entry = entries.get(key);
+        if(entry != null){
+            ++hits;
+            return entry.width;
+        }
+        ++misses;
+        int width = fm.stringWidth(text);
+        entries.put(key, new CachedLayout(null, width));
+        return width;
+    }
+
+    /**
+     * Removes all entries
+     */
+    public void clear(){
+        entries.clear();
+    }
+
+    /**
+     * Gets the number of cached entries
+     * @return
+     */
+    public int size(){
+        return entries.size();
+    }
+
+    /**
+     * Gets the number of cache hits since the last reset
+     * @return
+     */
+    public int getHits(){
+        return hits;
+    }
+
+    /**
+     * Gets the number of cache misses since the last reset
+     * @return
+     */
+    public int getMisses(){
+        return misses;
+    }
+
+    /**
+     * Resets the hit and miss counters, eg. at the beginning of a frame
+     */
+    public void resetStatistics(){
+        hits = misses = 0;
+    }
+
+    static class Key {
+        final String text;
+        final Font font;
+        // antialiasing and fractional metrics change the widths
+        final FontRenderContext frc;
+        final int maxWidth;
+        final int maxLines;
+        final int hash;
+
+        Key(String text, FontMetrics fm, int maxWidth, int maxLines){
+            this.text = text;
+            this.font = fm.getFont();
+            this.frc = fm.getFontRenderContext();
+            this.maxWidth = maxWidth;
+            this.maxLines = maxLines;
+            hash = (((text.hashCode() * 31 + Objects.hashCode(font)) * 31
+                    + Objects.hashCode(frc)) * 31 + maxWidth) * 31 + maxLines;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if(this == obj) return true;
+            if(!(obj instanceof Key)) return false;
+            final Key other = (Key) obj;
+            return hash == other.hash
+                    && maxWidth == other.maxWidth
+                    && maxLines == other.maxLines
+                    && text.equals(other.text)
+                    && Objects.equals(font, other.font)
+                    && Objects.equals(frc, other.frc);
+        }
+    }
+
+    static class CachedLayout {
+        final List<String> lines;
+        final int width;
+
+        CachedLayout(List<String> lines, int width){
+            this.lines = lines;
+            this.width = width;
+        }
+    }
+
+}
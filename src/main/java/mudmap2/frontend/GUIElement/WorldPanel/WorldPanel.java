@@ -18,15 +18,23 @@ package mudmap2.frontend.GUIElement.WorldPanel;
 
 import java.awt.FontMetrics;
 import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.awt.event.FocusAdapter;
 import java.awt.event.FocusEvent;
 import java.awt.event.MouseWheelEvent;
 import java.awt.event.MouseWheelListener;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
 import java.util.HashSet;
 import java.util.LinkedList;
 
 import javax.swing.JFrame;
 import javax.swing.JPanel;
+import javax.swing.Timer;
 
 import mudmap2.backend.Layer;
 import mudmap2.backend.Place;
@@ -45,6 +53,12 @@ public class WorldPanel extends JPanel implements WorldChangeListener {
     public static final int TILE_SIZE_MIN = 10;
     public static final int TILE_SIZE_MAX = 200;
 
+    // delay after the last navigation input until the map is drawn in full
+    // quality again, in ms
+    public static final int IDLE_REPAINT_DELAY = 100;
+    // maximum render time of a frame during zoom gestures, in ms
+    public static final int FRAME_TIME_BUDGET = 33;
+
     private final JFrame parentFrame;
 
     private final MapPainter mappainter;
@@ -65,6 +79,7 @@ public class WorldPanel extends JPanel implements WorldChangeListener {
     private final HashSet<PlaceSelectionListener> placeSelectionListeners;
     private final HashSet<MapCursorListener> mapCursorListeners;
     private final HashSet<StatusListener> statusListeners;
+    private final HashSet<ViewportListener> viewportListeners;
     private final HashSet<WorldPanelListener> tileSizeListeners;
 
     /**
@@ -92,6 +107,33 @@ public class WorldPanel extends JPanel implements WorldChangeListener {
     private boolean isContextMenuShown;
     private boolean forcedFocus;
 
+    // true while the user navigates continuously (held keys, wheel, dragging)
+    private boolean interactive;
+    private final Timer idleTimer;
+
+    // last rendered frame, only kept while navigating. It gets scaled during
+    // zoom gestures and moved while panning
+    private boolean zooming;
+    private BufferedImage frame;
+    private int frameTileSize;
+    private int frameLayer;
+    private double frameX;
+    private double frameY;
+    private int frameCursorX;
+    private int frameCursorY;
+    private boolean frameCursorEnabled;
+    private int frameSelection;
+    // render time of the last frame in ms
+    private long frameRenderTime;
+
+    // viewport of the last paint, to notify the viewport listeners
+    private int viewportLayer;
+    private double viewportX;
+    private double viewportY;
+    private double viewportTileSize;
+    private int viewportWidth;
+    private int viewportHeight;
+
     /**
      * Constructs a world panel
      * @param parent
@@ -109,6 +151,7 @@ public class WorldPanel extends JPanel implements WorldChangeListener {
         mapCursorListeners = new HashSet<>();
         tileSizeListeners = new HashSet<>();
         statusListeners = new HashSet<>();
+        viewportListeners = new HashSet<>();
 
         positionsHead = new LinkedList<>();
         positionsTail = new LinkedList<>();
@@ -127,6 +170,22 @@ public class WorldPanel extends JPanel implements WorldChangeListener {
         mouseInPanel = false;
         mouseXPrevious = mouseYPrevious = 0;
 
+        interactive = false;
+        zooming = false;
+        frame = null;
+        idleTimer = new Timer(IDLE_REPAINT_DELAY, new ActionListener() {
+            @Override
+            public void actionPerformed(final ActionEvent e) {
+                if (interactive || zooming) {
+                    interactive = false;
+                    zooming = false;
+                    repaint();
+                }
+            }
+        });
+        idleTimer.setRepeats(false);
+        idleTimer.setCoalesce(true);
+
         setFocusable(true);
         requestFocusInWindow();
         addFocusListener(new FocusAdapter() {
@@ -264,7 +323,12 @@ public class WorldPanel extends JPanel implements WorldChangeListener {
      * @param tileSize
      */
     public void setTileSize(final double tileSize) {
+        final double tileSizeBefore = this.tileSize;
         this.tileSize = Math.min(Math.max(tileSize, WorldPanel.TILE_SIZE_MIN), WorldPanel.TILE_SIZE_MAX);
+        if (this.tileSize != tileSizeBefore) {
+            zooming = true;
+        }
+        navigationInput();
         callTileSizeListeners();
         repaint();
     }
@@ -417,6 +481,7 @@ public class WorldPanel extends JPanel implements WorldChangeListener {
     }
 
     public void moveCursor(final int dx, final int dy) {
+        navigationInput();
         cursorX += dx;
         cursorY += dy;
         moveScreenToCursor();
@@ -609,6 +674,37 @@ public class WorldPanel extends JPanel implements WorldChangeListener {
         return placeGroup;
     }
 
+    // ========================= render quality ================================
+
+    /**
+     * Called on user input that moves or zooms the map. The first input after
+     * an idle phase is drawn in full quality, further inputs within
+     * IDLE_REPAINT_DELAY are drawn in interactive quality until the input
+     * stops
+     */
+    void navigationInput() {
+        if (idleTimer.isRunning()) {
+            interactive = true;
+        }
+        idleTimer.restart();
+    }
+
+    /**
+     * Returns true, if the map is currently drawn in interactive quality
+     * @return
+     */
+    public boolean isInteractive() {
+        return interactive;
+    }
+
+    /**
+     * Returns true, if a zoom gesture is in progress
+     * @return
+     */
+    public boolean isZooming() {
+        return zooming;
+    }
+
     // ======================= DRAW WORLD HERE =============================
 
     @Override
@@ -616,6 +712,7 @@ public class WorldPanel extends JPanel implements WorldChangeListener {
         mappainter.setSelectedPlaces(placeGroup, placeGroupBoxStart, placeGroupBoxEnd);
         mappainter.selectPlaceAt(getCursorX(), getCursorY());
         mappainter.setCursorVisible(isCursorEnabled());
+        mappainter.setRenderQuality(interactive ? MapPainter.RenderQuality.INTERACTIVE : MapPainter.RenderQuality.FULL);
 
         final Layer layer = getWorld().getLayer(getPosition().getLayer());
 
@@ -630,9 +727,201 @@ public class WorldPanel extends JPanel implements WorldChangeListener {
 
             final String strSidebar = "Use the side bar to go to other maps and places";
             g.drawString(strSidebar, (getWidth() - fm.stringWidth(strSidebar)) / 2, getHeight() / 2 + fm.getHeight() * 2);
+        } else if (zooming && canScaleFrame(layer)) {
+            drawScaledFrame(g);
+        } else if (idleTimer.isRunning()) {
+            renderFrame(g, layer);
         } else {
+            // the frame buffer is only needed while navigating
+            frame = null;
             mappainter.paint(g, (int) getTileSize(), getWidth(), getHeight(), layer, getPosition());
         }
+
+        checkViewport();
+    }
+
+    /**
+     * Calls the viewport listeners if the viewport changed since the last
+     * paint
+     */
+    private void checkViewport() {
+        final WorldCoordinate position = getPosition();
+        if (position.getLayer() != viewportLayer || position.getX() != viewportX
+                || position.getY() != viewportY || getTileSize() != viewportTileSize
+                || getWidth() != viewportWidth || getHeight() != viewportHeight) {
+            viewportLayer = position.getLayer();
+            viewportX = position.getX();
+            viewportY = position.getY();
+            viewportTileSize = getTileSize();
+            viewportWidth = getWidth();
+            viewportHeight = getHeight();
+
+            for (final ViewportListener listener : viewportListeners) {
+                listener.viewportChanged(this);
+            }
+        }
+    }
+
+    /**
+     * Renders the map to the frame buffer and draws it to g. If only the
+     * position changed by whole pixels since the last frame, the frame is
+     * moved and only the uncovered borders and the cursor are rendered
+     * @param g
+     * @param layer
+     */
+    private void renderFrame(final Graphics g, final Layer layer) {
+        final int width = getWidth();
+        final int height = getHeight();
+
+        // render in device resolution, eg. on scaled displays
+        final AffineTransform transform = ((Graphics2D) g).getTransform();
+        final int frameWidth = (int) Math.ceil(width * transform.getScaleX());
+        final int frameHeight = (int) Math.ceil(height * transform.getScaleY());
+        if (frameWidth <= 0 || frameHeight <= 0) {
+            return;
+        }
+
+        // shift of the map since the last frame in pixel
+        final double shiftX = (frameX - getPosition().getX()) * frameTileSize;
+        final double shiftY = (getPosition().getY() - frameY) * frameTileSize;
+        final boolean move = canMoveFrame(layer, frameWidth, frameHeight, transform, shiftX, shiftY);
+
+        if (frame == null || frame.getWidth() != frameWidth || frame.getHeight() != frameHeight) {
+            frame = new BufferedImage(frameWidth, frameHeight, BufferedImage.TYPE_INT_RGB);
+        }
+
+        final Graphics2D frameGraphics = frame.createGraphics();
+        final LinkedList<Rectangle> regions = new LinkedList<>();
+        if (move) {
+            final int dx = (int) Math.round(shiftX);
+            final int dy = (int) Math.round(shiftY);
+            final int scaleX = (int) Math.round(transform.getScaleX());
+            final int scaleY = (int) Math.round(transform.getScaleY());
+            frameGraphics.copyArea(0, 0, frameWidth, frameHeight, dx * scaleX, dy * scaleY);
+
+            // uncovered borders
+            if (dx > 0) {
+                regions.add(new Rectangle(0, 0, dx, height));
+            } else if (dx < 0) {
+                regions.add(new Rectangle(width + dx, 0, -dx, height));
+            }
+            if (dy > 0) {
+                regions.add(new Rectangle(0, 0, width, dy));
+            } else if (dy < 0) {
+                regions.add(new Rectangle(0, height + dy, width, -dy));
+            }
+            // old and new cursor tile, with the surrounding selection border
+            if (frameCursorX != getCursorX() || frameCursorY != getCursorY()) {
+                regions.add(getTileRegion(frameCursorX, frameCursorY));
+                regions.add(getTileRegion(getCursorX(), getCursorY()));
+            }
+        } else {
+            regions.add(new Rectangle(0, 0, width, height));
+        }
+
+        frameGraphics.scale(transform.getScaleX(), transform.getScaleY());
+        frameGraphics.setBackground(getBackground());
+        frameGraphics.setFont(g.getFont());
+
+        final long renderStart = System.nanoTime();
+        for (final Rectangle region : regions) {
+            frameGraphics.setClip(region.intersection(new Rectangle(0, 0, width, height)));
+            frameGraphics.setColor(g.getColor());
+            mappainter.paint(frameGraphics, (int) getTileSize(), width, height, layer, getPosition());
+        }
+        frameGraphics.dispose();
+        if (!move) {
+            frameRenderTime = (System.nanoTime() - renderStart) / 1000000;
+        }
+
+        frameTileSize = (int) getTileSize();
+        frameLayer = layer.getId();
+        frameX = getPosition().getX();
+        frameY = getPosition().getY();
+        frameCursorX = getCursorX();
+        frameCursorY = getCursorY();
+        frameCursorEnabled = isCursorEnabled();
+        frameSelection = placeGroup.hashCode();
+
+        g.drawImage(frame, 0, 0, width, height, null);
+    }
+
+    /**
+     * Checks whether the last frame shows the map at another position only,
+     * moved by whole pixels
+     * @param layer current layer
+     * @param frameWidth frame width in device pixels
+     * @param frameHeight frame height in device pixels
+     * @param transform device transformation
+     * @param shiftX horizontal shift in pixel
+     * @param shiftY vertical shift in pixel
+     * @return true, if the frame can be moved
+     */
+    private boolean canMoveFrame(final Layer layer, final int frameWidth, final int frameHeight,
+            final AffineTransform transform, final double shiftX, final double shiftY) {
+        return frame != null
+                && frame.getWidth() == frameWidth
+                && frame.getHeight() == frameHeight
+                && frameLayer == layer.getId()
+                && frameTileSize == getTileSize()
+                && frameCursorEnabled == isCursorEnabled()
+                && frameSelection == placeGroup.hashCode()
+                && placeGroupBoxStart == null
+                && transform.getScaleX() == Math.rint(transform.getScaleX())
+                && transform.getScaleY() == Math.rint(transform.getScaleY())
+                && Math.abs(shiftX - Math.rint(shiftX)) < 1e-6
+                && Math.abs(shiftY - Math.rint(shiftY)) < 1e-6
+                && Math.abs(shiftX) < getWidth()
+                && Math.abs(shiftY) < getHeight();
+    }
+
+    /**
+     * Gets the screen area of a tile and its selection border
+     * @param x place x coordinate
+     * @param y place y coordinate
+     * @return area in pixel
+     */
+    private Rectangle getTileRegion(final int x, final int y) {
+        final int ts = (int) getTileSize();
+        return new Rectangle(getScreenPosX(x) - ts, getScreenPosY(y) - ts, 3 * ts, 3 * ts);
+    }
+
+    /**
+     * Checks whether the last frame can be scaled to the current tile size
+     * instead of rendering a new one. Frames are only scaled down if the
+     * render time exceeds FRAME_TIME_BUDGET, because the borders would stay
+     * empty
+     * @param layer current layer
+     * @return true, if the frame can be scaled
+     */
+    private boolean canScaleFrame(final Layer layer) {
+        return frame != null
+                && frameLayer == layer.getId()
+                && frameX == getPosition().getX()
+                && frameY == getPosition().getY()
+                && (getTileSize() >= frameTileSize || frameRenderTime > FRAME_TIME_BUDGET);
+    }
+
+    /**
+     * Draws the last frame scaled to the current tile size, the screen center
+     * stays at the same position
+     * @param g
+     */
+    private void drawScaledFrame(final Graphics g) {
+        final int width = getWidth();
+        final int height = getHeight();
+        final double scale = getTileSize() / frameTileSize;
+
+        final Graphics2D g2 = (Graphics2D) g.create();
+        if (scale < 1) {
+            g2.clearRect(0, 0, width, height);
+        }
+        g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g2.translate(width / 2.0, height / 2.0);
+        g2.scale(scale, scale);
+        g2.translate(-width / 2.0, -height / 2.0);
+        g2.drawImage(frame, 0, 0, width, height, null);
+        g2.dispose();
     }
 
     // ========================= Listeners and context menu ================
@@ -732,6 +1021,23 @@ public class WorldPanel extends JPanel implements WorldChangeListener {
         }
     }
 
+    /**
+     * Adds a viewport listener, it is called when the map is painted with a
+     * different layer, position, tile size or panel size
+     * @param listener
+     */
+    public void addViewportListener(final ViewportListener listener) {
+        viewportListeners.add(listener);
+    }
+
+    /**
+     * Removes a viewport listener
+     * @param listener
+     */
+    public void removeViewportListener(final ViewportListener listener) {
+        viewportListeners.remove(listener);
+    }
+
     public void callTileSizeListeners() {
         for (final WorldPanelListener listener : tileSizeListeners) {
             listener.TileSizeChanged();
@@ -766,6 +1072,8 @@ public class WorldPanel extends JPanel implements WorldChangeListener {
 
     @Override
     public void worldChanged(final Object source) {
+        // the last frame can't be moved
+        frame = null;
         repaint();
     }
 
@@ -33,8 +33,10 @@ import java.awt.event.ActionListener;
 import java.awt.event.KeyEvent;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
+import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.net.URL;
 import java.util.HashMap;
 import java.util.logging.Level;
@@ -56,14 +58,17 @@ import javax.swing.SwingConstants;
 import javax.swing.WindowConstants;
 import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
+import mudmap2.Environment;
 import mudmap2.backend.Layer;
 
 import mudmap2.backend.World;
 import mudmap2.backend.WorldFileList;
 import mudmap2.backend.WorldFileList.WorldFileEntry;
 import mudmap2.backend.WorldFileReader.WorldFile;
+import mudmap2.backend.WorldFileReader.current.WorldCatalog;
 import mudmap2.backend.WorldFileReader.current.WorldFileJSON;
 import mudmap2.backend.WorldManager;
+import mudmap2.frontend.GUIElement.LayerThumbnailCache;
 import mudmap2.frontend.GUIElement.WorldPanel.MapPainterDefault;
 import mudmap2.frontend.dialog.AboutDialog;
 import mudmap2.frontend.dialog.EditWorldDialog;
@@ -77,6 +82,8 @@ import mudmap2.frontend.dialog.UpdateDialog;
 import mudmap2.frontend.dialog.pathColor.PathColorListDialog;
 import mudmap2.frontend.dialog.placeGroup.PlaceGroupListDialog;
 import mudmap2.frontend.dialog.informationColor.InformationColorListDialog;
+import mudmap2.frontend.export.TileCache;
+import mudmap2.frontend.export.TileServer;
 import mudmap2.utils.KeystrokeHelper;
 import mudmap2.utils.MenuHelper;
 import mudmap2.utils.StringHelper;
@@ -92,6 +99,9 @@ public final class Mainwindow extends JFrame implements KeyEventDispatcher, Acti
 
     // Contains all opened maps <name, worldtab>
     HashMap<World, WorldTab> worldTabs;
+    // running tile servers, one per world
+    final HashMap<World, TileServer> tileServers = new HashMap<>();
+    TileCache tileCache = null;
 
     // GUI elements
     JCheckBoxMenuItem menuWorldCurvedPaths;
@@ -111,6 +121,7 @@ public final class Mainwindow extends JFrame implements KeyEventDispatcher, Acti
 
     JMenuItem menuWorldSetHomePosition;
     JMenuItem menuWorldGotoHomePosition;
+    JMenuItem menuWorldTileServer;
 
     JTabbedPane tabbedPane = null;
     JPanel infoPanel = null;
@@ -180,11 +191,25 @@ public final class Mainwindow extends JFrame implements KeyEventDispatcher, Acti
         MenuHelper.addMenuItem(menuFile, "Quit", "quit", KeyEvent.VK_Q, KeystrokeHelper.ctrl(KeyEvent.VK_Q), this);
 
         //menu entries: file/open recent
-        WorldFileList.read();
+        WorldCatalog.getDefault().setThumbnailRenderer(new WorldCatalog.ThumbnailRenderer() {
+            @Override
+            public BufferedImage render(Layer layer, int width, int height) {
+                return LayerThumbnailCache.render(layer, width, height);
+            }
+        });
+        final HashMap<WorldFileList.WorldFileEntry, JMenuItem> recentItems = new HashMap<>();
+        WorldFileList.read(new WorldFileList.Listener() {
+            @Override
+            public void entryUpdated(WorldFileList.WorldFileEntry entry) {
+                // world name read in background
+                JMenuItem item = recentItems.get(entry);
+                if(item != null) item.setText(StringHelper.join(entry.getWorldName(), " (", entry.getFile(), ")"));
+            }
+        });
         for (final WorldFileList.WorldFileEntry entry : WorldFileList.getEntries()) {
             final String label = StringHelper.join(entry.getWorldName(), " (", entry.getFile(), ")");
             final ActionListener actionListener = newWorldFileEntryActionListener(entry);
-            MenuHelper.addMenuItem(menuFileOpenRecent, label, actionListener);
+            recentItems.put(entry, MenuHelper.addMenuItem(menuFileOpenRecent, label, actionListener));
         }
 
         //menu entries: World
@@ -199,6 +224,8 @@ public final class Mainwindow extends JFrame implements KeyEventDispatcher, Acti
         menuWorldCurvedPaths = MenuHelper.addCheckboxMenuItem(menuWorld, "Curved Paths", this);
         menuWorldShowCursor = MenuHelper.addCheckboxMenuItem(menuWorld, "Show Place Cursor", KeyStroke.getKeyStroke(KeyEvent.VK_P, 0), this);
         menuWorldShowGrid = MenuHelper.addCheckboxMenuItem(menuWorld, "Show Grid", this);
+        menuWorld.addSeparator();
+        menuWorldTileServer = MenuHelper.addMenuItem(menuWorld, "Start Map Server", "tile_server", this);
 
         //menu entries: Help
         MenuHelper.addMenuItem(menuHelp, "Keyboard Shortcuts", KeyEvent.VK_K, new KeyboardShortcutDialog(this));
@@ -268,9 +295,15 @@ public final class Mainwindow extends JFrame implements KeyEventDispatcher, Acti
     public void closeTabs() {
         for (final WorldTab tab : worldTabs.values()) {
             final int ret = JOptionPane.showConfirmDialog(this, StringHelper.join("Save world \"", tab.getWorld().getName(), "\"?"), "Save world", JOptionPane.YES_NO_OPTION);
+            // only the journal is committed, it's replayed when the world is opened again
+            tab.prepareClose();
             if (ret == JOptionPane.YES_OPTION) {
                 tab.save();
             }
+            // finish a save that runs in background
+            tab.waitForSave();
+            tab.closeJournal(ret != JOptionPane.YES_OPTION);
+            stopTileServer(tab.getWorld());
             WorldManager.close(tab.getWorld());
             removeTab(tab);
         }
@@ -313,6 +346,46 @@ public final class Mainwindow extends JFrame implements KeyEventDispatcher, Acti
         System.exit(0);
     }
 
+    /**
+     * Asks for a port and starts a tile server for a world, so it can be
+     * viewed in a browser
+     * @param world world to serve
+     */
+    private void startTileServer(final World world) {
+        final Object ret = JOptionPane.showInputDialog(this, "Port", "Start map server", JOptionPane.PLAIN_MESSAGE, null, null, TileServer.DEFAULT_PORT);
+        if (ret == null) {
+            return;
+        }
+
+        try {
+            final int port = Integer.parseInt(ret.toString().trim());
+            if (tileCache == null) {
+                tileCache = new TileCache(TileCache.DEFAULT_MEMORY_SIZE, new File(Environment.getUserDataDir(), "tiles"), TileCache.DEFAULT_DISK_SIZE);
+            }
+            final TileServer server = new TileServer(world, tileCache);
+            server.start(new InetSocketAddress(port), Runtime.getRuntime().availableProcessors());
+            tileServers.put(world, server);
+            JOptionPane.showMessageDialog(this, StringHelper.join("The map of \"", world.getName(), "\" is available at\nhttp://<this computer>:",
+                    server.getPort(), TileServer.TILE_PATH, "/{layer}/{z}/{x}/{y}.png"), "Map server", JOptionPane.INFORMATION_MESSAGE);
+        } catch (final NumberFormatException ex) {
+            JOptionPane.showMessageDialog(this, StringHelper.join("Invalid port: ", ret), "MUD Map error", JOptionPane.ERROR_MESSAGE);
+        } catch (final IOException | IllegalArgumentException ex) {
+            Logger.getLogger(Mainwindow.class.getName()).log(Level.SEVERE, null, ex);
+            JOptionPane.showMessageDialog(this, StringHelper.join("Could not start map server: ", ex.getLocalizedMessage()), "MUD Map error", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    /**
+     * Stops the tile server of a world, if it is running
+     * @param world
+     */
+    private void stopTileServer(final World world) {
+        final TileServer server = tileServers.remove(world);
+        if (server != null) {
+            server.stop();
+        }
+    }
+
     /**
      * Updates menu items when the tab changes
      */
@@ -331,6 +404,9 @@ public final class Mainwindow extends JFrame implements KeyEventDispatcher, Acti
         menuWorldSetHomePosition.setEnabled(enabled);
         menuWorldPlaceGroups.setEnabled(enabled);
         menuWorldRiskLevels.setEnabled(enabled);
+        menuWorldTileServer.setEnabled(enabled);
+        final WorldTab tab = getSelectedTab();
+        menuWorldTileServer.setText(tab != null && tileServers.containsKey(tab.getWorld()) ? "Stop Map Server" : "Start Map Server");
         //menuWorldShowCursor.setEnabled(enabled);
         //menuWorldShowGrid.setEnabled(enabled);
         /* TODO: deactivated for toggle buttons since they did not accept
@@ -428,6 +504,16 @@ public final class Mainwindow extends JFrame implements KeyEventDispatcher, Acti
                 wt.getWorldPanel().gotoHome();
             }
             break;
+        case "tile_server":
+            if (wt != null) {
+                if (tileServers.containsKey(wt.getWorld())) {
+                    stopTileServer(wt.getWorld());
+                } else {
+                    startTileServer(wt.getWorld());
+                }
+                updateMenus();
+            }
+            break;
         default:
             final String message = StringHelper.join(getClass().getName(), ": ActionCommand not recognized");
             Logger.getLogger(WorldManager.class.getName()).log(Level.SEVERE, message);
@@ -26,35 +26,45 @@ package mudmap2.frontend;
 
 import java.awt.BorderLayout;
 import java.awt.Dimension;
+import java.awt.EventQueue;
+import java.awt.GraphicsEnvironment;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.File;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.concurrent.ExecutionException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.swing.BoxLayout;
 import javax.swing.JButton;
+import javax.swing.JDialog;
 import javax.swing.JFileChooser;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
+import javax.swing.JProgressBar;
 import javax.swing.JSlider;
 import javax.swing.JSplitPane;
+import javax.swing.SwingWorker;
 import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
 import mudmap2.backend.Layer;
 import mudmap2.backend.Place;
 import mudmap2.backend.World;
+import mudmap2.backend.WorldChangeListener;
 import mudmap2.backend.WorldCoordinate;
 import mudmap2.backend.WorldFileList;
+import mudmap2.backend.WorldSnapshot;
 import mudmap2.backend.WorldFileReader.WorldFile;
-import mudmap2.backend.WorldFileReader.WorldFileType;
+import mudmap2.backend.WorldFileReader.current.WorldFileBinary;
 import mudmap2.backend.WorldFileReader.current.WorldFileDefault;
 import mudmap2.backend.WorldFileReader.current.WorldFileJSON;
+import mudmap2.backend.WorldFileReader.current.WorldJournal;
 import mudmap2.backend.WorldFileReader.current.WorldMetaJSON;
+import mudmap2.frontend.GUIElement.MiniMapPanel;
 import mudmap2.frontend.GUIElement.WorldPanel.PlaceSelectionListener;
 import mudmap2.frontend.GUIElement.ScrollLabel;
 import mudmap2.frontend.GUIElement.WorldPanel.MapPainterDefault;
@@ -81,10 +91,30 @@ public class WorldTab extends JPanel implements LayerPanelListener,PlacePanelLis
     // GUI elements
     WorldPanel worldPanel;
     SidePanel sidePanel;
+    MiniMapPanel miniMapPanel;
+    JPanel panelEast;
     JSlider sliderZoom;
     JPanel palInfoBar;
     ScrollLabel labelInfobar;
 
+    // number of changes of the world, to find out whether it changed since
+    // it was saved
+    long changeCount = 0;
+    long changeCountSaved = 0;
+    // save that runs in background or null
+    SaveWorker saveWorker = null;
+    // a save was requested while another one was running
+    boolean savePending = false;
+    // journal of the world file, a save only writes the changes to it
+    WorldJournal journal = null;
+    // the tab is closed, the journal isn't compacted anymore
+    boolean closing = false;
+    // copy of the world that is written to the world file, only the changed
+    // layers are copied again for the next write
+    WorldSnapshot worldSnapshot = null;
+    // shown while the tab waits for a save to finish
+    JDialog saveDialog = null;
+
     // world_meta file version supported by this WorldTab
     static final int META_FILE_VER_MAJOR = 2;
     static final int META_FILE_VER_MINOR = 0;
@@ -121,6 +151,56 @@ public class WorldTab extends JPanel implements LayerPanelListener,PlacePanelLis
     private void create(World world, boolean passive){
         createGui(world, passive);
         readMeta();
+        if(!passive) startJournal(world);
+    }
+
+    /**
+     * Starts recording the changes in the journal that was read with the world
+     * @param world
+     */
+    private void startJournal(World world){
+        if(world.getWorldFile() instanceof WorldFileDefault){
+            journal = ((WorldFileDefault) world.getWorldFile()).getJournal();
+        }
+        if(journal != null){
+            try {
+                journal.start(world);
+                // changes of a session that wasn't closed properly
+                if(journal.hasUnsavedChanges()) ++changeCount;
+            } catch (IOException ex) {
+                Logger.getLogger(WorldTab.class.getName()).log(Level.SEVERE, null, ex);
+                journal = null;
+            }
+        }
+    }
+
+    /**
+     * Stops recording the changes of the world
+     * @param discard remove the changes since the last save from the journal
+     */
+    public void closeJournal(boolean discard){
+        if(journal != null){
+            try {
+                if(discard) journal.discard();
+                journal.close();
+            } catch (IOException ex) {
+                Logger.getLogger(WorldTab.class.getName()).log(Level.SEVERE, null, ex);
+            }
+            journal = null;
+        }
+        if(worldSnapshot != null){
+            worldSnapshot.close();
+            worldSnapshot = null;
+        }
+    }
+
+    /**
+     * Prepares the tab to be closed: a save only commits the journal from
+     * now on and no compaction is started, the journal is replayed when the
+     * world is opened again
+     */
+    public void prepareClose(){
+        closing = true;
     }
 
     /**
@@ -129,6 +209,13 @@ public class WorldTab extends JPanel implements LayerPanelListener,PlacePanelLis
     private void createGui(World world, boolean passive){
         setLayout(new BorderLayout());
 
+        world.addChangeListener(new WorldChangeListener() {
+            @Override
+            public void worldChanged(Object source) {
+                ++changeCount;
+            }
+        });
+
         worldPanel = new WorldPanel(parentFrame, world, passive);
         //add(worldPanel, BorderLayout.CENTER);
         worldPanel.addTileSizeListener(this);
@@ -150,10 +237,16 @@ public class WorldTab extends JPanel implements LayerPanelListener,PlacePanelLis
         sidePanel.addLayerPanelListener(this);
         sidePanel.addPlacePanelListener(this);
 
+        // mini map above the side panel
+        miniMapPanel = new MiniMapPanel(worldPanel);
+        panelEast = new JPanel(new BorderLayout());
+        panelEast.add(miniMapPanel, BorderLayout.NORTH);
+        panelEast.add(sidePanel, BorderLayout.CENTER);
+
         // add worldPanel and sidePanel to split pane to make them resizable
         JSplitPane splitPaneCenter = new JSplitPane(
                 JSplitPane.HORIZONTAL_SPLIT,
-                worldPanel, sidePanel);
+                worldPanel, panelEast);
         splitPaneCenter.setOneTouchExpandable(true);
         splitPaneCenter.setDividerLocation(600);
         splitPaneCenter.setResizeWeight(1.0);
@@ -163,6 +256,7 @@ public class WorldTab extends JPanel implements LayerPanelListener,PlacePanelLis
         Dimension sidePanelMinimumSize = new Dimension(150, 100);
         worldPanel.setMinimumSize(worldPanelMinimumSize);
         sidePanel.setMinimumSize(sidePanelMinimumSize);
+        panelEast.setMinimumSize(sidePanelMinimumSize);
 
         // create info bar
         add(palInfoBar = new JPanel(), BorderLayout.SOUTH);
@@ -226,7 +320,7 @@ public class WorldTab extends JPanel implements LayerPanelListener,PlacePanelLis
      * @param b
      */
     public void setSidePanelVisible(Boolean b){
-        sidePanel.setVisible(b);
+        panelEast.setVisible(b);
     }
 
     public void focusSidePanelSearchBox(){
@@ -234,7 +328,11 @@ public class WorldTab extends JPanel implements LayerPanelListener,PlacePanelLis
     }
 
     /**
-     * Saves the changes in the world
+     * Saves the changes in the world. Usually only the changes are committed
+     * to the journal of the world file. If the journal gets too large, the
+     * world file is rewritten in background afterwards, the world can be
+     * edited while it is written. If a save is already running, the world is
+     * saved again afterwards
      */
     public void save(){
         if(!worldPanel.isPassive()){
@@ -250,33 +348,216 @@ public class WorldTab extends JPanel implements LayerPanelListener,PlacePanelLis
             }
 
             if(worldFile != null){
-                // set meta data writer
-                if(worldFile.getWorldFileType() == WorldFileType.JSON){
-                    WorldFileJSON wfj = null;
-                    if(worldFile instanceof WorldFileJSON){
-                        wfj = (WorldFileJSON) worldFile;
-                    } else if(worldFile instanceof WorldFileDefault){
-                        wfj = (WorldFileJSON) ((WorldFileDefault) worldFile).getWorldFile();
-                    }
-                    if(wfj != null) wfj.setMetaGetter(this);
+                if(saveWorker != null){
+                    savePending = true;
+                    return;
                 }
 
-                // write world file
-                try {
-                    World world = getWorld();
+                if(journal != null && journal.getFilename().equals(worldFile.getFilename())
+                        && journal.canCommit()){
+                    // write the changes to the journal
+                    journal.recordChanges();
+                    saveWorker = new SaveWorker(worldFile, journal, changeCount);
+                    saveWorker.execute();
+                    return;
+                }
+
+                writeWorldFile(worldFile);
+            }
+        }
+    }
+
+    /**
+     * Writes a snapshot of the world to the world file in background, eg. if
+     * the journal is too large. The changes made while it's written go to a
+     * new journal
+     * @param worldFile world file to write
+     */
+    private void writeWorldFile(WorldFile worldFile){
+        // set meta data writer
+        WorldFile metaFile = getMetaFile(worldFile);
+        if(metaFile instanceof WorldFileJSON){
+            ((WorldFileJSON) metaFile).setMetaGetter(new MetaSnapshot(this));
+        } else if(metaFile instanceof WorldFileBinary){
+            ((WorldFileBinary) metaFile).setMetaGetter(new MetaSnapshot(this));
+        }
+
+        // write world file, the changes made while it's written go
+        // to a new journal
+        if(worldSnapshot == null) worldSnapshot = new WorldSnapshot(getWorld());
+        World snapshot = worldSnapshot.update();
+        if(journal != null && !journal.getFilename().equals(worldFile.getFilename())){
+            // world was saved as another file
+            closeJournal(false);
+        }
+        if(journal == null){
+            journal = new WorldJournal(worldFile.getFilename());
+            if(worldFile instanceof WorldFileDefault) ((WorldFileDefault) worldFile).setJournal(journal);
+        }
+        try {
+            journal.beginCompaction(getWorld());
+        } catch (IOException ex) {
+            Logger.getLogger(WorldTab.class.getName()).log(Level.SEVERE, null, ex);
+            closeJournal(false);
+        }
+
+        saveWorker = new SaveWorker(worldFile, snapshot, journal, changeCount);
+        saveWorker.execute();
+        showMessage("Saving world...");
+    }
+
+    /**
+     * Waits until the running save and a pending one are finished, eg. before
+     * the world is closed. On the event dispatch thread a modal dialog is
+     * shown meanwhile, the saves are finished by their done() method
+     */
+    public void waitForSave(){
+        if(EventQueue.isDispatchThread() && !GraphicsEnvironment.isHeadless()){
+            while(saveWorker != null){
+                JProgressBar progressBar = new JProgressBar();
+                progressBar.setIndeterminate(true);
+
+                saveDialog = new JDialog(parentFrame, "Saving world", true);
+                saveDialog.setDefaultCloseOperation(JDialog.DO_NOTHING_ON_CLOSE);
+                saveDialog.setLayout(new BorderLayout(5, 5));
+                saveDialog.add(new JLabel("Saving " + getWorld().getName() + "..."), BorderLayout.NORTH);
+                saveDialog.add(progressBar, BorderLayout.CENTER);
+                saveDialog.pack();
+                saveDialog.setLocationRelativeTo(parentFrame);
+                // returns when finishSave() disposes the dialog
+                saveDialog.setVisible(true);
+            }
+            return;
+        }
+
+        while(saveWorker != null){
+            final SaveWorker worker = saveWorker;
+            try {
+                worker.get();
+            } catch (InterruptedException | ExecutionException ex) {
+                Logger.getLogger(WorldTab.class.getName()).log(Level.SEVERE, null, ex);
+            }
+            // done() will be called later, when this thread isn't blocked
+            finishSave(worker);
+        }
+    }
+
+    /**
+     * Checks whether the world was changed since it was saved the last time
+     * @return true if the world was changed
+     */
+    public boolean isModified(){
+        return changeCount != changeCountSaved;
+    }
+
+    /**
+     * Reports the result of a save and starts a pending save
+     * @param worker finished save
+     */
+    private void finishSave(SaveWorker worker){
+        // done() and waitForSave() might both try to finish it
+        synchronized(this){
+            if(saveWorker != worker) return;
+            saveWorker = null;
+        }
+
+        if(worker.error == null){
+            // changes after the snapshot are still unsaved
+            changeCountSaved = worker.changeCount;
+            // set world as recently used
+            WorldFileList.push(new WorldFileList.WorldFileEntry(getWorld().getName(), new File(worker.worldFile.getFilename())));
+
+            if(isModified()) showMessage("World saved, changes made while saving will be saved next time");
+            else showMessage("World saved");
+        } else {
+            Logger.getLogger(WorldTab.class.getName()).log(Level.SEVERE, null, worker.error);
+            showMessage("Could not save world");
+            JOptionPane.showMessageDialog(getParent(),
+                    "Could not save world file " + worker.worldFile.getFilename(),
+                    "Saving world file",
+                    JOptionPane.ERROR_MESSAGE);
+        }
+
+        if(savePending){
+            savePending = false;
+            save();
+        } else if(worker.error == null && worker.world == null && !closing
+                && journal != null && journal.needsCompaction()){
+            // the journal got too large, the world file is rewritten in background
+            writeWorldFile(worker.worldFile);
+        }
+
+        if(saveWorker == null && saveDialog != null){
+            // waitForSave() is done
+            saveDialog.dispose();
+            saveDialog = null;
+        }
+    }
+
+    /**
+     * Writes a snapshot of the world or commits the journal in background
+     */
+    class SaveWorker extends SwingWorker<Void, Void> {
+
+        final WorldFile worldFile;
+        // snapshot of the world or null, if only the journal is saved
+        final World world;
+        final WorldJournal journal;
+        // change count of the world when the snapshot was taken
+        final long changeCount;
+        Exception error = null;
+
+        /**
+         * Constructor for writing the world file
+         * @param worldFile file to write
+         * @param world snapshot of the world
+         * @param journal journal that gets the changes after the snapshot or null
+         * @param changeCount change count of the world at the snapshot
+         */
+        SaveWorker(WorldFile worldFile, World world, WorldJournal journal, long changeCount){
+            this.worldFile = worldFile;
+            this.world = world;
+            this.journal = journal;
+            this.changeCount = changeCount;
+        }
+
+        /**
+         * Constructor for saving the changes in the journal
+         * @param worldFile world file of the journal
+         * @param journal journal to save
+         * @param changeCount change count of the world when the changes were recorded
+         */
+        SaveWorker(WorldFile worldFile, WorldJournal journal, long changeCount){
+            this(worldFile, null, journal, changeCount);
+        }
+
+        @Override
+        protected Void doInBackground() throws Exception {
+            try {
+                if(world == null){
+                    journal.commit();
+                } else {
                     worldFile.writeFile(world);
-                    // set world as recently used
-                    WorldFileList.push(new WorldFileList.WorldFileEntry(world.getName(), new File(worldFile.getFilename())));
+                }
+            } catch (IOException | RuntimeException ex) {
+                error = ex;
+            }
 
-                    showMessage("World saved");
+            if(world != null && journal != null){
+                try {
+                    // the new journal replaces the old one if the world file was written
+                    if(error == null) journal.finishCompaction();
+                    else journal.abortCompaction();
                 } catch (IOException ex) {
                     Logger.getLogger(WorldTab.class.getName()).log(Level.SEVERE, null, ex);
-                    JOptionPane.showMessageDialog(getParent(),
-                            "Could not save world file " + worldFile.getFilename(),
-                            "Saving world file",
-                            JOptionPane.ERROR_MESSAGE);
                 }
             }
+            return null;
+        }
+
+        @Override
+        protected void done() {
+            finishSave(this);
         }
     }
 
@@ -372,46 +653,85 @@ public class WorldTab extends JPanel implements LayerPanelListener,PlacePanelLis
 
     @Override
     public JSONObject getMeta(HashMap<Integer, Integer> layerTranslation){
-        JSONObject root = new JSONObject();
-
-        MapPainterDefault mapPainter = (MapPainterDefault) getWorldPanel().getMappainter();
-        root.put("showPaths", mapPainter.getShowPaths());
-        root.put("pathsCurved", mapPainter.getPathsCurved());
-        root.put("showCursor", getWorldPanel().isCursorEnabled());
-        root.put("showGrid", mapPainter.isGridEnabled());
-        root.put("tileSize", getWorldPanel().getTileSize());
-
-        JSONArray history = new JSONArray();
-        root.put("history", history);
-
-        Integer cnt = 0;
-        for(WorldCoordinate coord: getWorldPanel().getHistory()){
-            if(layerTranslation.containsKey(coord.getLayer())){
-                JSONObject el = new JSONObject();
-                el.put("l", layerTranslation.get(coord.getLayer()));
-                el.put("x", coord.getX());
-                el.put("y", coord.getY());
-                history.put(el);
+        return new MetaSnapshot(this).getMeta(layerTranslation);
+    }
+
+    /**
+     * Copy of the meta data of a WorldTab, so it can be written by another
+     * thread
+     */
+    static class MetaSnapshot implements WorldMetaJSON {
+
+        // maximum number of history entries
+        static final int HISTORY_MAX = 25;
+
+        final boolean showPaths, pathsCurved, showCursor, showGrid;
+        final double tileSize;
+        final LinkedList<WorldCoordinate> history = new LinkedList<>();
+
+        public MetaSnapshot(WorldTab worldTab){
+            MapPainterDefault mapPainter = (MapPainterDefault) worldTab.getWorldPanel().getMappainter();
+            showPaths = mapPainter.getShowPaths();
+            pathsCurved = mapPainter.getPathsCurved();
+            showCursor = worldTab.getWorldPanel().isCursorEnabled();
+            showGrid = mapPainter.isGridEnabled();
+            tileSize = worldTab.getWorldPanel().getTileSize();
+
+            for(WorldCoordinate coord: worldTab.getWorldPanel().getHistory()){
+                history.add(new WorldCoordinate(coord));
+                if(history.size() >= HISTORY_MAX) break;
             }
-            if(++cnt >= 25) break;
         }
 
-        return root;
+        @Override
+        public JSONObject getMeta(HashMap<Integer, Integer> layerTranslation){
+            JSONObject root = new JSONObject();
+
+            root.put("showPaths", showPaths);
+            root.put("pathsCurved", pathsCurved);
+            root.put("showCursor", showCursor);
+            root.put("showGrid", showGrid);
+            root.put("tileSize", tileSize);
+
+            JSONArray historyArray = new JSONArray();
+            root.put("history", historyArray);
+
+            for(WorldCoordinate coord: history){
+                if(layerTranslation.containsKey(coord.getLayer())){
+                    JSONObject el = new JSONObject();
+                    el.put("l", layerTranslation.get(coord.getLayer()));
+                    el.put("x", coord.getX());
+                    el.put("y", coord.getY());
+                    historyArray.put(el);
+                }
+            }
+
+            return root;
+        }
     }
 
     public void readMeta(){
         WorldFile worldFile = getWorld().getWorldFile();
 
         // set meta data writer
-        if(worldFile != null && worldFile.getWorldFileType() == WorldFileType.JSON){
-            WorldFileJSON wfj = null;
-            if(worldFile instanceof WorldFileJSON){
-                wfj = (WorldFileJSON) worldFile;
-            } else if(worldFile instanceof WorldFileDefault){
-                wfj = (WorldFileJSON) ((WorldFileDefault) worldFile).getWorldFile();
-            }
-            if(wfj != null) setMeta(wfj.getMetaData());
+        WorldFile metaFile = getMetaFile(worldFile);
+        if(metaFile instanceof WorldFileJSON){
+            setMeta(((WorldFileJSON) metaFile).getMetaData());
+        } else if(metaFile instanceof WorldFileBinary){
+            setMeta(((WorldFileBinary) metaFile).getMetaData());
+        }
+    }
+
+    /**
+     * Gets the world file that reads and writes the meta data
+     * @param worldFile world file or null
+     * @return file of a known format or null
+     */
+    private static WorldFile getMetaFile(WorldFile worldFile){
+        if(worldFile instanceof WorldFileDefault){
+            return ((WorldFileDefault) worldFile).getWorldFile();
         }
+        return worldFile;
     }
 
     public void setMeta(JSONObject meta){
@@ -32,12 +32,14 @@ import java.util.logging.Logger;
 import javax.swing.ButtonGroup;
 import javax.swing.ButtonModel;
 import javax.swing.JButton;
+import javax.swing.JCheckBox;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JRadioButton;
 import javax.swing.JSeparator;
 import javax.swing.JTextField;
 import mudmap2.backend.World;
+import mudmap2.backend.WorldFileReader.WorldFile;
 import mudmap2.frontend.GUIElement.ColorChooserButton;
 
 /**
@@ -59,6 +61,8 @@ public class EditWorldDialog extends ActionDialog {
     ButtonGroup buttongroup_place_id;
     JRadioButton radiobutton_place_id_none, radiobutton_place_id_unique, radiobutton_place_id_all;
 
+    JCheckBox checkbox_compress;
+
     public EditWorldDialog(JFrame parent, World world) {
         super(parent, "Edit world - " + world.getName(), true);
         this.world = world;
@@ -121,6 +125,14 @@ public class EditWorldDialog extends ActionDialog {
                 break;
         }
 
+        constraints.gridy = constraints_l.gridy = ++constraints_r.gridy;
+        add(new JSeparator(), constraints);
+
+        constraints_l.gridy = ++constraints_r.gridy;
+        add(checkbox_compress = new JCheckBox("Compress world file (gzip)"), constraints_l);
+        checkbox_compress.setSelected(world.getPreferences() != null
+                && world.getPreferences().optBoolean(WorldFile.PREFERENCE_COMPRESS, false));
+
         constraints_l.insets = constraints_r.insets = new Insets(0, 2, 0, 2);
         constraints_l.gridy = ++constraints_r.gridy;
 
@@ -171,6 +183,11 @@ public class EditWorldDialog extends ActionDialog {
         else if(selection == radiobutton_place_id_all.getModel()) world.setShowPlaceID(World.ShowPlaceID.ALL);
         else world.setShowPlaceID(World.ShowPlaceID.UNIQUE);
 
+        if(world.getPreferences() != null){
+            // the file is written compressed the next time it is saved
+            world.getPreferences().put(WorldFile.PREFERENCE_COMPRESS, checkbox_compress.isSelected());
+        }
+
         getParent().repaint();
     }
 
@@ -19,20 +19,21 @@ package mudmap2.frontend.dialog;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Font;
-import java.awt.Graphics;
-import java.awt.Graphics2D;
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
 import java.awt.Insets;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import javax.imageio.ImageIO;
 import javax.swing.BoxLayout;
 import javax.swing.ButtonGroup;
 import javax.swing.JCheckBox;
@@ -44,11 +45,15 @@ import javax.swing.JPanel;
 import javax.swing.JRadioButton;
 import javax.swing.JSeparator;
 import javax.swing.JSpinner;
+import javax.swing.ProgressMonitor;
 import javax.swing.SpinnerNumberModel;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
 import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
 import javax.swing.filechooser.FileFilter;
 import mudmap2.backend.Layer;
+import mudmap2.backend.LayerSnapshot;
 import mudmap2.backend.Place;
 import mudmap2.backend.WorldCoordinate;
 import mudmap2.backend.legend.Legend;
@@ -56,6 +61,11 @@ import mudmap2.frontend.GUIElement.ColorChooserButton;
 import mudmap2.frontend.GUIElement.WorldPanel.MapPainterDefault;
 import mudmap2.frontend.GUIElement.WorldPanel.WorldPanel;
 import mudmap2.frontend.WorldTab;
+import mudmap2.frontend.export.BatchExporter;
+import mudmap2.frontend.export.LegendPosition;
+import mudmap2.frontend.export.MapImageRenderer;
+import mudmap2.frontend.export.StreamingMapExporter;
+import mudmap2.frontend.export.SvgExporter;
 import mudmap2.utils.Pair;
 import org.json.JSONObject;
 
@@ -73,7 +83,9 @@ public class ExportImageDialog extends ActionDialog {
     // general settings
     JRadioButton rbCurrentView, rbCurrentMap, rbAllMaps, rbSelection;
     JFileChooser fileChooser;
+    FileFilter svgFileFilter;
     JSpinner spTileSize;
+    JSpinner spParallelExports;
     JLabel lImageSize;
     // paths
     JRadioButton rbPathNo, rbPathStraight, rbPathCurved;
@@ -194,6 +206,13 @@ public class ExportImageDialog extends ActionDialog {
 
         panel.add(lImageSize = new JLabel());
 
+        // number of maps that are exported concurrently with "all maps"
+        panel.add(new JLabel(" Parallel exports: "));
+        spParallelExports = new JSpinner(new SpinnerNumberModel(
+                BatchExporter.getDefaultParallelism(), 1,
+                Math.max(Runtime.getRuntime().availableProcessors() * 2, 2), 1));
+        panel.add(spParallelExports);
+
         return panel;
     }
 
@@ -386,7 +405,21 @@ public class ExportImageDialog extends ActionDialog {
             }
         };
 
+        svgFileFilter = new FileFilter() {
+            @Override
+            public boolean accept(File f) {
+                return  f.isDirectory() ||
+                        f.getName().toLowerCase().endsWith(".svg");
+            }
+
+            @Override
+            public String getDescription() {
+                return "SVG vector images";
+            }
+        };
+
         fileChooser.addChoosableFileFilter(pngFileFilter);
+        fileChooser.addChoosableFileFilter(svgFileFilter);
         fileChooser.setFileFilter(pngFileFilter);
 
         fileChooser.addActionListener(new ActionListener() {
@@ -531,146 +564,144 @@ public class ExportImageDialog extends ActionDialog {
      * Exports image(s)
      */
     void save(){
-        try {
-            File file = fileChooser.getSelectedFile();
-            if(!file.getName().toLowerCase().endsWith(".png"))
-                file = new File(file.getAbsolutePath() + ".png");
-
-            if(!rbAllMaps.isSelected()){ // draw current layer
-                file.createNewFile();
-                drawMap(file, centerPosition);
-            } else { // draw each layer
-                int ret = JOptionPane.showConfirmDialog(getParent(),
-                        "" + worldTab.getWorld().getLayers().size()
-                        + " layers will be exported.", "Export layer to image",
-                        JOptionPane.OK_CANCEL_OPTION);
-
-                if(ret == JOptionPane.OK_OPTION){
-                    String filename = file.getAbsolutePath();
-                    filename = filename.substring(0, filename.lastIndexOf('.'));
-
-                    int num = 0;
-                    for(Layer layer: worldTab.getWorld().getLayers()){
-                        worldTab.showMessage("Exporting layer " + ++num + " of "
-                                + worldTab.getWorld().getLayers().size());
-
-                        centerPosition.setLayer(layer.getId());
-
-                        file = new File(filename + layer.getId() + "_" + layer.getName() + ".png");
-                        file.createNewFile();
-
-                        drawMap(file, centerPosition);
-                    }
+        File file = fileChooser.getSelectedFile();
+        final boolean svg = fileChooser.getFileFilter() == svgFileFilter
+                || file.getName().toLowerCase().endsWith(".svg");
+        final String suffix = svg ? ".svg" : ".png";
+        if(!file.getName().toLowerCase().endsWith(suffix))
+            file = new File(file.getAbsolutePath() + suffix);
+
+        ArrayList<BatchExporter.Job> exports = new ArrayList<>();
+        ArrayList<Pair<File, SvgExporter>> svgExports = new ArrayList<>();
+
+        if(!rbAllMaps.isSelected()){ // draw current layer
+            if(svg) svgExports.add(new Pair<>(file, createSvgExporter(centerPosition)));
+            else exports.add(createExportJob(file, centerPosition));
+        } else { // draw each layer
+            int ret = JOptionPane.showConfirmDialog(getParent(),
+                    "" + worldTab.getWorld().getLayers().size()
+                    + " layers will be exported.", "Export layer to image",
+                    JOptionPane.OK_CANCEL_OPTION);
+
+            if(ret == JOptionPane.OK_OPTION){
+                String filename = file.getAbsolutePath();
+                filename = filename.substring(0, filename.lastIndexOf('.'));
+
+                for(Layer layer: worldTab.getWorld().getLayers()){
+                    WorldCoordinate center = new WorldCoordinate(centerPosition);
+                    center.setLayer(layer.getId());
+
+                    file = new File(filename + layer.getId() + "_" + layer.getName() + suffix);
+                    if(svg) svgExports.add(new Pair<>(file, createSvgExporter(center)));
+                    else exports.add(createExportJob(file, center));
                 }
             }
-
-            writePreferences(worldTab.getWorld().getPreferences());
-        } catch (IOException ex) {
-            Logger.getLogger(ExportImageDialog.class.getName()).log(Level.SEVERE, null, ex);
-            JOptionPane.showMessageDialog(getParent(),
-                    "Could not export image " + ex.getLocalizedMessage(),
-                    "Export layer to image", JOptionPane.ERROR_MESSAGE);
         }
 
+        writePreferences(worldTab.getWorld().getPreferences());
         dispose();
+
+        if(!exports.isEmpty()){
+            BatchExporter batch = new BatchExporter(exports);
+            batch.setParallelism((Integer) spParallelExports.getValue());
+            new ExportWorker(batch).start();
+        }
+        if(!svgExports.isEmpty()){
+            new SvgExportWorker(svgExports).execute();
+        }
     }
 
     /**
-     * Generates image (map and legend)
-     * @param file file to write
+     * Creates an SVG exporter for the selected scope, the legend isn't
+     * included in SVG images
      * @param center layer and center information
-     * @throws IOException
+     * @return exporter
      */
-    void drawMap(File file, WorldCoordinate center) throws IOException {
-        if(file.canWrite()){
-            // render images
-            BufferedImage imageMap = drawLayer(center);
-            BufferedImage imageLegend = null;
-
-            if(imageMap != null){
-                int imageOutWidth = imageMap.getWidth();
-                int imageOutHeight = imageMap.getHeight();
-
-                final boolean drawLegendPathColors = cbLegendPathColors.isSelected();
-                final boolean drawLegendPlaceGroups = cbLegendPlaceGroups.isSelected();
-                final boolean drawLegendInfoColors = cbLegendInfomationColors.isSelected();
-                final boolean legendEnabled = drawLegendPathColors
-                        || drawLegendPlaceGroups
-                        || drawLegendInfoColors;
-
-                if(legendEnabled){
-                    imageLegend = drawLegend(
-                            worldTab.getWorld().getLayer(center.getLayer()),
-                            imageMap.getWidth(), imageMap.getHeight());
-
-                    if(rbLegendPosTop.isSelected() || rbLegendPosBottom.isSelected()){
-                        imageOutHeight += imageLegend.getHeight();
-                    } else if(rbLegendPosLeft.isSelected() || rbLegendPosRight.isSelected()){
-                        imageOutWidth += imageLegend.getWidth();
-                    }
-                }
+    SvgExporter createSvgExporter(WorldCoordinate center){
+        // the layer is edited while the image is exported in background
+        Layer layer = LayerSnapshot.create(worldTab.getWorld().getLayer(center.getLayer()));
+        SvgExporter exporter = new SvgExporter(layer, (Integer) spTileSize.getValue());
 
-                // create output image
-                BufferedImage imageOut;
-                Graphics graphics;
-                if(rbBackgroundTransparent.isSelected()){
-                    imageOut = new BufferedImage(imageOutWidth, imageOutHeight, BufferedImage.TYPE_INT_ARGB);
-                    graphics = imageOut.getGraphics();
-                    graphics.setClip(0, 0, imageOutWidth, imageOutHeight);
-
-                    ((Graphics2D) graphics).setBackground(new Color(255, 255, 255, 0));
-                    graphics.clearRect(0, 0, imageOutWidth, imageOutHeight);
-                } else {
-                    imageOut = new BufferedImage(imageOutWidth, imageOutHeight, BufferedImage.TYPE_INT_RGB);
-                    graphics = imageOut.getGraphics();
-                    graphics.setClip(0, 0, imageOutWidth, imageOutHeight);
-
-                    ((Graphics2D) graphics).setBackground(ccbBackgroundColor.getColor());
-                    graphics.clearRect(0, 0, imageOutWidth, imageOutHeight);
+        if(rbSelection.isSelected()){
+            HashSet<Place> places = worldTab.getWorldPanel().placeGroupGetSelection();
+            if(!places.isEmpty()){
+                int xMin = Integer.MAX_VALUE, xMax = Integer.MIN_VALUE;
+                int yMin = Integer.MAX_VALUE, yMax = Integer.MIN_VALUE;
+                for(Place place: places){
+                    xMin = Math.min(xMin, place.getX());
+                    xMax = Math.max(xMax, place.getX());
+                    yMin = Math.min(yMin, place.getY());
+                    yMax = Math.max(yMax, place.getY());
                 }
+                exporter.setBounds(xMin, yMin, xMax, yMax);
+            }
+        } else if(rbCurrentView.isSelected()){
+            WorldPanel worldPanel = worldTab.getWorldPanel();
+            final double tileSize = worldPanel.getTileSize();
+            final double halfWidth = worldPanel.getWidth() / tileSize / 2;
+            final double halfHeight = worldPanel.getHeight() / tileSize / 2;
+            exporter.setBounds((int) Math.floor(center.getX() - halfWidth),
+                    (int) Math.floor(center.getY() + 1 - halfHeight),
+                    (int) Math.ceil(center.getX() + halfWidth) - 1,
+                    (int) Math.ceil(center.getY() + halfHeight));
+        }
 
-                // combine images
-                int mapX = 0, mapY = 0;
-                int legendX = 0, legendY = 0;
-
-                if(legendEnabled){
-                    if(rbLegendPosBottom.isSelected()){
-                        legendY = imageMap.getHeight();
-                    } else if(rbLegendPosTop.isSelected()){
-                        mapY = imageLegend.getHeight();
-                    } else if(rbLegendPosLeft.isSelected()){
-                        mapX = imageLegend.getWidth();
-                    } else if(rbLegendPosRight.isSelected()){
-                        legendX = imageMap.getWidth();
-                    }
-                    graphics.drawImage(imageMap, mapX, mapY, null);
-                    graphics.drawImage(imageLegend, legendX, legendY, null);
-                } else {
-                    graphics.drawImage(imageMap, 0, 0, null);
-                }
+        exporter.setFont(worldTab.getFont());
+        exporter.setGridEnabled(cbBackgroundGrid.isSelected());
+        exporter.setShowPaths(!rbPathNo.isSelected());
+        exporter.setPathsCurved(rbPathCurved.isSelected());
+        if(rbBackgroundColor.isSelected()){
+            exporter.setBackgroundColor(ccbBackgroundColor.getColor());
+        }
+        return exporter;
+    }
 
-                ImageIO.write(imageOut, "PNG", file);
-                worldTab.showMessage("Image " + file.getName() + " exported");
-            } else {
-                JOptionPane.showMessageDialog(getParent(),
-                        "Could draw map " + file.getPath(),
-                        "Export map to image", JOptionPane.ERROR_MESSAGE);
+    /**
+     * Collects everything that is needed to export an image from the dialog
+     * settings, so the image can be rendered in background
+     * @param file file to write
+     * @param center layer and center information
+     * @return export job
+     */
+    BatchExporter.Job createExportJob(File file, WorldCoordinate center){
+        // the layer is edited while the image and legend are rendered in
+        // background
+        Layer layer = LayerSnapshot.create(worldTab.getWorld().getLayer(center.getLayer()));
+        MapImageRenderer renderer = createRenderer(layer, center);
+
+        StreamingMapExporter exporter = null;
+        if(renderer != null){
+            exporter = new StreamingMapExporter(renderer);
+            if(rbBackgroundColor.isSelected()){
+                exporter.setBackgroundColor(ccbBackgroundColor.getColor());
             }
-        } else {
-            JOptionPane.showMessageDialog(getParent(),
-                    "Could not write to file " + file.getPath(),
-                    "Export map to image", JOptionPane.ERROR_MESSAGE);
-            worldTab.showMessage("Could not export image");
         }
+
+        BatchExporter.Job job = new BatchExporter.Job(layer.getName(), file, exporter);
+        if(renderer != null){
+            final boolean legendEnabled = cbLegendPathColors.isSelected()
+                    || cbLegendPlaceGroups.isSelected()
+                    || cbLegendInfomationColors.isSelected();
+            if(legendEnabled){
+                LegendPosition legendPosition;
+                if(rbLegendPosTop.isSelected()) legendPosition = LegendPosition.TOP;
+                else if(rbLegendPosLeft.isSelected()) legendPosition = LegendPosition.LEFT;
+                else if(rbLegendPosRight.isSelected()) legendPosition = LegendPosition.RIGHT;
+                else legendPosition = LegendPosition.BOTTOM;
+
+                job.setLegend(createLegend(layer, renderer.getWidth(), renderer.getHeight()), legendPosition);
+            }
+        }
+        return job;
     }
 
     /**
-     * Draws map
+     * Creates a map renderer for the selected scope
+     * @param layer layer to draw, a snapshot of the layer in center
      * @param center layer and center information
-     * @return image
+     * @return renderer or null if the image would be empty
      */
-    BufferedImage drawLayer(WorldCoordinate center){
-        BufferedImage image = null;
+    MapImageRenderer createRenderer(Layer layer, WorldCoordinate center){
         Integer tileSize = (Integer) spTileSize.getValue();
         int width, height;
 
@@ -689,51 +720,34 @@ public class ExportImageDialog extends ActionDialog {
             width = size.width;
             height = size.height;
         } else { // whole map
-            Pair<Integer, Integer> mapSize = getMapSize(worldTab.getWorld().getLayer(center.getLayer()));
+            Pair<Integer, Integer> mapSize = getMapSize(layer);
             width = mapSize.first;
             height = mapSize.second;
 
-            Layer layer = worldTab.getWorld().getLayer(center.getLayer());
             Pair<Double, Double> exactCenter = layer.getExactCenter();
             // add / subtract 1/2 since tiles are positioned by center, not corner
             center = new WorldCoordinate(layer.getId(), exactCenter.first + 0.5, exactCenter.second - 0.5);
         }
 
+        MapImageRenderer renderer = null;
         if(width != 0 && height != 0){
-            image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+            renderer = new MapImageRenderer(layer, center, tileSize, width, height);
+            renderer.setFont(worldTab.getFont());
+            renderer.setGridEnabled(cbBackgroundGrid.isSelected());
+            renderer.setShowPaths(!rbPathNo.isSelected());
+            renderer.setPathsCurved(rbPathCurved.isSelected());
         }
-        if(image != null){
-            Graphics graphics = image.createGraphics();
-            graphics.setClip(0, 0, width, height);
-
-            ((Graphics2D) graphics).setBackground(new Color(255, 255, 255, 0));
-            graphics.clearRect(0, 0, width, height);
-
-            graphics.setFont(worldTab.getFont());
-
-            MapPainterDefault mappainter = new MapPainterDefault();
-            mappainter.setGridEnabled(cbBackgroundGrid.isSelected());
-            mappainter.setShowPaths(!rbPathNo.isSelected());
-            mappainter.setPathsCurved(rbPathCurved.isSelected());
-            mappainter.setCursorVisible(false);
-            mappainter.setPlaceSelectionVisible(false);
-            mappainter.paint(graphics, tileSize, width, height,
-                    worldTab.getWorld().getLayer(center.getLayer()),
-                    center);
-        }
-        return image;
+        return renderer;
     }
 
     /**
-     * Draws legend
+     * Creates the legend
      * @param layer layer
      * @param mapGraphicsWidth
      * @param mapGraphicsHeight
-     * @return image
+     * @return legend
      */
-    BufferedImage drawLegend(Layer layer, int mapGraphicsWidth, int mapGraphicsHeight){
-        BufferedImage image = null;
-
+    Legend createLegend(Layer layer, int mapGraphicsWidth, int mapGraphicsHeight){
         final boolean drawLegendPathColors = cbLegendPathColors.isSelected();
         final boolean drawLegendPlaceGroups = cbLegendPlaceGroups.isSelected();
         final boolean drawLegendInfoColors = cbLegendInfomationColors.isSelected();
@@ -751,16 +765,10 @@ public class ExportImageDialog extends ActionDialog {
         legend.setIncludePathColors(drawLegendPathColors);
         legend.setIncludePlaceGroups(drawLegendPlaceGroups);
         legend.setIncludeInformationColors(drawLegendInfoColors);
-
-        try {
-            image = legend.generate();
-        } catch (Legend.RenderException ex) {
-            Logger.getLogger(ExportImageDialog.class.getName()).log(Level.SEVERE, null, ex);
-        }
-
-        return image;
+        return legend;
     }
 
+
     void readPreferences(JSONObject preferences){
         if(preferences.has(PREFERENCES_KEY_EXPORTIMAGE)){
             JSONObject jDlgPrefs = preferences.getJSONObject(PREFERENCES_KEY_EXPORTIMAGE);
@@ -782,6 +790,14 @@ public class ExportImageDialog extends ActionDialog {
                 }
             }
 
+            if(jDlgPrefs.has("parallelExports")){
+                SpinnerNumberModel model = (SpinnerNumberModel) spParallelExports.getModel();
+                int parallelExports = jDlgPrefs.getInt("parallelExports");
+                parallelExports = Math.max(parallelExports, (Integer) model.getMinimum());
+                parallelExports = Math.min(parallelExports, (Integer) model.getMaximum());
+                spParallelExports.setValue(parallelExports);
+            }
+
             if(jDlgPrefs.has("drawPaths")){
                 switch(jDlgPrefs.getInt("drawPaths")){
                     case 0:
@@ -858,6 +874,8 @@ public class ExportImageDialog extends ActionDialog {
         else if(rbSelection.isSelected())  scope = 3;
         jDlgPrefs.put("scope", scope);
 
+        jDlgPrefs.put("parallelExports", (Integer) spParallelExports.getValue());
+
         int drawPaths = 0;
         if(rbPathNo.isSelected())               drawPaths = 0;
         else if(rbPathStraight.isSelected())    drawPaths = 1;
@@ -891,6 +909,169 @@ public class ExportImageDialog extends ActionDialog {
         jDlgPrefs.put("legendCol", legendCol.getRGB());
     }
 
+    /**
+     * Renders and writes images in background, shows a progress dialog that
+     * allows to cancel the export
+     */
+    class ExportWorker extends SwingWorker<Void, Void> {
+
+        final BatchExporter batch;
+        final int regionsTotal;
+        long startTime;
+
+        ProgressMonitor progressMonitor;
+        Timer progressTimer;
+
+        ExportWorker(BatchExporter batch){
+            this.batch = batch;
+            regionsTotal = Math.max(batch.getRegionCount(), 1);
+        }
+
+        /**
+         * Shows the progress dialog and starts the export
+         */
+        void start(){
+            progressMonitor = new ProgressMonitor(worldTab, "Exporting map to image", "", 0, regionsTotal);
+            progressMonitor.setMillisToDecideToPopup(200);
+
+            progressTimer = new Timer(200, new ActionListener() {
+                @Override
+                public void actionPerformed(ActionEvent e) {
+                    if(progressMonitor.isCanceled()){
+                        batch.cancel();
+                    } else {
+                        progressMonitor.setNote(getProgressNote());
+                        progressMonitor.setProgress(batch.getRegionsRendered());
+                    }
+                }
+            });
+            progressTimer.start();
+
+            startTime = System.currentTimeMillis();
+            execute();
+        }
+
+        /**
+         * Creates the progress text with the progress of each running export
+         * @return
+         */
+        String getProgressNote(){
+            StringBuilder note = new StringBuilder();
+            note.append(batch.getJobsFinished()).append(" of ")
+                    .append(batch.getJobs().size()).append(" images");
+
+            List<BatchExporter.Job> running = batch.getJobsRunning();
+            for(int i = 0; i < running.size() && i < 3; ++i){
+                BatchExporter.Job job = running.get(i);
+                note.append(i == 0 ? ": " : ", ").append(job.getName())
+                        .append(" ").append((int) (job.getProgress() * 100)).append("%");
+            }
+            if(running.size() > 3) note.append(", ...");
+            return note.toString();
+        }
+
+        @Override
+        protected Void doInBackground() throws Exception {
+            batch.run();
+            return null;
+        }
+
+        @Override
+        protected void done() {
+            progressTimer.stop();
+            progressMonitor.close();
+
+            ArrayList<String> errors = new ArrayList<>();
+            try {
+                get();
+            } catch (InterruptedException | ExecutionException ex) {
+                Logger.getLogger(ExportImageDialog.class.getName()).log(Level.SEVERE, null, ex);
+                errors.add("Could not export image " + ex.getLocalizedMessage());
+            }
+
+            int exported = 0;
+            String lastExported = null;
+            for(BatchExporter.Job job: batch.getJobs()){
+                if(job.getState() == BatchExporter.State.DONE){
+                    ++exported;
+                    lastExported = job.getFile().getName();
+                } else if(job.getError() != null){
+                    errors.add(job.getError());
+                }
+            }
+
+            final long duration = System.currentTimeMillis() - startTime;
+            Logger.getLogger(ExportImageDialog.class.getName()).log(Level.INFO,
+                    "Exported {0} of {1} images in {2} ms:\n{3}",
+                    new Object[]{exported, batch.getJobs().size(), duration, batch.getSummary()});
+
+            if(batch.isCancelled()){
+                worldTab.showMessage("Image export cancelled, " + exported + " images exported");
+            } else if(!errors.isEmpty()){
+                worldTab.showMessage("Could not export image");
+                StringBuilder message = new StringBuilder();
+                for(String error: errors){
+                    message.append(error).append("\n");
+                }
+                JOptionPane.showMessageDialog(worldTab, message.toString(),
+                        "Export map to image", JOptionPane.ERROR_MESSAGE);
+            } else if(batch.getJobs().size() == 1){
+                worldTab.showMessage("Image " + lastExported + " exported");
+            } else {
+                worldTab.showMessage(exported + " images exported in " + (duration / 1000) + " s");
+            }
+        }
+    }
+
+    /**
+     * Writes SVG images in background, they are written one after another
+     * since writing is limited by the disk
+     */
+    class SvgExportWorker extends SwingWorker<Void, Void> {
+
+        final List<Pair<File, SvgExporter>> exports;
+        final ArrayList<String> errors = new ArrayList<>();
+        int exported = 0;
+
+        SvgExportWorker(List<Pair<File, SvgExporter>> exports){
+            this.exports = exports;
+        }
+
+        @Override
+        protected Void doInBackground() throws Exception {
+            for(Pair<File, SvgExporter> export: exports){
+                final File file = export.first;
+                try {
+                    export.second.write(new BufferedOutputStream(new FileOutputStream(file)));
+                    ++exported;
+                } catch (IOException | RuntimeException ex) {
+                    Logger.getLogger(ExportImageDialog.class.getName()).log(Level.SEVERE, null, ex);
+                    errors.add("Could not export image " + file.getName() + ": " + ex.getLocalizedMessage());
+                    // don't leave incomplete images
+                    file.delete();
+                }
+            }
+            return null;
+        }
+
+        @Override
+        protected void done() {
+            if(!errors.isEmpty()){
+                worldTab.showMessage("Could not export image");
+                StringBuilder message = new StringBuilder();
+                for(String error: errors){
+                    message.append(error).append("\n");
+                }
+                JOptionPane.showMessageDialog(worldTab, message.toString(),
+                        "Export map to image", JOptionPane.ERROR_MESSAGE);
+            } else if(exports.size() == 1){
+                worldTab.showMessage("Image " + exports.get(0).first.getName() + " exported");
+            } else {
+                worldTab.showMessage(exported + " images exported");
+            }
+        }
+    }
+
     /**
      * Listener for image/tile size changes
      */
@@ -22,14 +22,27 @@
  */
 package mudmap2.frontend.dialog;
 
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.awt.EventQueue;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.io.File;
+import java.util.Collections;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import javax.swing.BorderFactory;
+import javax.swing.ImageIcon;
 import javax.swing.JFileChooser;
+import javax.swing.JLabel;
 import javax.swing.JOptionPane;
+import javax.swing.JPanel;
+import javax.swing.SwingConstants;
 import javax.swing.filechooser.FileFilter;
 import mudmap2.backend.World;
+import mudmap2.backend.WorldFileReader.current.WorldCatalog;
 import mudmap2.backend.WorldFileReader.WorldFileFilterJSON;
 import mudmap2.backend.WorldFileReader.WorldFileFilterM2M;
 import mudmap2.backend.WorldFileReader.WorldFileFilterM2W;
@@ -65,7 +78,13 @@ public class OpenWorldDialog implements ActionListener{
 
         filechooser.setFileFilter(filter);
 
+        WorldPreview preview = new WorldPreview();
+        filechooser.setAccessory(preview);
+        filechooser.addPropertyChangeListener(JFileChooser.SELECTED_FILE_CHANGED_PROPERTY, preview);
+
         int ret = filechooser.showOpenDialog(parent);
+        // keep the probed files for the next time
+        WorldCatalog.getDefault().write();
 
         if(ret == JFileChooser.APPROVE_OPTION){
             String file = filechooser.getSelectedFile().toString();
@@ -93,4 +112,79 @@ public class OpenWorldDialog implements ActionListener{
     public void actionPerformed(ActionEvent arg0) {
         create();
     }
+
+    /**
+     * Shows the catalog entry of the selected file, missing information is
+     * read in the background
+     */
+    private static class WorldPreview extends JPanel implements PropertyChangeListener {
+        private static final long serialVersionUID = 1L;
+
+        final JLabel labelThumbnail;
+        final JLabel labelInfo;
+        File file = null;
+
+        public WorldPreview(){
+            setLayout(new BorderLayout());
+            setBorder(BorderFactory.createEmptyBorder(0, 8, 0, 0));
+            setPreferredSize(new Dimension(WorldCatalog.THUMBNAIL_WIDTH + 8, WorldCatalog.THUMBNAIL_HEIGHT * 2));
+
+            labelThumbnail = new JLabel();
+            labelThumbnail.setHorizontalAlignment(SwingConstants.CENTER);
+            labelThumbnail.setPreferredSize(new Dimension(WorldCatalog.THUMBNAIL_WIDTH, WorldCatalog.THUMBNAIL_HEIGHT));
+            add(labelThumbnail, BorderLayout.NORTH);
+
+            labelInfo = new JLabel();
+            labelInfo.setVerticalAlignment(SwingConstants.TOP);
+            add(labelInfo, BorderLayout.CENTER);
+        }
+
+        @Override
+        public void propertyChange(PropertyChangeEvent evt) {
+            file = (File) evt.getNewValue();
+            WorldCatalog.Entry entry = null;
+            if(file != null && file.isFile()){
+                WorldCatalog catalog = WorldCatalog.getDefault();
+                entry = catalog.probe(file);
+                if(entry != null && !entry.isComplete()){
+                    catalog.refresh(Collections.singleton(file), new WorldCatalog.Listener() {
+                        @Override
+                        public void entryUpdated(final WorldCatalog.Entry entry) {
+                            EventQueue.invokeLater(new Runnable() {
+                                @Override
+                                public void run() {
+                                    // the selection might have changed
+                                    if(entry.getFile().equals(file)) show(entry);
+                                }
+                            });
+                        }
+                    });
+                }
+            }
+            show(entry);
+        }
+
+        /**
+         * Shows a catalog entry
+         * @param entry entry or null
+         */
+        void show(WorldCatalog.Entry entry){
+            if(entry == null){
+                labelThumbnail.setIcon(null);
+                labelInfo.setText("");
+                return;
+            }
+
+            labelThumbnail.setIcon(entry.getThumbnail() != null ? new ImageIcon(entry.getThumbnail()) : null);
+            StringBuilder text = new StringBuilder("<html><b>");
+            if(entry.getWorldName() != null){
+                text.append(entry.getWorldName().replace("&", "&amp;").replace("<", "&lt;"));
+            }
+            text.append("</b><br>");
+            text.append(entry.getType()).append(" ").append(entry.getVersion() != null ? entry.getVersion() : "").append("<br>");
+            if(entry.getLayerCount() >= 0) text.append("Maps: ").append(entry.getLayerCount()).append("<br>");
+            if(entry.getPlaceCount() >= 0) text.append("Places: ").append(entry.getPlaceCount());
+            labelInfo.setText(text.append("</html>").toString());
+        }
+    }
 }
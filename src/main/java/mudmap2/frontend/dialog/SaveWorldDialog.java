@@ -61,7 +61,8 @@ public class SaveWorldDialog extends JFileChooser {
         String file = getSelectedFile().getAbsolutePath();
 
         if(getFileFilter() instanceof WorldFileFilterM2W){
-            if(!file.endsWith(".m2w")){
+            // compressed files are kept compressed
+            if(!file.endsWith(".m2w") && !file.endsWith(".m2w" + WorldFile.COMPRESSED_EXTENSION)){
                 file = file + ".m2w";
             }
         }
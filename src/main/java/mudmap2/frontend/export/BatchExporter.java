@@ -0,0 +1,435 @@
+/*  MUD Map (v2) - A tool to create and organize maps for text-based games
+ *  Copyright (C) 2026  Neop (email: mneop@web.de)
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License along
+ *  with this program; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*  File description
+ *
+ *  Exports several images concurrently, eg. all maps of a world. The number
+ *  of concurrent exports is limited by a thread count and a memory budget
+ */
+
+package mudmap2.frontend.export;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import mudmap2.backend.legend.Legend;
+
+/**
+ * Runs image exports on a bounded pool. An export is only started if its
+ * estimated memory usage fits into the memory budget together with the
+ * exports that are already running. The regions of all images are rendered
+ * on a shared fork join pool
+ * @author neop
+ */
+public class BatchExporter {
+
+    final List<Job> jobs;
+    int parallelism = getDefaultParallelism();
+    long memoryBudget = getDefaultMemoryBudget();
+
+    final AtomicBoolean cancelled = new AtomicBoolean(false);
+    // memory reserved by running exports
+    final Object memoryLock = new Object();
+    long memoryUsed = 0;
+
+    /**
+     * Constructs a batch exporter
+     * @param jobs images to export
+     */
+    public BatchExporter(List<Job> jobs){
+        this.jobs = Collections.unmodifiableList(new ArrayList<>(jobs));
+    }
+
+    /**
+     * Gets the default number of concurrent exports
+     * @return
+     */
+    public static int getDefaultParallelism(){
+        return Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    }
+
+    /**
+     * Gets the default memory budget, half of the maximum heap size
+     * @return memory budget in bytes
+     */
+    public static long getDefaultMemoryBudget(){
+        return Runtime.getRuntime().maxMemory() / 2;
+    }
+
+    public List<Job> getJobs() {
+        return jobs;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Sets the maximum number of images that are exported concurrently
+     * @param parallelism
+     */
+    public void setParallelism(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    public long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    /**
+     * Sets the memory that may be used by all running exports. An export
+     * that exceeds the budget on its own is run while no other export runs
+     * @param memoryBudget memory budget in bytes
+     */
+    public void setMemoryBudget(long memoryBudget) {
+        this.memoryBudget = Math.max(1, memoryBudget);
+    }
+
+    /**
+     * Gets the number of regions of all images
+     * @return
+     */
+    public int getRegionCount(){
+        int count = 0;
+        for(Job job: jobs){
+            if(job.exporter != null) count += job.exporter.getRegionCount();
+        }
+        return count;
+    }
+
+    /**
+     * Gets the number of regions that have been rendered
+     * @return
+     */
+    public int getRegionsRendered(){
+        int count = 0;
+        for(Job job: jobs){
+            count += job.getRegionsRendered();
+        }
+        return count;
+    }
+
+    /**
+     * Gets the number of jobs that are done, failed or cancelled
+     * @return
+     */
+    public int getJobsFinished(){
+        int count = 0;
+        for(Job job: jobs){
+            if(job.isFinished()) ++count;
+        }
+        return count;
+    }
+
+    /**
+     * Gets the jobs that are currently running
+     * @return
+     */
+    public List<Job> getJobsRunning(){
+        ArrayList<Job> ret = new ArrayList<>();
+        for(Job job: jobs){
+            if(job.getState() == State.RUNNING) ret.add(job);
+        }
+        return ret;
+    }
+
+    /**
+     * Stops all exports, waiting exports won't be started
+     */
+    public void cancel(){
+        cancelled.set(true);
+        for(Job job: jobs){
+            if(job.exporter != null) job.exporter.getRenderer().cancel();
+        }
+        synchronized(memoryLock){
+            memoryLock.notifyAll();
+        }
+    }
+
+    public boolean isCancelled(){
+        return cancelled.get();
+    }
+
+    /**
+     * Exports all images and waits until all exports are finished
+     * @throws InterruptedException
+     */
+    public void run() throws InterruptedException {
+        final ForkJoinPool pool = new ForkJoinPool();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try {
+            ArrayList<Future<?>> futures = new ArrayList<>();
+            for(final Job job: jobs){
+                futures.add(executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        export(job, pool);
+                    }
+                }));
+            }
+
+            for(Future<?> future: futures){
+                try {
+                    future.get();
+                } catch (ExecutionException ex) {
+                    Logger.getLogger(BatchExporter.class.getName()).log(Level.SEVERE, null, ex);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Exports a single image
+     * @param job
+     * @param pool pool for rendering the regions
+     */
+    void export(Job job, ForkJoinPool pool){
+        if(job.exporter == null){
+            job.finish(State.FAILED, "Could not draw map " + job.file.getPath());
+            return;
+        }
+
+        final long memory = job.exporter.getMemoryEstimate();
+        try {
+            acquireMemory(memory);
+        } catch (InterruptedException ex) {
+            job.finish(State.CANCELLED, null);
+            return;
+        }
+
+        boolean writing = false, complete = false;
+        try {
+            if(isCancelled()){
+                job.finish(State.CANCELLED, null);
+                return;
+            }
+            job.start();
+
+            job.file.createNewFile();
+            if(!job.file.canWrite()){
+                job.finish(State.FAILED, "Could not write to file " + job.file.getPath());
+                return;
+            }
+
+            if(job.legend != null){
+                try {
+                    job.exporter.setLegend(job.legend.generate(), job.legendPosition);
+                } catch (Legend.RenderException ex) {
+                    Logger.getLogger(BatchExporter.class.getName()).log(Level.SEVERE, null, ex);
+                }
+            }
+
+            writing = true;
+            job.exporter.write(new BufferedOutputStream(new FileOutputStream(job.file)), pool);
+            complete = true;
+            job.finish(State.DONE, null);
+        } catch (CancellationException ex) {
+            job.finish(State.CANCELLED, null);
+        } catch (IOException | RuntimeException ex) {
+            Logger.getLogger(BatchExporter.class.getName()).log(Level.SEVERE, null, ex);
+            job.finish(State.FAILED, "Could not export image " + job.file.getName() + ": " + ex.getLocalizedMessage());
+        } finally {
+            releaseMemory(memory);
+            // don't leave incomplete images
+            if(writing && !complete) job.file.delete();
+        }
+    }
+
+    /**
+     * Waits until the memory fits into the budget and reserves it
+     * @param memory memory in bytes
+     * @throws InterruptedException if interrupted or cancelled while waiting
+     */
+    void acquireMemory(long memory) throws InterruptedException {
+        synchronized(memoryLock){
+            // an export larger than the budget runs alone
+            while(memoryUsed > 0 && memoryUsed + memory > memoryBudget){
+                if(isCancelled()) throw new InterruptedException();
+                memoryLock.wait();
+            }
+            memoryUsed += memory;
+        }
+    }
+
+    void releaseMemory(long memory){
+        synchronized(memoryLock){
+            memoryUsed -= memory;
+            memoryLock.notifyAll();
+        }
+    }
+
+    /**
+     * Gets the time spent per image, the slowest first
+     * @return one line per image
+     */
+    public String getSummary(){
+        ArrayList<Job> sorted = new ArrayList<>(jobs);
+        Collections.sort(sorted, new Comparator<Job>() {
+            @Override
+            public int compare(Job o1, Job o2) {
+                return Long.compare(o2.getDuration(), o1.getDuration());
+            }
+        });
+
+        StringBuilder summary = new StringBuilder();
+        for(Job job: sorted){
+            summary.append(job.getName()).append(": ");
+            if(job.exporter != null){
+                summary.append(job.exporter.getImageWidth()).append("x")
+                        .append(job.exporter.getImageHeight()).append("px, ");
+            }
+            summary.append(job.getDuration()).append(" ms, ")
+                    .append(job.getState().toString().toLowerCase()).append("\n");
+        }
+        return summary.toString();
+    }
+
+    /**
+     * State of an export
+     */
+    public enum State {
+        WAITING,
+        RUNNING,
+        DONE,
+        FAILED,
+        CANCELLED
+    }
+
+    /**
+     * A single image to export. The exporter and legend are used by other
+     * threads, their layer must not be edited, eg. a LayerSnapshot
+     */
+    public static class Job {
+        final String name;
+        final File file;
+        // null if the map is empty
+        final StreamingMapExporter exporter;
+        // null if no legend is drawn
+        Legend legend = null;
+        LegendPosition legendPosition = LegendPosition.BOTTOM;
+
+        volatile State state = State.WAITING;
+        volatile boolean started = false;
+        volatile long startTime = 0;
+        volatile long duration = 0;
+        volatile String error = null;
+
+        /**
+         * Constructs an export job
+         * @param name name shown in progress and summary, eg. the layer name
+         * @param file file to write
+         * @param exporter exporter or null if the map is empty
+         */
+        public Job(String name, File file, StreamingMapExporter exporter){
+            if(file == null) throw new NullPointerException();
+            this.name = name;
+            this.file = file;
+            this.exporter = exporter;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public File getFile() {
+            return file;
+        }
+
+        public StreamingMapExporter getExporter() {
+            return exporter;
+        }
+
+        /**
+         * Sets the legend that is generated when the export starts
+         * @param legend legend or null
+         * @param legendPosition position relative to the map
+         */
+        public void setLegend(Legend legend, LegendPosition legendPosition) {
+            this.legend = legend;
+            this.legendPosition = legendPosition;
+        }
+
+        public State getState() {
+            return state;
+        }
+
+        public boolean isFinished(){
+            return state != State.WAITING && state != State.RUNNING;
+        }
+
+        /**
+         * Gets the error message if the export failed
+         * @return message or null
+         */
+        public String getError() {
+            return error;
+        }
+
+        /**
+         * Gets the time spent on the export, up to now if it is running
+         * @return time in milliseconds
+         */
+        public long getDuration() {
+            if(state == State.RUNNING) return System.currentTimeMillis() - startTime;
+            return duration;
+        }
+
+        public int getRegionsRendered(){
+            return exporter != null ? exporter.getRenderer().getRegionsRendered() : 0;
+        }
+
+        /**
+         * Gets the progress of the export
+         * @return progress between 0 and 1
+         */
+        public double getProgress(){
+            if(isFinished()) return 1.0;
+            if(exporter == null) return 0.0;
+            return (double) getRegionsRendered() / Math.max(1, exporter.getRegionCount());
+        }
+
+        void start(){
+            startTime = System.currentTimeMillis();
+            started = true;
+            state = State.RUNNING;
+        }
+
+        void finish(State state, String error){
+            if(started) duration = System.currentTimeMillis() - startTime;
+            this.error = error;
+            this.state = state;
+        }
+    }
+
+}
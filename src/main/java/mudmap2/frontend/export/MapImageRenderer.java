@@ -0,0 +1,308 @@
+/*  MUD Map (v2) - A tool to create and organize maps for text-based games
+ *  Copyright (C) 2026  Neop (email: mneop@web.de)
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License along
+ *  with this program; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*  File description
+ *
+ *  Renders a map or a part of it into an image. Large images are split into
+ *  regions that are rendered in parallel by separate painters
+ */
+
+package mudmap2.frontend.export;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import mudmap2.backend.Layer;
+import mudmap2.backend.WorldCoordinate;
+import mudmap2.frontend.GUIElement.WorldPanel.MapPainterDefault;
+
+/**
+ * Renders a layer into an image of a fixed size. The image is split into
+ * regions, each region is rendered by its own painter, so regions can be
+ * rendered concurrently. All regions use the same world to pixel mapping,
+ * so paths that cross region borders are drawn seamlessly
+ * @author neop
+ */
+public class MapImageRenderer {
+
+    // default width and height of a region in pixel
+    public static final int DEFAULT_REGION_SIZE = 1024;
+
+    final Layer layer;
+    final WorldCoordinate center;
+    final int tileSize;
+    final int width;
+    final int height;
+
+    Font font = null;
+    boolean gridEnabled = false;
+    boolean showPaths = true;
+    boolean pathsCurved = true;
+    int regionSize = DEFAULT_REGION_SIZE;
+
+    final AtomicBoolean cancelled = new AtomicBoolean(false);
+    final AtomicInteger regionsRendered = new AtomicInteger(0);
+    ProgressListener progressListener = null;
+
+    /**
+     * Constructs a renderer
+     * @param layer layer to render
+     * @param center world coordinate at the image center
+     * @param tileSize tile size in pixel
+     * @param width image width in pixel
+     * @param height image height in pixel
+     */
+    public MapImageRenderer(Layer layer, WorldCoordinate center, int tileSize, int width, int height){
+        if(layer == null || center == null) throw new NullPointerException();
+
+        this.layer = layer;
+        this.center = new WorldCoordinate(center);
+        this.tileSize = tileSize;
+        this.width = width;
+        this.height = height;
+    }
+
+    public Layer getLayer() {
+        return layer;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    public void setFont(Font font) {
+        this.font = font;
+    }
+
+    public void setGridEnabled(boolean gridEnabled) {
+        this.gridEnabled = gridEnabled;
+    }
+
+    public void setShowPaths(boolean showPaths) {
+        this.showPaths = showPaths;
+    }
+
+    public void setPathsCurved(boolean pathsCurved) {
+        this.pathsCurved = pathsCurved;
+    }
+
+    /**
+     * Sets the maximum width and height of the regions that are rendered
+     * separately
+     * @param regionSize region size in pixel
+     */
+    public void setRegionSize(int regionSize) {
+        this.regionSize = Math.max(regionSize, tileSize);
+    }
+
+    public void setProgressListener(ProgressListener progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    /**
+     * Gets the number of regions the image is split into
+     * @return
+     */
+    public int getRegionCount(){
+        return getRegionCount(width, height);
+    }
+
+    /**
+     * Gets the number of regions an area is split into
+     * @param areaWidth
+     * @param areaHeight
+     * @return
+     */
+    public int getRegionCount(int areaWidth, int areaHeight){
+        return getRegionCount(areaWidth) * getRegionCount(areaHeight);
+    }
+
+    private int getRegionCount(int size){
+        return (size + regionSize - 1) / regionSize;
+    }
+
+    /**
+     * Gets the number of regions that have been rendered
+     * @return
+     */
+    public int getRegionsRendered(){
+        return regionsRendered.get();
+    }
+
+    /**
+     * Stops rendering, render() throws a CancellationException afterwards
+     */
+    public void cancel(){
+        cancelled.set(true);
+    }
+
+    public boolean isCancelled(){
+        return cancelled.get();
+    }
+
+    /**
+     * Renders the whole image. The regions are rendered on the given pool
+     * @param pool fork join pool
+     * @return transparent image with the map
+     * @throws CancellationException if the rendering was cancelled
+     */
+    public BufferedImage render(ForkJoinPool pool) throws CancellationException {
+        return renderArea(pool, 0, 0, width, height);
+    }
+
+    /**
+     * Renders a part of the image, eg. a horizontal band. The part is split
+     * into regions that are rendered on the given pool
+     * @param pool fork join pool
+     * @param areaX left border of the part in image coordinates
+     * @param areaY upper border of the part in image coordinates
+     * @param areaWidth width of the part
+     * @param areaHeight height of the part
+     * @return transparent image of the part
+     * @throws CancellationException if the rendering was cancelled
+     */
+    public BufferedImage renderArea(ForkJoinPool pool, int areaX, int areaY, int areaWidth, int areaHeight) throws CancellationException {
+        final BufferedImage image = new BufferedImage(areaWidth, areaHeight, BufferedImage.TYPE_INT_ARGB);
+
+        // create the path index before the painters access it concurrently
+        layer.getPathSegmentIndex();
+
+        ArrayList<RenderRegionAction> actions = new ArrayList<>();
+        for(int y = 0; y < areaHeight; y += regionSize){
+            for(int x = 0; x < areaWidth; x += regionSize){
+                actions.add(new RenderRegionAction(image, areaX, areaY, x, y,
+                        Math.min(regionSize, areaWidth - x),
+                        Math.min(regionSize, areaHeight - y)));
+            }
+        }
+
+        pool.invoke(new RenderAllAction(actions));
+
+        if(isCancelled()) throw new CancellationException();
+        return image;
+    }
+
+    /**
+     * Renders a part of the image
+     * @param x left border of the part in image coordinates
+     * @param y upper border of the part in image coordinates
+     * @param regionWidth width of the part
+     * @param regionHeight height of the part
+     * @return transparent image of the part
+     */
+    public BufferedImage renderRegion(int x, int y, int regionWidth, int regionHeight){
+        BufferedImage image = new BufferedImage(regionWidth, regionHeight, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = image.createGraphics();
+
+        // move the region to the image origin, the painter draws in image
+        // coordinates and only within the clip bounds
+        graphics.translate(-x, -y);
+        graphics.setClip(x, y, regionWidth, regionHeight);
+        graphics.setBackground(new Color(255, 255, 255, 0));
+        graphics.clearRect(x, y, regionWidth, regionHeight);
+        if(font != null) graphics.setFont(font);
+
+        MapPainterDefault mappainter = new MapPainterDefault();
+        mappainter.setGridEnabled(gridEnabled);
+        mappainter.setShowPaths(showPaths);
+        mappainter.setPathsCurved(pathsCurved);
+        mappainter.setCursorVisible(false);
+        mappainter.setPlaceSelectionVisible(false);
+        mappainter.paint(graphics, tileSize, width, height, layer, center);
+
+        graphics.dispose();
+        return image;
+    }
+
+    /**
+     * Receives progress updates, may be called from worker threads
+     */
+    public interface ProgressListener {
+        /**
+         * Called after a region was rendered
+         */
+        public void regionRendered();
+    }
+
+    /**
+     * Renders a list of regions in parallel
+     */
+    class RenderAllAction extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        final ArrayList<RenderRegionAction> actions;
+
+        RenderAllAction(ArrayList<RenderRegionAction> actions){
+            this.actions = actions;
+        }
+
+        @Override
+        protected void compute() {
+            invokeAll(actions);
+        }
+    }
+
+    /**
+     * Renders a region and copies it into the image of an area
+     */
+    class RenderRegionAction extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        final BufferedImage image;
+        final int areaX, areaY, x, y, regionWidth, regionHeight;
+
+        RenderRegionAction(BufferedImage image, int areaX, int areaY, int x, int y, int regionWidth, int regionHeight){
+            this.image = image;
+            this.areaX = areaX;
+            this.areaY = areaY;
+            this.x = x;
+            this.y = y;
+            this.regionWidth = regionWidth;
+            this.regionHeight = regionHeight;
+        }
+
+        @Override
+        protected void compute() {
+            if(isCancelled()) return;
+
+            BufferedImage region = renderRegion(areaX + x, areaY + y, regionWidth, regionHeight);
+            // regions don't overlap, so they can be copied concurrently
+            image.getRaster().setDataElements(x, y, region.getRaster());
+
+            regionsRendered.incrementAndGet();
+            if(progressListener != null){
+                progressListener.regionRendered();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,248 @@
+/*  MUD Map (v2) - A tool to create and organize maps for text-based games
+ *  Copyright (C) 2026  Neop (email: mneop@web.de)
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License along
+ *  with this program; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*  File description
+ *
+ *  Writes PNG images row by row, so the whole image never has to be kept in
+ *  memory
+ */
+
+package mudmap2.frontend.export;
+
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * PNG encoder that writes an image row by row. Rows are filtered with the
+ * PNG 'Sub' filter, compressed and written in IDAT chunks of limited size
+ * @author neop
+ */
+public class PngStreamWriter implements Closeable {
+
+    static final byte[] SIGNATURE = {(byte) 137, 80, 78, 71, 13, 10, 26, 10};
+    static final int CHUNK_SIZE = 1 << 16;
+
+    static final byte COLOR_TYPE_RGB = 2;
+    static final byte COLOR_TYPE_RGBA = 6;
+    static final byte FILTER_SUB = 1;
+
+    final DataOutputStream out;
+    final int width;
+    final int height;
+    final boolean alpha;
+    final int bytesPerPixel;
+
+    final Deflater deflater;
+    final DeflaterOutputStream deflaterStream;
+    final byte[] rowRaw;
+    final byte[] rowFiltered;
+    int rowsWritten = 0;
+    boolean closed = false;
+
+    /**
+     * Writes the PNG header
+     * @param out stream to write to, will be closed by close()
+     * @param width image width
+     * @param height image height
+     * @param alpha true to write an alpha channel (RGBA), else RGB
+     * @throws IOException
+     */
+    public PngStreamWriter(OutputStream out, int width, int height, boolean alpha) throws IOException {
+        if(width <= 0 || height <= 0) throw new IllegalArgumentException("Invalid image size " + width + "x" + height);
+
+        this.out = new DataOutputStream(out);
+        this.width = width;
+        this.height = height;
+        this.alpha = alpha;
+        bytesPerPixel = alpha ? 4 : 3;
+
+        rowRaw = new byte[width * bytesPerPixel];
+        rowFiltered = new byte[width * bytesPerPixel + 1];
+
+        this.out.write(SIGNATURE);
+
+        byte[] header = new byte[13];
+        writeInt(header, 0, width);
+        writeInt(header, 4, height);
+        header[8] = 8; // bit depth
+        header[9] = alpha ? COLOR_TYPE_RGBA : COLOR_TYPE_RGB;
+        header[10] = 0; // compression method
+        header[11] = 0; // filter method
+        header[12] = 0; // no interlace
+        writeChunk("IHDR", header, header.length);
+
+        deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        deflaterStream = new DeflaterOutputStream(new ChunkOutputStream(), deflater, CHUNK_SIZE);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Gets the number of rows that have been written
+     * @return
+     */
+    public int getRowsWritten() {
+        return rowsWritten;
+    }
+
+    /**
+     * Writes the next row
+     * @param argb pixels in the format of BufferedImage.TYPE_INT_ARGB
+     * @param offset index of the first pixel of the row
+     * @throws IOException
+     */
+    public void writeRow(int[] argb, int offset) throws IOException {
+        if(rowsWritten >= height) throw new IOException("All rows have been written already");
+
+        int i = 0;
+        for(int x = 0; x < width; ++x){
+            final int pixel = argb[offset + x];
+            rowRaw[i++] = (byte) (pixel >> 16);
+            rowRaw[i++] = (byte) (pixel >> 8);
+            rowRaw[i++] = (byte) pixel;
+            if(alpha) rowRaw[i++] = (byte) (pixel >>> 24);
+        }
+
+        // filter 'Sub': difference to the same byte of the previous pixel
+        rowFiltered[0] = FILTER_SUB;
+        for(i = 0; i < bytesPerPixel; ++i){
+            rowFiltered[i + 1] = rowRaw[i];
+        }
+        for(i = bytesPerPixel; i < rowRaw.length; ++i){
+            rowFiltered[i + 1] = (byte) (rowRaw[i] - rowRaw[i - bytesPerPixel]);
+        }
+
+        deflaterStream.write(rowFiltered);
+        ++rowsWritten;
+    }
+
+    /**
+     * Finishes the image and closes the stream
+     * @throws IOException if not all rows have been written
+     */
+    @Override
+    public void close() throws IOException {
+        if(closed) return;
+        closed = true;
+
+        try {
+            deflaterStream.close();
+            writeChunk("IEND", new byte[0], 0);
+            out.flush();
+        } finally {
+            deflater.end();
+            out.close();
+        }
+
+        if(rowsWritten != height){
+            throw new IOException("Incomplete image: " + rowsWritten + " of " + height + " rows written");
+        }
+    }
+
+    /**
+     * Closes the stream without finishing the image, eg. after the export
+     * was cancelled
+     */
+    public void abort(){
+        if(closed) return;
+        closed = true;
+
+        deflater.end();
+        try {
+            out.close();
+        } catch (IOException ex) {
+            // the incomplete file will be discarded anyway
+        }
+    }
+
+    /**
+     * Writes a chunk with length and checksum
+     * @param type chunk type
+     * @param data chunk data
+     * @param length length of the data
+     * @throws IOException
+     */
+    private void writeChunk(String type, byte[] data, int length) throws IOException {
+        byte[] typeBytes = type.getBytes("US-ASCII");
+
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data, 0, length);
+
+        out.writeInt(length);
+        out.write(typeBytes);
+        out.write(data, 0, length);
+        out.writeInt((int) crc.getValue());
+    }
+
+    private static void writeInt(byte[] buffer, int offset, int value){
+        buffer[offset] = (byte) (value >>> 24);
+        buffer[offset + 1] = (byte) (value >>> 16);
+        buffer[offset + 2] = (byte) (value >>> 8);
+        buffer[offset + 3] = (byte) value;
+    }
+
+    /**
+     * Collects compressed data and writes it as IDAT chunks
+     */
+    private class ChunkOutputStream extends OutputStream {
+        final byte[] buffer = new byte[CHUNK_SIZE];
+        int length = 0;
+
+        @Override
+        public void write(int b) throws IOException {
+            if(length == buffer.length) flushChunk();
+            buffer[length++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while(len > 0){
+                if(length == buffer.length) flushChunk();
+                int n = Math.min(len, buffer.length - length);
+                System.arraycopy(b, off, buffer, length, n);
+                length += n;
+                off += n;
+                len -= n;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            flushChunk();
+        }
+
+        private void flushChunk() throws IOException {
+            if(length > 0){
+                writeChunk("IDAT", buffer, length);
+                length = 0;
+            }
+        }
+    }
+
+}
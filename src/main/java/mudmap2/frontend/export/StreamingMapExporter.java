@@ -0,0 +1,262 @@
+/*  MUD Map (v2) - A tool to create and organize maps for text-based games
+ *  Copyright (C) 2026  Neop (email: mneop@web.de)
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License along
+ *  with this program; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*  File description
+ *
+ *  Exports a map with legend and background to a PNG file, the map is
+ *  rendered in horizontal bands that are written to the file immediately
+ */
+
+package mudmap2.frontend.export;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Writes a map image band by band. Only one band of the map is kept in
+ * memory, so the image size isn't limited by the heap size
+ * @author neop
+ */
+public class StreamingMapExporter {
+
+    // maximum number of pixels of a band
+    public static final int BAND_PIXELS_MAX = 1 << 22;
+
+    final MapImageRenderer renderer;
+    BufferedImage legend = null;
+    LegendPosition legendPosition = LegendPosition.BOTTOM;
+    // null for transparent background
+    Color backgroundColor = null;
+
+    /**
+     * Constructs an exporter
+     * @param renderer map renderer
+     */
+    public StreamingMapExporter(MapImageRenderer renderer){
+        if(renderer == null) throw new NullPointerException();
+        this.renderer = renderer;
+    }
+
+    public MapImageRenderer getRenderer() {
+        return renderer;
+    }
+
+    /**
+     * Sets the legend image
+     * @param legend legend image or null
+     * @param legendPosition position relative to the map
+     */
+    public void setLegend(BufferedImage legend, LegendPosition legendPosition) {
+        this.legend = legend;
+        this.legendPosition = legendPosition;
+    }
+
+    /**
+     * Sets the background color
+     * @param backgroundColor color or null for a transparent image
+     */
+    public void setBackgroundColor(Color backgroundColor) {
+        this.backgroundColor = backgroundColor;
+    }
+
+    /**
+     * Gets the height of the bands the map is rendered in, a multiple of
+     * the tile size
+     * @return band height in pixel
+     */
+    public int getBandHeight(){
+        final int tileSize = Math.max(renderer.getTileSize(), 1);
+        int rows = BAND_PIXELS_MAX / Math.max(renderer.getWidth(), 1);
+        rows -= rows % tileSize;
+        return Math.min(Math.max(rows, tileSize), Math.max(renderer.getHeight(), 1));
+    }
+
+    /**
+     * Gets the number of regions that will be rendered, for progress display
+     * @return
+     */
+    public int getRegionCount(){
+        final int bandHeight = getBandHeight();
+        int count = 0;
+        for(int y = 0; y < renderer.getHeight(); y += bandHeight){
+            count += renderer.getRegionCount(renderer.getWidth(), Math.min(bandHeight, renderer.getHeight() - y));
+        }
+        return count;
+    }
+
+    /**
+     * Estimates the memory needed while writing: the band image, the region
+     * images copied into it and the row buffers. The legend isn't included
+     * since it is generated when the export starts
+     * @return memory in bytes
+     */
+    public long getMemoryEstimate(){
+        final long bandBytes = 4L * renderer.getWidth() * getBandHeight();
+        return 2 * bandBytes + 8L * getImageWidth();
+    }
+
+    /**
+     * Gets the width of the output image, including the legend
+     * @return
+     */
+    public int getImageWidth(){
+        int width = renderer.getWidth();
+        if(legend != null && (legendPosition == LegendPosition.LEFT || legendPosition == LegendPosition.RIGHT)){
+            width += legend.getWidth();
+        }
+        return width;
+    }
+
+    /**
+     * Gets the height of the output image, including the legend
+     * @return
+     */
+    public int getImageHeight(){
+        int height = renderer.getHeight();
+        if(legend != null && (legendPosition == LegendPosition.TOP || legendPosition == LegendPosition.BOTTOM)){
+            height += legend.getHeight();
+        }
+        return height;
+    }
+
+    /**
+     * Renders the map and writes the PNG image
+     * @param out stream to write to, will be closed
+     * @param pool pool for rendering the bands
+     * @throws IOException
+     * @throws CancellationException if the renderer was cancelled
+     */
+    public void write(OutputStream out, ForkJoinPool pool) throws IOException, CancellationException {
+        final int mapWidth = renderer.getWidth();
+        final int mapHeight = renderer.getHeight();
+        final int imageWidth = getImageWidth();
+        final int imageHeight = getImageHeight();
+        final int bandHeight = getBandHeight();
+
+        // map and legend position
+        int mapX = 0, mapY = 0;
+        int legendX = 0, legendY = 0;
+        if(legend != null){
+            switch(legendPosition){
+                case BOTTOM:
+                    legendY = mapHeight;
+                    break;
+                case TOP:
+                    mapY = legend.getHeight();
+                    break;
+                case LEFT:
+                    mapX = legend.getWidth();
+                    break;
+                case RIGHT:
+                    legendX = mapWidth;
+                    break;
+            }
+        }
+
+        final int background = backgroundColor == null ? 0 : (backgroundColor.getRGB() | 0xff000000);
+        final int[] row = new int[imageWidth];
+        final int[] legendRow = legend != null ? new int[legend.getWidth()] : null;
+
+        BufferedImage band = null;
+        int[] bandData = null;
+        int bandY = 0;
+
+        PngStreamWriter png = new PngStreamWriter(out, imageWidth, imageHeight, backgroundColor == null);
+        boolean complete = false;
+        try {
+            for(int y = 0; y < imageHeight; ++y){
+                Arrays.fill(row, background);
+
+                // legend
+                if(legend != null && y >= legendY && y < legendY + legend.getHeight()){
+                    legend.getRGB(0, y - legendY, legendRow.length, 1, legendRow, 0, legendRow.length);
+                    drawRow(row, legendX, legendRow, 0, legendRow.length, backgroundColor != null);
+                }
+
+                // map
+                final int mapRow = y - mapY;
+                if(mapRow >= 0 && mapRow < mapHeight){
+                    if(band == null || mapRow >= bandY + band.getHeight()){
+                        // release the previous band before rendering the next one
+                        band = null;
+                        bandData = null;
+                        bandY = mapRow;
+                        band = renderer.renderArea(pool, 0, bandY, mapWidth, Math.min(bandHeight, mapHeight - bandY));
+                        bandData = ((DataBufferInt) band.getRaster().getDataBuffer()).getData();
+                    }
+                    drawRow(row, mapX, bandData, (mapRow - bandY) * mapWidth, mapWidth, backgroundColor != null);
+                }
+
+                png.writeRow(row, 0);
+            }
+            complete = true;
+        } finally {
+            if(complete){
+                png.close();
+            } else {
+                png.abort();
+            }
+        }
+    }
+
+    /**
+     * Draws pixels on a row
+     * @param row destination
+     * @param x first pixel on the destination row
+     * @param src source pixels (ARGB)
+     * @param offset first source pixel
+     * @param length number of pixels
+     * @param opaque if true, the pixels are blended with the row, else
+     * they are copied
+     */
+    private static void drawRow(int[] row, int x, int[] src, int offset, int length, boolean opaque){
+        if(!opaque){
+            System.arraycopy(src, offset, row, x, length);
+        } else {
+            for(int i = 0; i < length; ++i){
+                row[x + i] = blend(src[offset + i], row[x + i]);
+            }
+        }
+    }
+
+    /**
+     * Blends a pixel over an opaque pixel
+     * @param src source pixel (ARGB)
+     * @param dst destination pixel (RGB)
+     * @return opaque result
+     */
+    static int blend(int src, int dst){
+        final int alpha = src >>> 24;
+        if(alpha == 255) return src;
+        if(alpha == 0) return dst;
+
+        int ret = 0xff000000;
+        for(int shift = 0; shift <= 16; shift += 8){
+            final int s = (src >> shift) & 0xff;
+            final int d = (dst >> shift) & 0xff;
+            ret |= ((s * alpha + d * (255 - alpha) + 127) / 255) << shift;
+        }
+        return ret;
+    }
+
+}
@@ -0,0 +1,693 @@
+/*  MUD Map (v2) - A tool to create and organize maps for text-based games
+ *  Copyright (C) 2026  Neop (email: mneop@web.de)
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License along
+ *  with this program; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*  File description
+ *
+ *  Exports a map as SVG vector image. The elements are written to the file
+ *  while the layer is read, no document is built in memory
+ */
+
+package mudmap2.frontend.export;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.font.TextAttribute;
+import java.awt.image.BufferedImage;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import mudmap2.backend.Layer;
+import mudmap2.backend.Path;
+import mudmap2.backend.Place;
+import mudmap2.backend.World;
+import mudmap2.frontend.GUIElement.WorldPanel.MapPainterDefault;
+
+/**
+ * Writes a layer as SVG image. It looks like the map drawn by
+ * MapPainterDefault: exit positions, path curves, stroke widths and text
+ * layout are taken from there.
+ *
+ * The places are read three times: for the place group backgrounds, the
+ * paths and the tile contents, so the paths are drawn below the tile
+ * centers like on the map. Colors are written as CSS classes, the classes
+ * are collected before the elements are written. Only the place that is
+ * written is kept in memory, so the memory usage doesn't depend on the
+ * layer size
+ * @author neop
+ */
+public class SvgExporter {
+
+    static final Font DEFAULT_FONT = new Font(Font.DIALOG, Font.PLAIN, 12);
+    static final int BUFFER_SIZE = 1 << 16;
+
+    static final String STR_INFO_COMMENT = "C: ";
+    static final String STR_INFO_MAP_LINK = "Map: ";
+    static final String STR_INFO_LEVEL = "lvl: ";
+    static final String STR_FLAG_COMMENT = "C";
+    static final String STR_FLAG_MAP_LINK = "M";
+
+    // css class prefixes
+    static final char CLASS_FILL = 'f';
+    static final char CLASS_PATH = 'p';
+    static final char CLASS_RING = 'r';
+    static final char CLASS_STOP = 's';
+
+    final Layer layer;
+    final int tileSize;
+    // exported area in place coordinates
+    int xMin, yMin, xMax, yMax;
+
+    Font font = DEFAULT_FONT;
+    boolean gridEnabled = false;
+    boolean showPaths = true;
+    boolean pathsCurved = true;
+    Color backgroundColor = null;
+
+    final AtomicBoolean cancelled = new AtomicBoolean(false);
+    final AtomicInteger placesWritten = new AtomicInteger(0);
+
+    // class prefix and argb color -> css class name, in order of creation
+    final LinkedHashMap<Long, String> classes = new LinkedHashMap<>();
+    // number of classes that were written to the style element
+    int classesWritten;
+    int gradientCount;
+
+    // reused while writing
+    Writer out;
+    FontMetrics fm, fmExits;
+    final int[] exitOffset = new int[2];
+    final int[] exitOffsetOther = new int[2];
+    final double[] exitNormal = new double[2];
+    final double[] exitNormalOther = new double[2];
+
+    /**
+     * Constructs an exporter for a whole layer
+     * @param layer layer to export
+     * @param tileSize place size in pixel
+     */
+    public SvgExporter(Layer layer, int tileSize){
+        if(layer == null) throw new NullPointerException();
+        this.layer = layer;
+        this.tileSize = Math.max(1, tileSize);
+        xMin = layer.getXMin();
+        xMax = layer.getXMax();
+        yMin = layer.getYMin();
+        yMax = layer.getYMax();
+    }
+
+    public Layer getLayer() {
+        return layer;
+    }
+
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    /**
+     * Sets the exported area, places outside of it are skipped
+     * @param xMin
+     * @param yMin
+     * @param xMax
+     * @param yMax
+     */
+    public void setBounds(int xMin, int yMin, int xMax, int yMax){
+        this.xMin = Math.min(xMin, xMax);
+        this.xMax = Math.max(xMin, xMax);
+        this.yMin = Math.min(yMin, yMax);
+        this.yMax = Math.max(yMin, yMax);
+    }
+
+    public void setFont(Font font) {
+        this.font = font != null ? font : DEFAULT_FONT;
+    }
+
+    public void setGridEnabled(boolean gridEnabled) {
+        this.gridEnabled = gridEnabled;
+    }
+
+    public void setShowPaths(boolean showPaths) {
+        this.showPaths = showPaths;
+    }
+
+    public void setPathsCurved(boolean pathsCurved) {
+        this.pathsCurved = pathsCurved;
+    }
+
+    /**
+     * Sets the background color
+     * @param backgroundColor color or null for a transparent background
+     */
+    public void setBackgroundColor(Color backgroundColor) {
+        this.backgroundColor = backgroundColor;
+    }
+
+    public int getWidth(){
+        return (xMax - xMin + 1) * tileSize;
+    }
+
+    public int getHeight(){
+        return (yMax - yMin + 1) * tileSize;
+    }
+
+    /**
+     * Stops writing, write() throws a CancellationException afterwards
+     */
+    public void cancel(){
+        cancelled.set(true);
+    }
+
+    /**
+     * Gets the progress, each place is counted once per pass
+     * @return number of places written
+     */
+    public int getPlacesWritten(){
+        return placesWritten.get();
+    }
+
+    /**
+     * Writes the SVG image
+     * @param os stream to write to, will be closed
+     * @throws IOException
+     * @throws CancellationException if the export was cancelled
+     */
+    public void write(OutputStream os) throws IOException, CancellationException {
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(os, StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            write(writer);
+        }
+    }
+
+    /**
+     * Writes the SVG image
+     * @param writer writer, should be buffered. It isn't closed
+     * @throws IOException
+     * @throws CancellationException if the export was cancelled
+     */
+    public void write(Writer writer) throws IOException, CancellationException {
+        out = writer;
+        classes.clear();
+        classesWritten = 0;
+        gradientCount = 0;
+        placesWritten.set(0);
+
+        BufferedImage scratch = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = scratch.createGraphics();
+        fm = graphics.getFontMetrics(font);
+        fmExits = graphics.getFontMetrics(getExitsFont(font));
+        graphics.dispose();
+
+        try {
+            collectStyles();
+
+            final int width = getWidth(), height = getHeight();
+            out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+            out.write("<svg xmlns=\"http://www.w3.org/2000/svg\" version=\"1.1\" width=\"" + width
+                    + "\" height=\"" + height + "\" viewBox=\"0 0 " + width + " " + height + "\">\n");
+            writeStyle();
+
+            if(backgroundColor != null){
+                out.write("<rect width=\"" + width + "\" height=\"" + height + "\" class=\""
+                        + getClass(CLASS_FILL, backgroundColor) + "\"/>\n");
+            }
+            if(gridEnabled) writeGrid();
+
+            final boolean drawText = isTextDrawn();
+            for(int pass = 0; pass < 3; ++pass){
+                for(Place place: layer.getPlaces()){
+                    if(cancelled.get()) throw new CancellationException();
+                    if(!isInside(place.getX(), place.getY())) continue;
+
+                    switch(pass){
+                        case 0:
+                            writeTileBackground(place);
+                            break;
+                        case 1:
+                            if(showPaths) writePaths(place);
+                            break;
+                        default:
+                            writeTile(place, drawText);
+                            break;
+                    }
+                    placesWritten.incrementAndGet();
+                }
+            }
+
+            // classes that weren't found in advance, css applies to the
+            // whole document
+            if(classesWritten < classes.size()) writeStyle();
+            out.write("</svg>\n");
+            out.flush();
+        } finally {
+            out = null;
+        }
+    }
+
+    /**
+     * Checks whether a position is in the exported area
+     */
+    boolean isInside(int x, int y){
+        return x >= xMin && x <= xMax && y >= yMin && y <= yMax;
+    }
+
+    int getPlaceXpx(Place place){
+        return (place.getX() - xMin) * tileSize;
+    }
+
+    int getPlaceYpx(Place place){
+        return (yMax - place.getY()) * tileSize;
+    }
+
+    /**
+     * Checks whether the tiles are large enough for text, like in
+     * MapPainterDefault
+     * @return
+     */
+    boolean isTextDrawn(){
+        return fm.stringWidth("WW") < (tileSize - 2 * (MapPainterDefault.getInformationColorStrokeWidth(tileSize)
+                + MapPainterDefault.getTileBorderWidth(tileSize)));
+    }
+
+    /**
+     * Finds the colors of the places and paths and creates their classes
+     */
+    void collectStyles(){
+        final World world = layer.getWorld();
+        getClass(CLASS_FILL, world.getTileCenterColor());
+        if(backgroundColor != null) getClass(CLASS_FILL, backgroundColor);
+        for(Place place: layer.getPlaces()){
+            if(!isInside(place.getX(), place.getY())) continue;
+            if(place.getPlaceGroup() != null) getClass(CLASS_FILL, place.getPlaceGroup().getColor());
+            if(place.getInfoRing() != null) getClass(CLASS_RING, place.getInfoRing().getColor());
+            if(showPaths){
+                for(Path path: place.getPaths()){
+                    Color color = world.getPathColor(path.getExit(place));
+                    getClass(CLASS_FILL, color);
+                    getClass(CLASS_PATH, color);
+                    getClass(CLASS_STOP, color);
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the css class of a color, creates it if necessary
+     * @param kind class prefix, the kind of element
+     * @param color color
+     * @return class name
+     */
+    String getClass(char kind, Color color){
+        if(color == null) color = Color.BLACK;
+        final Long key = ((long) kind << 32) | (color.getRGB() & 0xffffffffL);
+        String name = classes.get(key);
+        if(name == null){
+            name = kind + Integer.toString(classes.size());
+            classes.put(key, name);
+        }
+        return name;
+    }
+
+    /**
+     * Writes the classes that weren't written yet as style element
+     * @throws IOException
+     */
+    void writeStyle() throws IOException {
+        final String pathWidth = formatNumber(MapPainterDefault.getPathStrokeWidth(tileSize));
+        final String ringWidth = formatNumber(MapPainterDefault.getInformationColorStrokeWidth(tileSize));
+
+        out.write("<style type=\"text/css\">\n");
+        if(classesWritten == 0){
+            out.write("text{font-family:'" + escape(font.getFamily()) + "';font-size:" + font.getSize() + "px;fill:#000000}\n");
+            out.write(".x{font-size:" + getExitsFont(font).getSize() + "px}\n");
+            out.write(".g{fill:none;stroke:#c0c0c0;stroke-width:1}\n");
+            out.write(".pg{fill:none;stroke-width:" + pathWidth + "}\n");
+        }
+        int i = 0;
+        for(Map.Entry<Long, String> entry: classes.entrySet()){
+            if(i++ < classesWritten) continue;
+            final String color = formatColor(new Color((int) (long) entry.getKey(), true));
+            out.write("." + entry.getValue() + "{");
+            switch((char) (entry.getKey() >>> 32)){
+                case CLASS_FILL:
+                    out.write("fill:" + color);
+                    break;
+                case CLASS_PATH:
+                    out.write("fill:none;stroke:" + color + ";stroke-width:" + pathWidth);
+                    break;
+                case CLASS_RING:
+                    out.write("fill:none;stroke:" + color + ";stroke-width:" + ringWidth);
+                    break;
+                case CLASS_STOP:
+                    out.write("stop-color:" + color);
+                    break;
+            }
+            out.write("}\n");
+        }
+        classesWritten = classes.size();
+        out.write("</style>\n");
+    }
+
+    /**
+     * Writes the grid lines as single path
+     * @throws IOException
+     */
+    void writeGrid() throws IOException {
+        final int width = getWidth(), height = getHeight();
+        out.write("<path class=\"g\" d=\"");
+        for(int x = 0; x <= width; x += tileSize){
+            out.write("M" + x + " 0V" + height);
+        }
+        for(int y = 0; y <= height; y += tileSize){
+            out.write("M0 " + y + "H" + width);
+        }
+        out.write("\"/>\n");
+    }
+
+    /**
+     * Writes the place group color and the exit dots of a place
+     * @param place
+     * @throws IOException
+     */
+    void writeTileBackground(Place place) throws IOException {
+        final int placeXpx = getPlaceXpx(place);
+        final int placeYpx = getPlaceYpx(place);
+
+        if(place.getPlaceGroup() != null){
+            writeRect(placeXpx, placeYpx, tileSize, tileSize, getClass(CLASS_FILL, place.getPlaceGroup().getColor()));
+        }
+
+        // exit dots, if tiles are larger than 20
+        if(showPaths && tileSize >= 20){
+            final int tileBorderWidth = MapPainterDefault.getTileBorderWidth(tileSize);
+            final int radius = MapPainterDefault.getExitCircleRadius(tileSize);
+            for(Path path: place.getPaths()){
+                final String exit = path.getExit(place);
+                if(exit.equals("u") || exit.equals("d")) continue;
+                MapPainterDefault.getExitOffset(exit, tileSize, tileBorderWidth, exitOffset);
+                if(exitOffset[0] != tileSize / 2 || exitOffset[1] != tileSize / 2){
+                    out.write("<circle cx=\"" + (placeXpx + exitOffset[0]) + "\" cy=\"" + (placeYpx + exitOffset[1])
+                            + "\" r=\"" + radius + "\" class=\""
+                            + getClass(CLASS_FILL, layer.getWorld().getPathColor(exit)) + "\"/>\n");
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the paths that start at a place, so each path is written once
+     * @param place
+     * @throws IOException
+     */
+    void writePaths(Place place) throws IOException {
+        final World world = layer.getWorld();
+        final int tileBorderWidth = MapPainterDefault.getTileBorderWidth(tileSize);
+        final int placeXpx = getPlaceXpx(place);
+        final int placeYpx = getPlaceYpx(place);
+
+        for(Path path: place.getPaths()){
+            if(path.getPlaces()[0] != place) continue;
+            final Place otherPlace = path.getPlaces()[1];
+            final String dir1 = path.getExitDirections()[0];
+            final String dir2 = path.getExitDirections()[1];
+
+            MapPainterDefault.getExitOffset(dir1, tileSize, tileBorderWidth, exitOffset);
+            MapPainterDefault.getExitOffset(dir2, tileSize, tileBorderWidth, exitOffsetOther);
+
+            final double exit1x = placeXpx + exitOffset[0];
+            final double exit1y = placeYpx + exitOffset[1];
+            final double exit2x = placeXpx + (otherPlace.getX() - place.getX()) * tileSize + exitOffsetOther[0];
+            final double exit2y = placeYpx - (otherPlace.getY() - place.getY()) * tileSize + exitOffsetOther[1];
+
+            final boolean curved = pathsCurved && MapPainterDefault.isCurveDrawable(exit1x, exit1y, exit2x, exit2y, tileSize);
+
+            StringBuilder d = new StringBuilder(64);
+            if(curved){
+                MapPainterDefault.getExitNormal(dir1, exitNormal);
+                MapPainterDefault.getExitNormal(dir2, exitNormalOther);
+                d.append('M').append(formatNumber(exit1x)).append(' ').append(formatNumber(exit1y))
+                        .append('C').append(formatNumber(exit1x + exitNormal[0] * tileSize))
+                        .append(' ').append(formatNumber(exit1y - exitNormal[1] * tileSize))
+                        .append(' ').append(formatNumber(exit2x + exitNormalOther[0] * tileSize))
+                        .append(' ').append(formatNumber(exit2y - exitNormalOther[1] * tileSize))
+                        .append(' ').append(formatNumber(exit2x)).append(' ').append(formatNumber(exit2y));
+            } else {
+                d.append('M').append((int) exit1x).append(' ').append((int) exit1y)
+                        .append('L').append((int) exit2x).append(' ').append((int) exit2y);
+            }
+
+            final Color color1 = world.getPathColor(dir1);
+            final Color color2 = world.getPathColor(dir2);
+            if(color1.equals(color2)){
+                out.write("<path d=\"" + d + "\" class=\"" + getClass(CLASS_PATH, color1) + "\"/>\n");
+            } else {
+                // color gradient from one exit to the other
+                final String id = "lg" + gradientCount++;
+                out.write("<linearGradient id=\"" + id + "\" gradientUnits=\"userSpaceOnUse\" x1=\""
+                        + formatNumber(exit1x) + "\" y1=\"" + formatNumber(exit1y) + "\" x2=\""
+                        + formatNumber(exit2x) + "\" y2=\"" + formatNumber(exit2y) + "\"><stop offset=\"0\" class=\""
+                        + getClass(CLASS_STOP, color1) + "\"/><stop offset=\"1\" class=\""
+                        + getClass(CLASS_STOP, color2) + "\"/></linearGradient>\n");
+                out.write("<path d=\"" + d + "\" class=\"pg\" stroke=\"url(#" + id + ")\"/>\n");
+            }
+        }
+    }
+
+    /**
+     * Writes the tile center, information ring and text of a place
+     * @param place
+     * @param drawText true if the tiles are large enough for text
+     * @throws IOException
+     */
+    void writeTile(Place place, boolean drawText) throws IOException {
+        final World world = layer.getWorld();
+        final int placeXpx = getPlaceXpx(place);
+        final int placeYpx = getPlaceYpx(place);
+        final int tileBorderWidth = MapPainterDefault.getTileBorderWidth(tileSize);
+        final float ringWidth = MapPainterDefault.getInformationColorStrokeWidth(tileSize);
+        final int centerSize = tileSize - 2 * tileBorderWidth;
+
+        // the tile center covers the paths
+        if(drawText){
+            writeRect(placeXpx + tileBorderWidth, placeYpx + tileBorderWidth, centerSize, centerSize,
+                    getClass(CLASS_FILL, world.getTileCenterColor()));
+        } else if(showPaths && (place.getPlaceGroup() != null || backgroundColor != null)){
+            writeRect(placeXpx + tileBorderWidth, placeYpx + tileBorderWidth, centerSize, centerSize,
+                    getClass(CLASS_FILL, place.getPlaceGroup() != null ? place.getPlaceGroup().getColor() : backgroundColor));
+        }
+
+        if(place.getInfoRing() != null){
+            writeRect(placeXpx + tileBorderWidth, placeYpx + tileBorderWidth,
+                    centerSize - (int) (0.5 * ringWidth), centerSize - (int) (0.5 * ringWidth),
+                    getClass(CLASS_RING, place.getInfoRing().getColor()));
+        }
+
+        if(drawText) writeTileText(place, placeXpx, placeYpx, tileBorderWidth, ringWidth);
+    }
+
+    /**
+     * Writes the text of a place, same layout as in MapPainterDefault
+     * @throws IOException
+     */
+    void writeTileText(Place place, int placeXpx, int placeYpx, int tileBorderWidth, float ringWidth) throws IOException {
+        final World world = layer.getWorld();
+
+        LinkedList<String> text = new LinkedList<>();
+        String placeName;
+        switch(world.getShowPlaceId()){
+            default:
+            case UNIQUE:
+                placeName = place.getName();
+                if(!layer.isPlaceNameUnique(placeName)) placeName = place.toString();
+                break;
+            case NONE:
+                placeName = place.getName();
+                break;
+            case ALL:
+                placeName = place.toString();
+                break;
+        }
+        text.add(placeName);
+
+        int reclvlmin = place.getRecLevelMin(), reclvlmax = place.getRecLevelMax();
+        if(reclvlmin > -1 || reclvlmax > -1){
+            text.add(STR_INFO_LEVEL + (reclvlmin > -1 ? reclvlmin : "?") + " - " + (reclvlmax > -1 ? reclvlmax : "?"));
+        }
+        if(!place.getParents().isEmpty()) text.add(STR_INFO_MAP_LINK + joinNames(place.getParents()));
+        if(!place.getChildren().isEmpty()) text.add(STR_INFO_MAP_LINK + joinNames(place.getChildren()));
+        if(!place.getComments().isEmpty()) text.add(STR_INFO_COMMENT + place.getComments());
+
+        String flags = "";
+        if(!place.getComments().isEmpty()) flags += STR_FLAG_COMMENT;
+        if(!place.getChildren().isEmpty() || !place.getParents().isEmpty()) flags += STR_FLAG_MAP_LINK;
+        for(Map.Entry<String, Boolean> flag: place.getFlags().entrySet()){
+            if(flag.getValue()) flags += flag.getKey().toUpperCase();
+            if(fm.stringWidth(flags) >= tileSize - 2 * tileBorderWidth) break;
+        }
+
+        String exits = "";
+        if(showPaths && tileSize >= 20){
+            boolean exitUp = false, exitDown = false, exitnstd = false;
+            for(Path path: place.getPaths()){
+                String exit = path.getExit(place);
+                if(exit.equals("u")) exitUp = true;
+                else if(exit.equals("d")) exitDown = true;
+                else {
+                    MapPainterDefault.getExitOffset(exit, tileSize, tileBorderWidth, exitOffset);
+                    if(exitOffset[0] == tileSize / 2 && exitOffset[1] == tileSize / 2) exitnstd = true;
+                }
+            }
+            if(exitUp || exitDown){
+                exits = (exitnstd ? "+" : "") + (exitUp ? "↑" : "") + (exitDown ? "↓" : "");
+            }
+        }
+
+        final int border = (int) (tileBorderWidth + ringWidth);
+        final int x = placeXpx + border, y = placeYpx + border;
+        final int width = tileSize - 2 * border, height = tileSize - 2 * border;
+
+        final int lineHeight = fm.getMaxAscent();
+        final int maxLines = (int) Math.floor((height - fm.getDescent()) / lineHeight);
+        final int topLines = maxLines - ((!flags.isEmpty() || !exits.isEmpty()) && maxLines > 1 ? 1 : 0);
+
+        ArrayList<String> linesTop = new ArrayList<>();
+        for(String topText: text){
+            linesTop.addAll(MapPainterDefault.fitLineLength(topText, fm, width, topLines));
+            if(linesTop.size() >= topLines) break;
+        }
+        for(int i = 0; i < topLines && i < linesTop.size(); ++i){
+            writeText(x, y + (i + 1) * lineHeight, linesTop.get(i), null);
+        }
+
+        if(maxLines > 1){
+            if(!flags.isEmpty() && fm.stringWidth(flags + exits) < width){
+                writeText(x, y + height - fm.getDescent(), flags, null);
+            }
+            if(!exits.isEmpty()){
+                writeText(x + width - fmExits.stringWidth(exits), y + height - fmExits.getDescent(), exits, "x");
+            }
+        }
+    }
+
+    private String joinNames(Iterable<Place> places){
+        StringBuilder ret = new StringBuilder();
+        for(Place p: places){
+            if(ret.length() > 0) ret.append(", ");
+            ret.append(p.getName());
+        }
+        return ret.toString();
+    }
+
+    private void writeRect(int x, int y, int width, int height, String cssClass) throws IOException {
+        out.write("<rect x=\"" + x + "\" y=\"" + y + "\" width=\"" + width + "\" height=\""
+                + height + "\" class=\"" + cssClass + "\"/>\n");
+    }
+
+    private void writeText(int x, int y, String text, String cssClass) throws IOException {
+        out.write("<text x=\"" + x + "\" y=\"" + y + "\"" + (cssClass != null ? " class=\"" + cssClass + "\"" : "")
+                + ">" + escape(text) + "</text>\n");
+    }
+
+    /**
+     * Gets the font for the exits string, like in MapPainterDefault
+     * @param orig tile font
+     * @return derived font
+     */
+    static Font getExitsFont(Font orig){
+        Map<TextAttribute, Object> attributes = new HashMap<>();
+        attributes.put(TextAttribute.SIZE, 17);
+        attributes.put(TextAttribute.TRACKING, 0.0);
+        return orig.deriveFont(attributes);
+    }
+
+    /**
+     * Formats a color for css
+     * @param color
+     * @return #rrggbb or rgba(r,g,b,a) for transparent colors
+     */
+    static String formatColor(Color color){
+        if(color.getAlpha() == 255){
+            return String.format("#%06x", color.getRGB() & 0xffffff);
+        }
+        return "rgba(" + color.getRed() + "," + color.getGreen() + "," + color.getBlue() + ","
+                + formatNumber(color.getAlpha() / 255.0) + ")";
+    }
+
+    /**
+     * Formats a number with up to two decimal places, without exponent
+     * @param value
+     * @return
+     */
+    static String formatNumber(double value){
+        long hundredths = Math.round(value * 100);
+        StringBuilder ret = new StringBuilder();
+        if(hundredths < 0){
+            ret.append('-');
+            hundredths = -hundredths;
+        }
+        ret.append(hundredths / 100);
+        final long fraction = hundredths % 100;
+        if(fraction != 0){
+            ret.append('.').append(fraction / 10);
+            if(fraction % 10 != 0) ret.append(fraction % 10);
+        }
+        return ret.toString();
+    }
+
+    /**
+     * Escapes text for xml, removes characters that aren't allowed in xml
+     * @param text
+     * @return
+     */
+    static String escape(String text){
+        StringBuilder ret = null;
+        for(int i = 0; i < text.length(); ++i){
+            final char c = text.charAt(i);
+            String replacement = null;
+            switch(c){
+                case '&': replacement = "&amp;"; break;
+                case '<': replacement = "&lt;"; break;
+                case '>': replacement = "&gt;"; break;
+                case '"': replacement = "&quot;"; break;
+                case '\'': replacement = "&apos;"; break;
+                default:
+                    if(c < 0x20 && c != '\t' && c != '\n' && c != '\r') replacement = "";
+                    break;
+            }
+            if(replacement != null && ret == null){
+                ret = new StringBuilder(text.length() + 16);
+                ret.append(text, 0, i);
+            }
+            if(ret != null){
+                if(replacement != null) ret.append(replacement);
+                else ret.append(c);
+            }
+        }
+        return ret != null ? ret.toString() : text;
+    }
+
+}
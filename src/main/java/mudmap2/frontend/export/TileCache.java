@@ -0,0 +1,302 @@
+/*  MUD Map (v2) - A tool to create and organize maps for text-based games
+ *  Copyright (C) 2026  Neop (email: mneop@web.de)
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License along
+ *  with this program; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*  File description
+ *
+ *  Two level LRU cache for encoded image tiles: a small one in memory and a
+ *  larger one on disk. Tiles are stored by content hash
+ */
+
+package mudmap2.frontend.export;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Caches PNG encoded tiles by their content hash. Since a tile that changed
+ * gets a new hash, entries never have to be updated: outdated tiles aren't
+ * requested anymore and are evicted when the cache is full. The least
+ * recently used entries are evicted first, the order of the disk cache is
+ * restored from the file modification times
+ * @author neop
+ */
+public class TileCache {
+
+    public static final long DEFAULT_MEMORY_SIZE = 32l << 20;
+    public static final long DEFAULT_DISK_SIZE = 256l << 20;
+    static final String FILE_SUFFIX = ".png";
+
+    final long memorySizeMax;
+    final File directory;
+    final long diskSizeMax;
+
+    // hash -> encoded tile, in access order
+    final LinkedHashMap<String, byte[]> memory = new LinkedHashMap<>(64, 0.75f, true);
+    long memorySize = 0;
+    // hash -> file size, in access order
+    final LinkedHashMap<String, Long> disk = new LinkedHashMap<>(64, 0.75f, true);
+    long diskSize = 0;
+
+    final AtomicLong memoryHits = new AtomicLong(0);
+    final AtomicLong diskHits = new AtomicLong(0);
+    final AtomicLong misses = new AtomicLong(0);
+
+    /**
+     * Creates a cache that is kept in memory only
+     * @param memorySizeMax maximum size of the cached tiles in byte
+     */
+    public TileCache(long memorySizeMax){
+        this(memorySizeMax, null, 0);
+    }
+
+    /**
+     * Creates a cache with a disk cache directory. Tiles that are already
+     * in the directory are used
+     * @param memorySizeMax maximum size of the tiles in memory in byte
+     * @param directory cache directory or null
+     * @param diskSizeMax maximum size of the tiles on disk in byte
+     */
+    public TileCache(long memorySizeMax, File directory, long diskSizeMax){
+        this.memorySizeMax = memorySizeMax;
+        this.directory = directory;
+        this.diskSizeMax = diskSizeMax;
+        if(directory != null) readDirectory();
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Gets a tile from memory or disk
+     * @param hash content hash of the tile
+     * @return encoded tile or null, if it isn't cached
+     */
+    public byte[] get(String hash){
+        synchronized(this){
+            byte[] data = memory.get(hash);
+            if(data != null){
+                memoryHits.incrementAndGet();
+                return data;
+            }
+            if(!disk.containsKey(hash)){
+                misses.incrementAndGet();
+                return null;
+            }
+        }
+
+        // read from disk without blocking the memory cache
+        File file = getFile(hash);
+        try {
+            byte[] data = Files.readAllBytes(file.toPath());
+            file.setLastModified(System.currentTimeMillis());
+            diskHits.incrementAndGet();
+            synchronized(this){
+                disk.get(hash); // update the access order
+                putMemory(hash, data);
+            }
+            return data;
+        } catch (IOException ex) {
+            // removed by another thread or externally
+            synchronized(this){
+                Long size = disk.remove(hash);
+                if(size != null) diskSize -= size;
+            }
+            misses.incrementAndGet();
+            return null;
+        }
+    }
+
+    /**
+     * Gets a tile from memory without counting it as request
+     * @param hash content hash of the tile
+     * @return encoded tile or null, if it isn't in memory
+     */
+    synchronized byte[] peekMemory(String hash){
+        return memory.get(hash);
+    }
+
+    /**
+     * Adds a tile to the cache
+     * @param hash content hash of the tile
+     * @param data encoded tile
+     */
+    public void put(String hash, byte[] data){
+        synchronized(this){
+            putMemory(hash, data);
+            if(directory == null || disk.containsKey(hash) || data.length > diskSizeMax) return;
+        }
+
+        // write to a temporary file first, so other threads never read
+        // an incomplete tile
+        File file = getFile(hash);
+        File tmp = new File(directory, hash + "." + Thread.currentThread().getId() + ".tmp");
+        try {
+            if(!directory.isDirectory() && !directory.mkdirs() && !directory.isDirectory()){
+                throw new IOException("Could not create directory " + directory.getPath());
+            }
+            try (OutputStream out = new FileOutputStream(tmp)) {
+                out.write(data);
+            }
+            if(!tmp.renameTo(file)){
+                file.delete();
+                if(!tmp.renameTo(file)) throw new IOException("Could not rename " + tmp.getPath());
+            }
+        } catch (IOException ex) {
+            tmp.delete();
+            Logger.getLogger(TileCache.class.getName()).log(Level.WARNING, null, ex);
+            return;
+        }
+
+        ArrayList<String> evicted = new ArrayList<>();
+        synchronized(this){
+            if(disk.put(hash, (long) data.length) == null) diskSize += data.length;
+            Iterator<Map.Entry<String, Long>> it = disk.entrySet().iterator();
+            while(diskSize > diskSizeMax && it.hasNext()){
+                Map.Entry<String, Long> entry = it.next();
+                diskSize -= entry.getValue();
+                evicted.add(entry.getKey());
+                it.remove();
+            }
+        }
+        for(String key: evicted){
+            getFile(key).delete();
+        }
+    }
+
+    /**
+     * Removes all tiles from memory and disk
+     */
+    public synchronized void clear(){
+        memory.clear();
+        memorySize = 0;
+        for(String hash: disk.keySet()){
+            getFile(hash).delete();
+        }
+        disk.clear();
+        diskSize = 0;
+    }
+
+    public long getMemoryHits() {
+        return memoryHits.get();
+    }
+
+    public long getDiskHits() {
+        return diskHits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Gets the ratio of requests that were served from memory or disk
+     * @return hit rate between 0 and 1, 0 if nothing was requested
+     */
+    public double getHitRate(){
+        final long hits = memoryHits.get() + diskHits.get();
+        final long requests = hits + misses.get();
+        return requests > 0 ? (double) hits / requests : 0;
+    }
+
+    public synchronized int getMemoryTileCount(){
+        return memory.size();
+    }
+
+    public synchronized long getMemorySize() {
+        return memorySize;
+    }
+
+    public synchronized int getDiskTileCount(){
+        return disk.size();
+    }
+
+    public synchronized long getDiskSize() {
+        return diskSize;
+    }
+
+    /**
+     * Adds a tile to the memory cache and evicts the least recently used
+     * tiles if necessary, has to be called with the lock held
+     * @param hash
+     * @param data
+     */
+    private void putMemory(String hash, byte[] data){
+        if(data.length > memorySizeMax) return;
+        byte[] old = memory.put(hash, data);
+        memorySize += data.length - (old != null ? old.length : 0);
+
+        Iterator<byte[]> it = memory.values().iterator();
+        while(memorySize > memorySizeMax && it.hasNext()){
+            memorySize -= it.next().length;
+            it.remove();
+        }
+    }
+
+    private File getFile(String hash){
+        return new File(directory, hash + FILE_SUFFIX);
+    }
+
+    /**
+     * Reads the tiles in the cache directory, oldest first
+     */
+    private void readDirectory(){
+        File[] files = directory.listFiles();
+        if(files == null) return;
+
+        List<File> list = new ArrayList<>(Arrays.asList(files));
+        Collections.sort(list, new Comparator<File>() {
+            @Override
+            public int compare(File o1, File o2) {
+                return Long.compare(o1.lastModified(), o2.lastModified());
+            }
+        });
+        for(File file: list){
+            final String name = file.getName();
+            if(name.endsWith(".tmp")){
+                // left over from an interrupted write
+                file.delete();
+            } else if(name.endsWith(FILE_SUFFIX) && file.isFile()){
+                disk.put(name.substring(0, name.length() - FILE_SUFFIX.length()), file.length());
+                diskSize += file.length();
+            }
+        }
+
+        Iterator<Map.Entry<String, Long>> it = disk.entrySet().iterator();
+        while(diskSize > diskSizeMax && it.hasNext()){
+            Map.Entry<String, Long> entry = it.next();
+            diskSize -= entry.getValue();
+            getFile(entry.getKey()).delete();
+            it.remove();
+        }
+    }
+
+}
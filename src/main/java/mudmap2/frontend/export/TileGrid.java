@@ -0,0 +1,295 @@
+/*  MUD Map (v2) - A tool to create and organize maps for text-based games
+ *  Copyright (C) 2026  Neop (email: mneop@web.de)
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License along
+ *  with this program; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*  File description
+ *
+ *  Divides a layer into 256px image tiles at several zoom levels, renders
+ *  single tiles and calculates their content hashes
+ */
+
+package mudmap2.frontend.export;
+
+import java.awt.Font;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import mudmap2.backend.Layer;
+import mudmap2.backend.LayerContentHash;
+import mudmap2.backend.Path;
+import mudmap2.backend.PathSegmentIndex;
+import mudmap2.backend.Place;
+import mudmap2.backend.WorldCoordinate;
+import mudmap2.utils.Pair;
+
+/**
+ * Tile geometry of a layer. At the highest zoom level a place is drawn with
+ * the maximum tile size, each lower level halves it. Tile (0, 0) of each
+ * level is at the upper left corner of the layer bounds.
+ *
+ * The content hash of a tile covers the places and paths in and around the
+ * tile and the drawing settings. The grid reads the layer when a zoom level
+ * is used for the first time, it has to be recreated after the layer was
+ * modified. After that the methods may be called by several threads
+ * @author neop
+ */
+public class TileGrid {
+
+    // width and height of an image tile in pixel
+    public static final int TILE_SIZE = 256;
+    // place size at the highest zoom level in pixel
+    public static final int DEFAULT_MAX_TILE_SIZE = 64;
+    public static final int DEFAULT_ZOOM_LEVELS = 5;
+    // places around an image tile that are included in its hash, since
+    // curved paths and exits may reach into neighbouring places
+    static final int MARGIN = 1;
+
+    final Layer layer;
+
+    int maxTileSize = DEFAULT_MAX_TILE_SIZE;
+    int zoomLevels = DEFAULT_ZOOM_LEVELS;
+    Font font = null;
+    boolean gridEnabled = false;
+    boolean showPaths = true;
+    boolean pathsCurved = true;
+
+    // zoom levels that were used, created on demand
+    final HashMap<Integer, ZoomLevel> levels = new HashMap<>();
+
+    /**
+     * Constructs a tile grid
+     * @param layer layer to divide into tiles
+     */
+    public TileGrid(Layer layer){
+        if(layer == null) throw new NullPointerException();
+        this.layer = layer;
+    }
+
+    public Layer getLayer() {
+        return layer;
+    }
+
+    public int getMaxTileSize() {
+        return maxTileSize;
+    }
+
+    /**
+     * Sets the size of a place at the highest zoom level
+     * @param maxTileSize size in pixel
+     */
+    public synchronized void setMaxTileSize(int maxTileSize) {
+        this.maxTileSize = Math.max(1, maxTileSize);
+        levels.clear();
+    }
+
+    public int getZoomLevels() {
+        return zoomLevels;
+    }
+
+    /**
+     * Sets the number of zoom levels, they are numbered from 0 (smallest
+     * places) to zoomLevels - 1 (places have the maximum tile size)
+     * @param zoomLevels
+     */
+    public synchronized void setZoomLevels(int zoomLevels) {
+        this.zoomLevels = Math.max(1, zoomLevels);
+        levels.clear();
+    }
+
+    public synchronized void setFont(Font font) {
+        this.font = font;
+        levels.clear();
+    }
+
+    public synchronized void setGridEnabled(boolean gridEnabled) {
+        this.gridEnabled = gridEnabled;
+        levels.clear();
+    }
+
+    public synchronized void setShowPaths(boolean showPaths) {
+        this.showPaths = showPaths;
+        levels.clear();
+    }
+
+    public synchronized void setPathsCurved(boolean pathsCurved) {
+        this.pathsCurved = pathsCurved;
+        levels.clear();
+    }
+
+    /**
+     * Discards the data that was read from the layer, it is read again on
+     * next use
+     */
+    public synchronized void invalidate(){
+        levels.clear();
+    }
+
+    /**
+     * Gets the size of a place at a zoom level
+     * @param zoom zoom level
+     * @return size in pixel
+     */
+    public int getPlaceSize(int zoom){
+        return Math.max(1, maxTileSize >> (zoomLevels - 1 - zoom));
+    }
+
+    /**
+     * Gets the number of tile columns and rows of a zoom level
+     * @param zoom zoom level
+     * @return columns and rows
+     */
+    public Pair<Integer, Integer> getTileCount(int zoom){
+        final int placeSize = getPlaceSize(zoom);
+        final int width = (layer.getXMax() - layer.getXMin() + 1) * placeSize;
+        final int height = (layer.getYMax() - layer.getYMin() + 1) * placeSize;
+        return new Pair<>((width + TILE_SIZE - 1) / TILE_SIZE, (height + TILE_SIZE - 1) / TILE_SIZE);
+    }
+
+    /**
+     * Checks whether a tile exists
+     * @param zoom zoom level
+     * @param column tile column
+     * @param row tile row
+     * @return true if the tile is part of the grid
+     */
+    public boolean contains(int zoom, int column, int row){
+        if(zoom < 0 || zoom >= zoomLevels || column < 0 || row < 0 || layer.isEmpty()) return false;
+        Pair<Integer, Integer> tiles = getTileCount(zoom);
+        return column < tiles.first && row < tiles.second;
+    }
+
+    /**
+     * Calculates the content hash of a tile
+     * @param zoom zoom level
+     * @param column tile column
+     * @param row tile row
+     * @return hash as hex string
+     */
+    public String getTileHash(int zoom, int column, int row){
+        final ZoomLevel level = getZoomLevel(zoom);
+        // paths that cross the tile
+        final int placeSize = level.placeSize;
+        final int xMin = level.xMin, yMax = level.yMax;
+        ArrayList<PathSegmentIndex.Segment> segments = new ArrayList<>();
+        level.pathIndex.query(xMin + column * TILE_SIZE / placeSize - MARGIN,
+                yMax - ((row + 1) * TILE_SIZE - 1) / placeSize - MARGIN,
+                xMin + ((column + 1) * TILE_SIZE - 1) / placeSize + MARGIN,
+                yMax - row * TILE_SIZE / placeSize + MARGIN, segments);
+        HashSet<Path> paths = new HashSet<>();
+        for(PathSegmentIndex.Segment segment: segments){
+            paths.add(segment.getPath());
+        }
+
+        return LayerContentHash.compute(layer.getWorld(), level.getPlaces(column, row), paths, level.settings);
+    }
+
+    /**
+     * Renders a tile
+     * @param zoom zoom level
+     * @param column tile column
+     * @param row tile row
+     * @return tile image with the size TILE_SIZE x TILE_SIZE
+     */
+    public BufferedImage renderTile(int zoom, int column, int row){
+        return getZoomLevel(zoom).renderer.renderRegion(column * TILE_SIZE, row * TILE_SIZE, TILE_SIZE, TILE_SIZE);
+    }
+
+    /**
+     * Creates a renderer for a whole zoom level, it is used to render the
+     * tiles as regions
+     */
+    MapImageRenderer createRenderer(int placeSize, int width, int height){
+        Pair<Double, Double> exactCenter = layer.getExactCenter();
+        // add / subtract 1/2 since tiles are positioned by center, not corner
+        WorldCoordinate center = new WorldCoordinate(layer.getId(), exactCenter.first + 0.5, exactCenter.second - 0.5);
+
+        MapImageRenderer renderer = new MapImageRenderer(layer, center, placeSize, width, height);
+        renderer.setFont(font);
+        renderer.setGridEnabled(gridEnabled);
+        renderer.setShowPaths(showPaths);
+        renderer.setPathsCurved(pathsCurved);
+        return renderer;
+    }
+
+    /**
+     * Gets a zoom level, it is created on first use
+     * @param zoom zoom level
+     * @return zoom level data
+     */
+    synchronized ZoomLevel getZoomLevel(int zoom){
+        ZoomLevel level = levels.get(zoom);
+        if(level == null) levels.put(zoom, level = new ZoomLevel(zoom));
+        return level;
+    }
+
+    /**
+     * Places sorted into the tiles of a zoom level and the renderer
+     */
+    class ZoomLevel {
+        final int placeSize, xMin, yMax, width, height, columns, rows;
+        final String settings;
+        final MapImageRenderer renderer;
+        final PathSegmentIndex pathIndex;
+        final HashMap<Long, ArrayList<Place>> tilePlaces = new HashMap<>();
+
+        ZoomLevel(int zoom){
+            placeSize = getPlaceSize(zoom);
+            xMin = layer.getXMin();
+            yMax = layer.getYMax();
+            width = (layer.getXMax() - xMin + 1) * placeSize;
+            height = (yMax - layer.getYMin() + 1) * placeSize;
+            columns = (width + TILE_SIZE - 1) / TILE_SIZE;
+            rows = (height + TILE_SIZE - 1) / TILE_SIZE;
+
+            settings = "tile=" + TILE_SIZE + ";place=" + placeSize
+                + ";origin=" + xMin + "," + yMax + ";size=" + width + "x" + height
+                + ";grid=" + gridEnabled + ";paths=" + showPaths + ";curved=" + pathsCurved;
+            renderer = createRenderer(placeSize, Math.max(1, width), Math.max(1, height));
+            // create the path index before the painters access it concurrently
+            pathIndex = layer.getPathSegmentIndex();
+
+            // sort places into tiles, including the margin
+            final int margin = MARGIN * placeSize;
+            for(Place place: layer.getPlaces()){
+                final int px = (place.getX() - xMin) * placeSize;
+                final int py = (yMax - place.getY()) * placeSize;
+                final int columnMax = Math.min(columns - 1, (px + placeSize + margin - 1) / TILE_SIZE);
+                final int rowMax = Math.min(rows - 1, (py + placeSize + margin - 1) / TILE_SIZE);
+                for(int column = Math.max(0, (px - margin) / TILE_SIZE); column <= columnMax; ++column){
+                    for(int row = Math.max(0, (py - margin) / TILE_SIZE); row <= rowMax; ++row){
+                        Long key = getKey(column, row);
+                        ArrayList<Place> places = tilePlaces.get(key);
+                        if(places == null) tilePlaces.put(key, places = new ArrayList<>());
+                        places.add(place);
+                    }
+                }
+            }
+        }
+
+        Long getKey(int column, int row){
+            return (long) column * rows + row;
+        }
+
+        Collection<Place> getPlaces(int column, int row){
+            ArrayList<Place> places = tilePlaces.get(getKey(column, row));
+            return places != null ? places : Collections.<Place>emptyList();
+        }
+    }
+
+}
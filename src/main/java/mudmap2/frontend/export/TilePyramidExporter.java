@@ -0,0 +1,393 @@
+/*  MUD Map (v2) - A tool to create and organize maps for text-based games
+ *  Copyright (C) 2026  Neop (email: mneop@web.de)
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License along
+ *  with this program; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*  File description
+ *
+ *  Exports a layer as a z/x/y tile pyramid for map viewers. A manifest with
+ *  the content hash of every tile allows to regenerate only changed tiles
+ */
+
+package mudmap2.frontend.export;
+
+import java.awt.Font;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import mudmap2.backend.Layer;
+import mudmap2.utils.Pair;
+
+/**
+ * Renders a layer into 256px tiles at several zoom levels and writes them
+ * to directory/z/x/y.png, see TileGrid for the tile geometry.
+ *
+ * The content hash of each tile is stored in the manifest. Tiles whose hash didn't change are
+ * not rendered again
+ * @author neop
+ */
+public class TilePyramidExporter {
+
+    // width and height of an image tile in pixel
+    public static final int TILE_SIZE = TileGrid.TILE_SIZE;
+    public static final String MANIFEST_FILE = "manifest.properties";
+    // place size at the highest zoom level in pixel
+    public static final int DEFAULT_MAX_TILE_SIZE = TileGrid.DEFAULT_MAX_TILE_SIZE;
+    public static final int DEFAULT_ZOOM_LEVELS = TileGrid.DEFAULT_ZOOM_LEVELS;
+
+    final Layer layer;
+    final File directory;
+    final TileGrid grid;
+
+    boolean force = false;
+
+    final AtomicBoolean cancelled = new AtomicBoolean(false);
+    final AtomicInteger tilesRendered = new AtomicInteger(0);
+    final AtomicInteger tilesSkipped = new AtomicInteger(0);
+    int tilesRemoved = 0;
+
+    /**
+     * Constructs a tile exporter
+     * @param layer layer to export
+     * @param directory output directory
+     */
+    public TilePyramidExporter(Layer layer, File directory){
+        if(layer == null || directory == null) throw new NullPointerException();
+        this.layer = layer;
+        this.directory = directory;
+        grid = new TileGrid(layer);
+    }
+
+    public Layer getLayer() {
+        return layer;
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    public int getMaxTileSize() {
+        return grid.getMaxTileSize();
+    }
+
+    /**
+     * Sets the size of a place at the highest zoom level
+     * @param maxTileSize size in pixel
+     */
+    public void setMaxTileSize(int maxTileSize) {
+        grid.setMaxTileSize(maxTileSize);
+    }
+
+    public int getZoomLevels() {
+        return grid.getZoomLevels();
+    }
+
+    /**
+     * Sets the number of zoom levels, they are numbered from 0 (smallest
+     * places) to zoomLevels - 1 (places have the maximum tile size)
+     * @param zoomLevels
+     */
+    public void setZoomLevels(int zoomLevels) {
+        grid.setZoomLevels(zoomLevels);
+    }
+
+    public void setFont(Font font) {
+        grid.setFont(font);
+    }
+
+    public void setGridEnabled(boolean gridEnabled) {
+        grid.setGridEnabled(gridEnabled);
+    }
+
+    public void setShowPaths(boolean showPaths) {
+        grid.setShowPaths(showPaths);
+    }
+
+    public void setPathsCurved(boolean pathsCurved) {
+        grid.setPathsCurved(pathsCurved);
+    }
+
+    /**
+     * Renders all tiles, even if they didn't change
+     * @param force
+     */
+    public void setForce(boolean force) {
+        this.force = force;
+    }
+
+    /**
+     * Gets the size of a place at a zoom level
+     * @param zoom zoom level
+     * @return size in pixel
+     */
+    public int getPlaceSize(int zoom){
+        return grid.getPlaceSize(zoom);
+    }
+
+    /**
+     * Gets the number of tile columns and rows of a zoom level
+     * @param zoom zoom level
+     * @return columns and rows
+     */
+    public Pair<Integer, Integer> getTileCount(int zoom){
+        return grid.getTileCount(zoom);
+    }
+
+    public int getTilesRendered() {
+        return tilesRendered.get();
+    }
+
+    public int getTilesSkipped() {
+        return tilesSkipped.get();
+    }
+
+    /**
+     * Gets the number of tiles that were deleted since they are outside of
+     * the layer bounds now
+     * @return
+     */
+    public int getTilesRemoved() {
+        return tilesRemoved;
+    }
+
+    /**
+     * Stops the export, export() throws a CancellationException afterwards
+     */
+    public void cancel(){
+        cancelled.set(true);
+    }
+
+    public boolean isCancelled(){
+        return cancelled.get();
+    }
+
+    /**
+     * Renders the changed tiles of all zoom levels on the given pool and
+     * updates the manifest
+     * @param pool fork join pool
+     * @throws IOException if a tile or the manifest could not be written
+     * @throws CancellationException if the export was cancelled
+     */
+    public void export(ForkJoinPool pool) throws IOException, CancellationException {
+        if(layer.isEmpty()) return;
+
+        grid.invalidate();
+        Properties manifestOld = readManifest();
+        Properties manifest = new Properties();
+
+        ArrayList<RenderTileAction> actions = new ArrayList<>();
+        for(int zoom = 0; zoom < grid.getZoomLevels(); ++zoom){
+            addTiles(zoom, manifestOld, manifest, actions);
+        }
+
+        final AtomicReference<IOException> error = new AtomicReference<>(null);
+        for(RenderTileAction action: actions){
+            action.error = error;
+        }
+        try {
+            pool.invoke(new RenderAllAction(actions));
+        } finally {
+            // tiles that weren't written keep their old hash, so they are
+            // rendered again next time
+            for(RenderTileAction action: actions){
+                if(!action.done){
+                    String hashOld = manifestOld.getProperty(action.key);
+                    if(hashOld != null) manifest.setProperty(action.key, hashOld);
+                    else manifest.remove(action.key);
+                }
+            }
+            if(!isCancelled() && error.get() == null){
+                removeTiles(manifestOld, manifest);
+            }
+            writeManifest(manifest);
+        }
+
+        if(error.get() != null) throw error.get();
+        if(isCancelled()) throw new CancellationException();
+    }
+
+    /**
+     * Compares the tiles of a zoom level with the manifest and creates
+     * actions for the changed ones
+     * @param zoom zoom level
+     * @param manifestOld hashes of the last export
+     * @param manifest new hashes
+     * @param actions actions for changed tiles
+     */
+    void addTiles(int zoom, Properties manifestOld, Properties manifest, List<RenderTileAction> actions){
+        Pair<Integer, Integer> tiles = grid.getTileCount(zoom);
+        for(int column = 0; column < tiles.first; ++column){
+            for(int row = 0; row < tiles.second; ++row){
+                final String key = zoom + "/" + column + "/" + row;
+                final String hash = grid.getTileHash(zoom, column, row);
+                manifest.setProperty(key, hash);
+
+                if(!force && hash.equals(manifestOld.getProperty(key)) && getTileFile(key).exists()){
+                    tilesSkipped.incrementAndGet();
+                } else {
+                    actions.add(new RenderTileAction(key, zoom, column, row));
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates a renderer for a whole zoom level, it is used to render the
+     * tiles as regions
+     */
+    MapImageRenderer createRenderer(int placeSize, int width, int height){
+        return grid.createRenderer(placeSize, width, height);
+    }
+
+    /**
+     * Gets the file of a tile
+     * @param key tile key z/x/y
+     * @return file
+     */
+    File getTileFile(String key){
+        return new File(directory, key.replace('/', File.separatorChar) + ".png");
+    }
+
+    /**
+     * Deletes tiles that aren't part of the pyramid anymore
+     * @param manifestOld
+     * @param manifest
+     */
+    private void removeTiles(Properties manifestOld, Properties manifest){
+        for(String key: manifestOld.stringPropertyNames()){
+            if(!manifest.containsKey(key) && getTileFile(key).delete()){
+                ++tilesRemoved;
+            }
+        }
+    }
+
+    /**
+     * Writes a tile image
+     * @param image tile image
+     * @param file file to write
+     * @throws IOException
+     */
+    static void writeTile(BufferedImage image, File file) throws IOException {
+        File parent = file.getParentFile();
+        if(!parent.isDirectory() && !parent.mkdirs() && !parent.isDirectory()){
+            throw new IOException("Could not create directory " + parent.getPath());
+        }
+
+        final int width = image.getWidth();
+        final int[] data = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        PngStreamWriter png = new PngStreamWriter(new BufferedOutputStream(new FileOutputStream(file)), width, image.getHeight(), true);
+        boolean complete = false;
+        try {
+            for(int y = 0; y < image.getHeight(); ++y){
+                png.writeRow(data, y * width);
+            }
+            complete = true;
+        } finally {
+            if(complete){
+                png.close();
+            } else {
+                png.abort();
+                file.delete();
+            }
+        }
+    }
+
+    private Properties readManifest() throws IOException {
+        Properties manifest = new Properties();
+        File file = new File(directory, MANIFEST_FILE);
+        if(file.exists()){
+            try (InputStream in = new FileInputStream(file)) {
+                manifest.load(in);
+            }
+        }
+        return manifest;
+    }
+
+    private void writeManifest(Properties manifest) throws IOException {
+        if(!directory.isDirectory() && !directory.mkdirs()){
+            throw new IOException("Could not create directory " + directory.getPath());
+        }
+        try (OutputStream out = new FileOutputStream(new File(directory, MANIFEST_FILE))) {
+            manifest.store(out, "MUD Map tiles of " + layer.getName() + ", z/x/y = content hash");
+        }
+    }
+
+    /**
+     * Renders a list of tiles in parallel
+     */
+    class RenderAllAction extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        final ArrayList<RenderTileAction> actions;
+
+        RenderAllAction(ArrayList<RenderTileAction> actions){
+            this.actions = actions;
+        }
+
+        @Override
+        protected void compute() {
+            invokeAll(actions);
+        }
+    }
+
+    /**
+     * Renders and writes a single tile
+     */
+    class RenderTileAction extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        final String key;
+        final int zoom, column, row;
+        AtomicReference<IOException> error;
+        volatile boolean done = false;
+
+        RenderTileAction(String key, int zoom, int column, int row){
+            this.key = key;
+            this.zoom = zoom;
+            this.column = column;
+            this.row = row;
+        }
+
+        @Override
+        protected void compute() {
+            if(isCancelled() || error.get() != null) return;
+
+            BufferedImage image = grid.renderTile(zoom, column, row);
+            try {
+                writeTile(image, getTileFile(key));
+                done = true;
+                tilesRendered.incrementAndGet();
+            } catch (IOException ex) {
+                error.compareAndSet(null, ex);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,549 @@
+/*  MUD Map (v2) - A tool to create and organize maps for text-based games
+ *  Copyright (C) 2026  Neop (email: mneop@web.de)
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License along
+ *  with this program; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*  File description
+ *
+ *  HTTP server that renders the tiles of a world on demand, so the map can
+ *  be viewed in a browser while it is edited
+ */
+
+package mudmap2.frontend.export;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.awt.EventQueue;
+import java.awt.GraphicsEnvironment;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import mudmap2.backend.Layer;
+import mudmap2.backend.LayerElement;
+import mudmap2.backend.LayerSnapshot;
+import mudmap2.backend.Place;
+import mudmap2.backend.World;
+import mudmap2.backend.WorldChangeListener;
+import mudmap2.utils.Pair;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Serves the tiles of a world at /world/{layer id}/{z}/{x}/{y}.png, see
+ * TileGrid for the tile geometry. /world lists the layers, /metrics shows
+ * request and cache statistics.
+ *
+ * Tiles are rendered from a snapshot of the layer, so requests can be
+ * handled in parallel while the world is edited. A world change event
+ * discards the snapshot of the changed layer, the next request creates a
+ * new one. Rendered tiles are cached by content hash, a tile that didn't
+ * change is served from the cache even if its layer was modified
+ * @author neop
+ */
+public class TileServer implements WorldChangeListener {
+
+    public static final int DEFAULT_PORT = 8080;
+    public static final String TILE_PATH = "/world";
+    public static final String METRICS_PATH = "/metrics";
+
+    final World world;
+    final TileCache cache;
+
+    int maxTileSize = TileGrid.DEFAULT_MAX_TILE_SIZE;
+    int zoomLevels = TileGrid.DEFAULT_ZOOM_LEVELS;
+    boolean pathsCurved = true;
+
+    HttpServer server = null;
+    ExecutorService executor = null;
+
+    // layer id -> tiles of the current snapshot
+    final ConcurrentHashMap<Integer, LayerTiles> snapshots = new ConcurrentHashMap<>();
+    final Object snapshotLock = new Object();
+    // content hash -> tile that is being rendered, so parallel requests of
+    // the same tile render it only once
+    final ConcurrentHashMap<String, FutureTask<byte[]>> rendering = new ConcurrentHashMap<>();
+
+    final AtomicLong requests = new AtomicLong(0);
+    final AtomicLong tilesRendered = new AtomicLong(0);
+    final AtomicLong renderTime = new AtomicLong(0);
+    final AtomicLong snapshotsCreated = new AtomicLong(0);
+
+    /**
+     * Constructs a tile server
+     * @param world world to serve
+     * @param cache tile cache, may be shared by several servers
+     */
+    public TileServer(World world, TileCache cache){
+        if(world == null || cache == null) throw new NullPointerException();
+        this.world = world;
+        this.cache = cache;
+    }
+
+    public World getWorld() {
+        return world;
+    }
+
+    public TileCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Sets the size of a place at the highest zoom level, has to be called
+     * before the server is started
+     * @param maxTileSize size in pixel
+     */
+    public void setMaxTileSize(int maxTileSize) {
+        this.maxTileSize = Math.max(1, maxTileSize);
+    }
+
+    public int getZoomLevels() {
+        return zoomLevels;
+    }
+
+    /**
+     * Sets the number of zoom levels, has to be called before the server is
+     * started
+     * @param zoomLevels
+     */
+    public void setZoomLevels(int zoomLevels) {
+        this.zoomLevels = Math.max(1, zoomLevels);
+    }
+
+    public void setPathsCurved(boolean pathsCurved) {
+        this.pathsCurved = pathsCurved;
+    }
+
+    /**
+     * Starts the server and registers it as world change listener. Has to be
+     * called by the thread that modifies the world
+     * @param address address and port to listen on
+     * @param threads number of requests that are handled in parallel
+     * @throws IOException if the server could not be started, eg. if the
+     * port is in use
+     */
+    public synchronized void start(InetSocketAddress address, int threads) throws IOException {
+        if(server != null) throw new IllegalStateException("Server is running");
+
+        server = HttpServer.create(address, 0);
+        server.createContext(TILE_PATH, new TileHandler());
+        server.createContext(METRICS_PATH, new MetricsHandler());
+        final AtomicInteger threadCount = new AtomicInteger(0);
+        executor = Executors.newFixedThreadPool(Math.max(1, threads), new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "tile-server-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        server.setExecutor(executor);
+        world.addChangeListener(this);
+        server.start();
+    }
+
+    /**
+     * Stops the server, has to be called by the thread that modifies the
+     * world
+     */
+    public synchronized void stop(){
+        if(server == null) return;
+        world.removeChangeListener(this);
+        server.stop(0);
+        executor.shutdownNow();
+        server = null;
+        executor = null;
+        snapshots.clear();
+    }
+
+    public synchronized boolean isRunning(){
+        return server != null;
+    }
+
+    /**
+     * Gets the port the server listens on
+     * @return port or -1 if the server isn't running
+     */
+    public synchronized int getPort(){
+        return server != null ? server.getAddress().getPort() : -1;
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    public long getTilesRendered() {
+        return tilesRendered.get();
+    }
+
+    public long getSnapshotsCreated() {
+        return snapshotsCreated.get();
+    }
+
+    /**
+     * Gets a tile from the cache or renders it
+     * @param layerId layer id
+     * @param zoom zoom level
+     * @param column tile column
+     * @param row tile row
+     * @return content hash and PNG encoded tile or null, if the tile doesn't
+     * exist
+     * @throws IOException if the tile could not be rendered
+     */
+    public Pair<String, byte[]> getTile(int layerId, final int zoom, final int column, final int row) throws IOException {
+        final LayerTiles tiles = getLayerTiles(layerId);
+        if(tiles == null || !tiles.grid.contains(zoom, column, row)) return null;
+
+        final String hash = tiles.getHash(zoom, column, row);
+        byte[] data = cache.get(hash);
+        if(data != null) return new Pair<>(hash, data);
+
+        FutureTask<byte[]> task = new FutureTask<>(new Callable<byte[]>() {
+            @Override
+            public byte[] call() throws Exception {
+                // another request might have finished the tile after the
+                // cache was checked
+                byte[] data = cache.peekMemory(hash);
+                if(data != null) return data;
+
+                final long start = System.nanoTime();
+                data = encode(tiles.grid.renderTile(zoom, column, row));
+                renderTime.addAndGet(System.nanoTime() - start);
+                tilesRendered.incrementAndGet();
+                cache.put(hash, data);
+                return data;
+            }
+        });
+        FutureTask<byte[]> running = rendering.putIfAbsent(hash, task);
+        if(running == null){
+            running = task;
+            try {
+                task.run();
+            } finally {
+                rendering.remove(hash, task);
+            }
+        }
+
+        try {
+            return new Pair<>(hash, running.get());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException(ex);
+        } catch (ExecutionException ex) {
+            throw new IOException(ex.getCause());
+        }
+    }
+
+    /**
+     * Gets the snapshot of a layer, it is created if the layer changed since
+     * the last request
+     * @param layerId layer id
+     * @return tiles of the snapshot or null, if the layer doesn't exist
+     * @throws IOException if the snapshot could not be created
+     */
+    LayerTiles getLayerTiles(final int layerId) throws IOException {
+        LayerTiles tiles = snapshots.get(layerId);
+        if(tiles != null) return tiles;
+
+        synchronized(snapshotLock){
+            tiles = snapshots.get(layerId);
+            if(tiles != null) return tiles;
+
+            final AtomicReference<LayerTiles> ret = new AtomicReference<>(null);
+            runOnEventThread(new Runnable() {
+                @Override
+                public void run() {
+                    // the world can't change while the snapshot is created
+                    Layer layer = world.getLayer(layerId);
+                    if(layer != null && !layer.isEmpty()){
+                        LayerTiles tiles = new LayerTiles(LayerSnapshot.create(layer));
+                        snapshots.put(layerId, tiles);
+                        snapshotsCreated.incrementAndGet();
+                        ret.set(tiles);
+                    }
+                }
+            });
+            return ret.get();
+        }
+    }
+
+    /**
+     * Runs code on the thread that modifies the world. In a GUI it is the
+     * event dispatch thread, otherwise the world is expected to be
+     * unmodified while the server is running
+     * @param runnable code to run
+     * @throws IOException if the thread was interrupted
+     */
+    static void runOnEventThread(Runnable runnable) throws IOException {
+        if(GraphicsEnvironment.isHeadless() || EventQueue.isDispatchThread()){
+            runnable.run();
+        } else {
+            try {
+                EventQueue.invokeAndWait(runnable);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IOException(ex);
+            } catch (InvocationTargetException ex) {
+                throw new IOException(ex.getCause());
+            }
+        }
+    }
+
+    /**
+     * Encodes a rendered tile as PNG
+     * @param image tile image
+     * @return PNG data
+     * @throws IOException
+     */
+    static byte[] encode(BufferedImage image) throws IOException {
+        final int width = image.getWidth();
+        final int[] data = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (PngStreamWriter png = new PngStreamWriter(out, width, image.getHeight(), true)) {
+            for(int y = 0; y < image.getHeight(); ++y){
+                png.writeRow(data, y * width);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Gets the server statistics
+     * @return one value per line
+     */
+    public String getMetrics(){
+        final long rendered = tilesRendered.get();
+        StringBuilder ret = new StringBuilder();
+        ret.append("requests ").append(requests.get()).append("\n");
+        ret.append("tiles_rendered ").append(rendered).append("\n");
+        ret.append("render_time_avg_ms ").append(String.format(Locale.ROOT, "%.1f",
+                rendered > 0 ? renderTime.get() / 1e6 / rendered : 0.0)).append("\n");
+        ret.append("snapshots_created ").append(snapshotsCreated.get()).append("\n");
+        ret.append("cache_memory_hits ").append(cache.getMemoryHits()).append("\n");
+        ret.append("cache_disk_hits ").append(cache.getDiskHits()).append("\n");
+        ret.append("cache_misses ").append(cache.getMisses()).append("\n");
+        ret.append("cache_hit_rate ").append(String.format(Locale.ROOT, "%.3f", cache.getHitRate())).append("\n");
+        ret.append("cache_memory_tiles ").append(cache.getMemoryTileCount()).append("\n");
+        ret.append("cache_memory_bytes ").append(cache.getMemorySize()).append("\n");
+        ret.append("cache_disk_tiles ").append(cache.getDiskTileCount()).append("\n");
+        ret.append("cache_disk_bytes ").append(cache.getDiskSize()).append("\n");
+        return ret.toString();
+    }
+
+    @Override
+    public void worldChanged(Object source) {
+        if(source instanceof Place){
+            Place place = (Place) source;
+            invalidate(place.getLayer());
+            // names of children and parents may be shown on other layers
+            for(Place child: place.getChildren()) invalidate(child.getLayer());
+            for(Place parent: place.getParents()) invalidate(parent.getLayer());
+        } else if(source instanceof LayerElement){
+            invalidate(((LayerElement) source).getLayer());
+        } else if(source instanceof Layer){
+            invalidate((Layer) source);
+        } else {
+            // world settings like path colors
+            snapshots.clear();
+        }
+    }
+
+    /**
+     * Discards the snapshot of a layer
+     * @param layer layer or null to discard all snapshots
+     */
+    private void invalidate(Layer layer){
+        if(layer == null) snapshots.clear();
+        else snapshots.remove(layer.getId());
+    }
+
+    /**
+     * Sends a text response
+     * @param exchange
+     * @param status HTTP status code
+     * @param contentType MIME type
+     * @param text response body
+     * @throws IOException
+     */
+    private static void sendText(HttpExchange exchange, int status, String contentType, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType + "; charset=utf-8");
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        final boolean head = exchange.getRequestMethod().equals("HEAD");
+        exchange.sendResponseHeaders(status, head ? -1 : bytes.length);
+        if(!head){
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+
+    /**
+     * Tile grid of a layer snapshot with the hashes of the tiles that were
+     * requested
+     */
+    class LayerTiles {
+        final TileGrid grid;
+        final ConcurrentHashMap<String, String> hashes = new ConcurrentHashMap<>();
+
+        LayerTiles(Layer snapshot){
+            grid = new TileGrid(snapshot);
+            grid.setMaxTileSize(maxTileSize);
+            grid.setZoomLevels(zoomLevels);
+            grid.setPathsCurved(pathsCurved);
+            // fill the caches of the layer before it is read concurrently
+            snapshot.getXMin();
+            snapshot.isPlaceNameUnique("");
+            snapshot.getPathSegmentIndex();
+        }
+
+        String getHash(int zoom, int column, int row){
+            final String key = zoom + "/" + column + "/" + row;
+            String hash = hashes.get(key);
+            if(hash == null){
+                hash = grid.getTileHash(zoom, column, row);
+                hashes.put(key, hash);
+            }
+            return hash;
+        }
+    }
+
+    /**
+     * Handles tile requests and the layer list
+     */
+    class TileHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            requests.incrementAndGet();
+            try {
+                final String method = exchange.getRequestMethod();
+                if(!method.equals("GET") && !method.equals("HEAD")){
+                    sendText(exchange, 405, "text/plain", "Method not allowed\n");
+                    return;
+                }
+
+                String path = exchange.getRequestURI().getPath().substring(TILE_PATH.length());
+                if(path.isEmpty() || path.equals("/")){
+                    sendText(exchange, 200, "application/json", getLayerList());
+                    return;
+                }
+
+                // /{layer}/{z}/{x}/{y}.png
+                String[] parts = path.substring(1).split("/");
+                if(parts.length != 4 || !parts[3].endsWith(".png")){
+                    sendText(exchange, 404, "text/plain", "Not found\n");
+                    return;
+                }
+                Pair<String, byte[]> tile;
+                try {
+                    tile = getTile(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]),
+                            Integer.parseInt(parts[2]), Integer.parseInt(parts[3].substring(0, parts[3].length() - 4)));
+                } catch (NumberFormatException ex) {
+                    tile = null;
+                }
+                if(tile == null){
+                    sendText(exchange, 404, "text/plain", "Not found\n");
+                    return;
+                }
+
+                final String etag = "\"" + tile.first + "\"";
+                exchange.getResponseHeaders().set("ETag", etag);
+                exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+                if(etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))){
+                    exchange.sendResponseHeaders(304, -1);
+                    return;
+                }
+                exchange.getResponseHeaders().set("Content-Type", "image/png");
+                final boolean head = method.equals("HEAD");
+                exchange.sendResponseHeaders(200, head ? -1 : tile.second.length);
+                if(!head){
+                    try (OutputStream out = exchange.getResponseBody()) {
+                        out.write(tile.second);
+                    }
+                }
+            } catch (IOException | RuntimeException ex) {
+                Logger.getLogger(TileServer.class.getName()).log(Level.WARNING, "Could not serve " + exchange.getRequestURI(), ex);
+                try {
+                    sendText(exchange, 500, "text/plain", "Internal server error\n");
+                } catch (IOException ex2) {
+                    // headers were already sent or the client is gone
+                }
+            } finally {
+                exchange.close();
+            }
+        }
+
+        /**
+         * Lists the layers of the world
+         * @return JSON array with id and name of each layer
+         * @throws IOException
+         */
+        private String getLayerList() throws IOException {
+            final JSONArray layers = new JSONArray();
+            runOnEventThread(new Runnable() {
+                @Override
+                public void run() {
+                    for(Layer layer: world.getLayers()){
+                        if(layer.isEmpty()) continue;
+                        JSONObject jLayer = new JSONObject();
+                        jLayer.put("id", layer.getId());
+                        jLayer.put("name", layer.getName());
+                        layers.put(jLayer);
+                    }
+                }
+            });
+
+            JSONObject ret = new JSONObject();
+            ret.put("name", world.getName());
+            ret.put("tileSize", TileGrid.TILE_SIZE);
+            ret.put("zoomLevels", zoomLevels);
+            ret.put("layers", layers);
+            return ret.toString();
+        }
+    }
+
+    /**
+     * Shows the server statistics as plain text
+     */
+    class MetricsHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            try {
+                sendText(exchange, 200, "text/plain", getMetrics());
+            } finally {
+                exchange.close();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,191 @@
+/*  MUD Map (v2) - A tool to create and organize maps for text-based games
+ *  Copyright (C) 2026  Neop (email: mneop@web.de)
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License along
+ *  with this program; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*  File description
+ *
+ *  List model of the layer panel: the layers sorted by name and filtered by
+ *  search keywords
+ */
+
+package mudmap2.frontend.sidePanel;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import javax.swing.AbstractListModel;
+import mudmap2.backend.Layer;
+import mudmap2.utils.AlphanumComparator;
+
+/**
+ * Layers sorted by name, filtered by keywords. A layer is shown if its name
+ * contains one of the keywords, ignoring case. The lower case names are kept
+ * in an index. If the new keywords can only match a subset of the shown
+ * layers, eg. while a keyword is typed, only the shown layers are checked
+ * @author neop
+ */
+public class LayerListModel extends AbstractListModel<Layer> {
+    private static final long serialVersionUID = 1L;
+
+    // all layers, sorted
+    final ArrayList<Layer> layers = new ArrayList<>();
+    // lower case layer names, same order as layers
+    final ArrayList<String> names = new ArrayList<>();
+    // indices of the shown layers
+    int[] shown = new int[0];
+    int shownCount = 0;
+    // lower case keywords of the current filter, empty if all layers are shown
+    String[] keywords = new String[0];
+
+    /**
+     * Sets the layers and applies the current filter
+     * @param layers
+     */
+    public void setLayers(Collection<Layer> layers){
+        final int sizeOld = shownCount;
+        this.layers.clear();
+        this.layers.addAll(layers);
+        Collections.sort(this.layers, new AlphanumComparator<Layer>());
+
+        names.clear();
+        for(Layer layer: this.layers){
+            names.add(layer.getName().toLowerCase());
+        }
+
+        shown = new int[this.layers.size()];
+        shownCount = 0;
+        for(int i = 0; i < names.size(); ++i){
+            if(matches(names.get(i), keywords)) shown[shownCount++] = i;
+        }
+        fireChanged(sizeOld);
+    }
+
+    /**
+     * Filters the layers
+     * @param keyword keywords, separated by spaces
+     */
+    public void setFilter(String keyword){
+        final String[] keywordsNew = parseKeywords(keyword);
+        final int sizeOld = shownCount;
+
+        if(isNarrowing(keywords, keywordsNew)){
+            // check the shown layers only
+            int count = 0;
+            for(int i = 0; i < shownCount; ++i){
+                if(matches(names.get(shown[i]), keywordsNew)) shown[count++] = shown[i];
+            }
+            shownCount = count;
+        } else {
+            shownCount = 0;
+            for(int i = 0; i < names.size(); ++i){
+                if(matches(names.get(i), keywordsNew)) shown[shownCount++] = i;
+            }
+        }
+        keywords = keywordsNew;
+        fireChanged(sizeOld);
+    }
+
+    /**
+     * Gets the position of a layer in the list
+     * @param layer
+     * @return index or -1 if the layer isn't shown
+     */
+    public int indexOf(Layer layer){
+        for(int i = 0; i < shownCount; ++i){
+            if(layers.get(shown[i]) == layer) return i;
+        }
+        return -1;
+    }
+
+    @Override
+    public int getSize() {
+        return shownCount;
+    }
+
+    @Override
+    public Layer getElementAt(int index) {
+        if(index < 0 || index >= shownCount) throw new IndexOutOfBoundsException();
+        return layers.get(shown[index]);
+    }
+
+    /**
+     * Notifies the list about changed content and size
+     * @param sizeOld size before the change
+     */
+    private void fireChanged(int sizeOld){
+        if(sizeOld > shownCount){
+            fireIntervalRemoved(this, shownCount, sizeOld - 1);
+        } else if(sizeOld < shownCount){
+            fireIntervalAdded(this, sizeOld, shownCount - 1);
+        }
+        if(Math.min(sizeOld, shownCount) > 0){
+            fireContentsChanged(this, 0, Math.min(sizeOld, shownCount) - 1);
+        }
+    }
+
+    /**
+     * Splits a search string into lower case keywords
+     * @param keyword keywords, separated by spaces
+     * @return keywords without empty ones
+     */
+    static String[] parseKeywords(String keyword){
+        ArrayList<String> ret = new ArrayList<>();
+        if(keyword != null){
+            for(String key: keyword.toLowerCase().split(" ")){
+                if(!key.isEmpty()) ret.add(key);
+            }
+        }
+        return ret.toArray(new String[ret.size()]);
+    }
+
+    /**
+     * Checks whether a name matches the keywords
+     * @param name lower case name
+     * @param keywords lower case keywords
+     * @return true if there are no keywords or one is part of the name
+     */
+    static boolean matches(String name, String[] keywords){
+        if(keywords.length == 0) return true;
+        for(String key: keywords){
+            if(name.contains(key)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether every name that matches the new keywords also matches
+     * the old ones. That's the case if each new keyword contains an old one
+     * @param keywordsOld
+     * @param keywordsNew
+     * @return true if the new keywords match a subset
+     */
+    static boolean isNarrowing(String[] keywordsOld, String[] keywordsNew){
+        if(keywordsOld.length == 0) return true;
+        if(keywordsNew.length == 0) return false;
+        for(String keyNew: keywordsNew){
+            boolean found = false;
+            for(String keyOld: keywordsOld){
+                if(keyNew.contains(keyOld)){
+                    found = true;
+                    break;
+                }
+            }
+            if(!found) return false;
+        }
+        return true;
+    }
+
+}
@@ -17,34 +17,36 @@
 package mudmap2.frontend.sidePanel;
 
 import java.awt.BorderLayout;
+import java.awt.Component;
 import java.awt.Dimension;
 import java.awt.GridLayout;
+import java.awt.Rectangle;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Map;
 import javax.swing.BorderFactory;
-import javax.swing.BoxLayout;
 import javax.swing.JButton;
+import javax.swing.JList;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JTextField;
+import javax.swing.ListCellRenderer;
+import javax.swing.ListSelectionModel;
+import javax.swing.border.TitledBorder;
 import mudmap2.backend.Layer;
 import mudmap2.backend.World;
 import mudmap2.backend.WorldChangeListener;
 import mudmap2.frontend.GUIElement.LayerPreviewPanel;
-import mudmap2.utils.AlphanumComparator;
+import mudmap2.frontend.GUIElement.LayerThumbnailCache;
 
 /**
- *
+ * List of the layers of a world with previews. The list only creates a
+ * renderer for the visible entries
  * @author neop
  */
 public class LayerPanel extends JPanel
@@ -59,16 +61,63 @@ public class LayerPanel extends JPanel
     JTextField textFieldSearch;
 
     HashSet<LayerPanelListener> layerListeners;
-    HashMap<JPanel, Layer> panels;
+    LayerListModel listModel;
+    JList<Layer> list;
+    LayerThumbnailCache thumbnails;
+    Layer activeLayer = null;
 
     public LayerPanel(World world){
         this.world = world;
 
         layerListeners = new HashSet<>();
-        panels = new HashMap<>();
+
+        // repaint previews when their thumbnail was rendered
+        thumbnails = new LayerThumbnailCache(world);
+        thumbnails.addListener(new LayerThumbnailCache.Listener() {
+            @Override
+            public void thumbnailUpdated(Layer layer) {
+                repaintLayer(layer);
+            }
+        });
 
         setLayout(new BorderLayout());
 
+        // layer list, the fixed cell size avoids rendering every cell to
+        // calculate the list size
+        listModel = new LayerListModel();
+        list = new JList<>(listModel);
+        list.setFixedCellWidth(PREVIEW_WIDTH_X);
+        list.setFixedCellHeight(PREVIEW_WIDTH_Y);
+        list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        list.setCellRenderer(new LayerCellRenderer());
+        list.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                final int index = list.locationToIndex(e.getPoint());
+                final Rectangle bounds = index >= 0 ? list.getCellBounds(index, index) : null;
+                if(bounds == null || !bounds.contains(e.getPoint())) return;
+                Layer layer = listModel.getElementAt(index);
+
+                if(e.getButton() == MouseEvent.BUTTON1){
+                    if(e.getClickCount() == 1){
+                        for(LayerPanelListener listener: layerListeners){
+                            listener.layerSelected(layer);
+                        }
+                    } else {
+                        editLayer(layer);
+                    }
+                } else if(e.getButton() == MouseEvent.BUTTON3){
+                    editLayer(layer);
+                }
+            }
+        });
+
+        scrollPane = new JScrollPane(list,
+                JScrollPane.VERTICAL_SCROLLBAR_ALWAYS,
+                JScrollPane.HORIZONTAL_SCROLLBAR_NEVER);
+        scrollPane.getVerticalScrollBar().setUnitIncrement(10);
+        add(scrollPane, BorderLayout.CENTER);
+
         JPanel south = new JPanel(new GridLayout(2, 1));
 
         // search box
@@ -95,106 +144,47 @@ public class LayerPanel extends JPanel
     }
 
     public void setActiveLayer(Layer l){
-        for(Map.Entry<JPanel, Layer> entry : panels.entrySet()){
-            if(entry.getValue() == l){
-                ((LayerPreviewPanel) entry.getKey().getComponent(0)).setMarked(true);
-            } else {
-                ((LayerPreviewPanel) entry.getKey().getComponent(0)).setMarked(false);
-            }
-        }
+        Layer activeLayerOld = activeLayer;
+        activeLayer = l;
+        repaintLayer(activeLayerOld);
+        repaintLayer(activeLayer);
     }
 
+    /**
+     * Reads the layers of the world and removes the filter
+     */
     public final void update(){
-        update("");
+        listModel.setFilter("");
+        updateLayers();
     }
 
+    /**
+     * Filters the shown layers
+     * @param keyword keywords, separated by spaces
+     */
     public final void update(String keyword){
-        panels.clear();
-        if(scrollPane != null){
-            BorderLayout layout = (BorderLayout) getLayout();
-            remove(layout.getLayoutComponent(BorderLayout.CENTER));
-        }
-
-        // create content panel
-        JPanel contentPanel = new JPanel();
-        contentPanel.setLayout(new BoxLayout(contentPanel, BoxLayout.Y_AXIS));
-
-        // create scrollPane
-        scrollPane = new JScrollPane(contentPanel,
-                JScrollPane.VERTICAL_SCROLLBAR_ALWAYS,
-                JScrollPane.HORIZONTAL_SCROLLBAR_NEVER);
-        scrollPane.getVerticalScrollBar().setUnitIncrement(10);
-        add(scrollPane, BorderLayout.CENTER);
-
-        ArrayList<Layer> layerList = new ArrayList<>(world.getLayers());
-        Collections.sort(layerList, new AlphanumComparator<>());
-
-        Boolean hasKeywords = keyword != null && !keyword.isEmpty();
-        String[] keywords = keyword.toLowerCase().split(" ");
-
-        // add layers to content panel
-        for(Layer layer: layerList){
-            if(hasKeywords){
-                Boolean found = false;
-                for(String key: keywords){
-                    if(layer.getName().toLowerCase().contains(key)){
-                        found = true;
-                        break;
-                    };
-                }
-                if(!found) continue;
-            }
-
-            JPanel preview = createLayerPanel(layer);
-            contentPanel.add(preview);
-
-            panels.put(preview, layer);
-            preview.addMouseListener(new MouseAdapter() {
-                @Override
-                public void mouseClicked(MouseEvent e) {
-                    if(e.getSource() instanceof JPanel && panels.containsKey((JPanel) e.getSource())){
-                        Layer layer = panels.get((JPanel) e.getSource());
-
-                        if(e.getButton() == MouseEvent.BUTTON1){
-                            if(e.getClickCount() == 1){
-                                for(LayerPanelListener listener: layerListeners){
-                                    listener.layerSelected(layer);
-                                }
-                            } else {
-                                editLayer(layer);
-                            }
-                        } else if(e.getButton() == MouseEvent.BUTTON3){
-                            editLayer(layer);
-                        }
-                    }
-                }
-            });
-        }
+        listModel.setFilter(keyword);
+    }
 
-        revalidate();
-        repaint();
+    /**
+     * Reads the layers of the world again, eg. after a layer was added or
+     * renamed
+     */
+    private void updateLayers(){
+        listModel.setLayers(world.getLayers());
     }
 
     /**
-     * Creates a layer preview panel
-     *
+     * Repaints the list entry of a layer, if it is shown
      * @param layer
-     * @return layer preview
      */
-    private JPanel createLayerPanel(Layer layer){
-        // create panel
-        JPanel panel = new JPanel();
-        panel.setLayout(new BorderLayout());
-        panel.setBorder(BorderFactory.createTitledBorder(layer.getName()));
-
-        panel.setPreferredSize(new Dimension(PREVIEW_WIDTH_X, PREVIEW_WIDTH_Y));
-        panel.setMinimumSize(new Dimension(PREVIEW_WIDTH_X, PREVIEW_WIDTH_Y));
-
-        // create layer preview
-        LayerPreviewPanel layerPreviewPanel = new LayerPreviewPanel(layer);
-        panel.add(layerPreviewPanel, BorderLayout.CENTER);
-
-        return panel;
+    private void repaintLayer(Layer layer){
+        if(layer == null) return;
+        final int index = listModel.indexOf(layer);
+        if(index >= 0){
+            Rectangle bounds = list.getCellBounds(index, index);
+            if(bounds != null) list.repaint(bounds);
+        }
     }
 
     public void focusSearchBox(){
@@ -238,12 +228,11 @@ public class LayerPanel extends JPanel
 
     @Override
     public void worldChanged(Object source) {
-        // only recreate panel on layer change
+        thumbnails.worldChanged(source);
+
+        // only read the layers again on layer change
         if(source instanceof Layer){
-            update();
-        } else {
-            revalidate();
-            repaint();
+            updateLayers();
         }
     }
 
@@ -260,6 +249,36 @@ public class LayerPanel extends JPanel
         if(ke.getExtendedKeyCode() == KeyEvent.VK_ESCAPE){
             textFieldSearch.setText("");
             update();
+        } else {
+            update(textFieldSearch.getText());
+        }
+    }
+
+    /**
+     * Draws a list entry: the layer name as title and the thumbnail
+     */
+    class LayerCellRenderer extends JPanel implements ListCellRenderer<Layer> {
+        private static final long serialVersionUID = 1L;
+
+        final TitledBorder border;
+        final LayerPreviewPanel preview;
+
+        LayerCellRenderer(){
+            super(new BorderLayout());
+            border = BorderFactory.createTitledBorder("");
+            setBorder(border);
+            setPreferredSize(new Dimension(PREVIEW_WIDTH_X, PREVIEW_WIDTH_Y));
+            preview = new LayerPreviewPanel(null, thumbnails);
+            add(preview, BorderLayout.CENTER);
+        }
+
+        @Override
+        public Component getListCellRendererComponent(JList<? extends Layer> list,
+                Layer layer, int index, boolean isSelected, boolean cellHasFocus) {
+            border.setTitle(layer.getName());
+            preview.setLayer(layer);
+            preview.setMarked(layer == activeLayer);
+            return this;
         }
     }
 
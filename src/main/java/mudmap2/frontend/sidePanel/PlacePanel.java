@@ -29,8 +29,10 @@ import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JTextField;
 import javax.swing.JTree;
+import javax.swing.event.TreeExpansionEvent;
 import javax.swing.event.TreeSelectionEvent;
 import javax.swing.event.TreeSelectionListener;
+import javax.swing.event.TreeWillExpandListener;
 import javax.swing.tree.DefaultMutableTreeNode;
 import javax.swing.tree.DefaultTreeModel;
 import mudmap2.backend.Layer;
@@ -89,6 +91,19 @@ public class PlacePanel extends JPanel
         root = new DefaultMutableTreeNode(world.getName());
         tree = new JTree(root);
         tree.getSelectionModel().addTreeSelectionListener(this);
+        tree.addTreeWillExpandListener(new TreeWillExpandListener() {
+            @Override
+            public void treeWillExpand(TreeExpansionEvent event) {
+                Object component = event.getPath().getLastPathComponent();
+                if(component instanceof LayerTreeNode && !((LayerTreeNode) component).filled){
+                    ((LayerTreeNode) component).fill();
+                    ((DefaultTreeModel) tree.getModel()).nodeStructureChanged((LayerTreeNode) component);
+                }
+            }
+
+            @Override
+            public void treeWillCollapse(TreeExpansionEvent event) {}
+        });
 
         JScrollPane scrollPane = new JScrollPane(tree,
                 JScrollPane.VERTICAL_SCROLLBAR_ALWAYS,
@@ -128,17 +143,9 @@ public class PlacePanel extends JPanel
             root.add(layerNode);
             layerNodes.put(layer, layerNode);
 
-            HashSet<Place> places = layer.getPlaces();
-            ArrayList<Place> placeList = new ArrayList<>(places);
-            Collections.sort(placeList, new AlphanumComparator<>());
-
-            for(Place place: placeList){
-                if(!useKeywords || place.matchKeywords(keywords)){
-                    PlaceTreeNode placeNode = new PlaceTreeNode(place);
-                    layerNode.add(placeNode);
-                    placeNodes.put(place, placeNode);
-                }
-            }
+            // places of layers that haven't been read are added when the
+            // node is expanded, a search reads all layers
+            if(useKeywords || layer.isLoaded()) layerNode.fill(keywords);
         }
 
         // remove empty layer nodes
@@ -213,7 +220,8 @@ public class PlacePanel extends JPanel
                 Place place = (Place) source;
                 if(placeNodes.containsKey(place)){
                     placeNodes.get(place).update();
-                } else if(layerNodes.containsKey(place.getLayer())) { // new place
+                } else if(layerNodes.containsKey(place.getLayer())
+                        && layerNodes.get(place.getLayer()).filled) { // new place
                     HashSet<Place> places = place.getLayer().getPlaces();
                     ArrayList<Place> placeList = new ArrayList<>(places);
                     Collections.sort(placeList, new AlphanumComparator<>());
@@ -234,6 +242,8 @@ public class PlacePanel extends JPanel
         private static final long serialVersionUID = 1L;
 
         Layer layer;
+        // place nodes have been added
+        boolean filled = false;
 
         public LayerTreeNode(Layer layer){
             super(layer.getName());
@@ -244,6 +254,39 @@ public class PlacePanel extends JPanel
             return layer;
         }
 
+        /**
+         * Adds the place nodes, if it hasn't been done yet
+         */
+        public void fill(){
+            fill(new String[0]);
+        }
+
+        /**
+         * Adds the place nodes, if it hasn't been done yet
+         * @param keywords places have to match these keywords
+         */
+        public void fill(String[] keywords){
+            if(filled) return;
+            filled = true;
+
+            ArrayList<Place> placeList = new ArrayList<>(layer.getPlaces());
+            Collections.sort(placeList, new AlphanumComparator<>());
+
+            for(Place place: placeList){
+                if(keywords.length == 0 || place.matchKeywords(keywords)){
+                    PlaceTreeNode placeNode = new PlaceTreeNode(place);
+                    add(placeNode);
+                    placeNodes.put(place, placeNode);
+                }
+            }
+        }
+
+        @Override
+        public boolean isLeaf() {
+            // unfilled nodes can be expanded
+            return filled && super.isLeaf();
+        }
+
         public void update(){
             setUserObject(layer.getName());
         }
@@ -0,0 +1,154 @@
+/*  MUD Map (v2) - A tool to create and organize maps for text-based games
+ *  Copyright (C) 2026  Neop (email: mneop@web.de)
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License along
+ *  with this program; if not, see <http://www.gnu.org/licenses/>.
+ */
+package mudmap2;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import mudmap2.backend.Layer;
+import mudmap2.backend.Place;
+import mudmap2.backend.World;
+import mudmap2.backend.WorldFileReader.current.WorldFileJSON;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author neop
+ */
+public class RenderCommandTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    File worldFile;
+    File outDir;
+
+    public RenderCommandTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        worldFile = folder.newFile("world.json");
+        outDir = new File(folder.getRoot(), "out");
+        writeWorld("Place");
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    private void writeWorld(String placeName) throws Exception {
+        World world = new World("Unittest");
+        for(int i = 0; i < 2; ++i){
+            Layer layer = new Layer(i, world);
+            layer.setName("Map " + i);
+            world.addLayer(layer);
+            layer.put(new Place(i * 10 + 1, placeName, 0, 0, layer));
+            layer.put(new Place(i * 10 + 2, "Other", 2, 1, layer));
+        }
+        new WorldFileJSON(worldFile.getPath()).writeFile(world);
+    }
+
+    private RenderCommand execute(int exitCode, String... args){
+        PrintStream stream = new PrintStream(new ByteArrayOutputStream());
+        RenderCommand instance = new RenderCommand(stream, stream);
+        assertEquals(exitCode, instance.execute(args));
+        return instance;
+    }
+
+    /**
+     * Test of isRenderCommand method, of class RenderCommand.
+     */
+    @Test
+    public void testIsRenderCommand() {
+        System.out.println("isRenderCommand");
+
+        assertTrue(RenderCommand.isRenderCommand(new String[]{"--render", "world.json"}));
+        assertFalse(RenderCommand.isRenderCommand(new String[]{}));
+        assertFalse(RenderCommand.isRenderCommand(new String[]{"world.json"}));
+    }
+
+    /**
+     * Test of execute method, of class RenderCommand.
+     */
+    @Test
+    public void testExecute() throws Exception {
+        System.out.println("execute");
+
+        RenderCommand instance = execute(RenderCommand.EXIT_OK,
+                "--render", worldFile.getPath(), "--out", outDir.getPath(), "--tile-size", "20");
+        assertEquals(2, instance.rendered);
+        assertEquals(0, instance.skipped);
+        assertTrue(new File(outDir, "0_Map_0.png").exists());
+        assertTrue(new File(outDir, "1_Map_1.png").exists());
+        assertTrue(new File(outDir, RenderCommand.MANIFEST_FILE).exists());
+
+        // nothing changed
+        instance = execute(RenderCommand.EXIT_OK,
+                "--render", worldFile.getPath(), "--out", outDir.getPath(), "--tile-size", "20");
+        assertEquals(0, instance.rendered);
+        assertEquals(2, instance.skipped);
+
+        // different tile size
+        instance = execute(RenderCommand.EXIT_OK,
+                "--render", worldFile.getPath(), "--out", outDir.getPath(), "--tile-size", "25", "--layer", "Map 1");
+        assertEquals(1, instance.rendered);
+        assertEquals(0, instance.skipped);
+
+        // changed content
+        writeWorld("Renamed");
+        instance = execute(RenderCommand.EXIT_OK,
+                "--render", worldFile.getPath(), "--out", outDir.getPath(), "--tile-size", "25", "--layer", "1");
+        assertEquals(1, instance.rendered);
+
+        // forced
+        instance = execute(RenderCommand.EXIT_OK,
+                "--render", worldFile.getPath(), "--out", outDir.getPath(), "--tile-size", "25", "--layer", "1", "--force");
+        assertEquals(1, instance.rendered);
+    }
+
+    /**
+     * Test of execute method, of class RenderCommand, with invalid arguments.
+     */
+    @Test
+    public void testExecuteInvalid() throws Exception {
+        System.out.println("executeInvalid");
+
+        execute(RenderCommand.EXIT_USAGE, "--out", outDir.getPath());
+        execute(RenderCommand.EXIT_USAGE, "--render", worldFile.getPath(), "--tile-size", "abc");
+        execute(RenderCommand.EXIT_USAGE, "--render", worldFile.getPath(), "--unknown");
+        execute(RenderCommand.EXIT_USAGE, "--render");
+        execute(RenderCommand.EXIT_USAGE, "--render", worldFile.getPath(), "--layer", "Unknown map");
+        execute(RenderCommand.EXIT_FAILED, "--render", new File(folder.getRoot(), "missing.json").getPath());
+    }
+
+}
@@ -0,0 +1,103 @@
+/*  MUD Map (v2) - A tool to create and organize maps for text-based games
+ *  Copyright (C) 2026  Neop (email: mneop@web.de)
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License along
+ *  with this program; if not, see <http://www.gnu.org/licenses/>.
+ */
+package mudmap2.backend;
+
+import java.awt.Color;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author neop
+ */
+public class LayerContentHashTest {
+
+    public LayerContentHashTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Creates a world with one layer and two connected places
+     * @param reverse add the places in reverse order
+     * @return layer
+     */
+    private Layer createLayer(boolean reverse) throws Exception {
+        World world = new World("Unittest");
+        Layer layer = new Layer(1, world);
+        world.addLayer(layer);
+
+        Place place1 = new Place(1, "Place 1", 0, 0, layer);
+        Place place2 = new Place(2, "Place 2", 1, 0, layer);
+        if(reverse){
+            layer.put(place2);
+            layer.put(place1);
+        } else {
+            layer.put(place1);
+            layer.put(place2);
+        }
+        place1.connectPath(new Path(place1, "e", place2, "w"));
+        return layer;
+    }
+
+    /**
+     * Test of compute method, of class LayerContentHash.
+     */
+    @Test
+    public void testCompute() throws Exception {
+        System.out.println("compute");
+
+        Layer layer = createLayer(false);
+        String hash = LayerContentHash.compute(layer);
+        assertEquals(64, hash.length());
+        assertEquals(hash, LayerContentHash.compute(layer));
+        // independent of insertion order
+        assertEquals(hash, LayerContentHash.compute(createLayer(true)));
+        // settings are included
+        assertFalse(hash.equals(LayerContentHash.compute(layer, "tileSize=20")));
+
+        layer.get(0, 0).setName("Renamed");
+        String hashRenamed = LayerContentHash.compute(layer);
+        assertFalse(hash.equals(hashRenamed));
+
+        layer.get(1, 0).setComments("Comment");
+        String hashComment = LayerContentHash.compute(layer);
+        assertFalse(hashRenamed.equals(hashComment));
+
+        layer.getWorld().setPathColorStd(Color.MAGENTA);
+        assertFalse(hashComment.equals(LayerContentHash.compute(layer)));
+    }
+
+}
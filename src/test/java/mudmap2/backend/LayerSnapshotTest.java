@@ -0,0 +1,99 @@
+/*  MUD Map (v2) - A tool to create and organize maps for text-based games
+ *  Copyright (C) 2026  Neop (email: mneop@web.de)
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License along
+ *  with this program; if not, see <http://www.gnu.org/licenses/>.
+ */
+package mudmap2.backend;
+
+import java.awt.Color;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author neop
+ */
+public class LayerSnapshotTest {
+
+    public LayerSnapshotTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of create method, of class LayerSnapshot.
+     */
+    @Test
+    public void testCreate() throws Exception {
+        System.out.println("create");
+
+        World world = new World("Unittest");
+        world.setPathColor("n", Color.RED);
+        Layer layer = new Layer(world);
+        world.addLayer(layer);
+        Layer other = new Layer(world);
+        world.addLayer(other);
+
+        Place place1 = new Place("Place 1", 0, 0, layer);
+        Place place2 = new Place("Place 2", 1, 0, layer);
+        Place place3 = new Place("Place 3", 0, 0, other);
+        layer.put(place1);
+        layer.put(place2);
+        other.put(place3);
+        place1.connectPath(new Path(place1, "e", place2, "w"));
+        place1.connectChild(place3);
+        place2.setComments("Comment");
+        place2.setPlaceGroup(new PlaceGroup("Area", Color.BLUE));
+
+        Layer snapshot = LayerSnapshot.create(layer);
+        assertFalse(snapshot.getWorld() == world);
+        assertEquals(LayerContentHash.compute(layer), LayerContentHash.compute(snapshot));
+
+        Place copy1 = snapshot.get(0, 0);
+        assertEquals(place1.getId(), copy1.getId());
+        assertEquals(1, copy1.getPaths().size());
+        assertEquals(snapshot.get(1, 0), copy1.getPaths().iterator().next().getOtherPlace(copy1));
+        assertEquals("Place 3", copy1.getChildren().iterator().next().getName());
+
+        // the legend needs the information colors and place groups
+        assertEquals(world.getInformationColors().size(), snapshot.getWorld().getInformationColors().size());
+        assertEquals(world.getPlaceGroups().size(), snapshot.getWorld().getPlaceGroups().size());
+
+        // the snapshot doesn't change
+        place2.setName("Renamed");
+        place1.removeConnections();
+        assertEquals("Place 2", snapshot.get(1, 0).getName());
+        assertEquals(1, copy1.getPaths().size());
+        assertFalse(LayerContentHash.compute(layer).equals(LayerContentHash.compute(snapshot)));
+    }
+
+}
@@ -16,11 +16,15 @@
  */
 package mudmap2.backend;
 
+import java.io.File;
+import java.io.IOException;
 import java.lang.reflect.Field;
 import java.util.HashSet;
 import java.util.LinkedList;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import mudmap2.backend.WorldFileReader.current.WorldFileJSON;
 import mudmap2.backend.prquadtree.Quadtree;
 import mudmap2.utils.Pair;
 import org.junit.After;
@@ -860,4 +864,88 @@ public class LayerTest {
 
     }
 
+    /**
+     * Test of load method, with a loader that fails
+     */
+    @Test
+    public void testLoadError() throws Exception {
+        System.out.println("loadError");
+
+        World world = new World("Unittest");
+        Layer layer = world.getNewLayer();
+        layer.setLoader(new LayerLoader() {
+            @Override
+            public void load(Layer layer) throws Exception {
+                layer.put(new Place("Place", 0, 0, layer));
+                throw new IOException("truncated");
+            }
+
+            @Override
+            public LayerLoader copy(World world, Map<PlaceGroup, PlaceGroup> placeGroups, Map<Integer, Place> places) {
+                return null;
+            }
+        }, 2);
+        assertNull(world.getLoadError());
+
+        layer.load();
+        assertTrue(layer.isLoaded());
+        assertNotNull(world.getLoadError());
+        assertNotNull(WorldSnapshot.create(world).getLoadError());
+
+        // the incomplete world must not replace the file
+        File file = File.createTempFile("mudmap_loaderror", ".m2w");
+        try {
+            WorldFileJSON worldFile = new WorldFileJSON(file.getPath());
+            worldFile.writeFile(world);
+            fail("incomplete world was saved");
+        } catch (IOException ex) {
+            assertEquals(0, file.length());
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * Test of remove method, elements that aren't in the layer aren't
+     * reported as removed
+     */
+    @Test
+    public void testRemoveNotContained() throws Exception {
+        System.out.println("removeNotContained");
+
+        World world = new World("Unittest");
+        Layer layer = world.getNewLayer();
+        Layer layer2 = world.getNewLayer();
+        final int[] removed = new int[2];
+        layer.addLayerChangeListener(new LayerChangeListener() {
+            @Override
+            public void elementAdded(Layer layer, LayerElement element) {}
+            @Override
+            public void elementRemoved(Layer layer, LayerElement element) {
+                ++removed[0];
+            }
+        });
+        layer2.addLayerChangeListener(new LayerChangeListener() {
+            @Override
+            public void elementAdded(Layer layer, LayerElement element) {}
+            @Override
+            public void elementRemoved(Layer layer, LayerElement element) {
+                ++removed[1];
+            }
+        });
+
+        Place place = new Place("Place", 0, 0, layer);
+        layer.put(place);
+        assertEquals(0, removed[0]);
+
+        layer.put(place, 1, 1);
+        assertEquals(1, removed[0]);
+        layer2.put(place, 2, 2);
+        assertEquals(2, removed[0]);
+        assertEquals(0, removed[1]);
+
+        layer.remove(place);
+        assertEquals(2, removed[0]);
+    }
+
 }
@@ -0,0 +1,169 @@
+/*  MUD Map (v2) - A tool to create and organize maps for text-based games
+ *  Copyright (C) 2026  Neop (email: mneop@web.de)
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License along
+ *  with this program; if not, see <http://www.gnu.org/licenses/>.
+ */
+package mudmap2.backend;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author neop
+ */
+public class PathSegmentIndexTest {
+
+    World world;
+    Layer layer;
+
+    public PathSegmentIndexTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+        world = new World("Unittest");
+        layer = new Layer(world);
+        world.addLayer(layer);
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    private Place createPlace(String name, int x, int y) throws Exception {
+        Place place = new Place(name, x, y, layer);
+        layer.put(place);
+        return place;
+    }
+
+    private List<Path> query(int xMin, int yMin, int xMax, int yMax){
+        ArrayList<PathSegmentIndex.Segment> segments = new ArrayList<>();
+        layer.getPathSegmentIndex().query(xMin, yMin, xMax, yMax, segments);
+        ArrayList<Path> ret = new ArrayList<>();
+        for(PathSegmentIndex.Segment segment: segments){
+            ret.add(segment.getPath());
+        }
+        return ret;
+    }
+
+    /**
+     * Test of query method, of class PathSegmentIndex.
+     */
+    @Test
+    public void testQuery() throws Exception {
+        System.out.println("query");
+
+        Place pl1 = createPlace("pl1", 0, 0);
+        Place pl2 = createPlace("pl2", 1, 0);
+        Place pl3 = createPlace("pl3", 30, 5);
+        Place pl4 = createPlace("pl4", -100, 200);
+
+        // short path, spans cells at the origin
+        Path short1 = new Path(pl1, "e", pl2, "w");
+        pl1.connectPath(short1);
+        // path that spans several cells
+        Path medium = new Path(pl2, "e", pl3, "w");
+        pl2.connectPath(medium);
+        // long path
+        Path long1 = new Path(pl1, "n", pl4, "s");
+        pl1.connectPath(long1);
+
+        assertEquals(3, layer.getPathSegmentIndex().size());
+
+        // every path is found once
+        List<Path> all = query(-1000, -1000, 1000, 1000);
+        assertEquals(3, all.size());
+        assertEquals(3, new HashSet<>(all).size());
+        assertEquals(3, layer.getPathSegmentIndex().getSegments().size());
+
+        // area around the origin
+        List<Path> origin = query(-2, -2, 2, 2);
+        assertEquals(3, origin.size());
+        assertTrue(origin.contains(short1));
+        assertTrue(origin.contains(medium));
+        assertTrue(origin.contains(long1));
+
+        // area crossed by the medium path only
+        List<Path> crossed = query(15, 1, 16, 2);
+        assertEquals(1, crossed.size());
+        assertTrue(crossed.contains(medium));
+
+        // area crossed by the long path only, far away from its places
+        crossed = query(-50, 100, -49, 101);
+        assertEquals(1, crossed.size());
+        assertTrue(crossed.contains(long1));
+
+        // empty area
+        assertTrue(query(500, 500, 510, 510).isEmpty());
+    }
+
+    /**
+     * Test of getPathSegmentIndex method, of class Layer.
+     */
+    @Test
+    public void testInvalidation() throws Exception {
+        System.out.println("invalidation");
+
+        Place pl1 = createPlace("pl1", 0, 0);
+        Place pl2 = createPlace("pl2", 2, 0);
+        assertEquals(0, layer.getPathSegmentIndex().size());
+
+        // new path
+        Path path = new Path(pl1, "e", pl2, "w");
+        pl1.connectPath(path);
+        assertEquals(1, layer.getPathSegmentIndex().size());
+        assertEquals(1, query(1, 0, 1, 0).size());
+
+        // moved place
+        layer.put(pl2, 40, 40);
+        assertEquals(1, query(20, 20, 21, 21).size());
+        assertTrue(query(-5, -5, -1, -1).isEmpty());
+
+        // other changes keep the index
+        PathSegmentIndex index = layer.getPathSegmentIndex();
+        pl1.setName("renamed");
+        pl1.setComments("comment");
+        pl1.setFlag("flag", true);
+        assertSame(index, layer.getPathSegmentIndex());
+
+        // removed path
+        pl1.removePath(path);
+        assertEquals(0, layer.getPathSegmentIndex().size());
+
+        // paths to other layers are ignored
+        Layer layer2 = new Layer(world);
+        world.addLayer(layer2);
+        Place pl3 = new Place("pl3", 0, 0, layer2);
+        layer2.put(pl3);
+        pl1.connectPath(new Path(pl1, "u", pl3, "d"));
+        assertEquals(0, layer.getPathSegmentIndex().size());
+    }
+
+}
@@ -0,0 +1,119 @@
+/*  MUD Map (v2) - A tool to create and organize maps for text-based games
+ *  Copyright (C) 2026  Neop (email: mneop@web.de)
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License along
+ *  with this program; if not, see <http://www.gnu.org/licenses/>.
+ */
+package mudmap2.backend.WorldFileReader;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author neop
+ */
+public class PipelinedGZIPOutputStreamTest {
+
+    public PipelinedGZIPOutputStreamTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of write and finish methods, of class PipelinedGZIPOutputStream.
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testWrite() throws Exception {
+        System.out.println("write");
+
+        // more blocks than fit into the queue
+        byte[] data = new byte[PipelinedGZIPOutputStream.BLOCK_SIZE * (PipelinedGZIPOutputStream.QUEUE_SIZE + 3) + 123];
+        Random random = new Random(1);
+        for(int i = 0; i < data.length; ++i) data[i] = (byte) ('a' + random.nextInt(4));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PipelinedGZIPOutputStream instance = new PipelinedGZIPOutputStream(out);
+        instance.write(data[0]);
+        instance.write(data, 1, 1000);
+        instance.flush();
+        instance.write(data, 1001, data.length - 1001);
+        instance.finish();
+        instance.close();
+
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        try(InputStream in = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))){
+            byte[] buffer = new byte[4096];
+            int length;
+            while((length = in.read(buffer)) >= 0) result.write(buffer, 0, length);
+        }
+        assertTrue(Arrays.equals(data, result.toByteArray()));
+        assertTrue(out.size() < data.length);
+    }
+
+    /**
+     * Test of error handling, of class PipelinedGZIPOutputStream.
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testError() throws Exception {
+        System.out.println("error");
+
+        OutputStream failing = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("disk full");
+            }
+        };
+
+        PipelinedGZIPOutputStream instance = new PipelinedGZIPOutputStream(failing);
+        byte[] data = new byte[PipelinedGZIPOutputStream.BLOCK_SIZE];
+        try {
+            // the writer mustn't wait for the stopped compressor
+            for(int i = 0; i < 4 * PipelinedGZIPOutputStream.QUEUE_SIZE; ++i) instance.write(data);
+            instance.finish();
+            fail("Error not thrown");
+        } catch (IOException ex){
+            assertEquals("disk full", ex.getMessage());
+        }
+        instance.close();
+    }
+
+}
@@ -0,0 +1,107 @@
+/*  MUD Map (v2) - A tool to create and organize maps for text-based games
+ *  Copyright (C) 2026  Neop (email: mneop@web.de)
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License along
+ *  with this program; if not, see <http://www.gnu.org/licenses/>.
+ */
+package mudmap2.backend.WorldFileReader;
+
+import java.io.File;
+import java.util.List;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.junit.Rule;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ *
+ * @author neop
+ */
+public class WorldFileBackupTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    public WorldFileBackupTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of backup method, of class WorldFileBackup.
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testBackup() throws Exception {
+        System.out.println("backup");
+
+        File file = new File(folder.getRoot(), "world");
+        WorldFileBackup instance = new WorldFileBackup(file);
+        instance.setGenerations(3);
+        assertNull(instance.backup());
+
+        FileUtils.writeStringToFile(file, "version 0");
+        File backup0 = instance.backup();
+        assertTrue(backup0.getName().startsWith(WorldFileBackup.hash(file)));
+
+        // unchanged: no new generation
+        long modified = backup0.lastModified();
+        assertEquals(backup0, instance.backup());
+        assertEquals(modified, backup0.lastModified());
+        assertEquals(1, instance.getBackupFiles().size());
+
+        for(int i = 1; i <= 3; ++i){
+            FileUtils.writeStringToFile(file, "version " + i);
+            instance.backup();
+        }
+        // the oldest generation was deleted
+        List<File> backups = instance.getBackupFiles();
+        assertEquals(3, backups.size());
+        assertFalse(backup0.exists());
+        assertEquals(4, instance.getDirectory().list().length);
+
+        File restored = new File(folder.getRoot(), "restored");
+        WorldFileBackup.restore(backups.get(0), restored);
+        assertEquals("version 3", FileUtils.readFileToString(restored));
+        WorldFileBackup.restore(backups.get(2), restored);
+        assertEquals("version 1", FileUtils.readFileToString(restored));
+
+        // content of an older generation becomes the newest one
+        FileUtils.writeStringToFile(file, "version 1");
+        assertEquals(backups.get(2), instance.backupLater().get());
+        backups = instance.getBackupFiles();
+        assertEquals(3, backups.size());
+        WorldFileBackup.restore(backups.get(0), restored);
+        assertEquals("version 1", FileUtils.readFileToString(restored));
+    }
+
+}
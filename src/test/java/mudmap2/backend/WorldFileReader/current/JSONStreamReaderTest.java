@@ -0,0 +1,155 @@
+/*  MUD Map (v2) - A tool to create and organize maps for text-based games
+ *  Copyright (C) 2026  Neop (email: mneop@web.de)
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License along
+ *  with this program; if not, see <http://www.gnu.org/licenses/>.
+ */
+package mudmap2.backend.WorldFileReader.current;
+
+import java.io.IOException;
+import java.io.StringReader;
+import mudmap2.backend.WorldFileReader.current.JSONStreamReader.Token;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author neop
+ */
+public class JSONStreamReaderTest {
+
+    public JSONStreamReaderTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of the token methods, of class JSONStreamReader.
+     */
+    @Test
+    public void testTokens() throws IOException {
+        System.out.println("tokens");
+
+        JSONStreamReader instance = new JSONStreamReader(new StringReader(
+                " {\"a\" : 1, \"b\":[true, null, -2.5e1],\n\"c\":\"x\\\"\\u00e4\\n\", \"d\": {}, \"e\": []} "));
+        assertEquals(Token.BEGIN_OBJECT, instance.peek());
+        instance.beginObject();
+        assertEquals("a", instance.nextName());
+        assertEquals(1, instance.nextInt());
+        assertEquals("b", instance.nextName());
+        instance.beginArray();
+        assertTrue(instance.nextBoolean());
+        assertEquals(Token.NULL, instance.peek());
+        instance.nextNull();
+        assertEquals(-25.0, instance.nextDouble(), 0.0);
+        assertFalse(instance.hasNext());
+        instance.endArray();
+        assertEquals("c", instance.nextName());
+        assertEquals("x\"ä\n", instance.nextString());
+        assertEquals("d", instance.nextName());
+        instance.beginObject();
+        assertFalse(instance.hasNext());
+        instance.endObject();
+        assertEquals("e", instance.nextName());
+        instance.beginArray();
+        instance.endArray();
+        instance.endObject();
+        assertEquals(Token.END_DOCUMENT, instance.peek());
+    }
+
+    /**
+     * Test of skipValue method, of class JSONStreamReader.
+     */
+    @Test
+    public void testSkipValue() throws IOException {
+        System.out.println("skipValue");
+
+        JSONStreamReader instance = new JSONStreamReader(new StringReader(
+                "{\"a\":{\"b\":[1,{\"c\":\"}]\"}],\"d\":2},\"e\":\"f\",\"g\":3}"));
+        instance.beginObject();
+        assertEquals("a", instance.nextName());
+        instance.skipValue();
+        assertEquals("e", instance.nextName());
+        instance.skipValue();
+        assertEquals("g", instance.nextName());
+        assertEquals(3, instance.nextInt());
+        instance.endObject();
+        assertFalse(instance.hasNext());
+    }
+
+    /**
+     * Test of readObject and readArray methods, of class JSONStreamReader.
+     */
+    @Test
+    public void testReadObject() throws IOException {
+        System.out.println("readObject");
+
+        String json = "{\"a\":1,\"b\":[\"x\",2.5,false],\"c\":{\"d\":null}}";
+        JSONObject expected = new JSONObject(json);
+
+        JSONStreamReader instance = new JSONStreamReader(new StringReader("[" + json + "]"));
+        JSONArray result = instance.readArray();
+        assertEquals(1, result.length());
+        assertEquals(expected.toString(), result.getJSONObject(0).toString());
+    }
+
+    /**
+     * Test of syntax errors, of class JSONStreamReader.
+     */
+    @Test
+    public void testSyntaxError() throws IOException {
+        System.out.println("syntax error");
+
+        String[] invalid = {"{\"a\" 1}", "[1 2]", "{\"a\":1,}", "[\"a]", "{\"a\":foo}", "[1"};
+        for(String json: invalid){
+            JSONStreamReader instance = new JSONStreamReader(new StringReader(json));
+            try {
+                instance.skipValue();
+                fail(json);
+            } catch(JSONException ex){
+                // expected
+            }
+        }
+
+        // wrong token type
+        JSONStreamReader instance = new JSONStreamReader(new StringReader("[1]"));
+        try {
+            instance.beginObject();
+            fail();
+        } catch(JSONException ex){
+            // expected
+        }
+    }
+
+}
@@ -0,0 +1,121 @@
+/*  MUD Map (v2) - A tool to create and organize maps for text-based games
+ *  Copyright (C) 2026  Neop (email: mneop@web.de)
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License along
+ *  with this program; if not, see <http://www.gnu.org/licenses/>.
+ */
+package mudmap2.backend.WorldFileReader.current;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Iterator;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author neop
+ */
+public class JSONStreamWriterTest {
+
+    public JSONStreamWriterTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of the write methods, of class JSONStreamWriter. The output has
+     * to match JSONObject.toString()
+     */
+    @Test
+    public void testWrite() throws IOException {
+        System.out.println("write");
+
+        String[] names = {"id", "name", "list", "pos", "sub", "flag", "lvlMin", "co"};
+
+        JSONObject expected = new JSONObject();
+        expected.put("id", 5);
+        expected.put("name", "a \"b\" \\ </c>\n\u00e4");
+        expected.put("list", new JSONArray().put(1).put("x"));
+        expected.put("pos", 2.0);
+        expected.put("sub", new JSONObject().put("a", 1));
+        expected.put("flag", true);
+        expected.put("lvlMin", -1.25);
+        expected.put("co", new JSONArray());
+
+        StringWriter result = new StringWriter();
+        JSONStreamWriter instance = new JSONStreamWriter(result);
+        instance.beginObject();
+        for(String name: JSONStreamWriter.getMemberOrder(names)){
+            instance.name(name);
+            switch(name){
+                case "id": instance.value(5); break;
+                case "name": instance.value("a \"b\" \\ </c>\n\u00e4"); break;
+                case "list": instance.beginArray().value(1).value("x").endArray(); break;
+                case "pos": instance.value(2.0); break;
+                case "sub": instance.value(new JSONObject().put("a", 1)); break;
+                case "flag": instance.value(true); break;
+                case "lvlMin": instance.value(-1.25); break;
+                case "co": instance.beginArray().endArray(); break;
+            }
+        }
+        instance.endObject();
+        instance.flush();
+
+        assertEquals(expected.toString(), result.toString());
+    }
+
+    /**
+     * Test of getMemberOrder method, of class JSONStreamWriter.
+     */
+    @Test
+    public void testGetMemberOrder() {
+        System.out.println("getMemberOrder");
+
+        // more members than fit into the initial map
+        String[] names = new String[20];
+        JSONObject object = new JSONObject();
+        for(int i = 0; i < names.length; ++i){
+            names[i] = "member" + (i * 7);
+            object.put(names[i], i);
+        }
+
+        String[] result = JSONStreamWriter.getMemberOrder(names);
+        assertEquals(names.length, result.length);
+        int i = 0;
+        for(Iterator<String> it = object.keys(); it.hasNext(); ++i){
+            assertEquals(it.next(), result[i]);
+        }
+    }
+
+}
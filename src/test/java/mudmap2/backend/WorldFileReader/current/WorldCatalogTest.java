@@ -0,0 +1,174 @@
+/*  MUD Map (v2) - A tool to create and organize maps for text-based games
+ *  Copyright (C) 2026  Neop (email: mneop@web.de)
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License along
+ *  with this program; if not, see <http://www.gnu.org/licenses/>.
+ */
+package mudmap2.backend.WorldFileReader.current;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.Arrays;
+import mudmap2.backend.Layer;
+import mudmap2.backend.Place;
+import mudmap2.backend.World;
+import mudmap2.backend.WorldFileReader.WorldFileType;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.junit.Rule;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ *
+ * @author neop
+ */
+public class WorldCatalogTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    File catalogFile, thumbnailDir;
+    File jsonFile, binaryFile;
+
+    public WorldCatalogTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        catalogFile = new File(folder.getRoot(), "catalog");
+        thumbnailDir = new File(folder.getRoot(), "thumbnails");
+        jsonFile = new File(folder.getRoot(), "world.json");
+        binaryFile = new File(folder.getRoot(), "world.m2w");
+
+        World world = new World("Catalog");
+        Layer layer = world.getNewLayer();
+        for(int i = 0; i < 5; ++i) layer.put(new Place("Place " + i, i, 0, layer));
+        Layer layer2 = world.getNewLayer();
+        layer2.put(new Place("Other", 0, 0, layer2));
+        // empty layer
+        world.getNewLayer();
+
+        new WorldFileJSON(jsonFile.getPath()).writeFile(world);
+        new WorldFileBinary(binaryFile.getPath()).writeFile(world);
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of probe method, of class WorldCatalog.
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testProbe() throws Exception {
+        System.out.println("probe");
+
+        WorldCatalog catalog = new WorldCatalog(catalogFile, thumbnailDir);
+        WorldCatalog.Entry json = catalog.probe(jsonFile);
+        assertEquals("Catalog", json.getWorldName());
+        assertEquals(WorldFileType.JSON, json.getType());
+        assertEquals(WorldFileJSON.versionMajor + "." + WorldFileJSON.versionMinor, json.getVersion());
+        // not in the header
+        assertEquals(-1, json.getPlaceCount());
+        assertFalse(json.isComplete());
+
+        WorldCatalog.Entry binary = catalog.probe(binaryFile);
+        assertEquals("Catalog", binary.getWorldName());
+        assertEquals(WorldFileType.BINARY, binary.getType());
+        assertEquals(2, binary.getLayerCount());
+        assertEquals(6, binary.getPlaceCount());
+
+        // other files
+        File text = new File(folder.getRoot(), "text");
+        FileUtils.writeStringToFile(text, "no world");
+        assertNull(catalog.probe(text));
+        assertNull(catalog.probe(new File(folder.getRoot(), "missing")));
+
+        // changed file
+        assertSame(json, catalog.get(jsonFile));
+        World world = new World("Changed");
+        new WorldFileJSON(jsonFile.getPath()).writeFile(world);
+        assertNull(catalog.get(jsonFile));
+        assertEquals("Changed", catalog.probe(jsonFile).getWorldName());
+    }
+
+    /**
+     * Test of refresh, write and read, of class WorldCatalog.
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testRefresh() throws Exception {
+        System.out.println("refresh");
+
+        WorldCatalog catalog = new WorldCatalog(catalogFile, thumbnailDir);
+        catalog.setThumbnailRenderer(new WorldCatalog.ThumbnailRenderer() {
+            @Override
+            public BufferedImage render(Layer layer, int width, int height) {
+                return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+            }
+        });
+        final int[] updated = {0};
+        catalog.refresh(Arrays.asList(jsonFile, binaryFile), new WorldCatalog.Listener() {
+            @Override
+            public void entryUpdated(WorldCatalog.Entry entry) {
+                ++updated[0];
+            }
+        }).get();
+        assertEquals(2, updated[0]);
+
+        WorldCatalog.Entry json = catalog.get(jsonFile);
+        assertTrue(json.isComplete());
+        assertEquals(2, json.getLayerCount());
+        assertEquals(6, json.getPlaceCount());
+        assertNotNull(json.getThumbnail());
+        assertTrue(catalogFile.isFile());
+
+        // complete entries aren't read again
+        catalog.refresh(Arrays.asList(jsonFile, binaryFile), new WorldCatalog.Listener() {
+            @Override
+            public void entryUpdated(WorldCatalog.Entry entry) {
+                ++updated[0];
+            }
+        }).get();
+        assertEquals(2, updated[0]);
+
+        // read from the catalog file
+        WorldCatalog catalog2 = new WorldCatalog(catalogFile, thumbnailDir);
+        WorldCatalog.Entry binary = catalog2.get(binaryFile);
+        assertTrue(binary.isComplete());
+        assertEquals("Catalog", binary.getWorldName());
+        assertEquals(6, binary.getPlaceCount());
+        assertEquals(WorldCatalog.THUMBNAIL_WIDTH, binary.getThumbnail().getWidth());
+
+        // entries of removed files are removed
+        jsonFile.delete();
+        catalog2.write();
+        assertNull(new WorldCatalog(catalogFile, thumbnailDir).get(jsonFile));
+        assertEquals(1, thumbnailDir.list().length);
+    }
+
+}
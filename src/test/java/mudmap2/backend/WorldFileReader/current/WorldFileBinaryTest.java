@@ -0,0 +1,380 @@
+/*  MUD Map (v2) - A tool to create and organize maps for text-based games
+ *  Copyright (C) 2016  Neop (email: mneop@web.de)
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License along
+ *  with this program; if not, see <http://www.gnu.org/licenses/>.
+ */
+package mudmap2.backend.WorldFileReader.current;
+
+import java.awt.Color;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import mudmap2.backend.InformationColor;
+import mudmap2.backend.Layer;
+import mudmap2.backend.Path;
+import mudmap2.backend.Place;
+import mudmap2.backend.PlaceGroup;
+import mudmap2.backend.World;
+import mudmap2.backend.WorldChangeListener;
+import mudmap2.backend.WorldCoordinate;
+import mudmap2.backend.WorldSnapshot;
+import mudmap2.backend.WorldFileReader.Exception.WorldFileReadError;
+import mudmap2.backend.WorldFileReader.WorldFileType;
+import org.apache.commons.io.FileUtils;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.junit.Rule;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ *
+ * @author neop
+ */
+public class WorldFileBinaryTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    public WorldFileBinaryTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of the varint methods, of class WorldFileBinary.
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testVarint() throws Exception {
+        System.out.println("varint");
+
+        int[] values = {0, 1, 127, 128, 300, 16384, Integer.MAX_VALUE, -1, -64, -65, Integer.MIN_VALUE};
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        for(int value: values){
+            WorldFileBinary.writeVarint(out, value);
+            WorldFileBinary.writeSignedVarint(out, value);
+        }
+        out.flush();
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+        for(int value: values){
+            assertEquals(value, WorldFileBinary.readVarint(buffer));
+            assertEquals(value, WorldFileBinary.readSignedVarint(buffer));
+        }
+        assertFalse(buffer.hasRemaining());
+
+        // small values need a single byte
+        bytes.reset();
+        WorldFileBinary.writeVarint(out, 127);
+        WorldFileBinary.writeSignedVarint(out, -64);
+        out.flush();
+        assertEquals(2, bytes.size());
+    }
+
+    /**
+     * Test of readFile and writeFile methods, of class WorldFileBinary.
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testReadWriteFile() throws Exception {
+        System.out.println("readFile / writeFile");
+
+        World world = new World("Binary ä");
+        world.setPathColor("up", Color.RED);
+        world.setInformationColor(new InformationColor(7, "seven", Color.CYAN));
+        world.setPreferences(new JSONObject("{\"a\":1}"));
+
+        Layer layer1 = world.getNewLayer("MyLayer");
+        Layer layer2 = world.getNewLayer();
+        Place pl0 = new Place("Foo", 0, 0, layer1);
+        Place pl1 = new Place("Bar", -70, 100000, layer1);
+        Place pl2 = new Place("Baz", 6, 4, layer2);
+        layer1.put(pl0);
+        layer1.put(pl1);
+        layer2.put(pl2);
+        world.setHome(new WorldCoordinate(layer1.getId(), -70, 100000));
+
+        pl0.connectPath(new Path(pl0, "n", pl1, "s"));
+        pl1.connectPath(new Path(pl1, "portal", pl0, "w"));
+        pl0.connectChild(pl2);
+        pl0.setPlaceGroup(new PlaceGroup("Area", Color.ORANGE));
+        pl0.setInfoRing(world.getInformationColor(7));
+        pl0.setRecLevelMin(3);
+        pl1.setRecLevelMax(50);
+        pl0.setFlag("flag", true);
+        pl0.setFlag("unset", false);
+        pl1.setComments("Comment\nwith two lines");
+
+        String file = folder.getRoot() + "/wfb";
+        new WorldFileBinary(file).writeFile(world);
+        assertFalse(new File(file + ".tmp").exists());
+
+        WorldFileBinary reader = new WorldFileBinary(file);
+        assertTrue(reader.canRead());
+        assertEquals("Binary ä", reader.readWorldName());
+
+        World result = reader.readFile();
+        assertEquals("Binary ä", result.getName());
+        assertEquals(Color.RED, result.getPathColor("up"));
+        assertEquals("seven", result.getInformationColor(7).getDescription());
+        assertEquals(1, result.getPreferences().getInt("a"));
+        assertEquals(2, result.getLayers().size());
+        assertEquals(-70, result.getHome().getX(), 0);
+
+        Layer layer1r = result.getLayer(0);
+        Layer layer2r = result.getLayer(1);
+        assertEquals("MyLayer", layer1r.getName());
+        assertFalse(layer2r.hasName());
+
+        Place pl0r = layer1r.get(0, 0);
+        Place pl1r = layer1r.get(-70, 100000);
+        Place pl2r = layer2r.get(6, 4);
+        assertEquals(pl0.getId(), pl0r.getId());
+        assertEquals("Bar", pl1r.getName());
+        assertEquals(2, pl0r.getPaths().size());
+        assertEquals(1, pl0r.getPathsTo("n").size());
+        assertEquals(1, pl1r.getPathsTo("portal").size());
+        assertEquals(pl0r, pl1r.getPathsTo("portal").iterator().next().getOtherPlace(pl1r));
+        assertTrue(pl0r.getChildren().contains(pl2r));
+        assertTrue(pl2r.getParents().contains(pl0r));
+        assertEquals("Area", pl0r.getPlaceGroup().getName());
+        assertEquals(Color.ORANGE, pl0r.getPlaceGroup().getColor());
+        assertNull(pl1r.getPlaceGroup());
+        assertEquals(7, (int) pl0r.getInfoRing().getId());
+        assertEquals(3, pl0r.getRecLevelMin());
+        assertEquals(50, pl1r.getRecLevelMax());
+        assertTrue(pl0r.getFlag("flag"));
+        assertEquals(1, pl0r.getFlags().size());
+        assertEquals("Comment\nwith two lines", pl1r.getComments());
+    }
+
+    /**
+     * Test of the layer loading of readFile, of class WorldFileBinary.
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testLazyLoad() throws Exception {
+        System.out.println("lazy load");
+
+        World world = new World("Lazy");
+        Layer layerA = world.getNewLayer("A");
+        Layer layerB = world.getNewLayer("B");
+        Layer layerC = world.getNewLayer("C");
+        Place a0 = new Place("a0", 0, 0, layerA);
+        Place a1 = new Place("a1", 1, 0, layerA);
+        Place b0 = new Place("b0", 0, 0, layerB);
+        Place c0 = new Place("c0", 0, 0, layerC);
+        layerA.put(a0);
+        layerA.put(a1);
+        layerB.put(b0);
+        layerC.put(c0);
+        a0.connectPath(new Path(a0, "e", a1, "w"));
+        a0.connectPath(new Path(a0, "up", b0, "down"));
+        a1.connectPath(new Path(a1, "n", a1, "s"));
+        b0.connectChild(a1);
+        a0.connectChild(b0);
+
+        String file = folder.getRoot() + "/wfb";
+        new WorldFileBinary(file).writeFile(world);
+
+        // both orders
+        for(int first = 0; first < 2; ++first){
+            World result = new WorldFileBinary(file).readFile();
+            final int[] events = {0};
+            result.addChangeListener(new WorldChangeListener() {
+                @Override
+                public void worldChanged(Object source) {
+                    ++events[0];
+                }
+            });
+
+            Layer layerAr = result.getLayer(0);
+            Layer layerBr = result.getLayer(1);
+            Layer layerCr = result.getLayer(2);
+            assertEquals("B", layerBr.getName());
+            assertFalse(layerAr.isLoaded());
+            assertFalse(layerAr.isEmpty());
+            assertFalse(layerAr.isLoaded());
+
+            Place a0r, b0r;
+            if(first == 0){
+                a0r = layerAr.get(0, 0);
+                assertFalse(layerBr.isLoaded());
+                b0r = layerBr.get(0, 0);
+            } else {
+                b0r = layerBr.get(0, 0);
+                assertFalse(layerAr.isLoaded());
+                a0r = layerAr.get(0, 0);
+            }
+            Place a1r = layerAr.get(1, 0);
+            assertEquals(0, events[0]);
+            assertFalse(layerCr.isLoaded());
+
+            assertEquals("b0", b0r.getName());
+            assertEquals(2, a0r.getPaths().size());
+            assertEquals(b0r, a0r.getPathsTo("up").iterator().next().getOtherPlace(a0r));
+            assertEquals(1, b0r.getPaths().size());
+            assertEquals(a1r, a0r.getPathsTo("e").iterator().next().getOtherPlace(a0r));
+            assertEquals(2, a1r.getPaths().size());
+            assertEquals(a1r, a1r.getPathsTo("n").iterator().next().getOtherPlace(a1r));
+            assertTrue(b0r.getChildren().contains(a1r));
+            assertTrue(a1r.getParents().contains(b0r));
+            assertTrue(a0r.getChildren().contains(b0r));
+            assertEquals(1, b0r.getParents().size());
+
+            // new places don't get the ids of places that haven't been read
+            assertTrue(new Place("new", 5, 5, layerAr).getId() > c0.getId());
+            assertEquals("c0", layerCr.get(0, 0).getName());
+        }
+    }
+
+    /**
+     * Test of a snapshot of a world with layers that haven't been read, of
+     * class WorldFileBinary.
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testLazySnapshot() throws Exception {
+        System.out.println("lazy snapshot");
+
+        World world = new World("Lazy");
+        Layer layerA = world.getNewLayer("A");
+        Layer layerB = world.getNewLayer("B");
+        Layer layerC = world.getNewLayer("C");
+        Place a0 = new Place("a0", 0, 0, layerA);
+        Place a1 = new Place("a1", 1, 0, layerA);
+        Place b0 = new Place("b0", 0, 0, layerB);
+        Place c0 = new Place("c0", 0, 0, layerC);
+        layerA.put(a0);
+        layerA.put(a1);
+        layerB.put(b0);
+        layerC.put(c0);
+        a0.connectPath(new Path(a0, "e", a1, "w"));
+        a0.connectPath(new Path(a0, "up", b0, "down"));
+        a1.connectPath(new Path(a1, "s", c0, "n"));
+        b0.connectChild(a1);
+        a0.connectChild(b0);
+        c0.setPlaceGroup(new PlaceGroup("Area", Color.BLUE));
+
+        String file = folder.getRoot() + "/wfb";
+        new WorldFileBinary(file).writeFile(world);
+
+        World result = new WorldFileBinary(file).readFile();
+        Place b0r = result.getLayer(1).get(0, 0);
+        b0r.getPaths().iterator().next().remove();
+        b0r.setName("b0 changed");
+
+        World snapshot = WorldSnapshot.create(result);
+        assertFalse(result.getLayer(0).isLoaded());
+        assertFalse(result.getLayer(2).isLoaded());
+        assertFalse(snapshot.getLayer(0).isLoaded());
+        assertTrue(snapshot.getLayer(1).isLoaded());
+        assertEquals(2, snapshot.getLayer(0).getPlaceCount());
+
+        String snapshotFile = folder.getRoot() + "/wfb-snapshot";
+        new WorldFileBinary(snapshotFile).writeFile(snapshot);
+        // the snapshot is read into the copy
+        assertFalse(result.getLayer(0).isLoaded());
+        assertFalse(result.getLayer(2).isLoaded());
+
+        World saved = new WorldFileBinary(snapshotFile).readFile();
+        Place a0s = saved.getLayer(0).get(0, 0);
+        Place a1s = saved.getLayer(0).get(1, 0);
+        Place b0s = saved.getLayer(1).get(0, 0);
+        Place c0s = saved.getLayer(2).get(0, 0);
+        assertEquals("a0", a0s.getName());
+        assertEquals("b0 changed", b0s.getName());
+        assertEquals(1, a0s.getPaths().size());
+        assertEquals(a1s, a0s.getPathsTo("e").iterator().next().getOtherPlace(a0s));
+        assertTrue(b0s.getPaths().isEmpty());
+        assertEquals(c0s, a1s.getPathsTo("s").iterator().next().getOtherPlace(a1s));
+        assertTrue(b0s.getChildren().contains(a1s));
+        assertTrue(a0s.getChildren().contains(b0s));
+        assertEquals("Area", c0s.getPlaceGroup().getName());
+        assertEquals(a0.getId(), a0s.getId());
+    }
+
+    /**
+     * Test of canRead method and the detection in WorldFileDefault, of class
+     * WorldFileBinary.
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testCanRead() throws Exception {
+        System.out.println("canRead");
+
+        String binaryFile = folder.getRoot() + "/wfb";
+        String jsonFile = folder.getRoot() + "/wfj";
+        new WorldFileBinary(binaryFile).writeFile(new World("foobar"));
+        new WorldFileJSON(jsonFile).writeFile(new World("foobar"));
+
+        assertTrue(new WorldFileBinary(binaryFile).canRead());
+        assertFalse(new WorldFileBinary(jsonFile).canRead());
+        assertFalse(new WorldFileJSON(binaryFile).canRead());
+        assertFalse(new WorldFileBinary(folder.getRoot() + "/missing").canRead());
+
+        WorldFileDefault worldFileDefault = new WorldFileDefault(binaryFile);
+        assertEquals(WorldFileType.BINARY, worldFileDefault.getWorldFileType());
+        assertTrue(worldFileDefault.getWorldFile() instanceof WorldFileBinary);
+        assertEquals("foobar", worldFileDefault.readWorldName());
+        assertEquals("foobar", worldFileDefault.readFile().getName());
+
+        // the format is kept when the world is saved again
+        worldFileDefault.writeFile(new World("changed"));
+        assertTrue(WorldFileBinary.isBinaryWorldFile(new File(binaryFile)));
+
+        // truncated file
+        byte[] data = FileUtils.readFileToByteArray(new File(binaryFile));
+        FileUtils.writeByteArrayToFile(new File(binaryFile), Arrays.copyOf(data, data.length / 2));
+        try {
+            new WorldFileBinary(binaryFile).readFile();
+            fail();
+        } catch(WorldFileReadError ex){
+            // expected
+        }
+    }
+
+    /**
+     * Test of getWorldFileType method, of class WorldFileBinary.
+     */
+    @Test
+    public void testGetWorldFileType() {
+        System.out.println("getWorldFileType");
+
+        assertEquals(WorldFileType.BINARY, new WorldFileBinary(null).getWorldFileType());
+    }
+
+}
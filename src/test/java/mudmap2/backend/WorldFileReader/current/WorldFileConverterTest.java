@@ -0,0 +1,177 @@
+/*  MUD Map (v2) - A tool to create and organize maps for text-based games
+ *  Copyright (C) 2016  Neop (email: mneop@web.de)
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License along
+ *  with this program; if not, see <http://www.gnu.org/licenses/>.
+ */
+package mudmap2.backend.WorldFileReader.current;
+
+import java.awt.Color;
+import java.io.File;
+import java.util.HashMap;
+import mudmap2.backend.Layer;
+import mudmap2.backend.LayerContentHash;
+import mudmap2.backend.Path;
+import mudmap2.backend.Place;
+import mudmap2.backend.PlaceGroup;
+import mudmap2.backend.World;
+import mudmap2.backend.WorldFileReader.WorldFileType;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.junit.Rule;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ *
+ * @author neop
+ */
+public class WorldFileConverterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    public WorldFileConverterTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of convert method, of class WorldFileConverter. A JSON file that
+     * is converted to binary and back has to be the same
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testConvert() throws Exception {
+        System.out.println("convert");
+
+        World world = new World("Convert");
+        world.setPathColor("up", Color.RED);
+        world.setPreferences(new JSONObject("{\"dialog\":{\"w\":5}}"));
+        Layer layer1 = world.getNewLayer("First");
+        final Layer layer2 = world.getNewLayer();
+        for(int i = 0; i < 50; ++i){
+            Place place = new Place("Place " + i, i % 7, i / 7 - 3, i % 2 == 0 ? layer1 : layer2);
+            place.getLayer().put(place);
+            if(i % 5 == 0) place.setPlaceGroup(new PlaceGroup("Area " + i % 3, Color.BLUE));
+            if(i % 4 == 0) place.setComments("Comment " + i);
+            if(i % 3 == 0) place.setFlag("flag " + i % 2, true);
+            place.setRecLevelMin(i % 10);
+        }
+        Place[] places = layer1.getPlaces().toArray(new Place[0]);
+        for(int i = 1; i < places.length; ++i){
+            places[i - 1].connectPath(new Path(places[i - 1], "e", places[i], i % 2 == 0 ? "w" : "exit " + i));
+            if(i % 3 == 0) places[i].connectChild(layer2.getPlaces().iterator().next());
+        }
+
+        String jsonFile = folder.getRoot() + "/world.json";
+        WorldFileJSON json = new WorldFileJSON(jsonFile);
+        json.setMetaGetter(new WorldMetaJSON() {
+            @Override
+            public JSONObject getMeta(HashMap<Integer, Integer> layerTranslation) {
+                return new JSONObject("{\"showGrid\":true,\"history\":[{\"l\":"
+                        + layerTranslation.get(layer2.getId()) + ",\"x\":1,\"y\":2}]}");
+            }
+        });
+        json.writeFile(world);
+
+        String binaryFile = folder.getRoot() + "/world.bin";
+        String jsonFile2 = folder.getRoot() + "/world2.json";
+        WorldFileConverter.convert(jsonFile, binaryFile, WorldFileType.BINARY);
+        assertTrue(WorldFileBinary.isBinaryWorldFile(new File(binaryFile)));
+        assertTrue(new File(binaryFile).length() < new File(jsonFile).length());
+
+        WorldFileConverter.convert(binaryFile, jsonFile2, WorldFileType.JSON);
+
+        // the order of places in a layer isn't fixed, compare the contents
+        WorldFileJSON reader = new WorldFileJSON(jsonFile);
+        WorldFileJSON reader2 = new WorldFileJSON(jsonFile2);
+        World expected = reader.readFile();
+        World result = reader2.readFile();
+        assertEquals(expected.getName(), result.getName());
+        assertEquals(expected.getLayers().size(), result.getLayers().size());
+        for(Layer layer: expected.getLayers()){
+            Layer layerResult = result.getLayer(layer.getId());
+            assertNotNull(layerResult);
+            assertEquals(layer.getName(), layerResult.getName());
+            assertEquals(LayerContentHash.compute(layer), LayerContentHash.compute(layerResult));
+        }
+        assertEquals(expected.getPlaceGroups().size(), result.getPlaceGroups().size());
+        assertEquals(expected.getPreferences().toString(), result.getPreferences().toString());
+        assertEquals(reader.getMetaData().toString(), reader2.getMetaData().toString());
+    }
+
+    /**
+     * Test of convert method, of class WorldFileConverter. The saved changes
+     * in the journal of the source are converted too
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testConvertJournal() throws Exception {
+        System.out.println("convertJournal");
+
+        String source = folder.getRoot() + "/journal.json";
+        World world = new World("Journal");
+        Layer layer = world.getNewLayer();
+        layer.put(new Place("Place", 0, 0, layer));
+        new WorldFileJSON(source).writeFile(world);
+
+        WorldFileDefault sourceFile = new WorldFileDefault(source);
+        World read = sourceFile.readFile();
+        sourceFile.getJournal().start(read);
+        read.getLayers().iterator().next().get(0, 0).setName("Journal place");
+        sourceFile.getJournal().commit();
+        sourceFile.getJournal().close();
+
+        String target = folder.getRoot() + "/journal.m2w";
+        WorldFileConverter.convert(source, target, WorldFileType.BINARY);
+        World converted = new WorldFileBinary(target).readFile();
+        assertEquals("Journal place", converted.getLayers().iterator().next().get(0, 0).getName());
+    }
+
+    /**
+     * Test of create method, of class WorldFileConverter.
+     */
+    @Test
+    public void testCreate() {
+        System.out.println("create");
+
+        assertTrue(WorldFileConverter.create("a", WorldFileType.JSON) instanceof WorldFileJSON);
+        assertTrue(WorldFileConverter.create("a", WorldFileType.BINARY) instanceof WorldFileBinary);
+        try {
+            WorldFileConverter.create("a", WorldFileType.MUDMAP1);
+            fail();
+        } catch(IllegalArgumentException ex){
+            // expected
+        }
+    }
+
+}
@@ -352,4 +352,48 @@ public class WorldFileDefaultTest {
         assertTrue(result);
     }
 
+    /**
+     * Test of reading and writing gzip compressed world files
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testCompressed() throws Exception {
+        System.out.println("compressed");
+
+        World world = new World("Compressed");
+        Layer layer = world.getNewLayer();
+        for(int i = 0; i < 100; ++i) layer.put(new Place("Place " + i, i, 0, layer));
+
+        // requested by the filename
+        File jsonFile = new File(folder.getRoot(), "world.json" + WorldFile.COMPRESSED_EXTENSION);
+        new WorldFileJSON(jsonFile.getPath()).writeFile(world);
+        assertTrue(WorldFile.isCompressed(jsonFile));
+
+        WorldFileDefault instance = new WorldFileDefault(jsonFile.getPath());
+        assertEquals(WorldFileType.JSON, instance.getWorldFileType());
+        assertEquals("Compressed", instance.readWorldName());
+        World result = instance.readFile();
+        assertEquals(100, result.getLayers().iterator().next().getPlaces().size());
+
+        // requested by the world preference
+        File binaryFile = new File(folder.getRoot(), "world.m2w");
+        new WorldFileBinary(binaryFile.getPath()).writeFile(world);
+        assertFalse(WorldFile.isCompressed(binaryFile));
+        long uncompressedSize = binaryFile.length();
+
+        world.getPreferences().put(WorldFile.PREFERENCE_COMPRESS, true);
+        new WorldFileBinary(binaryFile.getPath()).writeFile(world);
+        assertTrue(WorldFile.isCompressed(binaryFile));
+        assertTrue(binaryFile.length() < uncompressedSize);
+
+        instance = new WorldFileDefault(binaryFile.getPath());
+        assertEquals(WorldFileType.BINARY, instance.getWorldFileType());
+        assertEquals("Compressed", instance.readWorldName());
+        result = instance.readFile();
+        Layer resultLayer = result.getLayers().iterator().next();
+        assertEquals(100, resultLayer.getPlaces().size());
+        assertEquals("Place 42", resultLayer.get(42, 0).getName());
+        assertTrue(result.getPreferences().getBoolean(WorldFile.PREFERENCE_COMPRESS));
+    }
+
 }
@@ -221,6 +221,46 @@ public class WorldFileJSONTest {
         // TODO: test labels
     }
 
+    /**
+     * Test of readFile method with references to members that follow later
+     * in the file, of class WorldFileJSON.
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testReadFileOrder() throws Exception {
+        System.out.println("readFile order");
+
+        String wfjFile = folder.getRoot() + "/wfj";
+        FileUtils.writeStringToFile(new File(wfjFile), "{"
+                + "\"paths\":[[{\"p\":1,\"e\":\"n\"},{\"p\":2,\"e\":\"s\"}]],"
+                + "\"places\":["
+                + "{\"id\":1,\"n\":\"Foo\",\"l\":0,\"x\":0,\"y\":0,\"a\":1,\"r\":7,\"lvlMin\":3,\"lvlMax\":5,\"c\":[2],\"unknown\":{\"x\":[1]}},"
+                + "{\"id\":2,\"n\":\"Bar\",\"l\":0,\"x\":0,\"y\":1}],"
+                + "\"layers\":[{\"id\":0,\"centerX\":0,\"centerY\":0,\"name\":\"MyLayer\"}],"
+                + "\"areas\":[{\"id\":1,\"name\":\"myArea\",\"col\":\"#ff8040\"}],"
+                + "\"riskLevels\":[{\"id\":7,\"desc\":\"danger\",\"col\":\"#ff0000\"}],"
+                + "\"worldName\":\"FooBar\",\"fileVer\":\"2.0\"}");
+
+        World result = new WorldFileJSON(wfjFile).readFile();
+        assertEquals("FooBar", result.getName());
+        assertEquals(1, result.getLayers().size());
+
+        Layer layer = result.getLayer(0);
+        assertEquals("MyLayer", layer.getName());
+        Place pl1 = layer.get(0, 0);
+        Place pl2 = layer.get(0, 1);
+        assertNotNull(pl1);
+        assertNotNull(pl2);
+
+        assertEquals("myArea", pl1.getPlaceGroup().getName());
+        assertEquals("danger", pl1.getInfoRing().getDescription());
+        assertEquals(3, pl1.getRecLevelMin());
+        assertEquals(5, pl1.getRecLevelMax());
+        assertTrue(pl1.getChildren().contains(pl2));
+        assertEquals(1, pl1.getPathsTo("n").size());
+        assertEquals(1, pl2.getPathsTo("s").size());
+    }
+
     /**
      * Test of backup method, of class WorldFileJSON.
      * @throws java.io.IOException
@@ -293,6 +333,35 @@ public class WorldFileJSONTest {
         }
     }
 
+    /**
+     * Test of writeFile method replacing an existing file, of class WorldFileJSON.
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testWriteFileReplace() throws Exception {
+        System.out.println("writeFile replace");
+
+        String wfjFile = folder.getRoot() + "/wfj";
+        new WorldFileJSON(wfjFile).writeFile(new World("first"));
+        new WorldFileJSON(wfjFile).writeFile(new World("second"));
+
+        // the temporary file is renamed
+        assertFalse(new File(wfjFile + ".tmp").exists());
+        assertEquals("second", new WorldFileJSON(wfjFile).readWorldName());
+
+        // a failed write keeps the old file
+        String dirFile = folder.getRoot() + "/dir";
+        new File(dirFile + ".tmp").mkdir();
+        FileUtils.writeStringToFile(new File(dirFile), "old");
+        try {
+            new WorldFileJSON(dirFile).writeFile(new World("third"));
+            fail();
+        } catch(IOException ex){
+            // expected
+        }
+        assertEquals("old", FileUtils.readFileToString(new File(dirFile)));
+    }
+
     /**
      * Test of canRead method, of class WorldFileJSON.
      */
@@ -0,0 +1,383 @@
+/*  MUD Map (v2) - A tool to create and organize maps for text-based games
+ *  Copyright (C) 2026  Neop (email: mneop@web.de)
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License along
+ *  with this program; if not, see <http://www.gnu.org/licenses/>.
+ */
+package mudmap2.backend.WorldFileReader.current;
+
+import java.awt.Color;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import mudmap2.backend.Layer;
+import mudmap2.backend.Path;
+import mudmap2.backend.Place;
+import mudmap2.backend.PlaceGroup;
+import mudmap2.backend.World;
+import mudmap2.backend.WorldSnapshot;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.junit.Rule;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ *
+ * @author neop
+ */
+public class WorldJournalTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    String filename;
+
+    public WorldJournalTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        filename = folder.getRoot() + "/world";
+
+        World world = new World("Journal");
+        Layer layer = world.getNewLayer("First");
+        for(int i = 0; i < 10; ++i){
+            Place place = new Place("Place " + i, i, 0, layer);
+            layer.put(place);
+            if(i > 0) place.connectPath(new Path(layer.get(i - 1, 0), "e", place, "w"));
+        }
+        for(int i = 0; i < 4; ++i){
+            PlaceGroup group = new PlaceGroup("Area " + i, i % 2 == 0 ? Color.BLUE : Color.GREEN);
+            world.addPlaceGroup(group);
+            layer.get(i, 0).setPlaceGroup(group);
+        }
+        new WorldFileJSON(filename).writeFile(world);
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Reads the world file and starts the journal
+     * @return world file
+     * @throws Exception
+     */
+    private WorldFileDefault open() throws Exception {
+        WorldFileDefault worldFile = new WorldFileDefault(filename);
+        World world = worldFile.readFile();
+        worldFile.getJournal().start(world);
+        return worldFile;
+    }
+
+    /**
+     * Changes a world that was read from the world file
+     * @param world
+     * @throws Exception
+     */
+    private static void edit(World world) throws Exception {
+        Layer layer = world.getLayers().iterator().next();
+
+        // new place with path
+        Place place = new Place("New", 5, 5, layer);
+        layer.put(place);
+        place.connectPath(new Path(place, "n", layer.get(5, 0), "up"));
+        place.setFlag("shop", true);
+        place.setComments("Comment");
+        layer.get(3, 0).connectChild(place);
+
+        // changed, moved and removed places
+        layer.get(1, 0).setName("Renamed");
+        layer.get(1, 0).setPlaceGroup(new PlaceGroup("Other", Color.RED));
+        layer.put(layer.get(7, 0), 7, 3);
+        Place removed = layer.get(2, 0);
+        removed.removeConnections();
+        layer.remove(removed);
+
+        // new layer
+        Layer layer2 = world.getNewLayer();
+        layer2.setName("Second");
+        Place place2 = new Place("Other layer", 0, 0, layer2);
+        layer2.put(place2);
+        place.connectChild(place2);
+        world.setName("Journal changed");
+    }
+
+    /**
+     * Compares the worlds, the layer ids might be different
+     * @param expected
+     * @param result
+     */
+    private static void assertSameWorld(World expected, World result){
+        assertEquals(expected.getName(), result.getName());
+        ArrayList<Layer> expectedLayers = WorldJournal.getBaseLayers(expected);
+        ArrayList<Layer> resultLayers = WorldJournal.getBaseLayers(result);
+        assertEquals(expectedLayers.size(), resultLayers.size());
+        for(int i = 0; i < expectedLayers.size(); ++i){
+            assertEquals(expectedLayers.get(i).getName(), resultLayers.get(i).getName());
+            assertEquals(describe(expectedLayers.get(i)), describe(resultLayers.get(i)));
+        }
+    }
+
+    /**
+     * Describes the places of a layer without layer ids
+     * @param layer
+     * @return sorted place descriptions
+     */
+    private static String describe(Layer layer){
+        ArrayList<String> ret = new ArrayList<>();
+        for(Place place: layer.getPlaces()){
+            StringBuilder builder = new StringBuilder();
+            builder.append(place.getId()).append(place.getName()).append(place.getX()).append(place.getY())
+                    .append(place.getComments()).append(place.getRecLevelMin()).append(place.getRecLevelMax())
+                    .append(place.getPlaceGroup() != null ? place.getPlaceGroup().getName() : null)
+                    .append(place.getFlags());
+            ArrayList<String> connections = new ArrayList<>();
+            for(Place child: place.getChildren()) connections.add("c" + child.getId());
+            for(Place parent: place.getParents()) connections.add("p" + parent.getId());
+            for(Path path: place.getPaths()){
+                connections.add(path.getExit(place) + path.getOtherPlace(place).getId() + path.getExit(path.getOtherPlace(place)));
+            }
+            Collections.sort(connections);
+            ret.add(builder.append(connections).toString());
+        }
+        Collections.sort(ret);
+        return ret.toString();
+    }
+
+    /**
+     * Test of replay method, of class WorldJournal.
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testReplay() throws Exception {
+        System.out.println("replay");
+
+        WorldFileDefault worldFile = open();
+        WorldJournal journal = worldFile.getJournal();
+        World world = journal.world;
+        edit(world);
+        journal.recordChanges();
+        journal.commit();
+        journal.close();
+
+        long baseLength = new File(filename).length();
+        WorldFileDefault worldFile2 = new WorldFileDefault(filename);
+        World result = worldFile2.readFile();
+        assertFalse(worldFile2.getJournal().hasUnsavedChanges());
+        assertSameWorld(world, result);
+        assertEquals("Renamed", WorldJournal.getBaseLayers(result).get(0).get(1, 0).getName());
+        assertNull(WorldJournal.getBaseLayers(result).get(0).get(2, 0));
+        // the world file isn't written
+        assertEquals(baseLength, new File(filename).length());
+
+        // continue the journal
+        worldFile2.getJournal().start(result);
+        WorldJournal.getBaseLayers(result).get(0).get(4, 0).setName("Again");
+        worldFile2.getJournal().commit();
+        worldFile2.getJournal().close();
+        assertSameWorld(result, new WorldFileDefault(filename).readFile());
+    }
+
+    /**
+     * Test of replay method, of class WorldJournal. Changes that weren't
+     * synced completely are ignored
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testReplayDamaged() throws Exception {
+        System.out.println("replayDamaged");
+
+        WorldFileDefault worldFile = open();
+        WorldJournal journal = worldFile.getJournal();
+        World world = journal.world;
+        edit(world);
+        journal.commit();
+        journal.close();
+        World expected = WorldSnapshot.create(world);
+
+        // incomplete record
+        File file = new File(filename + WorldJournal.EXTENSION);
+        byte[] record = WorldJournal.getRecord(WorldJournal.RECORD_REMOVE, new byte[]{1});
+        try(FileOutputStream out = new FileOutputStream(file, true)){
+            out.write(record, 0, record.length - 2);
+        }
+        assertSameWorld(expected, new WorldFileDefault(filename).readFile());
+
+        // the damaged end is removed
+        worldFile = open();
+        worldFile.getJournal().close();
+        assertEquals(worldFile.getJournal().savedOffset, file.length());
+
+        // journal of another world file
+        new WorldFileJSON(filename).writeFile(new World("Other"));
+        assertEquals("Other", new WorldFileDefault(filename).readFile().getName());
+    }
+
+    /**
+     * Test of replay and start methods, of class WorldJournal. A journal of
+     * another world file isn't replayed and is kept, the modification time
+     * of the world file doesn't matter
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testUnmatchedJournal() throws Exception {
+        System.out.println("unmatchedJournal");
+
+        WorldFileDefault worldFile = open();
+        WorldJournal journal = worldFile.getJournal();
+        World world = journal.world;
+        edit(world);
+        journal.commit();
+        journal.close();
+        File file = new File(filename + WorldJournal.EXTENSION);
+        byte[] data = Files.readAllBytes(file.toPath());
+
+        // eg. a copy of the world file
+        File base = new File(filename);
+        assertTrue(base.setLastModified(base.lastModified() - 60000));
+        assertSameWorld(world, new WorldFileDefault(filename).readFile());
+
+        // world file replaced
+        new WorldFileJSON(filename).writeFile(new World("Other"));
+        worldFile = open();
+        worldFile.getJournal().close();
+        assertEquals("Other", worldFile.getJournal().world.getName());
+
+        File[] kept = folder.getRoot().listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.endsWith(".unmatched");
+            }
+        });
+        assertEquals(1, kept.length);
+        assertArrayEquals(data, Files.readAllBytes(kept[0].toPath()));
+        assertTrue(file.exists());
+    }
+
+    /**
+     * Test of canCommit method, of class WorldJournal.
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testCanCommit() throws Exception {
+        System.out.println("canCommit");
+
+        WorldFileDefault worldFile = open();
+        WorldJournal journal = worldFile.getJournal();
+        World world = journal.world;
+        edit(world);
+        assertTrue(journal.canCommit());
+        journal.commit();
+        assertTrue(journal.canCommit());
+
+        // the world file was written without the journal
+        new WorldFileJSON(filename).writeFile(WorldSnapshot.create(world));
+        assertFalse(journal.canCommit());
+        assertTrue(journal.needsCompaction());
+
+        journal.close();
+        assertFalse(journal.canCommit());
+    }
+
+    /**
+     * Test of discard method, of class WorldJournal.
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testDiscard() throws Exception {
+        System.out.println("discard");
+
+        WorldFileDefault worldFile = open();
+        WorldJournal journal = worldFile.getJournal();
+        World world = journal.world;
+        world.getLayers().iterator().next().get(0, 0).setName("Saved");
+        journal.commit();
+        World expected = WorldSnapshot.create(world);
+
+        edit(world);
+        // written but not saved
+        journal.flush(false);
+        WorldFileDefault worldFile2 = new WorldFileDefault(filename);
+        assertSameWorld(world, worldFile2.readFile());
+        assertTrue(worldFile2.getJournal().hasUnsavedChanges());
+
+        journal.discard();
+        journal.close();
+        assertSameWorld(expected, new WorldFileDefault(filename).readFile());
+    }
+
+    /**
+     * Test of beginCompaction and finishCompaction methods, of class
+     * WorldJournal.
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testCompaction() throws Exception {
+        System.out.println("compaction");
+
+        WorldFileDefault worldFile = open();
+        WorldJournal journal = worldFile.getJournal();
+        World world = journal.world;
+        edit(world);
+        journal.commit();
+        assertTrue(journal.needsCompaction());
+        journal.compactionRatio = 100;
+        assertFalse(journal.needsCompaction());
+
+        World snapshot = WorldSnapshot.create(world);
+        journal.beginCompaction(world);
+        world.getLayers().iterator().next().get(4, 0).setName("After snapshot");
+        journal.commit();
+
+        // not finished: the old journal and the new one are replayed
+        assertSameWorld(world, new WorldFileDefault(filename).readFile());
+
+        new WorldFileJSON(filename).writeFile(snapshot);
+        journal.finishCompaction();
+        assertFalse(new File(filename + WorldJournal.EXTENSION_NEW).exists());
+        assertFalse(journal.needsCompaction());
+        world.getLayers().iterator().next().get(5, 0).setName("After compaction");
+        journal.commit();
+        journal.close();
+        assertSameWorld(world, new WorldFileDefault(filename).readFile());
+
+        // failed compaction
+        worldFile = open();
+        journal = worldFile.getJournal();
+        world = journal.world;
+        journal.beginCompaction(world);
+        WorldJournal.getBaseLayers(world).get(0).get(6, 0).setName("Not compacted");
+        journal.commit();
+        journal.abortCompaction();
+        journal.close();
+        assertFalse(new File(filename + WorldJournal.EXTENSION_NEW).exists());
+        assertSameWorld(world, new WorldFileDefault(filename).readFile());
+    }
+
+}
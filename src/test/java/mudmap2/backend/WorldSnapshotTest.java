@@ -0,0 +1,216 @@
+/*  MUD Map (v2) - A tool to create and organize maps for text-based games
+ *  Copyright (C) 2026  Neop (email: mneop@web.de)
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License along
+ *  with this program; if not, see <http://www.gnu.org/licenses/>.
+ */
+package mudmap2.backend;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Collections;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author neop
+ */
+public class WorldSnapshotTest {
+
+    public WorldSnapshotTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of create method, of class WorldSnapshot.
+     */
+    @Test
+    public void testCreate() throws Exception {
+        System.out.println("create");
+
+        World world = new World("Unittest");
+        world.setPathColor("n", Color.RED);
+        world.setHome(new WorldCoordinate(1, 2, 3));
+        Layer layer = world.getNewLayer("Layer");
+        Layer other = world.getNewLayer();
+
+        Place place1 = new Place("Place 1", 0, 0, layer);
+        Place place2 = new Place("Place 2", 1, 0, layer);
+        Place place3 = new Place("Place 3", 0, 0, other);
+        layer.put(place1);
+        layer.put(place2);
+        other.put(place3);
+        place1.connectPath(new Path(place1, "e", place2, "w"));
+        place1.connectChild(place3);
+        place2.setComments("Comment");
+        place2.setFlag("flag", true);
+        PlaceGroup placeGroup = new PlaceGroup("Group", Color.BLUE);
+        place2.setPlaceGroup(placeGroup);
+
+        World snapshot = WorldSnapshot.create(world);
+        assertFalse(snapshot == world);
+        assertEquals(world.getName(), snapshot.getName());
+        assertEquals(Color.RED, snapshot.getPathColor("n"));
+        assertEquals(world.getHome().getLayer(), snapshot.getHome().getLayer());
+        assertEquals(world.getHome().getX(), snapshot.getHome().getX(), 0);
+        assertEquals(world.nextLayerID, snapshot.nextLayerID);
+        assertEquals(2, snapshot.getLayers().size());
+        assertEquals(1, snapshot.getPlaceGroups().size());
+        assertFalse(snapshot.getPlaceGroups().get(0) == placeGroup);
+
+        Layer layerCopy = snapshot.getLayer(layer.getId());
+        assertNotNull(layerCopy);
+        assertFalse(layerCopy == layer);
+        assertEquals("Layer", layerCopy.getName());
+        assertEquals(LayerContentHash.compute(layer), LayerContentHash.compute(layerCopy));
+
+        Place copy1 = layerCopy.get(0, 0);
+        Place copy2 = layerCopy.get(1, 0);
+        Place copy3 = snapshot.getLayer(other.getId()).get(0, 0);
+        assertEquals(place1.getId(), copy1.getId());
+        assertEquals("Place 2", copy2.getName());
+        assertEquals("Comment", copy2.getComments());
+        assertTrue(copy2.getFlag("flag"));
+        assertEquals("Group", copy2.getPlaceGroup().getName());
+        assertEquals(1, copy1.getPaths().size());
+        assertEquals(copy2, copy1.getPaths().iterator().next().getOtherPlace(copy1));
+        assertEquals(1, copy2.getPaths().size());
+        assertTrue(copy1.getChildren().contains(copy3));
+        assertTrue(copy3.getParents().contains(copy1));
+
+        // changes to the world don't change the snapshot
+        place1.setName("Changed");
+        layer.remove(place2);
+        layer.put(new Place("Place 4", 5, 5, layer));
+        assertEquals("Place 1", copy1.getName());
+        assertEquals(copy2, layerCopy.get(1, 0));
+        assertNull(layerCopy.get(5, 5));
+        assertEquals(1, copy1.getPaths().size());
+    }
+
+    /**
+     * Test of update method, of class WorldSnapshot.
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testUpdate() throws Exception {
+        System.out.println("update");
+
+        World world = new World("Unittest");
+        Layer layer = world.getNewLayer("Layer");
+        Layer other = world.getNewLayer("Other");
+        Layer unchanged = world.getNewLayer("Unchanged");
+        Place place1 = new Place("Place 1", 0, 0, layer);
+        Place place2 = new Place("Place 2", 1, 0, layer);
+        Place place3 = new Place("Place 3", 2, 0, layer);
+        Place place4 = new Place("Place 4", 0, 0, other);
+        Place place5 = new Place("Place 5", 0, 0, unchanged);
+        layer.put(place1);
+        layer.put(place2);
+        layer.put(place3);
+        other.put(place4);
+        unchanged.put(place5);
+        place1.connectPath(new Path(place1, "e", place2, "w"));
+        place2.connectPath(new Path(place2, "down", place4, "up"));
+        place3.connectPath(new Path(place3, "n", place5, "s"));
+        place4.connectChild(place1);
+        place5.connectChild(place3);
+        PlaceGroup placeGroup = new PlaceGroup("Group", Color.BLUE);
+        world.addPlaceGroup(placeGroup);
+        place3.setPlaceGroup(placeGroup);
+
+        WorldSnapshot snapshot = new WorldSnapshot(world);
+        World copy = snapshot.update();
+        assertEquals(describe(world), describe(copy));
+        Place copy5 = copy.getLayer(unchanged.getId()).get(0, 0);
+
+        // changes on some layers
+        place1.setName("Renamed");
+        other.put(place1, 2, 2);
+        place2.removeConnections();
+        layer.remove(place2);
+        place3.connectPath(new Path(place3, "e", place4, "w"));
+        place4.connectChild(place3);
+        placeGroup.setName("Renamed group");
+        Layer added = world.getNewLayer("Added");
+        Place place6 = new Place("Place 6", 0, 0, added);
+        added.put(place6);
+        place6.connectPath(new Path(place6, "n", place3, "s"));
+
+        World copy2 = snapshot.update();
+        assertEquals(describe(world), describe(copy2));
+        // places of unchanged layers keep their copy
+        assertTrue(copy5 == copy2.getLayer(unchanged.getId()).get(0, 0));
+        assertEquals(1, copy5.getPaths().size());
+
+        // removed connections
+        place3.removeConnections();
+        assertEquals(describe(world), describe(snapshot.update()));
+        assertTrue(copy5.getPaths().isEmpty());
+        assertTrue(copy5.getChildren().isEmpty());
+
+        // changes to the world don't change the copy
+        place4.setName("Changed");
+        assertEquals("Place 4", copy2.getLayer(other.getId()).get(0, 0).getName());
+        snapshot.close();
+    }
+
+    /**
+     * Describes the places of a world and their connections
+     * @param world
+     * @return one sorted line per layer and place
+     */
+    private static String describe(World world){
+        ArrayList<String> lines = new ArrayList<>();
+        for(Layer layer: world.getLayers()){
+            lines.add(layer.getId() + " " + layer.getName());
+            for(Place place: layer.getPlaces()){
+                ArrayList<String> connections = new ArrayList<>();
+                for(Path path: place.getPaths()){
+                    Place other = path.getOtherPlace(place);
+                    connections.add("path " + other.getId() + " " + path.getExit(place) + " " + path.getExit(other));
+                }
+                for(Place child: place.getChildren()) connections.add("child " + child.getId());
+                for(Place parent: place.getParents()) connections.add("parent " + parent.getId());
+                Collections.sort(connections);
+
+                lines.add(layer.getId() + " " + place.getX() + " " + place.getY() + " " + place.getId()
+                        + " " + place.getName() + " " + (place.getPlaceGroup() != null ? place.getPlaceGroup().getName() : "")
+                        + " " + place.getComments() + " " + place.getFlags() + " " + connections);
+            }
+        }
+        Collections.sort(lines);
+        return lines.toString();
+    }
+
+}
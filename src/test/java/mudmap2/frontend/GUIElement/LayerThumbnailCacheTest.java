@@ -0,0 +1,159 @@
+/*  MUD Map (v2) - A tool to create and organize maps for text-based games
+ *  Copyright (C) 2026  Neop (email: mneop@web.de)
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License along
+ *  with this program; if not, see <http://www.gnu.org/licenses/>.
+ */
+package mudmap2.frontend.GUIElement;
+
+import java.awt.EventQueue;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import mudmap2.backend.Layer;
+import mudmap2.backend.Place;
+import mudmap2.backend.World;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author neop
+ */
+public class LayerThumbnailCacheTest {
+
+    World world;
+    Layer layer;
+    LayerThumbnailCache instance;
+    // released for every rendered thumbnail
+    Semaphore updated;
+
+    public LayerThumbnailCacheTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        world = new World("Unittest");
+        layer = new Layer(world);
+        world.addLayer(layer);
+        for(int x = 0; x < 5; ++x){
+            layer.put(new Place("Place " + x, x, x, layer));
+        }
+
+        updated = new Semaphore(0);
+        instance = new LayerThumbnailCache(world);
+        instance.setDelay(100);
+        instance.addListener(new LayerThumbnailCache.Listener() {
+            @Override
+            public void thumbnailUpdated(Layer l) {
+                updated.release();
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    private BufferedImage get(final int width, final int height) throws Exception {
+        final AtomicReference<BufferedImage> ret = new AtomicReference<>();
+        EventQueue.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                ret.set(instance.get(layer, width, height));
+            }
+        });
+        return ret.get();
+    }
+
+    private void changePlace(final String name) throws Exception {
+        EventQueue.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                layer.get(0, 0).setName(name);
+                instance.worldChanged(layer.get(0, 0));
+            }
+        });
+    }
+
+    /**
+     * Test of get method, of class LayerThumbnailCache.
+     */
+    @Test
+    public void testGet() throws Exception {
+        System.out.println("get");
+
+        assertNull(get(80, 60));
+        assertTrue(updated.tryAcquire(10, TimeUnit.SECONDS));
+        BufferedImage image = get(80, 60);
+        assertNotNull(image);
+        assertEquals(80, image.getWidth());
+        assertEquals(60, image.getHeight());
+        assertTrue(instance.isValid(layer));
+
+        // cached
+        assertSame(image, get(80, 60));
+        Thread.sleep(300);
+        assertEquals(0, updated.availablePermits());
+
+        // outdated image is returned until the new one is rendered
+        changePlace("Renamed");
+        assertFalse(instance.isValid(layer));
+        assertSame(image, get(80, 60));
+        assertTrue(updated.tryAcquire(10, TimeUnit.SECONDS));
+        assertNotSame(image, get(80, 60));
+        assertTrue(instance.isValid(layer));
+
+        // changes of another layer
+        Layer other = new Layer(world);
+        world.addLayer(other);
+        instance.worldChanged(other);
+        assertTrue(instance.isValid(layer));
+    }
+
+    /**
+     * Test of debouncing changes, of class LayerThumbnailCache.
+     */
+    @Test
+    public void testDebounce() throws Exception {
+        System.out.println("debounce");
+
+        get(80, 60);
+        assertTrue(updated.tryAcquire(10, TimeUnit.SECONDS));
+
+        // changes shortly after each other are rendered once
+        for(int i = 0; i < 5; ++i){
+            changePlace("Renamed " + i);
+            get(80, 60);
+            Thread.sleep(20);
+        }
+        assertTrue(updated.tryAcquire(10, TimeUnit.SECONDS));
+        Thread.sleep(300);
+        assertEquals(0, updated.availablePermits());
+        assertTrue(instance.isValid(layer));
+    }
+
+}
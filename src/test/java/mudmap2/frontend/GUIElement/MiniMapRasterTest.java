@@ -0,0 +1,180 @@
+/*  MUD Map (v2) - A tool to create and organize maps for text-based games
+ *  Copyright (C) 2026  Neop (email: mneop@web.de)
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License along
+ *  with this program; if not, see <http://www.gnu.org/licenses/>.
+ */
+package mudmap2.frontend.GUIElement;
+
+import mudmap2.backend.Layer;
+import mudmap2.backend.Place;
+import mudmap2.backend.World;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author neop
+ */
+public class MiniMapRasterTest {
+
+    static final int RED = 0xffff0000;
+    static final int BLUE = 0xff0000ff;
+
+    World world;
+    Layer layer;
+    MiniMapRaster instance;
+
+    public MiniMapRasterTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+        world = new World("Unittest");
+        layer = new Layer(world);
+        world.addLayer(layer);
+        instance = new MiniMapRaster();
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of put and remove method, of class MiniMapRaster.
+     */
+    @Test
+    public void testPutRemove() throws Exception {
+        System.out.println("putRemove");
+
+        assertNull(instance.getImage());
+        assertNull(instance.getBounds());
+
+        Place place1 = new Place("Place 1", 2, 3, layer);
+        Place place2 = new Place("Place 2", -4, 1, layer);
+        layer.put(place1);
+        layer.put(place2);
+        instance.put(place1, RED);
+        instance.put(place2, BLUE);
+
+        assertEquals(1, instance.getScale());
+        assertEquals(2, instance.getPlaceCount());
+        assertEquals(1, instance.getCount(2, 3));
+        assertEquals(RED, instance.getPixel(2, 3));
+        assertEquals(BLUE, instance.getPixel(-4, 1));
+        assertEquals(0, instance.getPixel(0, 0));
+        assertArrayEquals(new int[]{-4, 1, 2, 3}, instance.getBounds());
+
+        // the image shows the places, rows go downwards
+        assertEquals(RED, instance.getImage().getRGB(2 - instance.getXMin(), instance.getYMax() - 3));
+
+        // move
+        layer.put(place1, 5, -2);
+        instance.put(place1, RED);
+        assertEquals(2, instance.getPlaceCount());
+        assertEquals(0, instance.getCount(2, 3));
+        assertEquals(0, instance.getPixel(2, 3));
+        assertEquals(RED, instance.getPixel(5, -2));
+
+        // color change
+        instance.setColor(place1, BLUE);
+        assertEquals(BLUE, instance.getPixel(5, -2));
+
+        instance.remove(place1);
+        instance.remove(place1);
+        assertEquals(1, instance.getPlaceCount());
+        assertEquals(0, instance.getPixel(5, -2));
+        assertEquals(BLUE, instance.getPixel(-4, 1));
+    }
+
+    /**
+     * Test of growing and downsampling, of class MiniMapRaster.
+     */
+    @Test
+    public void testGrow() throws Exception {
+        System.out.println("grow");
+
+        // far outside of the initial raster, but still at one place per pixel
+        Place place1 = new Place("Place 1", 0, 0, layer);
+        Place place2 = new Place("Place 2", 100, -100, layer);
+        layer.put(place1);
+        layer.put(place2);
+        instance.put(place1, RED);
+        instance.put(place2, RED);
+        assertEquals(1, instance.getScale());
+        assertEquals(RED, instance.getPixel(0, 0));
+        assertEquals(RED, instance.getPixel(100, -100));
+
+        // larger than the maximum size, places share pixels
+        Place place3 = new Place("Place 3", 5000, 0, layer);
+        Place place4 = new Place("Place 4", 1, 1, layer);
+        layer.put(place3);
+        layer.put(place4);
+        instance.put(place3, BLUE);
+        instance.put(place4, BLUE);
+        final int scale = instance.getScale();
+        assertTrue(scale > 1);
+        assertEquals(0, scale & (scale - 1));
+        assertTrue(instance.getImage().getWidth() <= MiniMapRaster.MAX_SIZE);
+        assertTrue(instance.getImage().getHeight() <= MiniMapRaster.MAX_SIZE);
+        assertEquals(2, instance.getCount(0, 0));
+        assertEquals(1, instance.getCount(100, -100));
+        assertEquals(BLUE, instance.getPixel(5000, 0));
+
+        // one of two places in a pixel was removed
+        instance.remove(place4);
+        assertEquals(1, instance.getCount(0, 0));
+        assertFalse(instance.getPixel(0, 0) == 0);
+        instance.remove(place1);
+        assertEquals(0, instance.getPixel(0, 0));
+    }
+
+    /**
+     * Test of rebuild method, of class MiniMapRaster.
+     */
+    @Test
+    public void testRebuild() throws Exception {
+        System.out.println("rebuild");
+
+        for(int i = 0; i < 50; ++i){
+            layer.put(new Place("Place " + i, i * 3, -i, layer));
+        }
+        instance.rebuild(layer, new MiniMapRaster.ColorSource() {
+            @Override
+            public int getColor(Place place) {
+                return place.getX() % 2 == 0 ? RED : BLUE;
+            }
+        });
+        assertEquals(50, instance.getPlaceCount());
+        for(int i = 0; i < 50; ++i){
+            assertEquals(i * 3 % 2 == 0 ? RED : BLUE, instance.getPixel(i * 3, -i));
+        }
+
+        instance.rebuild(null, null);
+        assertEquals(0, instance.getPlaceCount());
+        assertNull(instance.getImage());
+    }
+
+}
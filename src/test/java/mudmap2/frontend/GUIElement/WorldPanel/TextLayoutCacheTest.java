@@ -0,0 +1,150 @@
+/*  MUD Map (v2) - A tool to create and organize maps for text-based games
+ *  Copyright (C) 2026  Neop (email: mneop@web.de)
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License along
+ *  with this program; if not, see <http://www.gnu.org/licenses/>.
+ */
+package mudmap2.frontend.GUIElement.WorldPanel;
+
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author neop
+ */
+public class TextLayoutCacheTest {
+
+    static Font font;
+
+    public TextLayoutCacheTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+        font = new Font(Font.SANS_SERIF, Font.PLAIN, 12);
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Gets the metrics of a font
+     * @param font
+     * @param fractional use fractional metrics
+     * @return font metrics
+     */
+    private static FontMetrics metrics(Font font, boolean fractional){
+        Graphics2D g = new BufferedImage(10, 10, BufferedImage.TYPE_INT_ARGB).createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, fractional
+                ? RenderingHints.VALUE_FRACTIONALMETRICS_ON : RenderingHints.VALUE_FRACTIONALMETRICS_OFF);
+        FontMetrics fm = g.getFontMetrics(font);
+        g.dispose();
+        return fm;
+    }
+
+    /**
+     * Test of getLines and putLines methods, of class TextLayoutCache.
+     */
+    @Test
+    public void testGetLines() {
+        System.out.println("getLines");
+
+        FontMetrics fm = metrics(font, false);
+        TextLayoutCache instance = new TextLayoutCache();
+        List<String> lines = Arrays.asList("Foo", "bar");
+
+        assertNull(instance.getLines("Foo bar", fm, 50, 2));
+        instance.putLines("Foo bar", fm, 50, 2, lines);
+        assertSame(lines, instance.getLines("Foo bar", fm, 50, 2));
+
+        // different key components
+        assertNull(instance.getLines("Foo bar", fm, 51, 2));
+        assertNull(instance.getLines("Foo bar", fm, 50, 3));
+        assertNull(instance.getLines("Foo bar", metrics(font.deriveFont(14f), false), 50, 2));
+        assertNull(instance.getLines("Foo baz", fm, 50, 2));
+
+        assertEquals(1, instance.getHits());
+        assertEquals(5, instance.getMisses());
+
+        instance.resetStatistics();
+        assertEquals(0, instance.getHits());
+        assertEquals(0, instance.getMisses());
+    }
+
+    /**
+     * Test of stringWidth method, of class TextLayoutCache.
+     */
+    @Test
+    public void testStringWidth() {
+        System.out.println("stringWidth");
+
+        FontMetrics fm = metrics(font, false);
+        TextLayoutCache instance = new TextLayoutCache();
+        assertEquals(fm.stringWidth("CMS"), instance.stringWidth("CMS", fm));
+        assertEquals(fm.stringWidth("CMS"), instance.stringWidth("CMS", fm));
+        assertEquals(1, instance.getHits());
+        assertEquals(1, instance.getMisses());
+
+        // other render context, eg. of the export painter
+        FontMetrics fmFractional = metrics(font, true);
+        assertEquals(fmFractional.stringWidth("CMS"), instance.stringWidth("CMS", fmFractional));
+        assertEquals(2, instance.getMisses());
+        assertEquals(2, instance.size());
+    }
+
+    /**
+     * Test of the capacity limit of TextLayoutCache.
+     */
+    @Test
+    public void testCapacity() {
+        System.out.println("capacity");
+
+        FontMetrics fm = metrics(font, false);
+        TextLayoutCache instance = new TextLayoutCache(2);
+        instance.putLines("a", fm, 10, 1, Arrays.asList("a"));
+        instance.putLines("b", fm, 10, 1, Arrays.asList("b"));
+        // access a, b becomes the least recently used entry
+        assertNotNull(instance.getLines("a", fm, 10, 1));
+        instance.putLines("c", fm, 10, 1, Arrays.asList("c"));
+
+        assertEquals(2, instance.size());
+        assertNotNull(instance.getLines("a", fm, 10, 1));
+        assertNull(instance.getLines("b", fm, 10, 1));
+        assertNotNull(instance.getLines("c", fm, 10, 1));
+
+        instance.clear();
+        assertEquals(0, instance.size());
+    }
+
+}
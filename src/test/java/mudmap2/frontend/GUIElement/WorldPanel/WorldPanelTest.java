@@ -16,6 +16,8 @@
  */
 package mudmap2.frontend.GUIElement.WorldPanel;
 
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
 import java.lang.reflect.Field;
 import java.util.HashSet;
 import java.util.LinkedList;
@@ -524,6 +526,117 @@ public class WorldPanelTest {
         fail("The test case is a prototype.");
     }
 
+    /**
+     * Test of navigationInput method, of class WorldPanel.
+     */
+    @Test
+    public void testNavigationInput() throws InterruptedException {
+        System.out.println("navigationInput");
+
+        WorldPanel instance = new WorldPanel(null, new World(), false);
+        assertFalse(instance.isInteractive());
+
+        // single input is drawn in full quality
+        instance.navigationInput();
+        assertFalse(instance.isInteractive());
+
+        // continuous input
+        instance.navigationInput();
+        assertTrue(instance.isInteractive());
+
+        // back to full quality after the idle delay
+        long timeout = System.currentTimeMillis() + 10 * WorldPanel.IDLE_REPAINT_DELAY;
+        while(instance.isInteractive() && System.currentTimeMillis() < timeout){
+            Thread.sleep(10);
+        }
+        assertFalse(instance.isInteractive());
+    }
+
+    /**
+     * Creates a panel that is navigated, with a long idle delay
+     * @param world
+     * @return panel
+     */
+    private static WorldPanel createNavigatedPanel(World world) throws Exception {
+        WorldPanel panel = new WorldPanel(null, world, false);
+        panel.setSize(400, 300);
+        panel.setTileSize(40);
+        Field field = WorldPanel.class.getDeclaredField("idleTimer");
+        field.setAccessible(true);
+        ((javax.swing.Timer) field.get(panel)).setInitialDelay(60000);
+        panel.navigationInput();
+        panel.navigationInput();
+        return panel;
+    }
+
+    /**
+     * Paints a panel
+     * @param panel
+     * @return image of the panel
+     */
+    private static BufferedImage paint(WorldPanel panel){
+        BufferedImage image = new BufferedImage(panel.getWidth(), panel.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        panel.paintComponent(g);
+        g.dispose();
+        return image;
+    }
+
+    /**
+     * Test of paintComponent method, of class WorldPanel. While panning the
+     * last frame is moved, the result has to be the same as a new frame
+     */
+    @Test
+    public void testPaintMovedFrame() throws Exception {
+        System.out.println("paintMovedFrame");
+
+        World world = new World();
+        Layer layer = world.getNewLayer();
+        for(int x = -10; x <= 10; ++x){
+            for(int y = -10; y <= 10; y += 2){
+                Place place = new Place("Place " + x + " " + y, x, y, layer);
+                layer.put(place);
+                if(x > -10) place.connectPath(new mudmap2.backend.Path(layer.get(x - 1, y), "e", place, "w"));
+            }
+        }
+        world.setHome(new WorldCoordinate(layer.getId(), 0, 0));
+
+        // one tile and five pixels down, the rendered borders are the same
+        assertEquals(0, countMovedFrameDifferences(world, 0, 1 + 5.0 / 40));
+        // right, path strokes in the rendered border might differ by single
+        // pixels because of the float coordinates
+        assertTrue(countMovedFrameDifferences(world, 1, 0) < 50);
+        assertTrue(countMovedFrameDifferences(world, -2, -0.5) < 50);
+    }
+
+    /**
+     * Paints a world, moves it and compares the moved frame with a new one
+     * @param world
+     * @param dx horizontal movement in tiles
+     * @param dy vertical movement in tiles
+     * @return number of different pixels
+     */
+    private static int countMovedFrameDifferences(World world, double dx, double dy) throws Exception {
+        WorldPanel instance = createNavigatedPanel(world);
+        instance.gotoHome();
+        paint(instance);
+        instance.getPosition().move(dx, dy);
+        BufferedImage moved = paint(instance);
+
+        WorldPanel expected = createNavigatedPanel(world);
+        expected.gotoHome();
+        expected.getPosition().move(dx, dy);
+        BufferedImage rendered = paint(expected);
+
+        int ret = 0;
+        for(int x = 0; x < moved.getWidth(); ++x){
+            for(int y = 0; y < moved.getHeight(); ++y){
+                if(rendered.getRGB(x, y) != moved.getRGB(x, y)) ++ret;
+            }
+        }
+        return ret;
+    }
+
     /**
      * Test for getPlacePosX
      */
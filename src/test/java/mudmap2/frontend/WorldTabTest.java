@@ -18,8 +18,11 @@ package mudmap2.frontend;
 
 import java.io.File;
 import java.io.IOException;
+import mudmap2.backend.Layer;
+import mudmap2.backend.Place;
 import mudmap2.backend.World;
 import mudmap2.backend.WorldFileReader.current.WorldFileDefault;
+import mudmap2.backend.WorldFileReader.current.WorldJournal;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -104,8 +107,10 @@ public class WorldTabTest {
 
             WorldTab instance = new WorldTab(null, world, false);
             instance.save();
+            instance.waitForSave();
 
             assertTrue(file.exists());
+            assertFalse(instance.isModified());
             file.delete();
             assertFalse(file.exists());
         } catch (IOException ex) {
@@ -113,6 +118,55 @@ public class WorldTabTest {
         }
     }
 
+    /**
+     * Test of save and prepareClose methods, of class WorldTab. A large
+     * journal is written to the world file after a save, but not when the
+     * tab is closed
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testSaveCompaction() throws Exception {
+        System.out.println("saveCompaction");
+
+        File file = File.createTempFile("mudmap2_junit_WorldTabTest_testSaveCompaction", "");
+        file.delete();
+        File journalFile = new File(file.getPath() + WorldJournal.EXTENSION);
+
+        World world = new World("Compaction");
+        world.setWorldFile(new WorldFileDefault(file.getAbsolutePath()));
+        Layer layer = world.getNewLayer();
+        layer.put(new Place("Place 1", 0, 0, layer));
+
+        WorldTab instance = new WorldTab(null, world, false);
+        instance.save();
+        instance.waitForSave();
+        long size = file.length();
+
+        // the journal is larger than half of the world file
+        for(int i = 1; i < 30; ++i) layer.put(new Place("Place " + (i + 1), i, 0, layer));
+        instance.save();
+        instance.waitForSave();
+        assertTrue(file.length() > size);
+        assertFalse(instance.isModified());
+
+        // only the journal is committed
+        size = file.length();
+        long journalSize = journalFile.length();
+        layer.put(new Place("Place 31", 30, 0, layer));
+        instance.prepareClose();
+        instance.save();
+        instance.waitForSave();
+        instance.closeJournal(false);
+        assertEquals(size, file.length());
+        assertTrue(journalFile.length() > journalSize);
+
+        World read = new WorldFileDefault(file.getAbsolutePath()).readFile();
+        assertEquals("Place 31", read.getLayers().iterator().next().get(30, 0).getName());
+
+        file.delete();
+        journalFile.delete();
+    }
+
     /**
      * Test of layerSelected method, of class WorldTab.
      */
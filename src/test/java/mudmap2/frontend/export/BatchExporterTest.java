@@ -0,0 +1,175 @@
+/*  MUD Map (v2) - A tool to create and organize maps for text-based games
+ *  Copyright (C) 2026  Neop (email: mneop@web.de)
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License along
+ *  with this program; if not, see <http://www.gnu.org/licenses/>.
+ */
+package mudmap2.frontend.export;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.ArrayList;
+import javax.imageio.ImageIO;
+import mudmap2.backend.Layer;
+import mudmap2.backend.Place;
+import mudmap2.backend.World;
+import mudmap2.backend.WorldCoordinate;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author neop
+ */
+public class BatchExporterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    World world;
+
+    public BatchExporterTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        world = new World("Unittest");
+        for(int i = 0; i < 4; ++i){
+            Layer layer = new Layer(world);
+            layer.setName("Layer " + i);
+            world.addLayer(layer);
+            for(int x = 0; x <= i; ++x){
+                layer.put(new Place("Place " + x, x, 0, layer));
+            }
+        }
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    private ArrayList<BatchExporter.Job> createJobs() throws Exception {
+        final int tileSize = 20;
+        ArrayList<BatchExporter.Job> jobs = new ArrayList<>();
+        for(Layer layer: world.getLayers()){
+            int width = (layer.getXMax() - layer.getXMin() + 1) * tileSize;
+            int height = (layer.getYMax() - layer.getYMin() + 1) * tileSize;
+            MapImageRenderer renderer = new MapImageRenderer(layer,
+                    new WorldCoordinate(layer.getId(), 0, 0), tileSize, width, height);
+            File file = new File(folder.getRoot(), layer.getName() + ".png");
+            jobs.add(new BatchExporter.Job(layer.getName(), file, new StreamingMapExporter(renderer)));
+        }
+        return jobs;
+    }
+
+    /**
+     * Test of run method, of class BatchExporter.
+     */
+    @Test
+    public void testRun() throws Exception {
+        System.out.println("run");
+
+        ArrayList<BatchExporter.Job> jobs = createJobs();
+        // job without map
+        jobs.add(new BatchExporter.Job("Empty", new File(folder.getRoot(), "empty.png"), null));
+
+        BatchExporter instance = new BatchExporter(jobs);
+        instance.setParallelism(3);
+        // only one export fits into the budget
+        instance.setMemoryBudget(1);
+        instance.run();
+
+        assertEquals(jobs.size(), instance.getJobsFinished());
+        assertTrue(instance.getJobsRunning().isEmpty());
+        assertEquals(instance.getRegionCount(), instance.getRegionsRendered());
+        for(BatchExporter.Job job: jobs){
+            if(job.getExporter() == null){
+                assertEquals(BatchExporter.State.FAILED, job.getState());
+                assertNotNull(job.getError());
+            } else {
+                assertEquals(BatchExporter.State.DONE, job.getState());
+                BufferedImage image = ImageIO.read(job.getFile());
+                assertNotNull(image);
+                assertEquals(job.getExporter().getImageWidth(), image.getWidth());
+                assertEquals(job.getExporter().getImageHeight(), image.getHeight());
+            }
+            assertEquals(1.0, job.getProgress(), 0.0);
+        }
+        assertEquals(0, instance.memoryUsed);
+        assertEquals(jobs.size(), instance.getSummary().split("\n").length);
+    }
+
+    /**
+     * Test of cancel method, of class BatchExporter.
+     */
+    @Test
+    public void testCancel() throws Exception {
+        System.out.println("cancel");
+
+        ArrayList<BatchExporter.Job> jobs = createJobs();
+        BatchExporter instance = new BatchExporter(jobs);
+        instance.cancel();
+        assertTrue(instance.isCancelled());
+        instance.run();
+
+        for(BatchExporter.Job job: jobs){
+            assertEquals(BatchExporter.State.CANCELLED, job.getState());
+            assertFalse(job.getFile().exists());
+        }
+    }
+
+    /**
+     * Test of the memory admission of class BatchExporter.
+     */
+    @Test
+    public void testAcquireMemory() throws Exception {
+        System.out.println("acquireMemory");
+
+        BatchExporter instance = new BatchExporter(new ArrayList<BatchExporter.Job>());
+        instance.setMemoryBudget(100);
+
+        // larger than the budget, but nothing else is running
+        instance.acquireMemory(150);
+        assertEquals(150, instance.memoryUsed);
+        instance.releaseMemory(150);
+
+        instance.acquireMemory(60);
+        instance.acquireMemory(40);
+        assertEquals(100, instance.memoryUsed);
+
+        // doesn't fit, waiting is stopped by cancel
+        instance.cancel();
+        try {
+            instance.acquireMemory(1);
+            fail("Memory acquired beyond the budget");
+        } catch(InterruptedException ex){
+            // expected
+        }
+        assertEquals(100, instance.memoryUsed);
+    }
+
+}
@@ -0,0 +1,157 @@
+/*  MUD Map (v2) - A tool to create and organize maps for text-based games
+ *  Copyright (C) 2026  Neop (email: mneop@web.de)
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License along
+ *  with this program; if not, see <http://www.gnu.org/licenses/>.
+ */
+package mudmap2.frontend.export;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import javax.imageio.ImageIO;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author neop
+ */
+public class PngStreamWriterTest {
+
+    public PngStreamWriterTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Creates test pixels with varying color and alpha
+     * @param width
+     * @param height
+     * @return ARGB pixels
+     */
+    private static int[] createPixels(int width, int height){
+        int[] pixels = new int[width * height];
+        for(int y = 0; y < height; ++y){
+            for(int x = 0; x < width; ++x){
+                int alpha = (x * 37 + y * 11) & 0xff;
+                pixels[y * width + x] = (alpha << 24) | ((x * 13) & 0xff) << 16 | ((y * 7) & 0xff) << 8 | ((x ^ y) & 0xff);
+            }
+        }
+        return pixels;
+    }
+
+    /**
+     * Test of writeRow method, of class PngStreamWriter, with alpha channel.
+     */
+    @Test
+    public void testWriteRowAlpha() throws IOException {
+        System.out.println("writeRowAlpha");
+
+        final int width = 97, height = 61;
+        int[] pixels = createPixels(width, height);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PngStreamWriter instance = new PngStreamWriter(out, width, height, true);
+        for(int y = 0; y < height; ++y){
+            instance.writeRow(pixels, y * width);
+        }
+        assertEquals(height, instance.getRowsWritten());
+        instance.close();
+
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(out.toByteArray()));
+        assertNotNull(image);
+        assertEquals(width, image.getWidth());
+        assertEquals(height, image.getHeight());
+        for(int y = 0; y < height; ++y){
+            for(int x = 0; x < width; ++x){
+                assertEquals(pixels[y * width + x], image.getRGB(x, y));
+            }
+        }
+    }
+
+    /**
+     * Test of writeRow method, of class PngStreamWriter, without alpha channel.
+     */
+    @Test
+    public void testWriteRowOpaque() throws IOException {
+        System.out.println("writeRowOpaque");
+
+        final int width = 50, height = 40;
+        int[] pixels = createPixels(width, height);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PngStreamWriter instance = new PngStreamWriter(out, width, height, false);
+        for(int y = 0; y < height; ++y){
+            instance.writeRow(pixels, y * width);
+        }
+        instance.close();
+
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(out.toByteArray()));
+        assertNotNull(image);
+        for(int y = 0; y < height; ++y){
+            for(int x = 0; x < width; ++x){
+                assertEquals(pixels[y * width + x] | 0xff000000, image.getRGB(x, y));
+            }
+        }
+    }
+
+    /**
+     * Test of close method, of class PngStreamWriter, with missing rows.
+     */
+    @Test
+    public void testCloseIncomplete() throws IOException {
+        System.out.println("closeIncomplete");
+
+        PngStreamWriter instance = new PngStreamWriter(new ByteArrayOutputStream(), 10, 10, true);
+        instance.writeRow(new int[10], 0);
+        try {
+            instance.close();
+            fail("Incomplete image not detected");
+        } catch(IOException ex){
+            // expected
+        }
+    }
+
+    /**
+     * Test of blend method, of class StreamingMapExporter.
+     */
+    @Test
+    public void testBlend() {
+        System.out.println("blend");
+
+        assertEquals(0xff102030, StreamingMapExporter.blend(0x00ffffff, 0xff102030));
+        assertEquals(0xffffffff, StreamingMapExporter.blend(0xffffffff, 0xff102030));
+        assertEquals(0xff808080, StreamingMapExporter.blend(0x80ffffff, 0xff000000));
+    }
+
+}
@@ -0,0 +1,160 @@
+/*  MUD Map (v2) - A tool to create and organize maps for text-based games
+ *  Copyright (C) 2026  Neop (email: mneop@web.de)
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License along
+ *  with this program; if not, see <http://www.gnu.org/licenses/>.
+ */
+package mudmap2.frontend.export;
+
+import java.awt.Color;
+import java.io.ByteArrayInputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import javax.xml.parsers.DocumentBuilderFactory;
+import mudmap2.backend.Layer;
+import mudmap2.backend.Path;
+import mudmap2.backend.Place;
+import mudmap2.backend.PlaceGroup;
+import mudmap2.backend.World;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author neop
+ */
+public class SvgExporterTest {
+
+    World world;
+    Layer layer;
+
+    public SvgExporterTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        world = new World("Unittest");
+        layer = new Layer(world);
+        world.addLayer(layer);
+
+        PlaceGroup group = new PlaceGroup("Group", Color.ORANGE);
+        world.addPlaceGroup(group);
+
+        // a row of places, connected from east to west
+        Place previous = null;
+        for(int x = 0; x < 20; ++x){
+            Place place = new Place("Place <" + x + "> & co", x, x % 3, layer);
+            if(x % 2 == 0) place.setPlaceGroup(group);
+            layer.put(place);
+            if(previous != null) previous.connectPath(new Path(previous, "e", place, "w"));
+            previous = place;
+        }
+        // path with different exit colors
+        world.setPathColor("u", Color.BLUE);
+        Place first = layer.get(0, 0);
+        Place last = layer.get(19, 19 % 3);
+        first.connectPath(new Path(first, "u", last, "s"));
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    private Document parse(String svg) throws Exception {
+        return DocumentBuilderFactory.newInstance().newDocumentBuilder()
+                .parse(new ByteArrayInputStream(svg.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Test of write method, of class SvgExporter.
+     */
+    @Test
+    public void testWrite() throws Exception {
+        System.out.println("write");
+
+        SvgExporter instance = new SvgExporter(layer, 80);
+        instance.setBackgroundColor(Color.WHITE);
+        StringWriter writer = new StringWriter();
+        instance.write(writer);
+        final String svg = writer.toString();
+
+        // well formed, text is escaped
+        Document document = parse(svg);
+        assertEquals("svg", document.getDocumentElement().getNodeName());
+        assertEquals("" + 20 * 80, document.getDocumentElement().getAttribute("width"));
+        assertEquals("" + 3 * 80, document.getDocumentElement().getAttribute("height"));
+        assertTrue(svg.contains("&lt;5&gt;"));
+        assertTrue(svg.contains("&amp;"));
+
+        // background, 10 group colors and 20 tile centers
+        assertEquals(31, document.getElementsByTagName("rect").getLength());
+        // 19 paths in the row and one with a gradient
+        assertEquals(20, document.getElementsByTagName("path").getLength());
+        assertEquals(1, document.getElementsByTagName("linearGradient").getLength());
+        assertEquals(1, document.getElementsByTagName("style").getLength());
+
+        // the colors are written once as class
+        final String orange = SvgExporter.formatColor(Color.ORANGE);
+        assertEquals(svg.indexOf(orange), svg.lastIndexOf(orange));
+        assertEquals(60, instance.getPlacesWritten());
+    }
+
+    /**
+     * Test of setBounds and setShowPaths methods, of class SvgExporter.
+     */
+    @Test
+    public void testBounds() throws Exception {
+        System.out.println("bounds");
+
+        SvgExporter instance = new SvgExporter(layer, 10);
+        instance.setBounds(0, 0, 4, 2);
+        instance.setShowPaths(false);
+        StringWriter writer = new StringWriter();
+        instance.write(writer);
+
+        Document document = parse(writer.toString());
+        assertEquals("50", document.getDocumentElement().getAttribute("width"));
+        assertEquals(0, document.getElementsByTagName("path").getLength());
+        // 3 group colors, tiles too small for text
+        assertEquals(3, document.getElementsByTagName("rect").getLength());
+        assertEquals(0, document.getElementsByTagName("text").getLength());
+    }
+
+    /**
+     * Test of formatNumber method, of class SvgExporter.
+     */
+    @Test
+    public void testFormatNumber() {
+        System.out.println("formatNumber");
+
+        assertEquals("0", SvgExporter.formatNumber(0));
+        assertEquals("1.5", SvgExporter.formatNumber(1.5));
+        assertEquals("-2.25", SvgExporter.formatNumber(-2.249));
+        assertEquals("12345678", SvgExporter.formatNumber(12345678));
+        assertEquals("0.05", SvgExporter.formatNumber(0.05));
+    }
+
+}
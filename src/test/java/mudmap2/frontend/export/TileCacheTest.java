@@ -0,0 +1,121 @@
+/*  MUD Map (v2) - A tool to create and organize maps for text-based games
+ *  Copyright (C) 2026  Neop (email: mneop@web.de)
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License along
+ *  with this program; if not, see <http://www.gnu.org/licenses/>.
+ */
+package mudmap2.frontend.export;
+
+import java.io.File;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author neop
+ */
+public class TileCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    public TileCacheTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of get and put methods in memory, of class TileCache.
+     */
+    @Test
+    public void testMemory() {
+        System.out.println("memory");
+
+        TileCache instance = new TileCache(30);
+        assertNull(instance.get("a"));
+        instance.put("a", new byte[10]);
+        instance.put("b", new byte[10]);
+        instance.put("c", new byte[10]);
+        assertNotNull(instance.get("a"));
+
+        // b is the least recently used tile
+        instance.put("d", new byte[10]);
+        assertNull(instance.get("b"));
+        assertNotNull(instance.get("a"));
+        assertNotNull(instance.get("c"));
+        assertNotNull(instance.get("d"));
+        assertEquals(30, instance.getMemorySize());
+
+        // too large
+        instance.put("e", new byte[31]);
+        assertNull(instance.get("e"));
+
+        assertEquals(4, instance.getMemoryHits());
+        assertEquals(3, instance.getMisses());
+        assertEquals(4.0 / 7, instance.getHitRate(), 0.001);
+    }
+
+    /**
+     * Test of get and put methods on disk, of class TileCache.
+     */
+    @Test
+    public void testDisk() {
+        System.out.println("disk");
+
+        File directory = folder.getRoot();
+        TileCache instance = new TileCache(10, directory, 25);
+        instance.put("a", new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10});
+        instance.put("b", new byte[10]);
+        assertTrue(new File(directory, "a.png").exists());
+
+        // a is read from disk, since b replaced it in memory
+        assertEquals(10, instance.get("a")[9]);
+        assertEquals(1, instance.getDiskHits());
+
+        // b is evicted from disk
+        instance.put("c", new byte[10]);
+        assertFalse(new File(directory, "b.png").exists());
+        assertEquals(2, instance.getDiskTileCount());
+        assertEquals(20, instance.getDiskSize());
+
+        // a new cache uses the files
+        instance = new TileCache(10, directory, 25);
+        assertEquals(2, instance.getDiskTileCount());
+        assertNotNull(instance.get("a"));
+        assertNull(instance.get("b"));
+
+        instance.clear();
+        assertEquals(0, directory.list().length);
+    }
+
+}
@@ -0,0 +1,196 @@
+/*  MUD Map (v2) - A tool to create and organize maps for text-based games
+ *  Copyright (C) 2026  Neop (email: mneop@web.de)
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License along
+ *  with this program; if not, see <http://www.gnu.org/licenses/>.
+ */
+package mudmap2.frontend.export;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.concurrent.ForkJoinPool;
+import javax.imageio.ImageIO;
+import mudmap2.backend.Layer;
+import mudmap2.backend.Path;
+import mudmap2.backend.Place;
+import mudmap2.backend.World;
+import mudmap2.utils.Pair;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author neop
+ */
+public class TilePyramidExporterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    static ForkJoinPool pool;
+
+    World world;
+    Layer layer;
+
+    public TilePyramidExporterTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+        pool = new ForkJoinPool(2);
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+        pool.shutdown();
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        world = new World("Unittest");
+        layer = new Layer(world);
+        world.addLayer(layer);
+
+        // 20x10 places, 32px at the highest zoom: 640x320px, 3x2 tiles
+        for(int x = 0; x < 20; ++x){
+            for(int y = 0; y < 10; y += 3){
+                layer.put(new Place("Place " + x + "_" + y, x, y, layer));
+            }
+        }
+        Place place1 = layer.get(0, 0);
+        Place place2 = layer.get(19, 9);
+        place1.connectPath(new Path(place1, "ne", place2, "sw"));
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    private TilePyramidExporter createExporter(){
+        TilePyramidExporter exporter = new TilePyramidExporter(layer, folder.getRoot());
+        exporter.setMaxTileSize(32);
+        exporter.setZoomLevels(3);
+        return exporter;
+    }
+
+    private int getTileCount(TilePyramidExporter exporter){
+        int count = 0;
+        for(int zoom = 0; zoom < exporter.getZoomLevels(); ++zoom){
+            Pair<Integer, Integer> tiles = exporter.getTileCount(zoom);
+            count += tiles.first * tiles.second;
+        }
+        return count;
+    }
+
+    /**
+     * Test of getPlaceSize and getTileCount methods, of class TilePyramidExporter.
+     */
+    @Test
+    public void testGetTileCount() {
+        System.out.println("getTileCount");
+
+        TilePyramidExporter instance = createExporter();
+        assertEquals(8, instance.getPlaceSize(0));
+        assertEquals(16, instance.getPlaceSize(1));
+        assertEquals(32, instance.getPlaceSize(2));
+
+        int[][] expected = {{1, 1}, {2, 1}, {3, 2}};
+        for(int zoom = 0; zoom < 3; ++zoom){
+            Pair<Integer, Integer> tiles = instance.getTileCount(zoom);
+            assertEquals(expected[zoom][0], (int) tiles.first);
+            assertEquals(expected[zoom][1], (int) tiles.second);
+        }
+    }
+
+    /**
+     * Test of export method, of class TilePyramidExporter.
+     */
+    @Test
+    public void testExport() throws Exception {
+        System.out.println("export");
+
+        TilePyramidExporter instance = createExporter();
+        instance.export(pool);
+        final int tileCount = getTileCount(instance);
+        assertEquals(tileCount, instance.getTilesRendered());
+        assertEquals(0, instance.getTilesSkipped());
+        assertTrue(new File(folder.getRoot(), TilePyramidExporter.MANIFEST_FILE).exists());
+
+        // the tiles are parts of the whole map
+        MapImageRenderer renderer = instance.createRenderer(32, 640, 320);
+        BufferedImage expected = renderer.renderRegion(256, 256, 256, 256);
+        BufferedImage tile = ImageIO.read(new File(folder.getRoot(), "2/1/1.png"));
+        assertEquals(TilePyramidExporter.TILE_SIZE, tile.getWidth());
+        assertEquals(TilePyramidExporter.TILE_SIZE, tile.getHeight());
+        for(int y = 0; y < tile.getHeight(); ++y){
+            for(int x = 0; x < tile.getWidth(); ++x){
+                assertEquals(expected.getRGB(x, y), tile.getRGB(x, y));
+            }
+        }
+
+        // unchanged
+        instance = createExporter();
+        instance.export(pool);
+        assertEquals(0, instance.getTilesRendered());
+        assertEquals(tileCount, instance.getTilesSkipped());
+
+        // a place in the lower right corner changed
+        layer.get(19, 0).setName("Renamed");
+        instance = createExporter();
+        instance.export(pool);
+        assertTrue(instance.getTilesRendered() > 0);
+        assertTrue(instance.getTilesRendered() < tileCount);
+        assertEquals(tileCount, instance.getTilesRendered() + instance.getTilesSkipped());
+        // tile in the upper left corner of the highest zoom level is unchanged
+        assertTrue(new File(folder.getRoot(), "2/0/0.png").exists());
+
+        // forced
+        instance = createExporter();
+        instance.setForce(true);
+        instance.export(pool);
+        assertEquals(tileCount, instance.getTilesRendered());
+    }
+
+    /**
+     * Test of removing tiles in export method, of class TilePyramidExporter.
+     */
+    @Test
+    public void testExportRemoved() throws Exception {
+        System.out.println("exportRemoved");
+
+        TilePyramidExporter instance = createExporter();
+        instance.export(pool);
+        assertTrue(new File(folder.getRoot(), "2/2/0.png").exists());
+
+        // shrink the map to 8x10 places: 256x320px at the highest zoom
+        for(int x = 8; x < 20; ++x){
+            for(int y = 0; y < 10; y += 3){
+                Place place = layer.get(x, y);
+                place.removeConnections();
+                layer.remove(place);
+            }
+        }
+        instance = createExporter();
+        instance.export(pool);
+        assertFalse(new File(folder.getRoot(), "2/2/0.png").exists());
+        assertFalse(new File(folder.getRoot(), "2/1/0.png").exists());
+        assertTrue(instance.getTilesRemoved() > 0);
+    }
+
+}
@@ -0,0 +1,210 @@
+/*  MUD Map (v2) - A tool to create and organize maps for text-based games
+ *  Copyright (C) 2026  Neop (email: mneop@web.de)
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License along
+ *  with this program; if not, see <http://www.gnu.org/licenses/>.
+ */
+package mudmap2.frontend.export;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.imageio.ImageIO;
+import mudmap2.backend.Layer;
+import mudmap2.backend.Path;
+import mudmap2.backend.Place;
+import mudmap2.backend.World;
+import mudmap2.utils.Pair;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author neop
+ */
+public class TileServerTest {
+
+    World world;
+    Layer layer;
+    TileServer server;
+
+    public TileServerTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        world = new World("Unittest");
+        layer = new Layer(world);
+        world.addLayer(layer);
+
+        // 20x10 places, 32px at the highest zoom: 640x320px, 3x2 tiles
+        for(int x = 0; x < 20; ++x){
+            for(int y = 0; y < 10; y += 3){
+                layer.put(new Place("Place " + x + "_" + y, x, y, layer));
+            }
+        }
+        Place place1 = layer.get(0, 0);
+        Place place2 = layer.get(19, 9);
+        place1.connectPath(new Path(place1, "ne", place2, "sw"));
+
+        server = new TileServer(world, new TileCache(TileCache.DEFAULT_MEMORY_SIZE));
+        server.setMaxTileSize(32);
+        server.setZoomLevels(3);
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+    }
+
+    /**
+     * Test of getTile method, of class TileServer.
+     */
+    @Test
+    public void testGetTile() throws Exception {
+        System.out.println("getTile");
+
+        server.world.addChangeListener(server);
+        Pair<String, byte[]> tile = server.getTile(layer.getId(), 2, 1, 1);
+        assertNotNull(tile);
+        assertEquals(1, server.getTilesRendered());
+
+        // same image as the tile export
+        TilePyramidExporter exporter = new TilePyramidExporter(layer, new java.io.File("."));
+        exporter.setMaxTileSize(32);
+        exporter.setZoomLevels(3);
+        BufferedImage expected = exporter.createRenderer(32, 640, 320).renderRegion(256, 256, 256, 256);
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(tile.second));
+        for(int y = 0; y < image.getHeight(); ++y){
+            for(int x = 0; x < image.getWidth(); ++x){
+                assertEquals(expected.getRGB(x, y), image.getRGB(x, y));
+            }
+        }
+
+        // cached
+        assertEquals(tile.first, server.getTile(layer.getId(), 2, 1, 1).first);
+        assertEquals(1, server.getTilesRendered());
+        assertEquals(1, server.getCache().getMemoryHits());
+
+        // not part of the layer
+        assertNull(server.getTile(layer.getId(), 2, 3, 0));
+        assertNull(server.getTile(layer.getId(), 3, 0, 0));
+        assertNull(server.getTile(layer.getId() + 1, 0, 0, 0));
+
+        // a change in another tile creates a new snapshot, the tile stays cached
+        layer.get(19, 0).setName("Renamed");
+        assertEquals(tile.first, server.getTile(layer.getId(), 2, 1, 1).first);
+        assertEquals(2, server.getSnapshotsCreated());
+        assertEquals(1, server.getTilesRendered());
+
+        // a change in the tile
+        layer.get(9, 0).setName("Renamed");
+        Pair<String, byte[]> tileNew = server.getTile(layer.getId(), 2, 1, 1);
+        assertFalse(tile.first.equals(tileNew.first));
+        assertEquals(2, server.getTilesRendered());
+        assertEquals(1.0 / 2, server.getCache().getHitRate(), 0.001);
+    }
+
+    /**
+     * Test of parallel requests, of class TileServer.
+     */
+    @Test
+    public void testGetTileParallel() throws Exception {
+        System.out.println("getTileParallel");
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            ArrayList<Future<Pair<String, byte[]>>> futures = new ArrayList<>();
+            for(int i = 0; i < 16; ++i){
+                final int column = i % 2;
+                futures.add(executor.submit(new Callable<Pair<String, byte[]>>() {
+                    @Override
+                    public Pair<String, byte[]> call() throws Exception {
+                        return server.getTile(layer.getId(), 1, column, 0);
+                    }
+                }));
+            }
+            for(int i = 0; i < futures.size(); ++i){
+                assertEquals(futures.get(i % 2).get().first, futures.get(i).get().first);
+            }
+        } finally {
+            executor.shutdown();
+        }
+        // each tile is rendered once
+        assertEquals(2, server.getTilesRendered());
+        assertEquals(1, server.getSnapshotsCreated());
+    }
+
+    /**
+     * Test of the HTTP interface, of class TileServer.
+     */
+    @Test
+    public void testHttp() throws Exception {
+        System.out.println("http");
+
+        server.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 2);
+        final String base = "http://127.0.0.1:" + server.getPort();
+
+        HttpURLConnection connection = (HttpURLConnection) new URL(base + "/world/" + layer.getId() + "/0/0/0.png").openConnection();
+        assertEquals(200, connection.getResponseCode());
+        assertEquals("image/png", connection.getContentType());
+        final String etag = connection.getHeaderField("ETag");
+        try (InputStream in = connection.getInputStream()) {
+            BufferedImage image = ImageIO.read(in);
+            assertEquals(TileGrid.TILE_SIZE, image.getWidth());
+        }
+
+        // unchanged tile
+        connection = (HttpURLConnection) new URL(base + "/world/" + layer.getId() + "/0/0/0.png").openConnection();
+        connection.setRequestProperty("If-None-Match", etag);
+        assertEquals(304, connection.getResponseCode());
+
+        assertEquals(404, getResponseCode(base + "/world/" + layer.getId() + "/0/5/0.png"));
+        assertEquals(404, getResponseCode(base + "/world/x/0/0/0.png"));
+        assertEquals(200, getResponseCode(base + "/world"));
+        assertEquals(200, getResponseCode(base + "/metrics"));
+
+        server.stop();
+        assertFalse(server.isRunning());
+    }
+
+    private int getResponseCode(String url) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        final int ret = connection.getResponseCode();
+        connection.disconnect();
+        return ret;
+    }
+
+}
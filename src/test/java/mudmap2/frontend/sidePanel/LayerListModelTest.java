@@ -0,0 +1,136 @@
+/*  MUD Map (v2) - A tool to create and organize maps for text-based games
+ *  Copyright (C) 2026  Neop (email: mneop@web.de)
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License along
+ *  with this program; if not, see <http://www.gnu.org/licenses/>.
+ */
+package mudmap2.frontend.sidePanel;
+
+import java.util.ArrayList;
+import mudmap2.backend.Layer;
+import mudmap2.backend.World;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author neop
+ */
+public class LayerListModelTest {
+
+    World world;
+    LayerListModel instance;
+
+    public LayerListModelTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+        world = new World("Unittest");
+        String[] names = {"Forest 10", "Forest 2", "Dark Cave", "Castle", "Town"};
+        for(String name: names){
+            world.getNewLayer(name);
+        }
+        instance = new LayerListModel();
+        instance.setLayers(world.getLayers());
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    private ArrayList<String> getNames(){
+        ArrayList<String> ret = new ArrayList<>();
+        for(int i = 0; i < instance.getSize(); ++i){
+            ret.add(instance.getElementAt(i).getName());
+        }
+        return ret;
+    }
+
+    /**
+     * Test of setLayers method, of class LayerListModel.
+     */
+    @Test
+    public void testSetLayers() {
+        System.out.println("setLayers");
+
+        assertEquals(5, instance.getSize());
+        // sorted alphanumerically
+        assertEquals("[Castle, Dark Cave, Forest 2, Forest 10, Town]", getNames().toString());
+
+        // filter is kept
+        instance.setFilter("forest");
+        world.getNewLayer("Forest 1");
+        instance.setLayers(world.getLayers());
+        assertEquals("[Forest 1, Forest 2, Forest 10]", getNames().toString());
+    }
+
+    /**
+     * Test of setFilter method, of class LayerListModel.
+     */
+    @Test
+    public void testSetFilter() {
+        System.out.println("setFilter");
+
+        instance.setFilter("CA");
+        assertEquals("[Castle, Dark Cave]", getNames().toString());
+        // typing narrows the result
+        instance.setFilter("cas");
+        assertEquals("[Castle]", getNames().toString());
+        // deleting widens it again
+        instance.setFilter("ca");
+        assertEquals("[Castle, Dark Cave]", getNames().toString());
+        // any keyword matches
+        instance.setFilter("town cave ");
+        assertEquals("[Dark Cave, Town]", getNames().toString());
+        instance.setFilter("town cavern");
+        assertEquals("[Town]", getNames().toString());
+        instance.setFilter("  ");
+        assertEquals(5, instance.getSize());
+        instance.setFilter("dungeon");
+        assertEquals(0, instance.getSize());
+
+        Layer town = world.getLayers().toArray(new Layer[0])[4];
+        assertEquals(-1, instance.indexOf(town));
+        instance.setFilter(null);
+        assertEquals(4, instance.indexOf(town));
+    }
+
+    /**
+     * Test of isNarrowing method, of class LayerListModel.
+     */
+    @Test
+    public void testIsNarrowing() {
+        System.out.println("isNarrowing");
+
+        assertTrue(LayerListModel.isNarrowing(new String[0], new String[]{"a"}));
+        assertTrue(LayerListModel.isNarrowing(new String[]{"ca"}, new String[]{"cas"}));
+        assertTrue(LayerListModel.isNarrowing(new String[]{"a", "b"}, new String[]{"ab"}));
+        assertFalse(LayerListModel.isNarrowing(new String[]{"cas"}, new String[]{"ca"}));
+        assertFalse(LayerListModel.isNarrowing(new String[]{"a"}, new String[]{"a", "b"}));
+        assertFalse(LayerListModel.isNarrowing(new String[]{"a"}, new String[0]));
+    }
+
+}